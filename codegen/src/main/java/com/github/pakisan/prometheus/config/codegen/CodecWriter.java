@@ -0,0 +1,310 @@
+package com.github.pakisan.prometheus.config.codegen;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes codec source of a configuration class.
+ * <p>
+ * Lists and maps are read and written by private helpers generated once per distinct shape, like
+ * {@code readMapOfListOfString}, so every generated method stays small and monomorphic.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+final class CodecWriter {
+
+    private final ConfigClass configClass;
+
+    private final ProcessingEnvironment processingEnv;
+
+    /**
+     * Constants of enums used by the class, by shape.
+     */
+    private final Map<String, ConfigType> enums = new LinkedHashMap<>();
+
+    /**
+     * Lists and maps used by the class, by shape.
+     */
+    private final Map<String, ConfigType> containers = new LinkedHashMap<>();
+
+    private final List<ConfigType> pendingContainers = new ArrayList<>();
+
+    /**
+     * Keys and types of fields and constants of enums, see {@link #schema()}.
+     */
+    private final StringBuilder schema = new StringBuilder();
+
+    CodecWriter(ConfigClass configClass, ProcessingEnvironment processingEnv) {
+        this.configClass = configClass;
+        this.processingEnv = processingEnv;
+    }
+
+    void write() throws IOException {
+        String type = configClass.name();
+        String codec = configClass.codecName();
+
+        StringBuilder read = new StringBuilder();
+        StringBuilder write = new StringBuilder();
+        schema.append(configClass.binaryName()).append('{');
+        for (ConfigClass.Field field : configClass.fields()) {
+            ConfigType fieldType = ConfigType.of(field.type(), processingEnv);
+            readField(read, field, fieldType);
+            writeField(write, field, fieldType);
+            schema.append(field.key()).append(':').append(fieldType.javaType()).append(';');
+        }
+
+        StringBuilder helpers = new StringBuilder();
+        // helpers register nested containers while being written
+        for (int i = 0; i < pendingContainers.size(); i++) {
+            ConfigType container = pendingContainers.get(i);
+            if (container.kind() == ConfigType.Kind.LIST) {
+                listHelpers(helpers, container);
+            } else {
+                mapHelpers(helpers, container);
+            }
+        }
+
+        for (ConfigType enumType : enums.values()) {
+            schema.append(enumType.javaType()).append(enumType.constants());
+        }
+        schema.append('}');
+
+        String name = ConfigCodecProcessor.CODEC_PACKAGE + "." + codec;
+        try (PrintWriter out = new PrintWriter(
+                processingEnv.getFiler().createSourceFile(name, configClass.element()).openWriter()
+        )) {
+            out.println("package " + ConfigCodecProcessor.CODEC_PACKAGE + ";");
+            out.println();
+            out.println("// Generated by " + ConfigCodecProcessor.class.getName());
+            out.println("final class " + codec + " implements ConfigCodec<" + type + "> {");
+            out.println();
+            out.println("    static final " + codec + " INSTANCE = new " + codec + "();");
+            out.println();
+            out.println("    private static final " + type + " DEFAULTS = new " + type + "();");
+            for (Map.Entry<String, ConfigType> constants : enums.entrySet()) {
+                String enumType = constants.getValue().javaType();
+                out.println();
+                out.println("    private static final " + enumType + "[] " + constants.getKey() + " = " + enumType + ".values();");
+            }
+            out.println();
+            out.println("    private " + codec + "() {");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public Class<" + type + "> type() {");
+            out.println("        return " + type + ".class;");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public " + type + " newInstance() {");
+            out.println("        return new " + type + "();");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public " + type + " read(ConfigInput in) {");
+            out.println("        if (in.readNull()) {");
+            out.println("            return null;");
+            out.println("        }");
+            out.println();
+            out.println("        " + type + " config = new " + type + "();");
+            out.println("        in.beginObject();");
+            out.println("        String field;");
+            out.println("        while ((field = in.nextField()) != null) {");
+            out.println("            readField(in, config, field);");
+            out.println("        }");
+            out.println();
+            out.println("        return config;");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public void readField(ConfigInput in, " + type + " config, String field) {");
+            out.println("        switch (field) {");
+            out.print(read);
+            out.println("            default:");
+            out.println("                throw in.unknownField(field, " + type + ".class);");
+            out.println("        }");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public void write(ConfigOutput out, " + type + " value) throws java.io.IOException {");
+            out.println("        out.beginObject();");
+            out.print(write);
+            out.println("        out.endObject();");
+            out.println("    }");
+            out.print(helpers);
+            out.println();
+            out.println("}");
+        }
+    }
+
+    /**
+     * @return description of the class, which changes whenever a key, a type or an enum constant changes
+     */
+    String schema() {
+        return schema.toString();
+    }
+
+    private void readField(StringBuilder out, ConfigClass.Field field, ConfigType type) {
+        out.append("            case \"").append(field.key()).append("\":\n");
+        if (type.isPrimitive()) {
+            out.append("                if (!in.readNull()) {\n");
+            out.append("                    config.").append(field.setter()).append("(in.read").append(type.scalarMethod()).append("());\n");
+            out.append("                }\n");
+        } else {
+            out.append("                config.").append(field.setter()).append("(").append(readValue(type)).append(");\n");
+        }
+        out.append("                break;\n");
+    }
+
+    private void writeField(StringBuilder out, ConfigClass.Field field, ConfigType type) {
+        String value = "value." + field.getter() + "()";
+        String defaultValue = "DEFAULTS." + field.getter() + "()";
+        if (type.isPrimitive()) {
+            switch (type.kind()) {
+                case FLOAT:
+                    out.append("        if (Float.compare(").append(value).append(", ").append(defaultValue).append(") != 0) {\n");
+                    break;
+                case DOUBLE:
+                    out.append("        if (Double.compare(").append(value).append(", ").append(defaultValue).append(") != 0) {\n");
+                    break;
+                default:
+                    out.append("        if (").append(value).append(" != ").append(defaultValue).append(") {\n");
+            }
+            out.append("            out.field(\"").append(field.key()).append("\");\n");
+            out.append("            out.write").append(type.scalarMethod()).append("(").append(value).append(");\n");
+            out.append("        }\n");
+            return;
+        }
+
+        out.append("        {\n");
+        out.append("            ").append(type.javaType()).append(" v = ").append(value).append(";\n");
+        out.append("            if (v != null && !v.equals(").append(defaultValue).append(")) {\n");
+        out.append("                out.field(\"").append(field.key()).append("\");\n");
+        out.append("                ").append(writeValue(type, "v")).append("\n");
+        out.append("            }\n");
+        out.append("        }\n");
+    }
+
+    /**
+     * @return expression reading a value which may be null
+     */
+    private String readValue(ConfigType type) {
+        switch (type.kind()) {
+            case STRING:
+                return "in.readString()";
+            case ENUM:
+                return "in.readEnum(" + enumConstants(type) + ")";
+            case CONFIG:
+                return type.codec() + ".INSTANCE.read(in)";
+            case LIST:
+            case MAP:
+                return "read" + container(type) + "(in)";
+            default:
+                return "in.readNull() ? null : " + type.javaType() + ".valueOf(in.read" + type.scalarMethod() + "())";
+        }
+    }
+
+    /**
+     * @return statement writing not null value
+     */
+    private String writeValue(ConfigType type, String value) {
+        switch (type.kind()) {
+            case CONFIG:
+                return type.codec() + ".INSTANCE.write(out, " + value + ");";
+            case LIST:
+            case MAP:
+                return "write" + container(type) + "(out, " + value + ");";
+            default:
+                return "out.write" + type.scalarMethod() + "(" + value + ");";
+        }
+    }
+
+    private void listHelpers(StringBuilder out, ConfigType type) {
+        ConfigType item = type.item();
+        String shape = type.shape();
+        out.append('\n');
+        out.append("    private static ").append(type.javaType()).append(" read").append(shape).append("(ConfigInput in) {\n");
+        out.append("        if (in.readNull()) {\n");
+        out.append("            return null;\n");
+        out.append("        }\n");
+        out.append('\n');
+        out.append("        java.util.ArrayList<").append(item.javaType()).append("> values = new java.util.ArrayList<>();\n");
+        out.append("        in.beginList();\n");
+        out.append("        while (in.hasNext()) {\n");
+        out.append("            values.add(").append(readValue(item)).append(");\n");
+        out.append("        }\n");
+        out.append('\n');
+        out.append("        values.trimToSize();\n");
+        out.append("        return values;\n");
+        out.append("    }\n");
+        out.append('\n');
+        out.append("    private static void write").append(shape).append("(ConfigOutput out, ").append(type.javaType())
+                .append(" values) throws java.io.IOException {\n");
+        out.append("        out.beginList(values.size());\n");
+        out.append("        for (").append(item.javaType()).append(" value : values) {\n");
+        out.append("            if (value == null) {\n");
+        out.append("                out.writeNull();\n");
+        out.append("            } else {\n");
+        out.append("                ").append(writeValue(item, "value")).append('\n');
+        out.append("            }\n");
+        out.append("        }\n");
+        out.append("        out.endList();\n");
+        out.append("    }\n");
+    }
+
+    private void mapHelpers(StringBuilder out, ConfigType type) {
+        ConfigType item = type.item();
+        String shape = type.shape();
+        out.append('\n');
+        out.append("    private static ").append(type.javaType()).append(" read").append(shape).append("(ConfigInput in) {\n");
+        out.append("        if (in.readNull()) {\n");
+        out.append("            return null;\n");
+        out.append("        }\n");
+        out.append('\n');
+        out.append("        ").append(type.javaType()).append(" values = new java.util.LinkedHashMap<>();\n");
+        out.append("        in.beginMap();\n");
+        out.append("        String key;\n");
+        out.append("        while ((key = in.nextKey()) != null) {\n");
+        out.append("            values.put(key, ").append(readValue(item)).append(");\n");
+        out.append("        }\n");
+        out.append('\n');
+        out.append("        return values;\n");
+        out.append("    }\n");
+        out.append('\n');
+        out.append("    private static void write").append(shape).append("(ConfigOutput out, ").append(type.javaType())
+                .append(" values) throws java.io.IOException {\n");
+        out.append("        out.beginMap(values.size());\n");
+        out.append("        for (String key : CodecSupport.sortedKeys(values)) {\n");
+        out.append("            ").append(item.javaType()).append(" value = values.get(key);\n");
+        out.append("            out.key(key);\n");
+        out.append("            if (value == null) {\n");
+        out.append("                out.writeNull();\n");
+        out.append("            } else {\n");
+        out.append("                ").append(writeValue(item, "value")).append('\n');
+        out.append("            }\n");
+        out.append("        }\n");
+        out.append("        out.endMap();\n");
+        out.append("    }\n");
+    }
+
+    private String enumConstants(ConfigType type) {
+        String name = "VALUES_OF_" + type.shape();
+        enums.putIfAbsent(name, type);
+        return name;
+    }
+
+    private String container(ConfigType type) {
+        if (containers.putIfAbsent(type.shape(), type) == null) {
+            pendingContainers.add(type);
+        }
+
+        return type.shape();
+    }
+
+}
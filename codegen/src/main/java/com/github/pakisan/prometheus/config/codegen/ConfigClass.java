@@ -0,0 +1,166 @@
+package com.github.pakisan.prometheus.config.codegen;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuration class: a Lombok {@code @Data} class whose fields are named like the keys they describe,
+ * unless the key is given by {@code @ConfigKey}.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+final class ConfigClass {
+
+    private static final String CONFIG_KEY = "com.github.pakisan.prometheus.config.codec.ConfigKey";
+
+    private final TypeElement element;
+
+    private final String binaryName;
+
+    private final String codecName;
+
+    private final List<Field> fields;
+
+    ConfigClass(TypeElement element, ProcessingEnvironment processingEnv) {
+        this.element = element;
+        this.binaryName = processingEnv.getElementUtils().getBinaryName(element).toString();
+        this.codecName = codecName(element);
+
+        List<Field> fields = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(element.getEnclosedElements())) {
+            if (field.getModifiers().contains(Modifier.STATIC) || field.getModifiers().contains(Modifier.TRANSIENT)) {
+                continue;
+            }
+
+            fields.add(new Field(field));
+        }
+
+        this.fields = Collections.unmodifiableList(fields);
+    }
+
+    static String codecName(TypeElement element) {
+        return flatName(element) + "Codec";
+    }
+
+    /**
+     * Simple names of the type and the types enclosing it, like KubernetesSdConfigNamespaces.
+     */
+    static String flatName(TypeElement element) {
+        StringBuilder name = new StringBuilder();
+        Element current = element;
+        while (current.getKind().isClass() || current.getKind().isInterface()) {
+            name.insert(0, current.getSimpleName());
+            current = current.getEnclosingElement();
+        }
+
+        return name.toString();
+    }
+
+    TypeElement element() {
+        return element;
+    }
+
+    /**
+     * @return canonical name, to be used in sources
+     */
+    String name() {
+        return element.getQualifiedName().toString();
+    }
+
+    /**
+     * @return binary name, as returned by {@link Class#getName()}
+     */
+    String binaryName() {
+        return binaryName;
+    }
+
+    String codecName() {
+        return codecName;
+    }
+
+    List<Field> fields() {
+        return fields;
+    }
+
+    /**
+     * Configuration field with Lombok accessors.
+     */
+    static final class Field {
+
+        private final VariableElement element;
+
+        private final String name;
+
+        private final String key;
+
+        private Field(VariableElement element) {
+            this.element = element;
+            this.name = element.getSimpleName().toString();
+            this.key = key(element, name);
+        }
+
+        private static String key(VariableElement element, String name) {
+            for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+                TypeElement type = (TypeElement) annotation.getAnnotationType().asElement();
+                if (!type.getQualifiedName().contentEquals(CONFIG_KEY)) {
+                    continue;
+                }
+
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value : annotation.getElementValues().entrySet()) {
+                    if (value.getKey().getSimpleName().contentEquals("value")) {
+                        return value.getValue().getValue().toString();
+                    }
+                }
+            }
+
+            return name;
+        }
+
+        VariableElement element() {
+            return element;
+        }
+
+        String name() {
+            return name;
+        }
+
+        /**
+         * @return key the field is read from and written to
+         */
+        String key() {
+            return key;
+        }
+
+        TypeMirror type() {
+            return element.asType();
+        }
+
+        String getter() {
+            return (type().getKind() == TypeKind.BOOLEAN ? "is" : "get") + capitalized();
+        }
+
+        String setter() {
+            return "set" + capitalized();
+        }
+
+        private String capitalized() {
+            return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        }
+
+    }
+
+}
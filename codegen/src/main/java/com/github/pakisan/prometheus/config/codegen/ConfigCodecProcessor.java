@@ -0,0 +1,187 @@
+package com.github.pakisan.prometheus.config.codegen;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Generates a codec and a validator for every configuration class.
+ * <p>
+ * Configuration classes are plain Lombok {@code @Data} classes annotated with {@code @Configuration}, whose fields are
+ * named like the keys they describe, so generated codecs read and write fields through Lombok accessors and never
+ * fall back to reflection. Processor is keyed on {@code @Configuration} rather than on {@code @Data}, which Lombok
+ * claims, so it finds configuration classes whichever processor runs first.
+ * <p>
+ * Codecs are generated into {@value #CODEC_PACKAGE} along with {@code GeneratedConfigCodecs},
+ * which resolves them by class name and holds hash of the schema of all configuration classes.
+ * <p>
+ * Validators check Bean Validation constraints of fields, list items and map keys and values. They are generated
+ * into {@value ValidatorWriter#VALIDATOR_PACKAGE} along with {@code GeneratedConfigValidators}, which resolves them
+ * by class name.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+@SupportedAnnotationTypes(ConfigCodecProcessor.CONFIGURATION)
+public class ConfigCodecProcessor extends AbstractProcessor {
+
+    static final String CODEC_PACKAGE = "com.github.pakisan.prometheus.config.codec";
+
+    static final String CONFIGURATION = "com.github.pakisan.prometheus.config.codec.Configuration";
+
+    private final List<ConfigClass> generated = new ArrayList<>();
+
+    /**
+     * Schemas of configuration classes by binary name, sorted to hash them independently of the order of sources.
+     */
+    private final Map<String, String> schemas = new TreeMap<>();
+
+    private boolean registryWritten;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        List<ConfigClass> round = new ArrayList<>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.CLASS) {
+                    round.add(new ConfigClass((TypeElement) element, processingEnv));
+                }
+            }
+        }
+
+        if (round.isEmpty()) {
+            return false;
+        }
+
+        if (registryWritten) {
+            processingEnv.getMessager().printMessage(
+                    Diagnostic.Kind.ERROR, "configuration classes must not be generated by other processors", round.get(0).element()
+            );
+            return false;
+        }
+
+        try {
+            for (ConfigClass configClass : round) {
+                CodecWriter writer = new CodecWriter(configClass, processingEnv);
+                writer.write();
+                schemas.put(configClass.binaryName(), writer.schema());
+                new ValidatorWriter(configClass, processingEnv).write();
+            }
+
+            generated.addAll(round);
+            writeRegistry();
+            writeValidatorRegistry();
+            registryWritten = true;
+        } catch (IOException | IllegalArgumentException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "can not generate codecs: " + e.getMessage());
+        }
+
+        return false;
+    }
+
+    /**
+     * Registry resolves codecs by binary class name, so that only used codecs are ever loaded.
+     */
+    private void writeRegistry() throws IOException {
+        String name = CODEC_PACKAGE + ".GeneratedConfigCodecs";
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(name, origins()).openWriter())) {
+            out.println("package " + CODEC_PACKAGE + ";");
+            out.println();
+            out.println("// Generated by " + getClass().getName());
+            out.println("final class GeneratedConfigCodecs {");
+            out.println();
+            out.println("    static final long SCHEMA = 0x" + Long.toHexString(schemaHash()) + "L;");
+            out.println();
+            out.println("    private GeneratedConfigCodecs() {");
+            out.println("    }");
+            out.println();
+            out.println("    static ConfigCodec<?> forName(String name) {");
+            out.println("        switch (name) {");
+            for (ConfigClass configClass : generated) {
+                out.println("            case \"" + configClass.binaryName() + "\":");
+                out.println("                return " + configClass.codecName() + ".INSTANCE;");
+            }
+            out.println("            default:");
+            out.println("                return null;");
+            out.println("        }");
+            out.println("    }");
+            out.println();
+            out.println("}");
+        }
+    }
+
+    /**
+     * Registry resolves validators by binary class name, like the codec registry does, and casts configuration
+     * to its own class, so callers need no unchecked cast.
+     */
+    private void writeValidatorRegistry() throws IOException {
+        String name = ValidatorWriter.VALIDATOR_PACKAGE + ".GeneratedConfigValidators";
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(name, origins()).openWriter())) {
+            out.println("package " + ValidatorWriter.VALIDATOR_PACKAGE + ";");
+            out.println();
+            out.println("// Generated by " + getClass().getName());
+            out.println("final class GeneratedConfigValidators {");
+            out.println();
+            out.println("    private GeneratedConfigValidators() {");
+            out.println("    }");
+            out.println();
+            out.println("    static boolean validate(Object value, ValidationContext context) {");
+            out.println("        switch (value.getClass().getName()) {");
+            for (ConfigClass configClass : generated) {
+                out.println("            case \"" + configClass.binaryName() + "\":");
+                out.println("                " + ValidatorWriter.validatorName(configClass) + ".INSTANCE.validate(("
+                        + configClass.name() + ") value, context);");
+                out.println("                return true;");
+            }
+            out.println("            default:");
+            out.println("                return false;");
+            out.println("        }");
+            out.println("    }");
+            out.println();
+            out.println("}");
+        }
+    }
+
+    private Element[] origins() {
+        Element[] origins = new Element[generated.size()];
+        for (int i = 0; i < origins.length; i++) {
+            origins[i] = generated.get(i).element();
+        }
+
+        return origins;
+    }
+
+    /**
+     * 64-bit FNV-1a of schemas of all configuration classes.
+     */
+    private long schemaHash() {
+        long hash = 0xcbf29ce484222325L;
+        for (String schema : schemas.values()) {
+            for (byte b : schema.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b & 0xFF;
+                hash *= 0x100000001b3L;
+            }
+        }
+
+        return hash;
+    }
+
+}
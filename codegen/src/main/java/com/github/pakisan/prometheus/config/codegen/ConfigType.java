@@ -0,0 +1,242 @@
+package com.github.pakisan.prometheus.config.codegen;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Type of configuration field, or of an item of a list or map field.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+final class ConfigType {
+
+    enum Kind {
+        STRING,
+        BOOLEAN,
+        INT,
+        LONG,
+        FLOAT,
+        DOUBLE,
+        ENUM,
+        CONFIG,
+        LIST,
+        MAP
+    }
+
+    private final Kind kind;
+
+    private final boolean primitive;
+
+    /**
+     * Enum or configuration class.
+     */
+    private final TypeElement element;
+
+    /**
+     * Item of list or value of map.
+     */
+    private final ConfigType item;
+
+    /**
+     * Constraints declared on the type, like {@code List<@Pattern(regexp = "...") String>}.
+     */
+    private final List<Constraint> constraints;
+
+    /**
+     * Constraints of keys of map.
+     */
+    private final List<Constraint> keyConstraints;
+
+    private ConfigType(Kind kind, boolean primitive, TypeElement element, ConfigType item, TypeMirror type) {
+        this(kind, primitive, element, item, type, Collections.<Constraint>emptyList());
+    }
+
+    private ConfigType(Kind kind, boolean primitive, TypeElement element, ConfigType item, TypeMirror type,
+                       List<Constraint> keyConstraints) {
+        this.kind = kind;
+        this.primitive = primitive;
+        this.element = element;
+        this.item = item;
+        this.constraints = Constraint.of(type.getAnnotationMirrors());
+        this.keyConstraints = keyConstraints;
+    }
+
+    static ConfigType of(TypeMirror type, ProcessingEnvironment processingEnv) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return new ConfigType(Kind.BOOLEAN, true, null, null, type);
+            case INT:
+                return new ConfigType(Kind.INT, true, null, null, type);
+            case LONG:
+                return new ConfigType(Kind.LONG, true, null, null, type);
+            case FLOAT:
+                return new ConfigType(Kind.FLOAT, true, null, null, type);
+            case DOUBLE:
+                return new ConfigType(Kind.DOUBLE, true, null, null, type);
+            case DECLARED:
+                break;
+            default:
+                throw new IllegalArgumentException("unsupported configuration type " + type);
+        }
+
+        DeclaredType declared = (DeclaredType) type;
+        TypeElement element = (TypeElement) declared.asElement();
+        List<? extends TypeMirror> arguments = declared.getTypeArguments();
+        switch (element.getQualifiedName().toString()) {
+            case "java.lang.String":
+                return new ConfigType(Kind.STRING, false, null, null, type);
+            case "java.lang.Boolean":
+                return new ConfigType(Kind.BOOLEAN, false, null, null, type);
+            case "java.lang.Integer":
+                return new ConfigType(Kind.INT, false, null, null, type);
+            case "java.lang.Long":
+                return new ConfigType(Kind.LONG, false, null, null, type);
+            case "java.lang.Float":
+                return new ConfigType(Kind.FLOAT, false, null, null, type);
+            case "java.lang.Double":
+                return new ConfigType(Kind.DOUBLE, false, null, null, type);
+            case "java.util.List":
+                return new ConfigType(Kind.LIST, false, null, of(arguments.get(0), processingEnv), type);
+            case "java.util.Map":
+                TypeElement key = (TypeElement) processingEnv.getTypeUtils().asElement(arguments.get(0));
+                if (!key.getQualifiedName().contentEquals("java.lang.String")) {
+                    throw new IllegalArgumentException("unsupported map key " + arguments.get(0));
+                }
+
+                return new ConfigType(
+                        Kind.MAP, false, null, of(arguments.get(1), processingEnv), type,
+                        Constraint.of(arguments.get(0).getAnnotationMirrors())
+                );
+            default:
+                return new ConfigType(element.getKind() == ElementKind.ENUM ? Kind.ENUM : Kind.CONFIG, false, element, null, type);
+        }
+    }
+
+    Kind kind() {
+        return kind;
+    }
+
+    boolean isPrimitive() {
+        return primitive;
+    }
+
+    boolean isContainer() {
+        return kind == Kind.LIST || kind == Kind.MAP;
+    }
+
+    ConfigType item() {
+        return item;
+    }
+
+    List<Constraint> constraints() {
+        return constraints;
+    }
+
+    List<Constraint> keyConstraints() {
+        return keyConstraints;
+    }
+
+    /**
+     * @return configuration class
+     */
+    TypeElement element() {
+        return element;
+    }
+
+    /**
+     * @return codec of configuration class
+     */
+    String codec() {
+        return ConfigClass.codecName(element);
+    }
+
+    /**
+     * @return names of enum constants, in order of declaration
+     */
+    List<String> constants() {
+        List<String> constants = new ArrayList<>();
+        for (Element constant : element.getEnclosedElements()) {
+            if (constant.getKind() == ElementKind.ENUM_CONSTANT) {
+                constants.add(constant.getSimpleName().toString());
+            }
+        }
+
+        return constants;
+    }
+
+    /**
+     * @return type as written in sources, without type annotations
+     */
+    String javaType() {
+        switch (kind) {
+            case STRING:
+                return "String";
+            case BOOLEAN:
+                return primitive ? "boolean" : "Boolean";
+            case INT:
+                return primitive ? "int" : "Integer";
+            case LONG:
+                return primitive ? "long" : "Long";
+            case FLOAT:
+                return primitive ? "float" : "Float";
+            case DOUBLE:
+                return primitive ? "double" : "Double";
+            case LIST:
+                return "java.util.List<" + item.javaType() + ">";
+            case MAP:
+                return "java.util.Map<String, " + item.javaType() + ">";
+            default:
+                return element.getQualifiedName().toString();
+        }
+    }
+
+    /**
+     * @return name of the type to be used in names of generated members, like ListOfString
+     */
+    String shape() {
+        switch (kind) {
+            case LIST:
+                return "ListOf" + item.shape();
+            case MAP:
+                return "MapOf" + item.shape();
+            case ENUM:
+            case CONFIG:
+                return ConfigClass.flatName(element);
+            default:
+                return javaType().substring(0, 1).toUpperCase() + javaType().substring(1);
+        }
+    }
+
+    /**
+     * @return name of the {@code ConfigInput} and {@code ConfigOutput} methods of scalar type, like Int for readInt
+     */
+    String scalarMethod() {
+        switch (kind) {
+            case STRING:
+                return "String";
+            case BOOLEAN:
+                return "Boolean";
+            case INT:
+                return "Int";
+            case LONG:
+                return "Long";
+            case FLOAT:
+                return "Float";
+            case DOUBLE:
+                return "Double";
+            case ENUM:
+                return "Enum";
+            default:
+                throw new IllegalStateException(kind + " is not a scalar");
+        }
+    }
+
+}
@@ -0,0 +1,160 @@
+package com.github.pakisan.prometheus.config.codegen;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bean Validation constraint of a field, or of an item, a key or a value of a container field,
+ * like {@code Map<@Pattern(regexp = "...") String, String>}.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+final class Constraint {
+
+    private static final String CONSTRAINTS_PACKAGE = "javax.validation.constraints.";
+
+    enum Kind {
+        NOT_NULL("must not be null"),
+        NOT_EMPTY("must not be empty"),
+        NOT_BLANK("must not be blank"),
+        PATTERN(null);
+
+        private final String message;
+
+        Kind(String message) {
+            this.message = message;
+        }
+    }
+
+    private final Kind kind;
+
+    /**
+     * Regular expression of {@link Kind#PATTERN}.
+     */
+    private final String regexp;
+
+    private final String message;
+
+    private Constraint(Kind kind, String regexp, String message) {
+        this.kind = kind;
+        this.regexp = regexp;
+        this.message = message;
+    }
+
+    /**
+     * @param annotations annotations of a field or of a type
+     * @return constraints among the annotations
+     * @throws IllegalArgumentException if a constraint is not supported
+     */
+    static List<Constraint> of(List<? extends AnnotationMirror> annotations) {
+        if (annotations.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Constraint> constraints = new ArrayList<>();
+        for (AnnotationMirror annotation : annotations) {
+            String name = ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+            if (!name.startsWith(CONSTRAINTS_PACKAGE)) {
+                continue;
+            }
+
+            Kind kind;
+            switch (name.substring(CONSTRAINTS_PACKAGE.length())) {
+                case "NotNull":
+                    kind = Kind.NOT_NULL;
+                    break;
+                case "NotEmpty":
+                    kind = Kind.NOT_EMPTY;
+                    break;
+                case "NotBlank":
+                    kind = Kind.NOT_BLANK;
+                    break;
+                case "Pattern":
+                    kind = Kind.PATTERN;
+                    break;
+                default:
+                    throw new IllegalArgumentException("unsupported constraint @" + name);
+            }
+
+            String regexp = null;
+            String message = kind.message;
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value : annotation.getElementValues().entrySet()) {
+                String attribute = value.getKey().getSimpleName().toString();
+                if ("regexp".equals(attribute)) {
+                    regexp = value.getValue().getValue().toString();
+                } else if ("message".equals(attribute)) {
+                    message = value.getValue().getValue().toString();
+                } else if (!"groups".equals(attribute) && !"payload".equals(attribute)) {
+                    throw new IllegalArgumentException("unsupported attribute " + attribute + " of @" + name);
+                }
+            }
+
+            if (message == null) {
+                message = "must match \"" + regexp + "\"";
+            }
+
+            Constraint constraint = new Constraint(kind, regexp, message);
+            if (!constraints.contains(constraint)) {
+                constraints.add(constraint);
+            }
+        }
+
+        return constraints;
+    }
+
+    /**
+     * Constraints of a field may be declared on the field and on its type at once, when the annotation applies
+     * to both.
+     *
+     * @return distinct constraints of both lists
+     */
+    static List<Constraint> merge(List<Constraint> first, List<Constraint> second) {
+        if (first.isEmpty()) {
+            return second;
+        }
+
+        List<Constraint> merged = new ArrayList<>(first);
+        for (Constraint constraint : second) {
+            if (!merged.contains(constraint)) {
+                merged.add(constraint);
+            }
+        }
+
+        return merged;
+    }
+
+    Kind kind() {
+        return kind;
+    }
+
+    String regexp() {
+        return regexp;
+    }
+
+    String message() {
+        return message;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Constraint)) {
+            return false;
+        }
+
+        Constraint that = (Constraint) o;
+        return kind == that.kind && String.valueOf(regexp).equals(String.valueOf(that.regexp)) && message.equals(that.message);
+    }
+
+    @Override
+    public int hashCode() {
+        return kind.hashCode() * 31 + message.hashCode();
+    }
+
+}
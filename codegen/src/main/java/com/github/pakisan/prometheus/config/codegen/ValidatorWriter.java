@@ -0,0 +1,254 @@
+package com.github.pakisan.prometheus.config.codegen;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes validator source of a configuration class.
+ * <p>
+ * Validator checks constraints of fields, items and keys of the class and descends into nested configuration
+ * classes, including items of lists and values of maps. Patterns used all over the model, like durations and
+ * label names, are checked by hand written matchers, other patterns are compiled once per validator.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+final class ValidatorWriter {
+
+    static final String VALIDATOR_PACKAGE = "com.github.pakisan.prometheus.config.validation";
+
+    /**
+     * Matchers of {@code ConstraintSupport} by the patterns they are equivalent to.
+     */
+    private static final Map<String, String> MATCHERS = new HashMap<>();
+
+    static {
+        MATCHERS.put("((([0-9]+)y)?(([0-9]+)w)?(([0-9]+)d)?(([0-9]+)h)?(([0-9]+)m)?(([0-9]+)s)?(([0-9]+)ms)?|0)", "isDuration");
+        MATCHERS.put("[a-zA-Z_][a-zA-Z0-9_]*", "isLabelName");
+        MATCHERS.put("[a-zA-Z_:][a-zA-Z0-9_:]*", "isMetricName");
+        MATCHERS.put("0|\\d+B|\\d+KB|\\d+MB|\\d+GB|\\d+TB|\\d+PB|\\d+EB", "isByteSize");
+    }
+
+    private final ConfigClass configClass;
+
+    private final ProcessingEnvironment processingEnv;
+
+    /**
+     * Compiled patterns by regular expression.
+     */
+    private final Map<String, String> patterns = new LinkedHashMap<>();
+
+    ValidatorWriter(ConfigClass configClass, ProcessingEnvironment processingEnv) {
+        this.configClass = configClass;
+        this.processingEnv = processingEnv;
+    }
+
+    static String validatorName(ConfigClass configClass) {
+        return ConfigClass.flatName(configClass.element()) + "Validator";
+    }
+
+    void write() throws IOException {
+        String type = configClass.name();
+        String validator = validatorName(configClass);
+
+        StringBuilder validate = new StringBuilder();
+        for (ConfigClass.Field field : configClass.fields()) {
+            ConfigType fieldType = ConfigType.of(field.type(), processingEnv);
+            if (fieldType.isPrimitive()) {
+                continue;
+            }
+
+            List<Constraint> constraints = Constraint.merge(
+                    Constraint.of(field.element().getAnnotationMirrors()), fieldType.constraints()
+            );
+            if (!validated(fieldType, constraints)) {
+                continue;
+            }
+
+            validate.append("        {\n");
+            validate.append("            ").append(fieldType.javaType()).append(" v = value.").append(field.getter()).append("();\n");
+            validate.append("            context.enter(").append(literal(field.key())).append(");\n");
+            check(validate, fieldType, constraints, "v", 0, "            ");
+            validate.append("            context.exit();\n");
+            validate.append("        }\n");
+        }
+
+        String name = VALIDATOR_PACKAGE + "." + validator;
+        try (PrintWriter out = new PrintWriter(
+                processingEnv.getFiler().createSourceFile(name, configClass.element()).openWriter()
+        )) {
+            out.println("package " + VALIDATOR_PACKAGE + ";");
+            out.println();
+            out.println("// Generated by " + ConfigCodecProcessor.class.getName());
+            out.println("final class " + validator + " implements ConfigValidator<" + type + "> {");
+            out.println();
+            out.println("    static final " + validator + " INSTANCE = new " + validator + "();");
+            for (Map.Entry<String, String> pattern : patterns.entrySet()) {
+                out.println();
+                out.println("    private static final java.util.regex.Pattern " + pattern.getValue()
+                        + " = java.util.regex.Pattern.compile(" + literal(pattern.getKey()) + ");");
+            }
+            out.println();
+            out.println("    private " + validator + "() {");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public void validate(" + type + " value, ValidationContext context) {");
+            out.print(validate);
+            out.println("    }");
+            out.println();
+            out.println("}");
+        }
+    }
+
+    /**
+     * @return true if value of the type, with the constraints, has anything to check
+     */
+    private static boolean validated(ConfigType type, List<Constraint> constraints) {
+        if (!constraints.isEmpty()) {
+            return true;
+        }
+
+        switch (type.kind()) {
+            case CONFIG:
+                return true;
+            case LIST:
+                return validated(type.item(), type.item().constraints());
+            case MAP:
+                return !type.keyConstraints().isEmpty() || validated(type.item(), type.item().constraints());
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Writes checks of a value which may be null.
+     */
+    private void check(StringBuilder out, ConfigType type, List<Constraint> constraints, String value, int depth, String indent) {
+        for (Constraint constraint : constraints) {
+            constraint(out, constraint, value, "", indent);
+        }
+
+        ConfigType item = type.item();
+        switch (type.kind()) {
+            case CONFIG:
+                out.append(indent).append("if (").append(value).append(" != null) {\n");
+                out.append(indent).append("    ").append(validatorName(type)).append(".INSTANCE.validate(").append(value).append(", context);\n");
+                out.append(indent).append("}\n");
+                break;
+            case LIST:
+                if (!validated(item, item.constraints())) {
+                    break;
+                }
+
+                out.append(indent).append("if (").append(value).append(" != null) {\n");
+                if (item.kind() == ConfigType.Kind.CONFIG && item.constraints().isEmpty()) {
+                    // lists of configurations, like scrape_configs, may be validated in parallel
+                    out.append(indent).append("    context.items(").append(value).append(", ")
+                            .append(validatorName(item)).append(".INSTANCE);\n");
+                } else {
+                    String index = "i" + depth;
+                    String itemValue = "v" + (depth + 1);
+                    out.append(indent).append("    int ").append(index).append(" = 0;\n");
+                    out.append(indent).append("    for (").append(item.javaType()).append(' ').append(itemValue)
+                            .append(" : ").append(value).append(") {\n");
+                    out.append(indent).append("        context.enterIndex(").append(index).append("++);\n");
+                    check(out, item, item.constraints(), itemValue, depth + 1, indent + "        ");
+                    out.append(indent).append("        context.exit();\n");
+                    out.append(indent).append("    }\n");
+                }
+                out.append(indent).append("}\n");
+                break;
+            case MAP:
+                if (type.keyConstraints().isEmpty() && !validated(item, item.constraints())) {
+                    break;
+                }
+
+                String entry = "e" + depth;
+                String itemValue = "v" + (depth + 1);
+                out.append(indent).append("if (").append(value).append(" != null) {\n");
+                out.append(indent).append("    for (java.util.Map.Entry<String, ").append(item.javaType()).append("> ").append(entry)
+                        .append(" : ").append(value).append(".entrySet()) {\n");
+                out.append(indent).append("        context.enterKey(").append(entry).append(".getKey());\n");
+                for (Constraint constraint : type.keyConstraints()) {
+                    constraint(out, constraint, entry + ".getKey()", "key ", indent + "        ");
+                }
+                if (validated(item, item.constraints())) {
+                    out.append(indent).append("        ").append(item.javaType()).append(' ').append(itemValue)
+                            .append(" = ").append(entry).append(".getValue();\n");
+                    check(out, item, item.constraints(), itemValue, depth + 1, indent + "        ");
+                }
+                out.append(indent).append("        context.exit();\n");
+                out.append(indent).append("    }\n");
+                out.append(indent).append("}\n");
+                break;
+            default:
+        }
+    }
+
+    private void constraint(StringBuilder out, Constraint constraint, String value, String subject, String indent) {
+        String condition;
+        switch (constraint.kind()) {
+            case NOT_NULL:
+                condition = value + " == null";
+                break;
+            case NOT_EMPTY:
+                condition = value + " == null || " + value + ".isEmpty()";
+                break;
+            case NOT_BLANK:
+                condition = value + " == null || " + value + ".trim().isEmpty()";
+                break;
+            default:
+                condition = value + " != null && !" + matcher(constraint.regexp(), value);
+        }
+
+        out.append(indent).append("if (").append(condition).append(") {\n");
+        out.append(indent).append("    context.violation(").append(literal(subject + constraint.message())).append(", ")
+                .append(value).append(");\n");
+        out.append(indent).append("}\n");
+    }
+
+    /**
+     * @return expression matching the whole value against the pattern
+     */
+    private String matcher(String regexp, String value) {
+        String matcher = MATCHERS.get(regexp);
+        if (matcher != null) {
+            return "ConstraintSupport." + matcher + "(" + value + ")";
+        }
+
+        String pattern = patterns.get(regexp);
+        if (pattern == null) {
+            pattern = "PATTERN_" + patterns.size();
+            patterns.put(regexp, pattern);
+        }
+
+        return pattern + ".matcher(" + value + ").matches()";
+    }
+
+    private static String validatorName(ConfigType type) {
+        return ConfigClass.flatName(type.element()) + "Validator";
+    }
+
+    private static String literal(String value) {
+        StringBuilder literal = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                literal.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7E) {
+                literal.append(String.format("\\u%04x", (int) c));
+            } else {
+                literal.append(c);
+            }
+        }
+
+        return literal.append('"').toString();
+    }
+
+}
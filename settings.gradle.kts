@@ -1,2 +1,3 @@
 rootProject.name = "prometheus-config"
 
+include("codegen")
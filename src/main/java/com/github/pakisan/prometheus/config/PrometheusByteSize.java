@@ -0,0 +1,181 @@
+package com.github.pakisan.prometheus.config;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Size in bytes, like 10MB.
+ * <p>
+ * Sizes are parsed like Prometheus does: a whole number followed by unit B, KB, MB, GB, TB, PB or EB, or its
+ * KiB, MiB, GiB, TiB, PiB or EiB spelling. Units are powers of 1024. Single 0 is a size too. Size must fit into
+ * 64-bit long.
+ * <p>
+ * Limits, like body_size_limit, treat size 0 as no limit, see {@link #isExceededBy(long)}.
+ *
+ * @since  1.0.0
+ * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/#scrape_config">scrape_config</a>
+ * @author Pavel Bodiachevskii
+ */
+public final class PrometheusByteSize implements Comparable<PrometheusByteSize> {
+
+    public static final PrometheusByteSize ZERO = new PrometheusByteSize(0);
+
+    private static final String PREFIXES = "KMGTPE";
+
+    private static final int MAX_CACHED = 1024;
+
+    private static final ConcurrentHashMap<String, PrometheusByteSize> CACHE = new ConcurrentHashMap<>();
+
+    private final long bytes;
+
+    /**
+     * Limit to compare with, {@link Long#MAX_VALUE} for no limit.
+     */
+    private final long limit;
+
+    private PrometheusByteSize(long bytes) {
+        this.bytes = bytes;
+        this.limit = bytes == 0 ? Long.MAX_VALUE : bytes;
+    }
+
+    /**
+     * Parses size.
+     *
+     * @param size size, may be null
+     * @return parsed size or null if the size is null
+     * @throws PrometheusConfigException if the size is not valid
+     */
+    public static PrometheusByteSize parse(String size) {
+        if (size == null) {
+            return null;
+        }
+
+        PrometheusByteSize parsed = CACHE.get(size);
+        if (parsed != null) {
+            return parsed;
+        }
+
+        parsed = ofBytes(parseBytes(size));
+        if (CACHE.size() < MAX_CACHED) {
+            CACHE.putIfAbsent(size, parsed);
+        }
+
+        return parsed;
+    }
+
+    /**
+     * @param bytes not negative number of bytes
+     * @return size
+     * @throws IllegalArgumentException if bytes are negative
+     */
+    public static PrometheusByteSize ofBytes(long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("size of " + bytes + "B is negative");
+        }
+
+        return bytes == 0 ? ZERO : new PrometheusByteSize(bytes);
+    }
+
+    /**
+     * @param size size
+     * @return bytes of the size
+     * @throws PrometheusConfigException if the size is not valid
+     */
+    static long parseBytes(String size) {
+        int length = size.length();
+        if (length == 1 && size.charAt(0) == '0') {
+            return 0;
+        }
+
+        long value = 0;
+        int i = 0;
+        for (char c; i < length && (c = size.charAt(i)) >= '0' && c <= '9'; i++) {
+            if (value > (Long.MAX_VALUE - (c - '0')) / 10) {
+                throw new PrometheusConfigException("units: overflow parsing unit " + size);
+            }
+
+            value = value * 10 + (c - '0');
+        }
+
+        if (i == 0) {
+            throw new PrometheusConfigException("units: invalid " + size);
+        }
+
+        int shift = shift(size, i);
+        if (value > Long.MAX_VALUE >> shift) {
+            throw new PrometheusConfigException("units: overflow parsing unit " + size);
+        }
+
+        return value << shift;
+    }
+
+    /**
+     * @return power of two of the unit which starts at the index
+     */
+    private static int shift(String size, int start) {
+        int length = size.length() - start;
+        if (length == 1 && size.charAt(start) == 'B') {
+            return 0;
+        }
+
+        int prefix = length > 0 ? PREFIXES.indexOf(size.charAt(start)) : -1;
+        boolean unit = prefix >= 0 && ((length == 2 && size.charAt(start + 1) == 'B')
+                || (length == 3 && size.charAt(start + 1) == 'i' && size.charAt(start + 2) == 'B'));
+        if (!unit) {
+            throw new PrometheusConfigException("units: unknown unit " + size.substring(start) + " in " + size);
+        }
+
+        return (prefix + 1) * 10;
+    }
+
+    /**
+     * @return size in bytes
+     */
+    public long toBytes() {
+        return bytes;
+    }
+
+    /**
+     * Checks bytes against the size as a limit, where size 0 means no limit.
+     *
+     * @param bytes bytes read so far
+     * @return true if the size is not 0 and the bytes are greater than it
+     */
+    public boolean isExceededBy(long bytes) {
+        return bytes > limit;
+    }
+
+    @Override
+    public int compareTo(PrometheusByteSize o) {
+        return Long.compare(bytes, o.bytes);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof PrometheusByteSize && bytes == ((PrometheusByteSize) o).bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(bytes);
+    }
+
+    /**
+     * Formats size in the biggest unit which divides it, like 10MB.
+     *
+     * @return size
+     */
+    @Override
+    public String toString() {
+        if (bytes == 0) {
+            return "0";
+        }
+
+        int prefix = Math.min(Long.numberOfTrailingZeros(bytes) / 10, PREFIXES.length());
+        if (prefix == 0) {
+            return bytes + "B";
+        }
+
+        return (bytes >> (prefix * 10)) + String.valueOf(PREFIXES.charAt(prefix - 1)) + 'B';
+    }
+
+}
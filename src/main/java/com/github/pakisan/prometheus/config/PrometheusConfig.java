@@ -1,6 +1,7 @@
 package com.github.pakisan.prometheus.config;
 
 import com.github.pakisan.prometheus.config.alert.PrometheusAlertingConfig;
+import com.github.pakisan.prometheus.config.codec.Configuration;
 import com.github.pakisan.prometheus.config.read.PrometheusRemoteReadConfig;
 import com.github.pakisan.prometheus.config.scrape.PrometheusScrapeConfig;
 import com.github.pakisan.prometheus.config.storage.PrometheusStorageConfig;
@@ -19,6 +20,7 @@ import java.util.List;
  * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/">CONFIGURATION</a>
  * @author Pavel Bodiachevskii
  */
+@Configuration
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
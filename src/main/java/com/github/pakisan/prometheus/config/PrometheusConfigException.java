@@ -0,0 +1,21 @@
+package com.github.pakisan.prometheus.config;
+
+/**
+ * Thrown when Prometheus configuration can not be read, written or resolved.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+public class PrometheusConfigException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public PrometheusConfigException(String message) {
+        super(message);
+    }
+
+    public PrometheusConfigException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
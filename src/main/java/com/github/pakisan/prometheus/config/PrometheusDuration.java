@@ -0,0 +1,265 @@
+package com.github.pakisan.prometheus.config;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prometheus duration, like 1m or 1h30m.
+ * <p>
+ * Durations are parsed like Prometheus does: numbers followed by units y, w, d, h, m, s and ms, from the biggest unit
+ * to the smallest one, each unit at most once. Single 0 is a duration too. A year is 365 days, a week is 7 days.
+ * Duration must fit into 64-bit nanoseconds.
+ * <p>
+ * Parsing is a single pass without allocations. Parsed strings are cached, so configurations, which repeat
+ * the same few durations, parse every distinct string once and get the same instance afterwards.
+ *
+ * @since  1.0.0
+ * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/#configuration-file">Configuration file</a>
+ * @author Pavel Bodiachevskii
+ */
+public final class PrometheusDuration implements Comparable<PrometheusDuration> {
+
+    public static final PrometheusDuration ZERO = new PrometheusDuration(0);
+
+    private static final long MILLISECOND = 1_000_000L;
+
+    private static final long SECOND = 1_000 * MILLISECOND;
+
+    private static final long MINUTE = 60 * SECOND;
+
+    private static final long HOUR = 60 * MINUTE;
+
+    private static final long DAY = 24 * HOUR;
+
+    private static final long WEEK = 7 * DAY;
+
+    private static final long YEAR = 365 * DAY;
+
+    /**
+     * Units in the order they must follow each other.
+     */
+    private static final long[] UNITS = {YEAR, WEEK, DAY, HOUR, MINUTE, SECOND, MILLISECOND};
+
+    private static final String[] UNIT_NAMES = {"y", "w", "d", "h", "m", "s", "ms"};
+
+    private static final int MAX_CACHED = 4096;
+
+    private static final ConcurrentHashMap<String, PrometheusDuration> CACHE = new ConcurrentHashMap<>();
+
+    private final long nanos;
+
+    private PrometheusDuration(long nanos) {
+        this.nanos = nanos;
+    }
+
+    /**
+     * Parses duration.
+     *
+     * @param duration duration, may be null
+     * @return parsed duration or null if the duration is null
+     * @throws PrometheusConfigException if the duration is not valid
+     */
+    public static PrometheusDuration parse(String duration) {
+        if (duration == null) {
+            return null;
+        }
+
+        PrometheusDuration parsed = CACHE.get(duration);
+        if (parsed != null) {
+            return parsed;
+        }
+
+        parsed = ofNanos(parseNanos(duration));
+        if (CACHE.size() < MAX_CACHED) {
+            CACHE.putIfAbsent(duration, parsed);
+        }
+
+        return parsed;
+    }
+
+    /**
+     * @param millis not negative milliseconds
+     * @return duration
+     * @throws IllegalArgumentException if milliseconds are negative or do not fit into nanoseconds
+     */
+    public static PrometheusDuration ofMillis(long millis) {
+        if (millis < 0 || millis > Long.MAX_VALUE / MILLISECOND) {
+            throw new IllegalArgumentException("duration of " + millis + "ms is out of range");
+        }
+
+        return ofNanos(millis * MILLISECOND);
+    }
+
+    private static PrometheusDuration ofNanos(long nanos) {
+        return nanos == 0 ? ZERO : new PrometheusDuration(nanos);
+    }
+
+    /**
+     * @param duration duration
+     * @return nanoseconds of the duration
+     * @throws PrometheusConfigException if the duration is not valid
+     */
+    static long parseNanos(String duration) {
+        int length = duration.length();
+        if (length == 1 && duration.charAt(0) == '0') {
+            return 0;
+        }
+
+        if (length == 0) {
+            throw new PrometheusConfigException("empty duration string");
+        }
+
+        long nanos = 0;
+        int lastUnit = -1;
+        int i = 0;
+        while (i < length) {
+            char c = duration.charAt(i);
+            if (c < '0' || c > '9') {
+                throw invalid(duration);
+            }
+
+            long value = 0;
+            for (; i < length && (c = duration.charAt(i)) >= '0' && c <= '9'; i++) {
+                if (value > (Long.MAX_VALUE - (c - '0')) / 10) {
+                    throw invalid(duration);
+                }
+
+                value = value * 10 + (c - '0');
+            }
+
+            int unitStart = i;
+            while (i < length && ((c = duration.charAt(i)) < '0' || c > '9')) {
+                i++;
+            }
+
+            int unit = unit(duration, unitStart, i);
+            if (unit <= lastUnit) {
+                throw invalid(duration);
+            }
+
+            lastUnit = unit;
+            long multiplier = UNITS[unit];
+            if (value > Long.MAX_VALUE / multiplier || nanos > Long.MAX_VALUE - value * multiplier) {
+                throw new PrometheusConfigException("duration out of range: \"" + duration + "\"");
+            }
+
+            nanos += value * multiplier;
+        }
+
+        return nanos;
+    }
+
+    /**
+     * @return index of the unit in {@link #UNITS}
+     */
+    private static int unit(String duration, int start, int end) {
+        int length = end - start;
+        char first = length > 0 ? duration.charAt(start) : 0;
+        if (length == 1) {
+            switch (first) {
+                case 'y':
+                    return 0;
+                case 'w':
+                    return 1;
+                case 'd':
+                    return 2;
+                case 'h':
+                    return 3;
+                case 'm':
+                    return 4;
+                case 's':
+                    return 5;
+                default:
+            }
+        } else if (length == 2 && first == 'm' && duration.charAt(start + 1) == 's') {
+            return 6;
+        }
+
+        if (length == 0) {
+            throw invalid(duration);
+        }
+
+        throw new PrometheusConfigException(
+                "unknown unit \"" + duration.substring(start, end) + "\" in duration \"" + duration + "\""
+        );
+    }
+
+    private static PrometheusConfigException invalid(String duration) {
+        return new PrometheusConfigException("not a valid duration string: \"" + duration + "\"");
+    }
+
+    /**
+     * @return duration in nanoseconds
+     */
+    public long toNanos() {
+        return nanos;
+    }
+
+    /**
+     * @return duration in whole milliseconds
+     */
+    public long toMillis() {
+        return nanos / MILLISECOND;
+    }
+
+    /**
+     * @return duration in whole seconds
+     */
+    public long toSeconds() {
+        return nanos / SECOND;
+    }
+
+    /**
+     * @param unit unit
+     * @return duration in whole units
+     */
+    public long to(TimeUnit unit) {
+        return unit.convert(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int compareTo(PrometheusDuration o) {
+        return Long.compare(nanos, o.nanos);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof PrometheusDuration && nanos == ((PrometheusDuration) o).nanos);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(nanos);
+    }
+
+    /**
+     * Formats duration like Prometheus does: years and weeks only when they are whole, like 1y or 2w,
+     * otherwise days, hours, minutes, seconds and milliseconds, like 90d or 1h30m.
+     *
+     * @return duration
+     */
+    @Override
+    public String toString() {
+        long millis = toMillis();
+        if (millis == 0) {
+            return "0s";
+        }
+
+        StringBuilder formatted = new StringBuilder();
+        for (int i = 0; i < UNITS.length; i++) {
+            long multiplier = UNITS[i] / MILLISECOND;
+            if (i < 2 && millis % multiplier != 0) {
+                continue;
+            }
+
+            long value = millis / multiplier;
+            if (value > 0) {
+                formatted.append(value).append(UNIT_NAMES[i]);
+                millis -= value * multiplier;
+            }
+        }
+
+        return formatted.toString();
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.github.pakisan.prometheus.config;
 
+import com.github.pakisan.prometheus.config.codec.Configuration;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -15,6 +16,7 @@ import java.util.Map;
  * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/">CONFIGURATION</a>
  * @author Pavel Bodiachevskii
  */
+@Configuration
 @Data
 @Builder
 @NoArgsConstructor
@@ -54,4 +56,28 @@ public class PrometheusGlobalConfig {
      */
     private String query_log_file;
 
+    /**
+     * @return scrape_interval as duration, or null if it is not set
+     * @throws PrometheusConfigException if scrape_interval is not a valid duration
+     */
+    public PrometheusDuration scrapeIntervalDuration() {
+        return PrometheusDuration.parse(scrape_interval);
+    }
+
+    /**
+     * @return scrape_timeout as duration, or null if it is not set
+     * @throws PrometheusConfigException if scrape_timeout is not a valid duration
+     */
+    public PrometheusDuration scrapeTimeoutDuration() {
+        return PrometheusDuration.parse(scrape_timeout);
+    }
+
+    /**
+     * @return evaluation_interval as duration, or null if it is not set
+     * @throws PrometheusConfigException if evaluation_interval is not a valid duration
+     */
+    public PrometheusDuration evaluationIntervalDuration() {
+        return PrometheusDuration.parse(evaluation_interval);
+    }
+
 }
@@ -1,5 +1,6 @@
 package com.github.pakisan.prometheus.config;
 
+import com.github.pakisan.prometheus.config.codec.Configuration;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -7,7 +8,6 @@ import lombok.NoArgsConstructor;
 
 import javax.validation.constraints.Pattern;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Describes Prometheus metric_relabel_configs.
@@ -16,6 +16,7 @@ import java.util.Map;
  * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/#metric_relabel_configs">metric_relabel_configs</a>
  * @author Pavel Bodiachevskii
  */
+@Configuration
 @Data
 @Builder
 @NoArgsConstructor
@@ -29,11 +30,12 @@ public class PrometheusMetricRelabelConfig {
      * <p>
      * for the replace, keep, and drop actions.
      */
-    private Map<@Pattern(regexp = "[a-zA-Z_][a-zA-Z0-9_]*") String, List<String>> source_labels;
+    private List<@Pattern(regexp = "[a-zA-Z_][a-zA-Z0-9_]*") String> source_labels;
 
     /**
      * Separator placed between concatenated source label values.
      */
+    @Builder.Default
     private String separator = ";";
 
     /**
@@ -54,6 +56,7 @@ public class PrometheusMetricRelabelConfig {
      * <p>
      * anchor the regex, use .*<regex>.*.
      */
+    @Builder.Default
     private String regex = "(.*)";
 
     /**
@@ -66,11 +69,13 @@ public class PrometheusMetricRelabelConfig {
      * <p>
      * regular expression matches. Regex capture groups are available.
      */
+    @Builder.Default
     private String replacement = "$1";
 
     /**
      * Action to perform based on regex matching.
      */
+    @Builder.Default
     private Action action = Action.REPLACE;
 
     public enum Action {
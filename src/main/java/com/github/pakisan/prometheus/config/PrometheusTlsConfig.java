@@ -1,5 +1,6 @@
 package com.github.pakisan.prometheus.config;
 
+import com.github.pakisan.prometheus.config.codec.Configuration;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -14,6 +15,7 @@ import lombok.NoArgsConstructor;
  * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/#tls_config">tls_config</a>
  * @author Pavel Bodiachevskii
  */
+@Configuration
 @Data
 @Builder
 @NoArgsConstructor
@@ -45,6 +47,7 @@ public class PrometheusTlsConfig {
     /**
      * Disable validation of the server certificate.
      */
+    @Builder.Default
     private boolean insecure_skip_verify = false;
 
     /**
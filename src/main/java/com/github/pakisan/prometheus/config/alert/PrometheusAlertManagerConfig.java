@@ -1,5 +1,7 @@
 package com.github.pakisan.prometheus.config.alert;
 
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.PrometheusDuration;
 import com.github.pakisan.prometheus.config.PrometheusProtocolScheme;
 import com.github.pakisan.prometheus.config.PrometheusRelabelConfig;
 import com.github.pakisan.prometheus.config.PrometheusStaticConfig;
@@ -7,6 +9,7 @@ import com.github.pakisan.prometheus.config.PrometheusTlsConfig;
 import com.github.pakisan.prometheus.config.auth.PrometheusAuthorization;
 import com.github.pakisan.prometheus.config.auth.PrometheusBasicAuth;
 import com.github.pakisan.prometheus.config.auth.PrometheusOAuth2;
+import com.github.pakisan.prometheus.config.codec.Configuration;
 import com.github.pakisan.prometheus.config.servicediscovery.AzureSdConfig;
 import com.github.pakisan.prometheus.config.servicediscovery.ConsulSdConfig;
 import com.github.pakisan.prometheus.config.servicediscovery.DigitaloceanSdConfig;
@@ -60,6 +63,7 @@ import java.util.Map;
  * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/#alertmanager_config">alertmanager_config</a>
  * @author Pavel Bodiachevskii
  */
+@Configuration
 @Data
 @Builder
 @NoArgsConstructor
@@ -134,6 +138,7 @@ public class PrometheusAlertManagerConfig {
     /**
      * Use proxy URL indicated by environment variables (HTTP_PROXY, https_proxy, HTTPs_PROXY, https_proxy, and no_proxy)
      */
+    @Builder.Default
     private boolean proxy_from_environment = false;
 
     /**
@@ -144,11 +149,13 @@ public class PrometheusAlertManagerConfig {
     /**
      * Configure whether HTTP requests follow HTTP 3xx redirects.
      */
+    @Builder.Default
     private boolean follow_redirects = true;
 
     /**
      * Whether to enable HTTP2.
      */
+    @Builder.Default
     private boolean enable_http2 = true;
 
     /**
@@ -362,4 +369,12 @@ public class PrometheusAlertManagerConfig {
      */
     private List<PrometheusRelabelConfig> relabel_configs;
 
+    /**
+     * @return timeout as duration, or null if it is not set
+     * @throws PrometheusConfigException if timeout is not a valid duration
+     */
+    public PrometheusDuration timeoutDuration() {
+        return PrometheusDuration.parse(timeout);
+    }
+
 }
@@ -0,0 +1,32 @@
+package com.github.pakisan.prometheus.config.codec;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Helpers of generated codecs.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+final class CodecSupport {
+
+    private CodecSupport() {
+    }
+
+    /**
+     * Keys of the map in natural order, to write maps deterministically.
+     */
+    static Collection<String> sortedKeys(Map<String, ?> map) {
+        if (map instanceof SortedMap && ((SortedMap<String, ?>) map).comparator() == null) {
+            return map.keySet();
+        }
+
+        String[] keys = map.keySet().toArray(new String[0]);
+        Arrays.sort(keys);
+        return Arrays.asList(keys);
+    }
+
+}
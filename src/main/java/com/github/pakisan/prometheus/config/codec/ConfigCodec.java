@@ -0,0 +1,54 @@
+package com.github.pakisan.prometheus.config.codec;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes a configuration class, independently of the format.
+ * <p>
+ * Codecs are generated at compile time for every configuration class, so neither reading nor writing
+ * relies on reflection.
+ *
+ * @param <T> configuration class
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+public interface ConfigCodec<T> {
+
+    /**
+     * @return configuration class
+     */
+    Class<T> type();
+
+    /**
+     * @return configuration with default values
+     */
+    T newInstance();
+
+    /**
+     * Reads configuration.
+     *
+     * @param in input
+     * @return read configuration or null
+     */
+    T read(ConfigInput in);
+
+    /**
+     * Reads value of a single field, for callers which walk the object themselves.
+     *
+     * @param in input positioned at the value of the field
+     * @param config configuration to set the field of
+     * @param field name of the field
+     * @throws com.github.pakisan.prometheus.config.PrometheusConfigException if the class has no such field
+     */
+    void readField(ConfigInput in, T config, String field);
+
+    /**
+     * Writes configuration. Fields which are null or hold default values are not written.
+     *
+     * @param out output
+     * @param value not null configuration
+     * @throws IOException if the output can not be written
+     */
+    void write(ConfigOutput out, T value) throws IOException;
+
+}
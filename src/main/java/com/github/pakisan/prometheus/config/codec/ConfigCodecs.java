@@ -0,0 +1,42 @@
+package com.github.pakisan.prometheus.config.codec;
+
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+
+/**
+ * Looks up generated codecs.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+public final class ConfigCodecs {
+
+    private ConfigCodecs() {
+    }
+
+    /**
+     * @param type configuration class
+     * @return codec of the class
+     * @param <T> configuration type
+     * @throws PrometheusConfigException if the class is not a configuration class
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ConfigCodec<T> of(Class<T> type) {
+        ConfigCodec<?> codec = GeneratedConfigCodecs.forName(type.getName());
+        if (codec == null) {
+            throw new PrometheusConfigException(type.getName() + " is not a configuration class");
+        }
+
+        return (ConfigCodec<T>) codec;
+    }
+
+    /**
+     * Hash of keys, types and enum constants of all configuration classes. Changes whenever any of them changes,
+     * so data which depends on the exact shape of classes, like binary snapshots, can be checked against it.
+     *
+     * @return schema hash
+     */
+    public static long schema() {
+        return GeneratedConfigCodecs.SCHEMA;
+    }
+
+}
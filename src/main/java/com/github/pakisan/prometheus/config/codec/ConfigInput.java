@@ -0,0 +1,81 @@
+package com.github.pakisan.prometheus.config.codec;
+
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+
+/**
+ * Pull input for {@link ConfigCodec}.
+ * <p>
+ * Configuration classes are read as objects with named fields, string keyed maps and lists of values.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+public interface ConfigInput {
+
+    /**
+     * Consumes the next value if it is null.
+     *
+     * @return true if the next value was null
+     */
+    boolean readNull();
+
+    void beginObject();
+
+    /**
+     * Reads name of the next field of the current object. Value of the field must be read or skipped next.
+     *
+     * @return field name or null when the object has no more fields
+     */
+    String nextField();
+
+    void beginMap();
+
+    /**
+     * Reads the next key of the current map. Value of the key must be read or skipped next.
+     *
+     * @return key or null when the map has no more entries
+     */
+    String nextKey();
+
+    void beginList();
+
+    /**
+     * @return true if the current list has more items
+     */
+    boolean hasNext();
+
+    /**
+     * @return string or null
+     */
+    String readString();
+
+    boolean readBoolean();
+
+    int readInt();
+
+    long readLong();
+
+    float readFloat();
+
+    double readDouble();
+
+    /**
+     * @param constants constants of the enum
+     * @return constant or null
+     * @param <E> enum type
+     */
+    <E extends Enum<E>> E readEnum(E[] constants);
+
+    /**
+     * Skips the next value, with all nested values.
+     */
+    void skipValue();
+
+    /**
+     * @param field name of the field which was just read
+     * @param type class which has no such field
+     * @return exception describing the unknown field
+     */
+    PrometheusConfigException unknownField(String field, Class<?> type);
+
+}
@@ -0,0 +1,26 @@
+package com.github.pakisan.prometheus.config.codec;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Key of configuration field which can not be named like its key, like {@code for}, which is a Java keyword.
+ * Fields without the annotation are named exactly like their keys.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.FIELD)
+public @interface ConfigKey {
+
+    /**
+     * @return key of the field
+     */
+    String value();
+
+}
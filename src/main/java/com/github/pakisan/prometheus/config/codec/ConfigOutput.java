@@ -0,0 +1,54 @@
+package com.github.pakisan.prometheus.config.codec;
+
+import java.io.IOException;
+
+/**
+ * Push output for {@link ConfigCodec}.
+ * <p>
+ * Configuration classes are written as objects with named fields, string keyed maps and lists of values.
+ * Every field and every key is followed by exactly one value.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+public interface ConfigOutput {
+
+    void beginObject() throws IOException;
+
+    void field(String name) throws IOException;
+
+    void endObject() throws IOException;
+
+    /**
+     * @param size number of entries
+     */
+    void beginMap(int size) throws IOException;
+
+    void key(String key) throws IOException;
+
+    void endMap() throws IOException;
+
+    /**
+     * @param size number of items
+     */
+    void beginList(int size) throws IOException;
+
+    void endList() throws IOException;
+
+    void writeNull() throws IOException;
+
+    void writeString(String value) throws IOException;
+
+    void writeBoolean(boolean value) throws IOException;
+
+    void writeInt(int value) throws IOException;
+
+    void writeLong(long value) throws IOException;
+
+    void writeFloat(float value) throws IOException;
+
+    void writeDouble(double value) throws IOException;
+
+    void writeEnum(Enum<?> value) throws IOException;
+
+}
@@ -0,0 +1,21 @@
+package com.github.pakisan.prometheus.config.codec;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Configuration class, codec and validator of which are generated at compile time, see {@link ConfigCodecs}.
+ * Fields of the class are named like the keys they describe, unless they are annotated with {@link ConfigKey}.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface Configuration {
+
+}
@@ -0,0 +1,73 @@
+package com.github.pakisan.prometheus.config.hash;
+
+/**
+ * 128-bit content hash of a configuration, see {@link ConfigHashes}.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+public final class ConfigHash {
+
+    private final long high;
+
+    private final long low;
+
+    ConfigHash(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * @return upper 64 bits of the hash
+     */
+    public long getHigh() {
+        return high;
+    }
+
+    /**
+     * @return lower 64 bits of the hash
+     */
+    public long getLow() {
+        return low;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof ConfigHash)) {
+            return false;
+        }
+
+        ConfigHash that = (ConfigHash) o;
+        return high == that.high && low == that.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) low;
+    }
+
+    /**
+     * @return 32 hex digits
+     */
+    @Override
+    public String toString() {
+        String high = Long.toHexString(this.high);
+        String low = Long.toHexString(this.low);
+        StringBuilder hex = new StringBuilder(32);
+        for (int i = high.length(); i < 16; i++) {
+            hex.append('0');
+        }
+
+        hex.append(high);
+        for (int i = low.length(); i < 16; i++) {
+            hex.append('0');
+        }
+
+        return hex.append(low).toString();
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.github.pakisan.prometheus.config.hash;
+
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.codec.ConfigCodec;
+import com.github.pakisan.prometheus.config.codec.ConfigCodecs;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Computes content hashes of configurations: whole configuration or any section of it, like a single scrape_config
+ * or a service discovery config.
+ * <p>
+ * Hash covers what would be written to YAML: fields which hold default values do not change the hash, and neither
+ * does the order of map entries. Hash does not depend on the JVM, so hashes computed by different processes can be
+ * compared.
+ * <p>
+ * Hashes returned by {@link #of(Object)} are cached by identity of the configuration until it is garbage collected,
+ * so comparing generations of configuration costs a single walk of every instance.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+public final class ConfigHashes {
+
+    private static final ReferenceQueue<Object> COLLECTED = new ReferenceQueue<>();
+
+    private static final ConcurrentHashMap<IdentityKey, ConfigHash> CACHE = new ConcurrentHashMap<>();
+
+    private ConfigHashes() {
+    }
+
+    /**
+     * Returns hash of the configuration, computed on the first call for the instance. Configuration must not be
+     * modified afterwards, use {@link #compute(Object)} for configurations which change.
+     *
+     * @param config configuration or section of it
+     * @return content hash
+     * @throws PrometheusConfigException if the class is not a configuration class
+     */
+    public static ConfigHash of(Object config) {
+        ConfigHash hash = CACHE.get(new IdentityKey(config, null));
+        if (hash != null) {
+            return hash;
+        }
+
+        hash = compute(config);
+        expunge();
+        CACHE.put(new IdentityKey(config, COLLECTED), hash);
+        return hash;
+    }
+
+    /**
+     * Computes hash of the configuration.
+     *
+     * @param config configuration or section of it
+     * @return content hash
+     * @throws PrometheusConfigException if the class is not a configuration class
+     */
+    public static ConfigHash compute(Object config) {
+        @SuppressWarnings("unchecked")
+        ConfigCodec<Object> codec = (ConfigCodec<Object>) ConfigCodecs.of(config.getClass());
+        ContentHasher hasher = new ContentHasher(config.getClass());
+        try {
+            codec.write(hasher, config);
+        } catch (IOException e) {
+            throw new IllegalStateException("hashing does not write anything", e);
+        }
+
+        return hasher.hash();
+    }
+
+    private static void expunge() {
+        Reference<?> collected;
+        while ((collected = COLLECTED.poll()) != null) {
+            CACHE.remove(collected);
+        }
+    }
+
+    private static final class IdentityKey extends WeakReference<Object> {
+
+        private final int hashCode;
+
+        private IdentityKey(Object referent, ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.hashCode = System.identityHashCode(referent);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof IdentityKey)) {
+                return false;
+            }
+
+            Object referent = get();
+            return referent != null && referent == ((IdentityKey) o).get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+    }
+
+}
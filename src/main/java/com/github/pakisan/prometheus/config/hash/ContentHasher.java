@@ -0,0 +1,270 @@
+package com.github.pakisan.prometheus.config.hash;
+
+import com.github.pakisan.prometheus.config.codec.ConfigOutput;
+
+/**
+ * Feeds canonical encoding of written values to 128-bit MurmurHash3 (x64 variant, seed 0).
+ * <p>
+ * Every value is encoded as a tag followed by its payload: strings as number of chars and chars in UTF-8, with
+ * unpaired surrogates encoded as three bytes, numbers as little-endian bits, enums by name. Objects, maps and lists
+ * are closed by end tags, so nesting can not be confused. Encoding depends neither on the JVM nor on the order
+ * of map entries, since codecs write map keys in order.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+final class ContentHasher implements ConfigOutput {
+
+    private static final int BEGIN_OBJECT = 1;
+
+    private static final int FIELD = 2;
+
+    private static final int END_OBJECT = 3;
+
+    private static final int BEGIN_MAP = 4;
+
+    private static final int KEY = 5;
+
+    private static final int END_MAP = 6;
+
+    private static final int BEGIN_LIST = 7;
+
+    private static final int END_LIST = 8;
+
+    private static final int NULL = 9;
+
+    private static final int STRING = 10;
+
+    private static final int TRUE = 11;
+
+    private static final int FALSE = 12;
+
+    private static final int INTEGER = 13;
+
+    private static final int DOUBLE = 14;
+
+    private static final int ENUM = 15;
+
+    private static final long C1 = 0x87c37b91114253d5L;
+
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private final byte[] buffer = new byte[4096];
+
+    private int position;
+
+    private long length;
+
+    private long h1;
+
+    private long h2;
+
+    /**
+     * @param type class of the hashed value, hashed first so that values of different classes differ
+     */
+    ContentHasher(Class<?> type) {
+        string(type.getName());
+    }
+
+    ConfigHash hash() {
+        int blocks = position & ~15;
+        mix(blocks);
+        length += blocks;
+
+        long k1 = 0;
+        long k2 = 0;
+        int tail = position - blocks;
+        for (int i = tail - 1; i >= 8; i--) {
+            k2 = k2 << 8 | (buffer[blocks + i] & 0xFFL);
+        }
+
+        for (int i = Math.min(tail, 8) - 1; i >= 0; i--) {
+            k1 = k1 << 8 | (buffer[blocks + i] & 0xFFL);
+        }
+
+        if (tail > 8) {
+            h2 ^= Long.rotateLeft(k2 * C2, 33) * C1;
+        }
+
+        if (tail > 0) {
+            h1 ^= Long.rotateLeft(k1 * C1, 31) * C2;
+        }
+
+        length += tail;
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+
+        return new ConfigHash(h1, h2);
+    }
+
+    @Override
+    public void beginObject() {
+        write(BEGIN_OBJECT);
+    }
+
+    @Override
+    public void field(String name) {
+        write(FIELD);
+        string(name);
+    }
+
+    @Override
+    public void endObject() {
+        write(END_OBJECT);
+    }
+
+    @Override
+    public void beginMap(int size) {
+        write(BEGIN_MAP);
+    }
+
+    @Override
+    public void key(String key) {
+        write(KEY);
+        string(key);
+    }
+
+    @Override
+    public void endMap() {
+        write(END_MAP);
+    }
+
+    @Override
+    public void beginList(int size) {
+        write(BEGIN_LIST);
+    }
+
+    @Override
+    public void endList() {
+        write(END_LIST);
+    }
+
+    @Override
+    public void writeNull() {
+        write(NULL);
+    }
+
+    @Override
+    public void writeString(String value) {
+        write(STRING);
+        string(value);
+    }
+
+    @Override
+    public void writeBoolean(boolean value) {
+        write(value ? TRUE : FALSE);
+    }
+
+    @Override
+    public void writeInt(int value) {
+        writeLong(value);
+    }
+
+    @Override
+    public void writeLong(long value) {
+        write(INTEGER);
+        long64(value);
+    }
+
+    @Override
+    public void writeFloat(float value) {
+        writeDouble(value);
+    }
+
+    @Override
+    public void writeDouble(double value) {
+        write(DOUBLE);
+        long64(Double.doubleToLongBits(value));
+    }
+
+    @Override
+    public void writeEnum(Enum<?> value) {
+        write(ENUM);
+        string(value.name());
+    }
+
+    private void string(String value) {
+        int length = value.length();
+        long64(length);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                write(c);
+            } else if (c < 0x800) {
+                write(0xC0 | c >> 6);
+                write(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                write(0xF0 | codePoint >> 18);
+                write(0x80 | (codePoint >> 12 & 0x3F));
+                write(0x80 | (codePoint >> 6 & 0x3F));
+                write(0x80 | (codePoint & 0x3F));
+            } else {
+                write(0xE0 | c >> 12);
+                write(0x80 | (c >> 6 & 0x3F));
+                write(0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private void long64(long value) {
+        for (int i = 0; i < 8; i++) {
+            write((int) (value >>> (i * 8)));
+        }
+    }
+
+    private void write(int b) {
+        if (position == buffer.length) {
+            mix(position);
+            length += position;
+            position = 0;
+        }
+
+        buffer[position++] = (byte) b;
+    }
+
+    /**
+     * Mixes 16-byte blocks of the buffer into the state.
+     *
+     * @param end end of the blocks, multiple of 16
+     */
+    private void mix(int end) {
+        for (int i = 0; i < end; i += 16) {
+            long k1 = getLong(i);
+            long k2 = getLong(i + 8);
+
+            h1 ^= Long.rotateLeft(k1 * C1, 31) * C2;
+            h1 = (Long.rotateLeft(h1, 27) + h2) * 5 + 0x52dce729;
+
+            h2 ^= Long.rotateLeft(k2 * C2, 33) * C1;
+            h2 = (Long.rotateLeft(h2, 31) + h1) * 5 + 0x38495ab5;
+        }
+    }
+
+    private long getLong(int index) {
+        return (buffer[index] & 0xFFL)
+                | (buffer[index + 1] & 0xFFL) << 8
+                | (buffer[index + 2] & 0xFFL) << 16
+                | (buffer[index + 3] & 0xFFL) << 24
+                | (buffer[index + 4] & 0xFFL) << 32
+                | (buffer[index + 5] & 0xFFL) << 40
+                | (buffer[index + 6] & 0xFFL) << 48
+                | (buffer[index + 7] & 0xFFL) << 56;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+}
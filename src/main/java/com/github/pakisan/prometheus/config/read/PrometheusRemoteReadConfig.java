@@ -1,9 +1,12 @@
 package com.github.pakisan.prometheus.config.read;
 
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.PrometheusDuration;
 import com.github.pakisan.prometheus.config.PrometheusTlsConfig;
 import com.github.pakisan.prometheus.config.auth.PrometheusAuthorization;
 import com.github.pakisan.prometheus.config.auth.PrometheusBasicAuth;
 import com.github.pakisan.prometheus.config.auth.PrometheusOAuth2;
+import com.github.pakisan.prometheus.config.codec.Configuration;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -20,6 +23,7 @@ import java.util.Map;
  * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/#remote_read">remote_read</a>
  * @author Pavel Bodiachevskii
  */
+@Configuration
 @Data
 @Builder
 @NoArgsConstructor
@@ -138,4 +142,12 @@ public class PrometheusRemoteReadConfig {
     @Builder.Default
     private boolean filter_external_labels = true;
 
+    /**
+     * @return remote_timeout as duration, or null if it is not set
+     * @throws PrometheusConfigException if remote_timeout is not a valid duration
+     */
+    public PrometheusDuration remoteTimeoutDuration() {
+        return PrometheusDuration.parse(remote_timeout);
+    }
+
 }
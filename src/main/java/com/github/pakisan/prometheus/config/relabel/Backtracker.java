@@ -0,0 +1,153 @@
+package com.github.pakisan.prometheus.config.relabel;
+
+import java.util.Arrays;
+
+import static com.github.pakisan.prometheus.config.relabel.NfaProgram.ASSERT;
+import static com.github.pakisan.prometheus.config.relabel.NfaProgram.JUMP;
+import static com.github.pakisan.prometheus.config.relabel.NfaProgram.MATCH;
+import static com.github.pakisan.prometheus.config.relabel.NfaProgram.SAVE;
+import static com.github.pakisan.prometheus.config.relabel.NfaProgram.SPLIT;
+
+/**
+ * Runs {@link NfaProgram} by backtracking which visits every pair of instruction and position at most once,
+ * like bit-state backtracker of RE2. Matching takes O(length of text * size of program) time, like for
+ * {@link PikeVm}, but is several times faster on short text, since it follows one thread at a time.
+ * <p>
+ * Visited pairs are kept in a bitmap, so backtracker runs only programs and texts for which the bitmap is small,
+ * see {@link #fits(NfaProgram, int)}, the way RE2 of Go does.
+ * <p>
+ * Backtracker is not thread safe, {@link NfaProgram} hands it to one thread at a time.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+final class Backtracker {
+
+    private static final int MAX_PROGRAM_SIZE = 500;
+
+    private static final int MAX_VISITED = 256 * 1024;
+
+    private final NfaProgram program;
+
+    private final boolean anchored;
+
+    private int[] visited = new int[32];
+
+    /**
+     * Pairs of instruction and position to try, or of capture slot, as -1 - slot, and value to restore.
+     */
+    private int[] stack = new int[64];
+
+    private int[] captures = new int[0];
+
+    Backtracker(NfaProgram program) {
+        this.program = program;
+        this.anchored = program.isAnchored();
+    }
+
+    /**
+     * @return true if backtracker can run the program over text of the length
+     */
+    static boolean fits(NfaProgram program, int length) {
+        return program.size() <= MAX_PROGRAM_SIZE && (long) program.size() * (length + 1) <= MAX_VISITED;
+    }
+
+    /**
+     * @param text text
+     * @param groups capture slots to fill, or null if only the fact of match matters
+     * @return true if the program matches text, leftmost match is reported like RE2 reports it
+     */
+    boolean run(CharSequence text, int[] groups) {
+        int slots = groups == null ? 0 : groups.length;
+        if (captures.length < slots) {
+            captures = new int[slots];
+        }
+
+        int words = (program.size() * (text.length() + 1) + 31) >>> 5;
+        if (visited.length < words) {
+            visited = new int[Math.max(words, visited.length * 2)];
+        } else {
+            Arrays.fill(visited, 0, words, 0);
+        }
+
+        // pairs which failed from an earlier start fail from later ones too, so visited pairs are kept
+        int last = anchored ? 0 : text.length();
+        for (int start = 0; start <= last; start++) {
+            Arrays.fill(captures, 0, slots, -1);
+            if (tryFrom(start, text, groups, slots)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean tryFrom(int start, CharSequence text, int[] groups, int slots) {
+        int[] ops = program.ops;
+        int[] args = program.args;
+        int length = text.length();
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = start;
+        while (top > 0) {
+            int position = stack[--top];
+            int pc = stack[--top];
+            if (pc < 0) {
+                captures[-1 - pc] = position;
+                continue;
+            }
+
+            while (true) {
+                int bit = pc * (length + 1) + position;
+                if ((visited[bit >>> 5] & (1 << bit)) != 0) {
+                    break;
+                }
+                visited[bit >>> 5] |= 1 << bit;
+
+                if (top + 2 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+
+                int op = ops[pc];
+                if (op == SPLIT) {
+                    stack[top++] = program.alternatives[pc];
+                    stack[top++] = position;
+                    pc = args[pc];
+                } else if (op == JUMP) {
+                    pc = args[pc];
+                } else if (op == SAVE) {
+                    if (args[pc] < slots) {
+                        stack[top++] = -1 - args[pc];
+                        stack[top++] = captures[args[pc]];
+                        captures[args[pc]] = position;
+                    }
+                    pc++;
+                } else if (op == ASSERT) {
+                    if (!NfaProgram.holds(args[pc], position, text)) {
+                        break;
+                    }
+                    pc++;
+                } else if (op == MATCH) {
+                    if (slots > 0) {
+                        System.arraycopy(captures, 0, groups, 0, slots);
+                    }
+                    return true;
+                } else {
+                    if (position == length) {
+                        break;
+                    }
+
+                    int c = Character.codePointAt(text, position);
+                    if (!program.consumes(pc, c)) {
+                        break;
+                    }
+                    position += Character.charCount(c);
+                    pc++;
+                }
+            }
+        }
+
+        return false;
+    }
+
+}
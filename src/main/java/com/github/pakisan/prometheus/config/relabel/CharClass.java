@@ -0,0 +1,330 @@
+package com.github.pakisan.prometheus.config.relabel;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Set of code points matched by a character class of {@link NfaProgram}, like {@code [a-z\d\p{Greek}]}.
+ * <p>
+ * Membership of ASCII code points is computed when the class is built and is a bit test, other code points are
+ * looked up in ranges and Unicode properties of the class. Classes \d, \w and POSIX classes are ASCII, like in RE2.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+final class CharClass {
+
+    /**
+     * ASCII classes by name as {@link java.util.regex.Pattern} writes them, as pairs of bits of code points
+     * 0..63 and 64..127.
+     */
+    private static final Map<String, long[]> ASCII_CLASSES = new HashMap<>();
+
+    /**
+     * Masks of {@link Character#getType(int)} by category name.
+     */
+    private static final Map<String, Integer> CATEGORIES = new HashMap<>();
+
+    static {
+        ASCII_CLASSES.put("Alnum", ascii("0-9A-Za-z"));
+        ASCII_CLASSES.put("Alpha", ascii("A-Za-z"));
+        ASCII_CLASSES.put("ASCII", ascii("\u0000-\u007f"));
+        ASCII_CLASSES.put("Blank", ascii("\t-\t - "));
+        ASCII_CLASSES.put("Cntrl", ascii("\u0000-\u001f\u007f-\u007f"));
+        ASCII_CLASSES.put("Digit", ascii("0-9"));
+        ASCII_CLASSES.put("Graph", ascii("!-~"));
+        ASCII_CLASSES.put("Lower", ascii("a-z"));
+        ASCII_CLASSES.put("Print", ascii(" -~"));
+        ASCII_CLASSES.put("Punct", ascii("!-/:-@[-`{-~"));
+        ASCII_CLASSES.put("Space", ascii("\t-\r - "));
+        ASCII_CLASSES.put("Upper", ascii("A-Z"));
+        ASCII_CLASSES.put("XDigit", ascii("0-9A-Fa-f"));
+        ASCII_CLASSES.put("d", ascii("0-9"));
+        ASCII_CLASSES.put("w", ascii("0-9A-Za-z_-_"));
+
+        category("Cc", Character.CONTROL);
+        category("Cf", Character.FORMAT);
+        category("Co", Character.PRIVATE_USE);
+        category("Cs", Character.SURROGATE);
+        category("Ll", Character.LOWERCASE_LETTER);
+        category("Lm", Character.MODIFIER_LETTER);
+        category("Lo", Character.OTHER_LETTER);
+        category("Lt", Character.TITLECASE_LETTER);
+        category("Lu", Character.UPPERCASE_LETTER);
+        category("Mc", Character.COMBINING_SPACING_MARK);
+        category("Me", Character.ENCLOSING_MARK);
+        category("Mn", Character.NON_SPACING_MARK);
+        category("Nd", Character.DECIMAL_DIGIT_NUMBER);
+        category("Nl", Character.LETTER_NUMBER);
+        category("No", Character.OTHER_NUMBER);
+        category("Pc", Character.CONNECTOR_PUNCTUATION);
+        category("Pd", Character.DASH_PUNCTUATION);
+        category("Pe", Character.END_PUNCTUATION);
+        category("Pf", Character.FINAL_QUOTE_PUNCTUATION);
+        category("Pi", Character.INITIAL_QUOTE_PUNCTUATION);
+        category("Po", Character.OTHER_PUNCTUATION);
+        category("Ps", Character.START_PUNCTUATION);
+        category("Sc", Character.CURRENCY_SYMBOL);
+        category("Sk", Character.MODIFIER_SYMBOL);
+        category("Sm", Character.MATH_SYMBOL);
+        category("So", Character.OTHER_SYMBOL);
+        category("Zl", Character.LINE_SEPARATOR);
+        category("Zp", Character.PARAGRAPH_SEPARATOR);
+        category("Zs", Character.SPACE_SEPARATOR);
+    }
+
+    /**
+     * Membership of code points 0..63 and 64..127.
+     */
+    private final long low;
+
+    private final long high;
+
+    /**
+     * Sorted ranges as pairs of first and last code points.
+     */
+    private final int[] ranges;
+
+    /**
+     * Unicode properties as triples of category mask, script ordinal, -1 for categories, and 1 if the property
+     * is negated.
+     */
+    private final int[] properties;
+
+    /**
+     * ASCII classes of the class, like \d, and whether every non-ASCII code point is a member, like for \D.
+     */
+    private final long asciiLow;
+
+    private final long asciiHigh;
+
+    private final boolean nonAscii;
+
+    private final boolean negated;
+
+    private final boolean foldCase;
+
+    private CharClass(Builder builder) {
+        this.ranges = builder.ranges();
+        this.properties = Arrays.copyOf(builder.properties, builder.propertyCount);
+        this.asciiLow = builder.asciiLow;
+        this.asciiHigh = builder.asciiHigh;
+        this.nonAscii = builder.nonAscii;
+        this.negated = builder.negated;
+        this.foldCase = builder.foldCase;
+
+        long low = 0;
+        long high = 0;
+        for (int c = 0; c < 128; c++) {
+            if (slowContains(c)) {
+                if (c < 64) {
+                    low |= 1L << c;
+                } else {
+                    high |= 1L << (c - 64);
+                }
+            }
+        }
+        this.low = low;
+        this.high = high;
+    }
+
+    boolean contains(int c) {
+        if (c < 64) {
+            return (low & (1L << c)) != 0;
+        }
+
+        if (c < 128) {
+            return (high & (1L << (c - 64))) != 0;
+        }
+
+        return slowContains(c);
+    }
+
+    private boolean slowContains(int c) {
+        boolean member = member(c);
+        if (!member && foldCase) {
+            int upperCase = Character.toUpperCase(c);
+            int lowerCase = Character.toLowerCase(c);
+            member = (upperCase != c && member(upperCase)) || (lowerCase != c && member(lowerCase));
+        }
+
+        return member != negated;
+    }
+
+    private boolean member(int c) {
+        if (c < 64 ? (asciiLow & (1L << c)) != 0 : c < 128 ? (asciiHigh & (1L << (c - 64))) != 0 : nonAscii) {
+            return true;
+        }
+
+        if (inRanges(c)) {
+            return true;
+        }
+
+        for (int i = 0; i < properties.length; i += 3) {
+            boolean property = properties[i + 1] < 0
+                    ? (properties[i] & (1 << Character.getType(c))) != 0
+                    : Character.UnicodeScript.of(c).ordinal() == properties[i + 1];
+            if (property != (properties[i + 2] != 0)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean inRanges(int c) {
+        int low = 0;
+        int high = ranges.length / 2 - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (ranges[middle * 2 + 1] < c) {
+                low = middle + 1;
+            } else if (ranges[middle * 2] > c) {
+                high = middle - 1;
+            } else {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @param ranges ASCII ranges, like {@code 0-9A-Fa-f}
+     */
+    private static long[] ascii(String ranges) {
+        long[] bits = new long[2];
+        for (int i = 0; i < ranges.length(); i += 3) {
+            for (int c = ranges.charAt(i); c <= ranges.charAt(i + 2); c++) {
+                bits[c >> 6] |= 1L << (c & 63);
+            }
+        }
+
+        return bits;
+    }
+
+    private static void category(String name, int type) {
+        CATEGORIES.put(name, 1 << type);
+        Integer major = CATEGORIES.get(name.substring(0, 1));
+        CATEGORIES.put(name.substring(0, 1), (major == null ? 0 : major) | 1 << type);
+    }
+
+    /**
+     * Collects members of a class.
+     */
+    static final class Builder {
+
+        private final boolean negated;
+
+        private final boolean foldCase;
+
+        private int[] ranges = new int[8];
+
+        private int rangeCount;
+
+        private int[] properties = new int[0];
+
+        private int propertyCount;
+
+        private long asciiLow;
+
+        private long asciiHigh;
+
+        private boolean nonAscii;
+
+        /**
+         * @param negated whether the class matches code points which are not members
+         * @param foldCase whether the class matches code points which are members in other case
+         */
+        Builder(boolean negated, boolean foldCase) {
+            this.negated = negated;
+            this.foldCase = foldCase;
+        }
+
+        Builder range(int first, int last) {
+            if (rangeCount == ranges.length) {
+                ranges = Arrays.copyOf(ranges, rangeCount * 2);
+            }
+
+            ranges[rangeCount++] = first;
+            ranges[rangeCount++] = last;
+            return this;
+        }
+
+        /**
+         * Adds ASCII class, like \d, \W or \p{Alpha}.
+         *
+         * @param name name of the class, like {@code d}, {@code w} or {@code Alpha}
+         * @param negatedClass whether the class is negated, like \W
+         * @return false if there is no such class
+         */
+        boolean ascii(String name, boolean negatedClass) {
+            long[] bits = ASCII_CLASSES.get(name);
+            if (bits == null) {
+                return false;
+            }
+
+            asciiLow |= negatedClass ? ~bits[0] : bits[0];
+            asciiHigh |= negatedClass ? ~bits[1] : bits[1];
+            nonAscii |= negatedClass;
+            return true;
+        }
+
+        /**
+         * Adds Unicode category, like Lu or L, or script, like Greek.
+         *
+         * @return false if there is no such category or script
+         */
+        boolean property(String name, boolean negatedProperty) {
+            Integer mask = CATEGORIES.get(name);
+            int script = -1;
+            if (mask == null) {
+                try {
+                    script = Character.UnicodeScript.forName(name).ordinal();
+                } catch (IllegalArgumentException e) {
+                    return false;
+                }
+            }
+
+            properties = Arrays.copyOf(properties, propertyCount + 3);
+            properties[propertyCount++] = mask == null ? 0 : mask;
+            properties[propertyCount++] = script;
+            properties[propertyCount++] = negatedProperty ? 1 : 0;
+            return true;
+        }
+
+        CharClass build() {
+            return new CharClass(this);
+        }
+
+        /**
+         * @return ranges sorted and merged
+         */
+        private int[] ranges() {
+            int count = rangeCount / 2;
+            long[] sorted = new long[count];
+            for (int i = 0; i < count; i++) {
+                sorted[i] = (long) ranges[i * 2] << 32 | ranges[i * 2 + 1];
+            }
+            Arrays.sort(sorted);
+
+            int[] merged = new int[rangeCount];
+            int size = 0;
+            for (long range : sorted) {
+                int first = (int) (range >>> 32);
+                int last = (int) range;
+                if (size > 0 && first <= merged[size - 1] + 1) {
+                    merged[size - 1] = Math.max(merged[size - 1], last);
+                } else {
+                    merged[size++] = first;
+                    merged[size++] = last;
+                }
+            }
+
+            return Arrays.copyOf(merged, size);
+        }
+
+    }
+
+}
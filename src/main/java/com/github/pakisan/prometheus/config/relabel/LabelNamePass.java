@@ -0,0 +1,113 @@
+package com.github.pakisan.prometheus.config.relabel;
+
+import com.github.pakisan.prometheus.config.PrometheusRelabelConfig.Action;
+
+/**
+ * Labelmap followed by labeldrop and labelkeep, or a run of labeldrop and labelkeep, applied in one walk over
+ * labels instead of a walk per relabel config.
+ * <p>
+ * Labeldrop and labelkeep only delete labels and decide by name alone, so a label may be checked by all of them
+ * at once, and a label labelmap sets may be checked as soon as it is set: the label set ends up the same as after
+ * separate walks. Runs are fused only when this holds, labelmap after labeldrop or labelkeep, or after another
+ * labelmap, is applied by a walk of its own, see {@link #fuse(RelabelStep[])}.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+final class LabelNamePass implements RelabelPass {
+
+    /**
+     * Labelmap, or null if the pass only drops labels.
+     */
+    private final RelabelStep labelmap;
+
+    /**
+     * Labeldrop and labelkeep.
+     */
+    private final RelabelStep[] filters;
+
+    private LabelNamePass(RelabelStep labelmap, RelabelStep[] filters) {
+        this.labelmap = labelmap;
+        this.filters = filters;
+    }
+
+    /**
+     * Fuses runs of steps which are applied to label names.
+     *
+     * @param steps steps in order they are applied
+     * @return passes which apply the steps in the same way
+     */
+    static RelabelPass[] fuse(RelabelStep[] steps) {
+        RelabelPass[] passes = new RelabelPass[steps.length];
+        int count = 0;
+        int i = 0;
+        while (i < steps.length) {
+            RelabelStep labelmap = steps[i].action() == Action.LABELMAP ? steps[i] : null;
+            int from = labelmap == null ? i : i + 1;
+            int to = from;
+            while (to < steps.length && isFilter(steps[to])) {
+                to++;
+            }
+
+            if (to - from >= (labelmap == null ? 2 : 1)) {
+                RelabelStep[] filters = new RelabelStep[to - from];
+                System.arraycopy(steps, from, filters, 0, filters.length);
+                passes[count++] = new LabelNamePass(labelmap, filters);
+                i = to;
+            } else {
+                passes[count++] = steps[i];
+                i++;
+            }
+        }
+
+        RelabelPass[] fused = new RelabelPass[count];
+        System.arraycopy(passes, 0, fused, 0, count);
+        return fused;
+    }
+
+    @Override
+    public boolean apply(LabelSetBuilder labels) {
+        for (int i = 0, size = labels.snapshot(); i < size; i++) {
+            String name = labels.snapshotName(i);
+            if (labelmap != null) {
+                String target = labelmap.mapName(name);
+                if (target != null) {
+                    labels.set(target, labels.snapshotValue(i));
+                    if (!keeps(target)) {
+                        labels.delete(target);
+                    }
+                }
+            }
+
+            if (!keeps(name)) {
+                labels.delete(name);
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public int apply(LabelSetBuilder[] rows, int[] selection, int count) {
+        for (int i = 0; i < count; i++) {
+            apply(rows[selection[i]]);
+        }
+
+        return count;
+    }
+
+    private boolean keeps(String name) {
+        for (RelabelStep filter : filters) {
+            if (!filter.keepsName(name)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isFilter(RelabelStep step) {
+        return step.action() == Action.LABELDROP || step.action() == Action.LABELKEEP;
+    }
+
+}
@@ -0,0 +1,239 @@
+package com.github.pakisan.prometheus.config.relabel;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable set of labels sorted by name, like labels of a target.
+ * <p>
+ * Names are sorted like Prometheus sorts them, in order of code points, and every name is present at most once.
+ * Labels with empty values are not present, like in Prometheus.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+public final class LabelSet {
+
+    public static final LabelSet EMPTY = new LabelSet(new String[0], new String[0]);
+
+    private final String[] names;
+
+    private final String[] values;
+
+    /**
+     * Hash code, or 0 if it is not computed yet, label sets are hashed on every lookup of {@link RelabelCache}.
+     */
+    private int hash;
+
+    /**
+     * @param names sorted distinct names, owned by the set
+     * @param values values of the names, owned by the set
+     */
+    LabelSet(String[] names, String[] values) {
+        this.names = names;
+        this.values = values;
+    }
+
+    /**
+     * @param labels labels, labels with empty values are skipped
+     * @return label set
+     */
+    public static LabelSet of(Map<String, String> labels) {
+        String[] names = new String[labels.size()];
+        int size = 0;
+        for (Map.Entry<String, String> label : labels.entrySet()) {
+            if (label.getValue() != null && !label.getValue().isEmpty()) {
+                names[size++] = label.getKey();
+            }
+        }
+
+        names = sort(size == names.length ? names : Arrays.copyOf(names, size));
+        String[] values = new String[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = labels.get(names[i]);
+        }
+
+        return new LabelSet(names, values);
+    }
+
+    /**
+     * @param namesAndValues names followed by their values, like {@code "job", "node", "instance", "localhost:9100"}
+     * @return label set
+     * @throws IllegalArgumentException if the number of strings is odd or a name is repeated
+     */
+    public static LabelSet of(String... namesAndValues) {
+        if (namesAndValues.length % 2 != 0) {
+            throw new IllegalArgumentException("names and values must be given in pairs");
+        }
+
+        Map<String, String> labels = new LinkedHashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            if (labels.put(namesAndValues[i], namesAndValues[i + 1]) != null) {
+                throw new IllegalArgumentException("label " + namesAndValues[i] + " is repeated");
+            }
+        }
+
+        return of(labels);
+    }
+
+    /**
+     * @param name name of label
+     * @return value of the label, or empty string if there is no such label
+     */
+    public String get(String name) {
+        int index = indexOf(name);
+        return index < 0 ? "" : values[index];
+    }
+
+    /**
+     * @param name name of label
+     * @return index of the label, or negative number if there is no such label
+     */
+    public int indexOf(String name) {
+        int low = 0;
+        int high = names.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int compared = compare(names[middle], name);
+            if (compared < 0) {
+                low = middle + 1;
+            } else if (compared > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+
+        return -(low + 1);
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public boolean isEmpty() {
+        return names.length == 0;
+    }
+
+    /**
+     * @param index index of label, in order of names
+     * @return name of the label
+     */
+    public String name(int index) {
+        return names[index];
+    }
+
+    /**
+     * @param index index of label, in order of names
+     * @return value of the label
+     */
+    public String value(int index) {
+        return values[index];
+    }
+
+    /**
+     * @return labels in order of names
+     */
+    public Map<String, String> toMap() {
+        Map<String, String> labels = new LinkedHashMap<>(names.length * 2);
+        for (int i = 0; i < names.length; i++) {
+            labels.put(names[i], values[i]);
+        }
+
+        return labels;
+    }
+
+    /**
+     * Compares names in order of code points, which is the order of their UTF-8 bytes Prometheus sorts labels in.
+     */
+    static int compare(String first, String second) {
+        int length = Math.min(first.length(), second.length());
+        for (int i = 0; i < length; i++) {
+            char a = first.charAt(i);
+            char b = second.charAt(i);
+            if (a != b) {
+                if (Character.isSurrogate(a) != Character.isSurrogate(b) && (a >= 0xE000 || b >= 0xE000)) {
+                    // surrogates encode code points above U+FFFF, which follow U+E000..U+FFFF
+                    return Character.isSurrogate(a) ? 1 : -1;
+                }
+
+                return a - b;
+            }
+        }
+
+        return first.length() - second.length();
+    }
+
+    static String[] sort(String[] names) {
+        Arrays.sort(names, NameOrder.INSTANCE);
+        return names;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof LabelSet)) {
+            return false;
+        }
+
+        LabelSet that = (LabelSet) o;
+        return Arrays.equals(names, that.names) && Arrays.equals(values, that.values);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = this.hash;
+        if (hash == 0) {
+            hash = Arrays.hashCode(names) * 31 + Arrays.hashCode(values);
+            this.hash = hash;
+        }
+
+        return hash;
+    }
+
+    /**
+     * @return labels like Prometheus prints them, like {instance="localhost:9100", job="node"}
+     */
+    @Override
+    public String toString() {
+        StringBuilder labels = new StringBuilder().append('{');
+        for (int i = 0; i < names.length; i++) {
+            if (i > 0) {
+                labels.append(", ");
+            }
+
+            labels.append(names[i]).append("=\"");
+            String value = values[i];
+            for (int j = 0; j < value.length(); j++) {
+                char c = value.charAt(j);
+                if (c == '"' || c == '\\') {
+                    labels.append('\\').append(c);
+                } else if (c == '\n') {
+                    labels.append("\\n");
+                } else {
+                    labels.append(c);
+                }
+            }
+            labels.append('"');
+        }
+
+        return labels.append('}').toString();
+    }
+
+    private static final class NameOrder implements Comparator<String> {
+
+        private static final NameOrder INSTANCE = new NameOrder();
+
+        @Override
+        public int compare(String first, String second) {
+            return LabelSet.compare(first, second);
+        }
+
+    }
+
+}
@@ -0,0 +1,185 @@
+package com.github.pakisan.prometheus.config.relabel;
+
+import java.util.Arrays;
+
+/**
+ * Label sets relabeled together, like series of one scrape by metric_relabel_configs.
+ * <p>
+ * {@link RelabelProgram#apply(LabelSetBatch)} applies every relabel config to all label sets of the batch before
+ * it applies the next one, so regex and data of the config stay in cache while thousands of label sets pass
+ * through it. Label sets which are not dropped are listed by selection, dropped ones leave the selection and
+ * later configs skip them.
+ * <pre>{@code
+ * LabelSetBatch batch = new LabelSetBatch();
+ * for (LabelSet series : scraped) {
+ *     batch.add(series);
+ * }
+ * program.apply(batch);
+ * for (int i = 0; i < batch.selected(); i++) {
+ *     LabelSet relabeled = batch.get(batch.selection(i));
+ * }
+ * }</pre>
+ * Batch may be cleared and filled again, it keeps its arrays. Batch is not thread safe.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+public final class LabelSetBatch {
+
+    private LabelSet[] labels;
+
+    /**
+     * Builder of every label set, in which relabel configs change it.
+     */
+    private LabelSetBuilder[] builders;
+
+    private int size;
+
+    /**
+     * Indexes of label sets which are not dropped, in ascending order.
+     */
+    private int[] selection;
+
+    private int selected;
+
+    /**
+     * Selection which relabel configs narrow while they are applied.
+     */
+    private int[] working;
+
+    public LabelSetBatch() {
+        this(16);
+    }
+
+    /**
+     * @param capacity expected number of label sets
+     */
+    public LabelSetBatch(int capacity) {
+        int length = Math.max(1, capacity);
+        this.labels = new LabelSet[length];
+        this.builders = new LabelSetBuilder[length];
+        this.selection = new int[length];
+        this.working = new int[length];
+    }
+
+    /**
+     * Adds label set to the batch and to selection.
+     *
+     * @param labels labels, like labels of a series
+     * @return index of the label set in the batch
+     */
+    public int add(LabelSet labels) {
+        if (labels == null) {
+            throw new NullPointerException("labels");
+        }
+
+        if (size == this.labels.length) {
+            this.labels = Arrays.copyOf(this.labels, size * 2);
+            this.builders = Arrays.copyOf(builders, size * 2);
+            this.selection = Arrays.copyOf(selection, size * 2);
+            this.working = new int[size * 2];
+        }
+
+        this.labels[size] = labels;
+        selection[selected++] = size;
+        return size++;
+    }
+
+    /**
+     * @return number of label sets, dropped ones included
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index index of label set
+     * @return labels as they are after relabeling, or null if they are dropped
+     */
+    public LabelSet get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + " of batch of " + size);
+        }
+
+        return labels[index];
+    }
+
+    /**
+     * @return number of label sets which are not dropped
+     */
+    public int selected() {
+        return selected;
+    }
+
+    /**
+     * @param position position in selection, from 0 to {@link #selected()}
+     * @return index of label set which is not dropped
+     */
+    public int selection(int position) {
+        if (position < 0 || position >= selected) {
+            throw new IndexOutOfBoundsException("position " + position + " of selection of " + selected);
+        }
+
+        return selection[position];
+    }
+
+    /**
+     * Removes all label sets.
+     */
+    public void clear() {
+        Arrays.fill(labels, 0, size, null);
+        size = 0;
+        selected = 0;
+    }
+
+    /**
+     * Starts relabeling of label sets in selection, relabel configs narrow {@link #working()} selection.
+     *
+     * @return number of label sets in selection
+     */
+    int begin() {
+        System.arraycopy(selection, 0, working, 0, selected);
+        for (int i = 0; i < selected; i++) {
+            int index = selection[i];
+            if (builders[index] == null) {
+                builders[index] = new LabelSetBuilder(labels[index]);
+            } else {
+                builders[index].reset(labels[index]);
+            }
+        }
+
+        return selected;
+    }
+
+    LabelSetBuilder[] builders() {
+        return builders;
+    }
+
+    int[] working() {
+        return working;
+    }
+
+    /**
+     * Ends relabeling, label sets which left selection are dropped.
+     *
+     * @param count number of label sets left in {@link #working()} selection, which keeps their order
+     */
+    void end(int count) {
+        int kept = 0;
+        for (int i = 0; i < selected; i++) {
+            int index = selection[i];
+            if (kept < count && working[kept] == index) {
+                labels[index] = builders[index].labels();
+                kept++;
+            } else {
+                labels[index] = null;
+            }
+            // releases labels of the label set, builder itself is reused
+            builders[index].reset(LabelSet.EMPTY);
+        }
+
+        System.arraycopy(working, 0, selection, 0, count);
+        selected = count;
+    }
+
+}
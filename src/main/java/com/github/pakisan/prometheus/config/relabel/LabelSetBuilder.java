@@ -0,0 +1,214 @@
+package com.github.pakisan.prometheus.config.relabel;
+
+import java.util.Arrays;
+
+/**
+ * Changes of a label set, kept the way Prometheus keeps them: the base set, labels set since, in order they were
+ * first set, and names deleted since.
+ * <p>
+ * Order matters to labelmap, labeldrop and labelkeep, which walk labels as they were when the walk started:
+ * labels of the base set which were not changed, followed by labels which were set.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+final class LabelSetBuilder {
+
+    /**
+     * Arrays grow once labels are changed, so builders of label sets which are not changed take little memory.
+     */
+    private static final String[] EMPTY = new String[0];
+
+    private LabelSet base;
+
+    private String[] addedNames = EMPTY;
+
+    private String[] addedValues = EMPTY;
+
+    private int added;
+
+    private String[] deleted = EMPTY;
+
+    private int deletedCount;
+
+    private String[] snapshotNames = EMPTY;
+
+    private String[] snapshotValues = EMPTY;
+
+    LabelSetBuilder(LabelSet base) {
+        reset(base);
+    }
+
+    /**
+     * Starts changes of another label set.
+     */
+    void reset(LabelSet base) {
+        this.base = base;
+        Arrays.fill(addedNames, 0, added, null);
+        Arrays.fill(addedValues, 0, added, null);
+        Arrays.fill(deleted, 0, deletedCount, null);
+        added = 0;
+        deletedCount = 0;
+    }
+
+    /**
+     * @return value of the label, or empty string if there is no such label
+     */
+    String get(String name) {
+        // set does not remove names from deleted ones, so labels which were set are looked up first
+        int index = indexOfAdded(name);
+        if (index >= 0) {
+            return addedValues[index];
+        }
+
+        if (isDeleted(name)) {
+            return "";
+        }
+
+        return base.get(name);
+    }
+
+    /**
+     * Sets label, deletes it if the value is empty.
+     */
+    void set(String name, String value) {
+        if (value.isEmpty()) {
+            delete(name);
+            return;
+        }
+
+        int index = indexOfAdded(name);
+        if (index >= 0) {
+            addedValues[index] = value;
+            return;
+        }
+
+        if (added == addedNames.length) {
+            addedNames = Arrays.copyOf(addedNames, Math.max(8, added * 2));
+            addedValues = Arrays.copyOf(addedValues, Math.max(8, added * 2));
+        }
+
+        addedNames[added] = name;
+        addedValues[added] = value;
+        added++;
+    }
+
+    void delete(String name) {
+        int index = indexOfAdded(name);
+        if (index >= 0) {
+            System.arraycopy(addedNames, index + 1, addedNames, index, added - index - 1);
+            System.arraycopy(addedValues, index + 1, addedValues, index, added - index - 1);
+            added--;
+            addedNames[added] = null;
+            addedValues[added] = null;
+        }
+
+        if (deletedCount == deleted.length) {
+            deleted = Arrays.copyOf(deleted, Math.max(8, deletedCount * 2));
+        }
+
+        deleted[deletedCount++] = name;
+    }
+
+    /**
+     * Copies current labels in order labelmap, labeldrop and labelkeep walk them, to be read with
+     * {@link #snapshotName(int)} and {@link #snapshotValue(int)}.
+     *
+     * @return number of labels
+     */
+    int snapshot() {
+        int capacity = base.size() + added;
+        if (snapshotNames.length < capacity) {
+            snapshotNames = new String[capacity];
+            snapshotValues = new String[capacity];
+        }
+
+        int size = 0;
+        for (int i = 0; i < base.size(); i++) {
+            String name = base.name(i);
+            if (!isDeleted(name) && indexOfAdded(name) < 0) {
+                snapshotNames[size] = name;
+                snapshotValues[size] = base.value(i);
+                size++;
+            }
+        }
+
+        System.arraycopy(addedNames, 0, snapshotNames, size, added);
+        System.arraycopy(addedValues, 0, snapshotValues, size, added);
+        return size + added;
+    }
+
+    String snapshotName(int index) {
+        return snapshotNames[index];
+    }
+
+    String snapshotValue(int index) {
+        return snapshotValues[index];
+    }
+
+    /**
+     * @return labels with the changes, sorted by name
+     */
+    LabelSet labels() {
+        if (added == 0 && deletedCount == 0) {
+            return base;
+        }
+
+        int size = 0;
+        String[] names = new String[base.size() + added];
+        String[] values = new String[names.length];
+        for (int i = 0; i < base.size(); i++) {
+            String name = base.name(i);
+            if (!isDeleted(name) && indexOfAdded(name) < 0) {
+                names[size] = name;
+                values[size] = base.value(i);
+                size++;
+            }
+        }
+
+        if (added == 0) {
+            return new LabelSet(Arrays.copyOf(names, size), Arrays.copyOf(values, size));
+        }
+
+        // merges kept labels, which are sorted, with sorted labels which were set
+        String[] addedOrder = LabelSet.sort(Arrays.copyOf(addedNames, added));
+        String[] mergedNames = new String[size + added];
+        String[] mergedValues = new String[size + added];
+        int kept = 0;
+        int set = 0;
+        for (int i = 0; i < mergedNames.length; i++) {
+            if (set == added || (kept < size && LabelSet.compare(names[kept], addedOrder[set]) < 0)) {
+                mergedNames[i] = names[kept];
+                mergedValues[i] = values[kept];
+                kept++;
+            } else {
+                mergedNames[i] = addedOrder[set];
+                mergedValues[i] = addedValues[indexOfAdded(addedOrder[set])];
+                set++;
+            }
+        }
+
+        return new LabelSet(mergedNames, mergedValues);
+    }
+
+    private int indexOfAdded(String name) {
+        for (int i = 0; i < added; i++) {
+            if (addedNames[i].equals(name)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private boolean isDeleted(String name) {
+        for (int i = 0; i < deletedCount; i++) {
+            if (deleted[i].equals(name)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+}
@@ -0,0 +1,273 @@
+package com.github.pakisan.prometheus.config.relabel;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.github.pakisan.prometheus.config.relabel.NfaProgram.ASSERT;
+import static com.github.pakisan.prometheus.config.relabel.NfaProgram.BEGIN_TEXT;
+import static com.github.pakisan.prometheus.config.relabel.NfaProgram.END_TEXT;
+import static com.github.pakisan.prometheus.config.relabel.NfaProgram.JUMP;
+import static com.github.pakisan.prometheus.config.relabel.NfaProgram.MATCH;
+import static com.github.pakisan.prometheus.config.relabel.NfaProgram.SAVE;
+import static com.github.pakisan.prometheus.config.relabel.NfaProgram.SPLIT;
+
+/**
+ * Tells whether {@link NfaProgram} matches text, without submatches, by automaton which is built from the program
+ * as text is matched, like DFA of RE2: a state is the set of instructions of all threads of {@link PikeVm}, and
+ * transitions between states are computed once and cached, so matching costs a table lookup per ASCII code point.
+ * <p>
+ * Only anchored programs which assert nothing but the beginning and the end of text, like every relabel regex
+ * without {@code ^}, {@code $} in multiline mode or \b, are run by the automaton. Number of states is limited,
+ * once the limit is reached, text is matched by other engines.
+ * <p>
+ * Automaton is thread safe: states are immutable, except cached transitions, which are computed again if another
+ * thread does not see them yet.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+final class LazyDfa {
+
+    static final int NO_MATCH = 0;
+
+    static final int MATCH_FOUND = 1;
+
+    /**
+     * Text was not matched, since the automaton has too many states.
+     */
+    static final int UNKNOWN = -1;
+
+    private static final int MAX_STATES = 1000;
+
+    private final NfaProgram program;
+
+    private final State start;
+
+    private final ConcurrentHashMap<Key, State> states = new ConcurrentHashMap<>();
+
+    private LazyDfa(NfaProgram program) {
+        this.program = program;
+        this.start = new State(closure(new int[]{0}, 1, true, false), true);
+    }
+
+    /**
+     * @return automaton, or null if the program can not be run by it
+     */
+    static LazyDfa of(NfaProgram program) {
+        if (!program.isAnchored()) {
+            return null;
+        }
+
+        for (int pc = 0; pc < program.size(); pc++) {
+            if (program.ops[pc] == ASSERT && program.args[pc] != BEGIN_TEXT && program.args[pc] != END_TEXT) {
+                return null;
+            }
+        }
+
+        return new LazyDfa(program);
+    }
+
+    /**
+     * @return {@link #MATCH_FOUND}, {@link #NO_MATCH} or {@link #UNKNOWN}
+     */
+    int matches(CharSequence text) {
+        State state = start;
+        int length = text.length();
+        int position = 0;
+        while (position < length) {
+            if (state.match) {
+                return MATCH_FOUND;
+            }
+
+            if (state.instructions.length == 0) {
+                return NO_MATCH;
+            }
+
+            char c = text.charAt(position);
+            State next;
+            if (c < 128) {
+                next = state.next[c];
+                if (next == null) {
+                    next = step(state, c);
+                    if (next == null) {
+                        return UNKNOWN;
+                    }
+                    state.next[c] = next;
+                }
+                position++;
+            } else {
+                int codePoint = Character.codePointAt(text, position);
+                next = step(state, codePoint);
+                if (next == null) {
+                    return UNKNOWN;
+                }
+                position += Character.charCount(codePoint);
+            }
+            state = next;
+        }
+
+        return state.match || state.matchAtEnd ? MATCH_FOUND : NO_MATCH;
+    }
+
+    /**
+     * @return state after the code point, or null if there are too many states
+     */
+    private State step(State state, int c) {
+        int[] followers = new int[state.instructions.length];
+        int count = 0;
+        for (int pc : state.instructions) {
+            if (program.consumes(pc, c)) {
+                followers[count++] = pc + 1;
+            }
+        }
+
+        Key key = new Key(closure(followers, count, false, false));
+        State known = states.get(key);
+        if (known != null) {
+            return known;
+        }
+
+        if (states.size() >= MAX_STATES) {
+            return null;
+        }
+
+        State next = new State(key.instructions, false);
+        known = states.putIfAbsent(key, next);
+        return known == null ? next : known;
+    }
+
+    /**
+     * @return sorted instructions which consume text, matches, and assertions of the end of text unless text ends,
+     * which threads starting at the instructions reach without consuming text
+     */
+    private int[] closure(int[] instructions, int count, boolean atBegin, boolean atEnd) {
+        boolean[] visited = new boolean[program.size()];
+        int[] stack = new int[program.size() * 2 + count];
+        int top = 0;
+        for (int i = count - 1; i >= 0; i--) {
+            stack[top++] = instructions[i];
+        }
+
+        int[] closure = new int[program.size()];
+        int size = 0;
+        while (top > 0) {
+            int pc = stack[--top];
+            if (visited[pc]) {
+                continue;
+            }
+            visited[pc] = true;
+
+            switch (program.ops[pc]) {
+                case SPLIT:
+                    stack[top++] = program.alternatives[pc];
+                    stack[top++] = program.args[pc];
+                    break;
+                case JUMP:
+                    stack[top++] = program.args[pc];
+                    break;
+                case SAVE:
+                    stack[top++] = pc + 1;
+                    break;
+                case ASSERT:
+                    if (program.args[pc] == END_TEXT && !atEnd) {
+                        closure[size++] = pc;
+                    } else if (program.args[pc] == END_TEXT || atBegin) {
+                        stack[top++] = pc + 1;
+                    }
+                    break;
+                default:
+                    closure[size++] = pc;
+            }
+        }
+
+        int[] sorted = Arrays.copyOf(closure, size);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * @return true if the instructions reach a match when text ends
+     */
+    private boolean matchAtEnd(int[] instructions, boolean atBegin) {
+        int[] followers = new int[instructions.length];
+        int count = 0;
+        for (int pc : instructions) {
+            if (program.ops[pc] == MATCH) {
+                return true;
+            }
+
+            if (program.ops[pc] == ASSERT) {
+                followers[count++] = pc + 1;
+            }
+        }
+
+        for (int pc : closure(followers, count, atBegin, true)) {
+            if (program.ops[pc] == MATCH) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * State of the automaton.
+     */
+    private final class State {
+
+        /**
+         * Sorted instructions of threads.
+         */
+        final int[] instructions;
+
+        /**
+         * Whether a thread has reached the match.
+         */
+        final boolean match;
+
+        /**
+         * Whether a thread reaches the match if text ends.
+         */
+        final boolean matchAtEnd;
+
+        final State[] next = new State[128];
+
+        State(int[] instructions, boolean atBegin) {
+            this.instructions = instructions;
+            boolean match = false;
+            for (int pc : instructions) {
+                match |= program.ops[pc] == MATCH;
+            }
+            this.match = match;
+            this.matchAtEnd = matchAtEnd(instructions, atBegin);
+        }
+
+    }
+
+    /**
+     * Instructions of a state, identify the state.
+     */
+    private static final class Key {
+
+        final int[] instructions;
+
+        private final int hash;
+
+        Key(int[] instructions) {
+            this.instructions = instructions;
+            this.hash = Arrays.hashCode(instructions);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || (o instanceof Key && Arrays.equals(instructions, ((Key) o).instructions));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.github.pakisan.prometheus.config.relabel;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * MD5 of text encoded in UTF-8, computed without allocation: text is encoded into a buffer which is reused,
+ * and the digest is written into an array which is reused too, so hashing source_labels of a target allocates
+ * neither their concatenation, nor its bytes, nor the digest. Digest itself is computed by {@link MessageDigest},
+ * which the JVM runs as an intrinsic.
+ * <p>
+ * Unpaired surrogates are encoded as {@code ?}, like {@link String#getBytes(java.nio.charset.Charset)} encodes them.
+ * <p>
+ * Instance is not thread safe, it is reused by one thread.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+final class Md5 {
+
+    private final MessageDigest digest;
+
+    private final byte[] buffer = new byte[256];
+
+    private int offset;
+
+    private final byte[] hash = new byte[16];
+
+    Md5() {
+        try {
+            this.digest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is supported by every Java platform", e);
+        }
+    }
+
+    /**
+     * Hashes text encoded in UTF-8.
+     */
+    void update(CharSequence text) {
+        for (int i = 0, size = text.length(); i < size; i++) {
+            if (offset > buffer.length - 4) {
+                digest.update(buffer, 0, offset);
+                offset = 0;
+            }
+
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                buffer[offset++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[offset++] = (byte) (0xC0 | (c >> 6));
+                buffer[offset++] = (byte) (0x80 | (c & 0x3F));
+            } else if (!Character.isSurrogate(c)) {
+                buffer[offset++] = (byte) (0xE0 | (c >> 12));
+                buffer[offset++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[offset++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < size && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                buffer[offset++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[offset++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[offset++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[offset++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                buffer[offset++] = '?';
+            }
+        }
+    }
+
+    /**
+     * Finishes hashing, the next update starts another text.
+     *
+     * @return last 8 bytes of the digest, big-endian, which hashmod of Prometheus takes modulo of
+     */
+    long finish() {
+        digest.update(buffer, 0, offset);
+        offset = 0;
+        try {
+            digest.digest(hash, 0, hash.length);
+        } catch (DigestException e) {
+            throw new IllegalStateException("MD5 digest is 16 bytes long", e);
+        }
+
+        long value = 0;
+        for (int i = 8; i < 16; i++) {
+            value = (value << 8) | (hash[i] & 0xFF);
+        }
+
+        return value;
+    }
+
+}
@@ -0,0 +1,589 @@
+package com.github.pakisan.prometheus.config.relabel;
+
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compiles expression translated by {@link Re2Translator} to {@link NfaProgram}.
+ * <p>
+ * Translator has already checked RE2 syntax and writes a small subset of {@link java.util.regex.Pattern} syntax:
+ * code points as letters, digits, underscore or {@code \x{h}}, bracketed classes of such code points, ranges,
+ * \d, \w, POSIX and Unicode classes, groups, flags {@code iu}, quantifiers and the anchors it writes for
+ * {@code ^}, {@code $}, \A, \z, \b and \B. So compiler parses the translated expression, not RE2, and both
+ * {@link RelabelRegex#pattern()} and the program match the same strings.
+ * <p>
+ * Like RE2, compiler rejects expressions which nest too deeply or compile to too many instructions, since
+ * matching time grows with size of program.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+final class NfaCompiler {
+
+    private static final int MAX_DEPTH = 1000;
+
+    /**
+     * The limit of RE2 of Go: 128 MB of 40 byte instructions.
+     */
+    private static final int MAX_SIZE = (128 << 20) / 40;
+
+    private static final String BEGIN_LINE = "(?:\\A|(?<=\\n))";
+
+    private static final String END_LINE = "(?=\\n|\\z)";
+
+    private static final String ANY = "[\\x{0}-\\x{10ffff}]";
+
+    private static final String ANY_NOT_NEWLINE = "[^\\n]";
+
+    private static final String EMPTY_CLASS = "\\x{0}&&[^\\x{0}]]";
+
+    private final String pattern;
+
+    private final String regex;
+
+    private int position;
+
+    private int depth;
+
+    private boolean foldCase;
+
+    private int groupCount;
+
+    private final List<CharClass> classes = new ArrayList<>();
+
+    private int[] ops = new int[16];
+
+    private int[] args = new int[16];
+
+    private int[] alternatives = new int[16];
+
+    private int size;
+
+    private NfaCompiler(String pattern, String regex) {
+        this.pattern = pattern;
+        this.regex = regex;
+    }
+
+    /**
+     * @param pattern expression translated by {@link Re2Translator}
+     * @param regex expression as written in configuration, for messages
+     * @return program
+     * @throws PrometheusConfigException if the expression is too large
+     */
+    static NfaProgram compile(String pattern, String regex) {
+        NfaCompiler compiler = new NfaCompiler(pattern, regex);
+        Node root = compiler.alternation();
+        if (compiler.position != pattern.length()) {
+            throw new IllegalStateException("unexpected " + pattern.substring(compiler.position) + " in " + pattern);
+        }
+
+        compiler.emit(NfaProgram.SAVE, 0);
+        compiler.emit(root);
+        compiler.emit(NfaProgram.SAVE, 1);
+        compiler.emit(NfaProgram.MATCH, 0);
+        return new NfaProgram(
+                Arrays.copyOf(compiler.ops, compiler.size), Arrays.copyOf(compiler.args, compiler.size),
+                Arrays.copyOf(compiler.alternatives, compiler.size),
+                compiler.classes.toArray(new CharClass[0]), compiler.groupCount
+        );
+    }
+
+    private Node alternation() {
+        Node first = concatenation();
+        if (!pattern.startsWith("|", position)) {
+            return first;
+        }
+
+        Node alternation = new Node(Node.ALTERNATE);
+        alternation.children.add(first);
+        while (pattern.startsWith("|", position)) {
+            position++;
+            alternation.children.add(concatenation());
+        }
+
+        return alternation;
+    }
+
+    private Node concatenation() {
+        Node concatenation = new Node(Node.CONCATENATE);
+        while (position < pattern.length() && pattern.charAt(position) != '|' && pattern.charAt(position) != ')') {
+            Node atom = atom();
+            if (atom != null) {
+                concatenation.children.add(quantified(atom));
+            }
+        }
+
+        return concatenation;
+    }
+
+    /**
+     * @return atom, or null for flags which apply to the rest of the group
+     */
+    private Node atom() {
+        if (accept(BEGIN_LINE)) {
+            return Node.assertion(NfaProgram.BEGIN_LINE);
+        }
+
+        if (accept(END_LINE)) {
+            return Node.assertion(NfaProgram.END_LINE);
+        }
+
+        if (accept("(?iu)")) {
+            foldCase = true;
+            return null;
+        }
+
+        if (accept("(?-iu)")) {
+            foldCase = false;
+            return null;
+        }
+
+        if (accept("(?iu:")) {
+            return group(true, -1);
+        }
+
+        if (accept("(?-iu:")) {
+            return group(false, -1);
+        }
+
+        if (accept("(?:")) {
+            return group(foldCase, -1);
+        }
+
+        if (accept("(")) {
+            return group(foldCase, ++groupCount);
+        }
+
+        if (accept("[")) {
+            return characterClass();
+        }
+
+        if (accept("\\")) {
+            return escape();
+        }
+
+        return literal(next());
+    }
+
+    private Node group(boolean groupFoldCase, int group) {
+        if (++depth > MAX_DEPTH) {
+            throw error("expression nests too deeply");
+        }
+
+        boolean enclosingFoldCase = foldCase;
+        foldCase = groupFoldCase;
+        Node child = alternation();
+        expect(")");
+        foldCase = enclosingFoldCase;
+        depth--;
+
+        if (group < 0) {
+            return child;
+        }
+
+        Node capture = new Node(Node.CAPTURE);
+        capture.value = group;
+        capture.children.add(child);
+        return capture;
+    }
+
+    private Node quantified(Node atom) {
+        int min;
+        int max;
+        if (accept("*")) {
+            min = 0;
+            max = -1;
+        } else if (accept("+")) {
+            min = 1;
+            max = -1;
+        } else if (accept("?")) {
+            min = 0;
+            max = 1;
+        } else if (accept("{")) {
+            min = number();
+            max = min;
+            if (accept(",")) {
+                max = pattern.startsWith("}", position) ? -1 : number();
+            }
+            expect("}");
+        } else {
+            return atom;
+        }
+
+        Node repeat = new Node(Node.REPEAT);
+        repeat.min = min;
+        repeat.max = max;
+        repeat.greedy = !accept("?");
+        repeat.children.add(atom);
+        return repeat;
+    }
+
+    private Node escape() {
+        int c = next();
+        switch (c) {
+            case 'A':
+                return Node.assertion(NfaProgram.BEGIN_TEXT);
+            case 'z':
+                return Node.assertion(NfaProgram.END_TEXT);
+            case 'b':
+                return Node.assertion(NfaProgram.WORD_BOUNDARY);
+            case 'B':
+                return Node.assertion(NfaProgram.NOT_WORD_BOUNDARY);
+            case 'd':
+            case 'D':
+            case 'w':
+            case 'W':
+            case 'p':
+            case 'P':
+                position -= 2;
+                CharClass.Builder builder = new CharClass.Builder(false, foldCase);
+                classItem(builder);
+                return charClass(builder.build());
+            default:
+                position -= 2;
+                return literal(codePoint());
+        }
+    }
+
+    private Node characterClass() {
+        if (accept(ANY.substring(1))) {
+            return new Node(Node.ANY);
+        }
+
+        if (accept(ANY_NOT_NEWLINE.substring(1))) {
+            return new Node(Node.ANY_NOT_NEWLINE);
+        }
+
+        boolean negated = accept("^");
+        CharClass.Builder builder = new CharClass.Builder(negated, foldCase);
+        if (accept(EMPTY_CLASS)) {
+            return charClass(builder.build());
+        }
+
+        while (!accept("]")) {
+            classItem(builder);
+        }
+
+        return charClass(builder.build());
+    }
+
+    private void classItem(CharClass.Builder builder) {
+        if (pattern.startsWith("\\", position) && position + 1 < pattern.length()) {
+            char c = pattern.charAt(position + 1);
+            switch (c) {
+                case 'd':
+                case 'D':
+                case 'w':
+                case 'W':
+                    position += 2;
+                    builder.ascii(String.valueOf(Character.toLowerCase(c)), Character.isUpperCase(c));
+                    return;
+                case 'p':
+                case 'P':
+                    position += 3;
+                    int end = pattern.indexOf('}', position);
+                    String name = pattern.substring(position, end);
+                    position = end + 1;
+                    if (name.startsWith("Is") ? !builder.property(name.substring(2), c == 'P') : !builder.ascii(name, c == 'P')) {
+                        throw new IllegalStateException("unknown class " + name + " in " + pattern);
+                    }
+                    return;
+                default:
+            }
+        }
+
+        int first = codePoint();
+        if (pattern.startsWith("-", position) && !pattern.startsWith("-]", position)) {
+            position++;
+            builder.range(first, codePoint());
+        } else {
+            builder.range(first, first);
+        }
+    }
+
+    /**
+     * Parses code point written by translator: letter, digit, underscore, \x{h} or escaped control character.
+     */
+    private int codePoint() {
+        if (!accept("\\")) {
+            return next();
+        }
+
+        int c = next();
+        switch (c) {
+            case 'x':
+                expect("{");
+                int end = pattern.indexOf('}', position);
+                int codePoint = Integer.parseInt(pattern.substring(position, end), 16);
+                position = end + 1;
+                return codePoint;
+            case 't':
+                return '\t';
+            case 'n':
+                return '\n';
+            case 'f':
+                return '\f';
+            case 'r':
+                return '\r';
+            default:
+                throw new IllegalStateException("unexpected escape \\" + (char) c + " in " + pattern);
+        }
+    }
+
+    private int number() {
+        int start = position;
+        while (position < pattern.length() && Character.isDigit(pattern.charAt(position))) {
+            position++;
+        }
+
+        return Integer.parseInt(pattern.substring(start, position));
+    }
+
+    private Node literal(int c) {
+        Node literal = new Node(Node.LITERAL);
+        boolean folded = foldCase && (Character.toUpperCase(c) != c || Character.toLowerCase(c) != c);
+        literal.value = folded ? NfaProgram.fold(c) : c;
+        literal.foldCase = folded;
+        return literal;
+    }
+
+    private Node charClass(CharClass charClass) {
+        Node node = new Node(Node.CLASS);
+        node.value = classes.size();
+        classes.add(charClass);
+        return node;
+    }
+
+    private boolean accept(String expected) {
+        if (pattern.startsWith(expected, position)) {
+            position += expected.length();
+            return true;
+        }
+
+        return false;
+    }
+
+    private void expect(String expected) {
+        if (!accept(expected)) {
+            throw new IllegalStateException("expected " + expected + " at " + position + " in " + pattern);
+        }
+    }
+
+    private int next() {
+        int c = pattern.codePointAt(position);
+        position += Character.charCount(c);
+        return c;
+    }
+
+    private void emit(Node node) {
+        switch (node.kind) {
+            case Node.LITERAL:
+                emit(node.foldCase ? NfaProgram.CHAR_FOLD : NfaProgram.CHAR, node.value);
+                break;
+            case Node.CLASS:
+                emit(NfaProgram.CLASS, node.value);
+                break;
+            case Node.ANY:
+                emit(NfaProgram.ANY, 0);
+                break;
+            case Node.ANY_NOT_NEWLINE:
+                emit(NfaProgram.ANY_NOT_NEWLINE, 0);
+                break;
+            case Node.ASSERT:
+                emit(NfaProgram.ASSERT, node.value);
+                break;
+            case Node.CONCATENATE:
+                for (Node child : node.children) {
+                    emit(child);
+                }
+                break;
+            case Node.ALTERNATE:
+                int last = node.children.size() - 1;
+                int[] jumps = new int[last];
+                for (int i = 0; i < last; i++) {
+                    int split = emit(NfaProgram.SPLIT, size + 1);
+                    emit(node.children.get(i));
+                    jumps[i] = emit(NfaProgram.JUMP, -1);
+                    alternatives[split] = size;
+                }
+                emit(node.children.get(last));
+                for (int jump : jumps) {
+                    args[jump] = size;
+                }
+                break;
+            case Node.CAPTURE:
+                emit(NfaProgram.SAVE, node.value * 2);
+                emit(node.children.get(0));
+                emit(NfaProgram.SAVE, node.value * 2 + 1);
+                break;
+            default:
+                repeat(node);
+        }
+    }
+
+    /**
+     * Emits repetition the way RE2 does: x{2,} as xx*, x{2,4} as xx(x(x)?)?.
+     */
+    private void repeat(Node repeat) {
+        Node child = repeat.children.get(0);
+        if (repeat.max < 0) {
+            for (int i = 1; i < repeat.min; i++) {
+                emit(child);
+            }
+
+            if (repeat.min == 0 && nullable(child)) {
+                // like RE2, (x+)? instead of x*, so that x which matches empty string does not take priority
+                int split = emit(NfaProgram.SPLIT, -1);
+                int start = size;
+                emit(child);
+                int loop = emit(NfaProgram.SPLIT, -1);
+                branch(loop, start, size, repeat.greedy);
+                branch(split, start, size, repeat.greedy);
+            } else if (repeat.min == 0) {
+                // x*: split to x and out, x jumps back to split
+                int split = emit(NfaProgram.SPLIT, -1);
+                emit(child);
+                emit(NfaProgram.JUMP, split);
+                branch(split, split + 1, size, repeat.greedy);
+            } else {
+                // x+: x, then split back to x and out
+                int start = size;
+                emit(child);
+                int split = emit(NfaProgram.SPLIT, -1);
+                branch(split, start, size, repeat.greedy);
+            }
+            return;
+        }
+
+        for (int i = 0; i < repeat.min; i++) {
+            emit(child);
+        }
+
+        int optional = repeat.max - repeat.min;
+        int[] splits = new int[optional];
+        for (int i = 0; i < optional; i++) {
+            splits[i] = emit(NfaProgram.SPLIT, -1);
+            emit(child);
+        }
+        for (int split : splits) {
+            branch(split, split + 1, size, repeat.greedy);
+        }
+    }
+
+    /**
+     * @return true if the node matches empty string
+     */
+    private static boolean nullable(Node node) {
+        switch (node.kind) {
+            case Node.ASSERT:
+                return true;
+            case Node.CONCATENATE:
+                for (Node child : node.children) {
+                    if (!nullable(child)) {
+                        return false;
+                    }
+                }
+                return true;
+            case Node.ALTERNATE:
+                for (Node child : node.children) {
+                    if (nullable(child)) {
+                        return true;
+                    }
+                }
+                return false;
+            case Node.CAPTURE:
+                return nullable(node.children.get(0));
+            case Node.REPEAT:
+                return node.min == 0 || nullable(node.children.get(0));
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Points split to repeating and to leaving, preferring repeating if it is greedy.
+     */
+    private void branch(int split, int repeating, int leaving, boolean greedy) {
+        args[split] = greedy ? repeating : leaving;
+        alternatives[split] = greedy ? leaving : repeating;
+    }
+
+    /**
+     * @return index of the instruction
+     */
+    private int emit(int op, int arg) {
+        if (size == MAX_SIZE) {
+            throw error("expression too large");
+        }
+
+        if (size == ops.length) {
+            ops = Arrays.copyOf(ops, size * 2);
+            args = Arrays.copyOf(args, size * 2);
+            alternatives = Arrays.copyOf(alternatives, size * 2);
+        }
+
+        ops[size] = op;
+        args[size] = arg;
+        return size++;
+    }
+
+    private PrometheusConfigException error(String code) {
+        return new PrometheusConfigException("error parsing regexp: " + code + ": `" + regex + "`");
+    }
+
+    /**
+     * Node of parsed expression.
+     */
+    private static final class Node {
+
+        static final int LITERAL = 0;
+
+        static final int CLASS = 1;
+
+        static final int ANY = 2;
+
+        static final int ANY_NOT_NEWLINE = 3;
+
+        static final int ASSERT = 4;
+
+        static final int CONCATENATE = 5;
+
+        static final int ALTERNATE = 6;
+
+        static final int CAPTURE = 7;
+
+        static final int REPEAT = 8;
+
+        final int kind;
+
+        /**
+         * Code point, index of class, assertion or number of group.
+         */
+        int value;
+
+        boolean foldCase;
+
+        int min;
+
+        int max;
+
+        boolean greedy;
+
+        final List<Node> children = new ArrayList<>(1);
+
+        Node(int kind) {
+            this.kind = kind;
+        }
+
+        static Node assertion(int assertion) {
+            Node node = new Node(ASSERT);
+            node.value = assertion;
+            return node;
+        }
+
+    }
+
+}
@@ -0,0 +1,229 @@
+package com.github.pakisan.prometheus.config.relabel;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Regular expression compiled to instructions of Thompson automaton, which is run in time linear in length of
+ * text, whatever the expression is.
+ * <p>
+ * Instructions are kept in parallel arrays: operation, its argument and, for splits, the alternative target.
+ * Splits prefer the first target, so the automaton finds the same submatches as RE2 does.
+ * <p>
+ * Like RE2 of Go, program picks the engine: {@link LazyDfa} tells whether text matches, {@link Backtracker}
+ * finds submatches in short text and {@link PikeVm} in any other.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+final class NfaProgram {
+
+    static final int MATCH = 0;
+
+    /**
+     * Matches code point given by argument.
+     */
+    static final int CHAR = 1;
+
+    /**
+     * Matches code point which folds to argument, see {@link #fold(int)}.
+     */
+    static final int CHAR_FOLD = 2;
+
+    /**
+     * Matches code point of class given by argument.
+     */
+    static final int CLASS = 3;
+
+    static final int ANY = 4;
+
+    static final int ANY_NOT_NEWLINE = 5;
+
+    /**
+     * Continues at argument, then at alternative.
+     */
+    static final int SPLIT = 6;
+
+    static final int JUMP = 7;
+
+    /**
+     * Saves position to capture slot given by argument.
+     */
+    static final int SAVE = 8;
+
+    /**
+     * Continues if position satisfies assertion given by argument.
+     */
+    static final int ASSERT = 9;
+
+    static final int BEGIN_TEXT = 0;
+
+    static final int END_TEXT = 1;
+
+    static final int BEGIN_LINE = 2;
+
+    static final int END_LINE = 3;
+
+    static final int WORD_BOUNDARY = 4;
+
+    static final int NOT_WORD_BOUNDARY = 5;
+
+    final int[] ops;
+
+    final int[] args;
+
+    final int[] alternatives;
+
+    final CharClass[] classes;
+
+    final int groupCount;
+
+    /**
+     * Automaton, or null if the program can not be run by it.
+     */
+    private final LazyDfa dfa;
+
+    /**
+     * Machine which is not in use, machines are reused since they hold arrays as large as the program.
+     */
+    private final AtomicReference<PikeVm> idle = new AtomicReference<>();
+
+    private final AtomicReference<Backtracker> idleBacktracker = new AtomicReference<>();
+
+    NfaProgram(int[] ops, int[] args, int[] alternatives, CharClass[] classes, int groupCount) {
+        this.ops = ops;
+        this.args = args;
+        this.alternatives = alternatives;
+        this.classes = classes;
+        this.groupCount = groupCount;
+        this.dfa = LazyDfa.of(this);
+    }
+
+    /**
+     * @param text text
+     * @return true if the expression matches text
+     */
+    boolean matches(CharSequence text) {
+        if (dfa != null) {
+            int result = dfa.matches(text);
+            if (result != LazyDfa.UNKNOWN) {
+                return result == LazyDfa.MATCH_FOUND;
+            }
+        }
+
+        return run(text, null);
+    }
+
+    /**
+     * @param text text
+     * @return start and end of every group, group n at 2n and 2n + 1, -1 for groups which did not match,
+     * or null if the expression does not match text
+     */
+    int[] match(CharSequence text) {
+        // automaton rejects text faster than engines which track submatches
+        if (dfa != null && dfa.matches(text) == LazyDfa.NO_MATCH) {
+            return null;
+        }
+
+        int[] groups = new int[(groupCount + 1) * 2];
+        return run(text, groups) ? groups : null;
+    }
+
+    /**
+     * @return true if matches start only at the beginning of text, like matches of anchored relabel regexes
+     */
+    boolean isAnchored() {
+        return size() > 1 && ops[1] == ASSERT && args[1] == BEGIN_TEXT;
+    }
+
+    int size() {
+        return ops.length;
+    }
+
+    /**
+     * @return true if instruction, which consumes text, matches the code point
+     */
+    boolean consumes(int pc, int c) {
+        switch (ops[pc]) {
+            case CHAR:
+                return c == args[pc];
+            case CHAR_FOLD:
+                return fold(c) == args[pc];
+            case CLASS:
+                return classes[args[pc]].contains(c);
+            case ANY:
+                return true;
+            case ANY_NOT_NEWLINE:
+                return c != '\n';
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @return true if text satisfies the assertion at the position
+     */
+    static boolean holds(int assertion, int position, CharSequence text) {
+        switch (assertion) {
+            case BEGIN_TEXT:
+                return position == 0;
+            case END_TEXT:
+                return position == text.length();
+            case BEGIN_LINE:
+                return position == 0 || text.charAt(position - 1) == '\n';
+            case END_LINE:
+                return position == text.length() || text.charAt(position) == '\n';
+            case WORD_BOUNDARY:
+                return isWordBefore(position, text) != isWordAt(position, text);
+            default:
+                return isWordBefore(position, text) == isWordAt(position, text);
+        }
+    }
+
+    /**
+     * Folds case the way {@link java.util.regex.Pattern} does with flags i and u, so that code points which
+     * differ only in case fold to the same one.
+     */
+    static int fold(int c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static boolean isWordBefore(int position, CharSequence text) {
+        return position > 0 && isWord(text.charAt(position - 1));
+    }
+
+    private static boolean isWordAt(int position, CharSequence text) {
+        return position < text.length() && isWord(text.charAt(position));
+    }
+
+    /**
+     * @return true if the character is ASCII word character, like for \b of RE2
+     */
+    private static boolean isWord(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private boolean run(CharSequence text, int[] groups) {
+        if (Backtracker.fits(this, text.length())) {
+            Backtracker backtracker = idleBacktracker.getAndSet(null);
+            if (backtracker == null) {
+                backtracker = new Backtracker(this);
+            }
+            try {
+                return backtracker.run(text, groups);
+            } finally {
+                idleBacktracker.lazySet(backtracker);
+            }
+        }
+
+        PikeVm vm = idle.getAndSet(null);
+        if (vm == null) {
+            vm = new PikeVm(this);
+        }
+        try {
+            return vm.run(text, groups);
+        } finally {
+            idle.lazySet(vm);
+        }
+    }
+
+}
@@ -0,0 +1,220 @@
+package com.github.pakisan.prometheus.config.relabel;
+
+import java.util.Arrays;
+
+import static com.github.pakisan.prometheus.config.relabel.NfaProgram.ASSERT;
+import static com.github.pakisan.prometheus.config.relabel.NfaProgram.JUMP;
+import static com.github.pakisan.prometheus.config.relabel.NfaProgram.MATCH;
+import static com.github.pakisan.prometheus.config.relabel.NfaProgram.SAVE;
+import static com.github.pakisan.prometheus.config.relabel.NfaProgram.SPLIT;
+
+/**
+ * Runs {@link NfaProgram} the way Pike VM of RE2 does: all threads of the automaton advance over text together,
+ * one code point at a time, and at most one thread is kept per instruction. Matching takes
+ * O(length of text * size of program) time whatever the expression is, there is no backtracking.
+ * <p>
+ * Threads are kept in order of priority, so the thread which reaches the match first holds the submatches RE2
+ * would report, and threads of lower priority are dropped. Relabel regexes are anchored, so threads start only at
+ * the beginning of text, but regexes like {@code a)|(b}, which escape anchors, are searched for like Prometheus
+ * searches for them.
+ * <p>
+ * Machine is not thread safe, {@link NfaProgram} hands it to one thread at a time.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+final class PikeVm {
+
+    private final NfaProgram program;
+
+    /**
+     * Whether matches may start only at the beginning of text, like matches of anchored relabel regexes.
+     */
+    private final boolean anchored;
+
+    private Threads current;
+
+    private Threads next;
+
+    /**
+     * Capture slots of the thread being added.
+     */
+    private int[] captures = new int[0];
+
+    /**
+     * Instructions to visit, and capture slots to restore, when threads are added.
+     */
+    private int[] stack = new int[64];
+
+    PikeVm(NfaProgram program) {
+        this.program = program;
+        this.anchored = program.isAnchored();
+        this.current = new Threads(program.size());
+        this.next = new Threads(program.size());
+    }
+
+    /**
+     * @param text text
+     * @param groups capture slots to fill, or null if only the fact of match matters
+     * @return true if the program matches text, leftmost match is reported like RE2 reports it
+     */
+    boolean run(CharSequence text, int[] groups) {
+        int slots = groups == null ? 0 : groups.length;
+        if (captures.length < slots) {
+            captures = new int[slots];
+        }
+        current.clear(slots);
+        next.clear(slots);
+
+        int[] ops = program.ops;
+        int length = text.length();
+        boolean matched = false;
+        int position = 0;
+        while (true) {
+            if (current.size == 0 && (matched || (anchored && position > 0))) {
+                break;
+            }
+
+            if (!matched && (position == 0 || !anchored)) {
+                // a match starting here has lower priority than matches which started earlier
+                if (slots > 0) {
+                    Arrays.fill(captures, 0, slots, -1);
+                }
+                add(current, 0, position, text, slots);
+            }
+
+            int c = -1;
+            int width = 0;
+            if (position < length) {
+                c = Character.codePointAt(text, position);
+                width = Character.charCount(c);
+            }
+
+            for (int i = 0; i < current.size; i++) {
+                int pc = current.dense[i];
+                if (ops[pc] == MATCH) {
+                    if (slots == 0) {
+                        return true;
+                    }
+
+                    System.arraycopy(current.captures, i * slots, groups, 0, slots);
+                    matched = true;
+                    // threads of lower priority would find worse matches
+                    break;
+                }
+
+                if (c >= 0 && program.consumes(pc, c)) {
+                    if (slots > 0) {
+                        System.arraycopy(current.captures, i * slots, captures, 0, slots);
+                    }
+                    add(next, pc + 1, position + width, text, slots);
+                }
+            }
+
+            if (position == length) {
+                break;
+            }
+
+            Threads swap = current;
+            current = next;
+            next = swap;
+            next.clear(slots);
+            position += width;
+        }
+
+        return matched;
+    }
+
+    /**
+     * Adds thread at the instruction and threads it leads to without consuming text, in order of priority.
+     */
+    private void add(Threads threads, int pc, int position, CharSequence text, int slots) {
+        int[] ops = program.ops;
+        int[] args = program.args;
+        int top = 0;
+        stack[top++] = pc;
+        while (top > 0) {
+            int entry = stack[--top];
+            if (entry < 0) {
+                captures[-1 - entry] = stack[--top];
+                continue;
+            }
+
+            if (threads.contains(entry)) {
+                continue;
+            }
+
+            int index = threads.add(entry);
+            if (top + 4 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+
+            switch (ops[entry]) {
+                case JUMP:
+                    stack[top++] = args[entry];
+                    break;
+                case SPLIT:
+                    stack[top++] = program.alternatives[entry];
+                    stack[top++] = args[entry];
+                    break;
+                case SAVE:
+                    if (args[entry] < slots) {
+                        // restores the slot once threads which follow the save are added
+                        stack[top++] = captures[args[entry]];
+                        stack[top++] = -1 - args[entry];
+                        captures[args[entry]] = position;
+                    }
+                    stack[top++] = entry + 1;
+                    break;
+                case ASSERT:
+                    if (NfaProgram.holds(args[entry], position, text)) {
+                        stack[top++] = entry + 1;
+                    }
+                    break;
+                default:
+                    if (slots > 0) {
+                        System.arraycopy(captures, 0, threads.captures, index * slots, slots);
+                    }
+            }
+        }
+    }
+
+    /**
+     * Sparse set of instructions of threads, in order they were added, with capture slots of every thread.
+     */
+    private static final class Threads {
+
+        private final int[] dense;
+
+        private final int[] sparse;
+
+        private int size;
+
+        private int[] captures = new int[0];
+
+        Threads(int programSize) {
+            this.dense = new int[programSize];
+            this.sparse = new int[programSize];
+        }
+
+        void clear(int slots) {
+            size = 0;
+            if (captures.length < dense.length * slots) {
+                captures = new int[dense.length * slots];
+            }
+        }
+
+        boolean contains(int pc) {
+            int index = sparse[pc];
+            return index < size && dense[index] == pc;
+        }
+
+        int add(int pc) {
+            sparse[pc] = size;
+            dense[size] = pc;
+            return size++;
+        }
+
+    }
+
+}
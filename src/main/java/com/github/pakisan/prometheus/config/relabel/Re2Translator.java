@@ -0,0 +1,738 @@
+package com.github.pakisan.prometheus.config.relabel;
+
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Translates RE2 regular expression, as Go parses it, to {@link java.util.regex.Pattern} which matches the same
+ * strings.
+ * <p>
+ * Syntax which RE2 does not support, like backreferences, lookarounds and possessive quantifiers, is rejected
+ * with the messages of Go. Syntax which both support with different meaning is rewritten:
+ * <ul>
+ *     <li>{@code ^}, {@code $} and {@code .} are translated according to flags m and s, so that {@code $}
+ *     matches at the very end of text and {@code .} never treats \r as a line terminator</li>
+ *     <li>{@code \s} is [\t\n\f\r ] and {@code \v} is vertical tab</li>
+ *     <li>octal escapes, POSIX classes like [[:alpha:]] and Unicode classes like \p{Greek}</li>
+ *     <li>flag U, which makes quantifiers lazy, and flag i, which folds Unicode case</li>
+ *     <li>named groups, whose names may hold underscores in RE2, become unnamed groups</li>
+ *     <li>{@code {} which does not start a repetition is a literal</li>
+ * </ul>
+ *
+ * @since  1.0.0
+ * @see <a href="https://github.com/google/re2/wiki/Syntax">RE2 syntax</a>
+ * @author Pavel Bodiachevskii
+ */
+final class Re2Translator {
+
+    private static final int MAX_REPEAT = 1000;
+
+    private static final int CASE = 1;
+
+    private static final int MULTILINE = 2;
+
+    private static final int DOTALL = 4;
+
+    private static final int UNGREEDY = 8;
+
+    private static final String SPACE = "\\t\\n\\f\\r\\x{20}";
+
+    private static final String NOT_SPACE = "\\x{0}-\\x{8}\\x{b}\\x{e}-\\x{1f}\\x{21}-\\x{10ffff}";
+
+    private static final String ANY = "\\x{0}-\\x{10ffff}";
+
+    private static final Map<String, String> POSIX_CLASSES = new HashMap<>();
+
+    private static final Set<String> CATEGORIES = new HashSet<>(Arrays.asList(
+            "C", "Cc", "Cf", "Co", "Cs", "L", "Ll", "Lm", "Lo", "Lt", "Lu", "M", "Mc", "Me", "Mn",
+            "N", "Nd", "Nl", "No", "P", "Pc", "Pd", "Pe", "Pf", "Pi", "Po", "Ps", "S", "Sc", "Sk", "Sm", "So",
+            "Z", "Zl", "Zp", "Zs"
+    ));
+
+    static {
+        POSIX_CLASSES.put("alnum", "Alnum");
+        POSIX_CLASSES.put("alpha", "Alpha");
+        POSIX_CLASSES.put("ascii", "ASCII");
+        POSIX_CLASSES.put("blank", "Blank");
+        POSIX_CLASSES.put("cntrl", "Cntrl");
+        POSIX_CLASSES.put("digit", "Digit");
+        POSIX_CLASSES.put("graph", "Graph");
+        POSIX_CLASSES.put("lower", "Lower");
+        POSIX_CLASSES.put("print", "Print");
+        POSIX_CLASSES.put("punct", "Punct");
+        POSIX_CLASSES.put("space", "Space");
+        POSIX_CLASSES.put("upper", "Upper");
+        POSIX_CLASSES.put("xdigit", "XDigit");
+    }
+
+    private final String regex;
+
+    private final StringBuilder out;
+
+    private int position;
+
+    /**
+     * Flags outside of any group followed by flags of open groups, flags at the depth are the current ones.
+     */
+    private int[] flags = new int[8];
+
+    private int depth;
+
+    private int groupCount;
+
+    private Map<String, Integer> groupNames = Collections.emptyMap();
+
+    /**
+     * Whether the last item may be repeated and whether it is a repetition itself.
+     */
+    private boolean repeatable;
+
+    private boolean repeated;
+
+    /**
+     * Greatest product of nested repeat counts in the last item, and in finished items of every open group,
+     * which must not exceed {@link #MAX_REPEAT}, like Go checks it.
+     */
+    private long repeats;
+
+    private long[] groupRepeats = new long[8];
+
+    private Re2Translator(String regex) {
+        this.regex = regex;
+        this.out = new StringBuilder(regex.length() + 16);
+    }
+
+    /**
+     * @param regex RE2 regular expression
+     * @return translated expression
+     * @throws PrometheusConfigException if the expression is not valid RE2
+     */
+    static Re2Translator translate(String regex) {
+        Re2Translator translator = new Re2Translator(regex);
+        translator.translate();
+        return translator;
+    }
+
+    /**
+     * @return expression for {@link java.util.regex.Pattern}
+     */
+    String pattern() {
+        return out.toString();
+    }
+
+    int groupCount() {
+        return groupCount;
+    }
+
+    /**
+     * @return numbers of named groups by name
+     */
+    Map<String, Integer> groupNames() {
+        return groupNames;
+    }
+
+    private void translate() {
+        while (position < regex.length()) {
+            int start = position;
+            int c = next();
+            switch (c) {
+                case '(':
+                    group(start);
+                    break;
+                case ')':
+                    if (depth == 0) {
+                        throw error("unexpected )", regex);
+                    }
+                    long innerRepeats = Math.max(groupRepeats[depth], repeats);
+                    depth--;
+                    out.append(')');
+                    item();
+                    repeats = innerRepeats;
+                    break;
+                case '|':
+                    groupRepeats[depth] = Math.max(groupRepeats[depth], repeats);
+                    repeats = 0;
+                    out.append('|');
+                    repeatable = false;
+                    repeated = false;
+                    break;
+                case '[':
+                    characterClass(start);
+                    item();
+                    break;
+                case '*':
+                case '+':
+                case '?':
+                    repeat(start, String.valueOf((char) c));
+                    break;
+                case '{':
+                    int[] counts = repeatCounts();
+                    if (counts == null) {
+                        literal('{');
+                        break;
+                    }
+                    if (counts[0] > MAX_REPEAT || counts[1] > MAX_REPEAT || (counts[1] >= 0 && counts[0] > counts[1])) {
+                        throw error("invalid repeat count", regex.substring(start, position));
+                    }
+                    repeat(start, "{" + counts[0] + (counts[1] == counts[0] ? "" : "," + (counts[1] < 0 ? "" : counts[1])) + "}");
+                    // {0} is never repeated, {n,} counts as n
+                    int count = counts[1] < 0 ? counts[0] : counts[1];
+                    repeats = counts[1] == 0 ? 0 : Math.max(count, 1) * Math.max(repeats, 1);
+                    if (repeats > MAX_REPEAT) {
+                        throw error("invalid repeat count", regex.substring(start, position));
+                    }
+                    break;
+                case '^':
+                    out.append((flags() & MULTILINE) != 0 ? "(?:\\A|(?<=\\n))" : "\\A");
+                    item();
+                    break;
+                case '$':
+                    out.append((flags() & MULTILINE) != 0 ? "(?=\\n|\\z)" : "\\z");
+                    item();
+                    break;
+                case '.':
+                    out.append((flags() & DOTALL) != 0 ? "[" + ANY + "]" : "[^\\n]");
+                    item();
+                    break;
+                case '\\':
+                    escape(start);
+                    break;
+                default:
+                    literal(c);
+            }
+        }
+
+        if (depth > 0) {
+            throw error("missing closing )", regex);
+        }
+    }
+
+    private void group(int start) {
+        if (!regex.startsWith("?", position)) {
+            open(flags());
+            out.append('(');
+            groupCount++;
+            return;
+        }
+
+        position++;
+        // only Go 1.22 and later accept (?<name>, Prometheus versions this library follows reject it
+        if (regex.startsWith("P<", position)) {
+            position += 2;
+            int end = regex.indexOf('>', position);
+            if (end < 0) {
+                throw error("invalid named capture", regex.substring(start));
+            }
+
+            String name = regex.substring(position, end);
+            position = end + 1;
+            if (!isGroupName(name) || groupNames.containsKey(name)) {
+                throw error("invalid named capture", regex.substring(start, position));
+            }
+
+            if (groupNames.isEmpty()) {
+                groupNames = new HashMap<>();
+            }
+            groupNames.put(name, ++groupCount);
+            open(flags());
+            out.append('(');
+            return;
+        }
+
+        int current = flags();
+        int updated = current;
+        boolean negated = false;
+        boolean sawFlag = false;
+        while (true) {
+            if (position == regex.length()) {
+                throw error("missing closing )", regex);
+            }
+
+            int c = next();
+            int flag;
+            switch (c) {
+                case 'i':
+                    flag = CASE;
+                    break;
+                case 'm':
+                    flag = MULTILINE;
+                    break;
+                case 's':
+                    flag = DOTALL;
+                    break;
+                case 'U':
+                    flag = UNGREEDY;
+                    break;
+                case '-':
+                    if (negated) {
+                        throw error("invalid or unsupported Perl syntax", regex.substring(start, position));
+                    }
+                    negated = true;
+                    sawFlag = false;
+                    continue;
+                case ':':
+                case ')':
+                    // (?: needs no flags, but - must be followed by a flag, and (?) must hold one
+                    if (!sawFlag && (negated || c == ')')) {
+                        throw error("invalid or unsupported Perl syntax", regex.substring(start, position));
+                    }
+
+                    String caseChange = (updated & CASE) == (current & CASE) ? "" : (updated & CASE) != 0 ? "iu" : "-iu";
+                    if (c == ':') {
+                        open(updated);
+                        out.append("(?").append(caseChange).append(':');
+                    } else {
+                        flags[depth] = updated;
+                        if (!caseChange.isEmpty()) {
+                            out.append("(?").append(caseChange).append(')');
+                        }
+                        repeatable = false;
+                        repeated = false;
+                    }
+                    return;
+                default:
+                    throw error("invalid or unsupported Perl syntax", regex.substring(start, position));
+            }
+
+            updated = negated ? updated & ~flag : updated | flag;
+            sawFlag = true;
+        }
+    }
+
+    private int flags() {
+        return flags[depth];
+    }
+
+    private void open(int groupFlags) {
+        if (depth + 1 == flags.length) {
+            flags = Arrays.copyOf(flags, flags.length * 2);
+            groupRepeats = Arrays.copyOf(groupRepeats, groupRepeats.length * 2);
+        }
+
+        groupRepeats[depth] = Math.max(groupRepeats[depth], repeats);
+        flags[++depth] = groupFlags;
+        groupRepeats[depth] = 0;
+        repeats = 0;
+        repeatable = false;
+        repeated = false;
+    }
+
+    private void item() {
+        groupRepeats[depth] = Math.max(groupRepeats[depth], repeats);
+        repeats = 1;
+        repeatable = true;
+        repeated = false;
+    }
+
+    private void repeat(int start, String quantifier) {
+        if (repeated) {
+            throw error("invalid nested repetition operator", regex.substring(start - 1, position));
+        }
+
+        if (!repeatable) {
+            throw error("missing argument to repetition operator", regex.substring(start, position));
+        }
+
+        boolean lazy = regex.startsWith("?", position);
+        if (lazy) {
+            position++;
+        }
+
+        out.append(quantifier);
+        if (lazy != ((flags() & UNGREEDY) != 0)) {
+            out.append('?');
+        }
+
+        repeated = true;
+    }
+
+    /**
+     * Parses {n}, {n,} or {n,m} after the opening brace.
+     *
+     * @return minimum and maximum, -1 for no maximum, or null if the brace does not start a repetition
+     */
+    private int[] repeatCounts() {
+        int i = position;
+        int min = 0;
+        int digits = 0;
+        for (; i < regex.length() && isDigit(regex.charAt(i)); i++, digits++) {
+            min = Math.min(min * 10 + (regex.charAt(i) - '0'), MAX_REPEAT + 1);
+        }
+
+        if (digits == 0 || i == regex.length()) {
+            return null;
+        }
+
+        int max = min;
+        if (regex.charAt(i) == ',') {
+            i++;
+            max = -1;
+            for (digits = 0; i < regex.length() && isDigit(regex.charAt(i)); i++, digits++) {
+                max = Math.min((digits == 0 ? 0 : max) * 10 + (regex.charAt(i) - '0'), MAX_REPEAT + 1);
+            }
+        }
+
+        if (i == regex.length() || regex.charAt(i) != '}') {
+            return null;
+        }
+
+        position = i + 1;
+        return new int[]{min, max};
+    }
+
+    private void escape(int start) {
+        if (position == regex.length()) {
+            throw error("trailing backslash at end of expression", "");
+        }
+
+        int c = next();
+        switch (c) {
+            case 'A':
+                out.append("\\A");
+                item();
+                return;
+            case 'z':
+                out.append("\\z");
+                item();
+                return;
+            case 'b':
+            case 'B':
+                out.append('\\').append((char) c);
+                item();
+                return;
+            case 'd':
+            case 'D':
+            case 'w':
+            case 'W':
+                out.append('\\').append((char) c);
+                item();
+                return;
+            case 's':
+                out.append('[').append(SPACE).append(']');
+                item();
+                return;
+            case 'S':
+                out.append("[^").append(SPACE).append(']');
+                item();
+                return;
+            case 'p':
+            case 'P':
+                out.append(unicodeClass(start, c == 'P', false));
+                item();
+                return;
+            case 'Q':
+                int end = regex.indexOf("\\E", position);
+                String quoted = regex.substring(position, end < 0 ? regex.length() : end);
+                position = end < 0 ? regex.length() : end + 2;
+                for (int i = 0; i < quoted.length(); ) {
+                    int q = quoted.codePointAt(i);
+                    literal(q);
+                    i += Character.charCount(q);
+                }
+                return;
+            default:
+                position = start;
+                literal(escapedCodePoint());
+        }
+    }
+
+    /**
+     * Parses escape of a single character, like \n, \x41 or \., at the current position.
+     */
+    private int escapedCodePoint() {
+        int start = position;
+        position++;
+        if (position == regex.length()) {
+            throw error("trailing backslash at end of expression", "");
+        }
+
+        int c = next();
+        switch (c) {
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+                // single digit is a backreference
+                if (position == regex.length() || !isOctal(regex.charAt(position))) {
+                    break;
+                }
+                return octal(c);
+            case '0':
+                return octal(c);
+            case 'x':
+                return hex(start);
+            case 'a':
+                return 0x07;
+            case 'f':
+                return '\f';
+            case 't':
+                return '\t';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 'v':
+                return 0x0B;
+            default:
+                if (c < 0x80 && !Character.isLetterOrDigit(c)) {
+                    return c;
+                }
+        }
+
+        throw error("invalid escape sequence", regex.substring(start, position));
+    }
+
+    /**
+     * Parses octal escape, up to three digits, the first of which is already read.
+     */
+    private int octal(int first) {
+        int value = first - '0';
+        for (int i = 1; i < 3 && position < regex.length() && isOctal(regex.charAt(position)); i++) {
+            value = value * 8 + (regex.charAt(position++) - '0');
+        }
+
+        return value;
+    }
+
+    private int hex(int start) {
+        if (position == regex.length()) {
+            throw error("invalid escape sequence", regex.substring(start));
+        }
+
+        if (regex.charAt(position) != '{') {
+            if (position + 2 > regex.length() || !isHex(regex.charAt(position)) || !isHex(regex.charAt(position + 1))) {
+                throw error("invalid escape sequence", regex.substring(start, Math.min(position + 2, regex.length())));
+            }
+
+            position += 2;
+            return Integer.parseInt(regex.substring(position - 2, position), 16);
+        }
+
+        int end = regex.indexOf('}', position);
+        int value = 0;
+        boolean valid = end > position + 1;
+        for (int i = position + 1; valid && i < end; i++) {
+            valid = isHex(regex.charAt(i)) && (value = value * 16 + Character.digit(regex.charAt(i), 16)) <= Character.MAX_CODE_POINT;
+        }
+
+        if (!valid) {
+            throw error("invalid escape sequence", regex.substring(start, end < 0 ? regex.length() : end + 1));
+        }
+
+        position = end + 1;
+        return value;
+    }
+
+    /**
+     * Parses \pN, \p{Name} or \p{^Name} after the letter p.
+     *
+     * @param inClass whether the class is a part of a bracketed class, which must not hold nested classes,
+     *                since Java 8 does not negate them along with the enclosing class
+     * @return class
+     */
+    private String unicodeClass(int start, boolean negated, boolean inClass) {
+        if (position == regex.length()) {
+            throw error("invalid character class range", regex.substring(start));
+        }
+
+        String name;
+        if (regex.charAt(position) == '{') {
+            int end = regex.indexOf('}', position);
+            if (end < 0) {
+                throw error("invalid character class range", regex.substring(start));
+            }
+
+            name = regex.substring(position + 1, end);
+            position = end + 1;
+        } else {
+            name = String.valueOf(regex.charAt(position++));
+        }
+
+        if (name.startsWith("^")) {
+            name = name.substring(1);
+            negated = !negated;
+        }
+
+        if ("Any".equals(name)) {
+            if (inClass) {
+                return negated ? "" : ANY;
+            }
+
+            return negated ? "[^" + ANY + "]" : "[" + ANY + "]";
+        }
+
+        if (!CATEGORIES.contains(name) && !isScript(name)) {
+            throw error("invalid character class range", regex.substring(start, position));
+        }
+
+        return (negated ? "\\P{Is" : "\\p{Is") + name + "}";
+    }
+
+    private void characterClass(int start) {
+        boolean negated = regex.startsWith("^", position);
+        if (negated) {
+            position++;
+        }
+
+        out.append(negated ? "[^" : "[");
+        int content = out.length();
+        boolean first = true;
+        while (true) {
+            if (position == regex.length()) {
+                throw error("missing closing ]", regex.substring(start));
+            }
+
+            char c = regex.charAt(position);
+            if (c == ']' && !first) {
+                position++;
+                if (out.length() == content) {
+                    // only \P{Any}: class matches nothing, or everything if it is negated
+                    out.setLength(content - (negated ? 2 : 1));
+                    out.append(negated ? "[" + ANY : "[\\x{0}&&[^\\x{0}]");
+                }
+                out.append(']');
+                return;
+            }
+
+            first = false;
+            if (c == '[' && regex.startsWith("[:", position)) {
+                int end = regex.indexOf(":]", position + 2);
+                if (end > 0) {
+                    String name = regex.substring(position + 2, end);
+                    boolean negatedPosix = name.startsWith("^");
+                    String posixName = negatedPosix ? name.substring(1) : name;
+                    String posix = POSIX_CLASSES.get(posixName);
+                    if (posix != null || "word".equals(posixName)) {
+                        position = end + 2;
+                        out.append(posix == null ? (negatedPosix ? "\\W" : "\\w") : (negatedPosix ? "\\P{" : "\\p{") + posix + "}");
+                        continue;
+                    }
+                }
+            }
+
+            if (c == '\\' && position + 1 < regex.length()) {
+                char escaped = regex.charAt(position + 1);
+                switch (escaped) {
+                    case 'd':
+                    case 'D':
+                    case 'w':
+                    case 'W':
+                        out.append('\\').append(escaped);
+                        position += 2;
+                        continue;
+                    case 's':
+                        out.append(SPACE);
+                        position += 2;
+                        continue;
+                    case 'S':
+                        out.append(NOT_SPACE);
+                        position += 2;
+                        continue;
+                    case 'p':
+                    case 'P':
+                        int classStart = position;
+                        position += 2;
+                        out.append(unicodeClass(classStart, escaped == 'P', true));
+                        continue;
+                    default:
+                }
+            }
+
+            int rangeStart = position;
+            int low = classCodePoint();
+            if (regex.startsWith("-", position) && position + 1 < regex.length() && regex.charAt(position + 1) != ']') {
+                position++;
+                int high = classCodePoint();
+                if (high < low) {
+                    throw error("invalid character class range", regex.substring(rangeStart, position));
+                }
+
+                codePoint(low);
+                out.append('-');
+                codePoint(high);
+            } else {
+                codePoint(low);
+            }
+        }
+    }
+
+    private int classCodePoint() {
+        if (regex.charAt(position) == '\\') {
+            return escapedCodePoint();
+        }
+
+        return next();
+    }
+
+    private void literal(int codePoint) {
+        codePoint(codePoint);
+        item();
+    }
+
+    private void codePoint(int codePoint) {
+        if (isPlain(codePoint)) {
+            out.appendCodePoint(codePoint);
+        } else {
+            out.append("\\x{").append(Integer.toHexString(codePoint)).append('}');
+        }
+    }
+
+    private int next() {
+        int c = regex.codePointAt(position);
+        position += Character.charCount(c);
+        return c;
+    }
+
+    private static boolean isPlain(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || isDigit(c) || c == '_';
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isOctal(int c) {
+        return c >= '0' && c <= '7';
+    }
+
+    private static boolean isHex(int c) {
+        return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    private static boolean isGroupName(String name) {
+        if (name.isEmpty()) {
+            return false;
+        }
+
+        for (int i = 0; i < name.length(); i++) {
+            if (!isPlain(name.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isScript(String name) {
+        try {
+            return Character.UnicodeScript.forName(name).name().equals(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static PrometheusConfigException error(String code, String expression) {
+        return new PrometheusConfigException("error parsing regexp: " + code + ": `" + expression + "`");
+    }
+
+}
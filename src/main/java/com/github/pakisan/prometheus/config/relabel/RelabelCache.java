@@ -0,0 +1,226 @@
+package com.github.pakisan.prometheus.config.relabel;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Results of relabel programs, remembered by label set and program, like relabeled series of a target which come
+ * back on every scrape: once a series was relabeled, relabeling it again costs a hash lookup.
+ * <pre>{@code
+ * RelabelCache cache = new RelabelCache(100_000);
+ * LabelSet relabeled = cache.apply(program, series); // null if dropped
+ * }</pre>
+ * Cache holds at most capacity results, of all programs. When it is full, result which was not looked up since
+ * CLOCK hand passed it last time is evicted, so results of series which are scraped keep their place, and results
+ * of series which are gone, or of programs which were replaced on reload, are evicted.
+ * <p>
+ * Programs are told apart by identity, label sets by content. Cache is thread safe: lookups take no lock,
+ * only results of misses are added under a lock.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+public final class RelabelCache {
+
+    private final int capacity;
+
+    private final ConcurrentHashMap<Key, Entry> entries;
+
+    /**
+     * Entries in order CLOCK hand passes them.
+     */
+    private final Entry[] clock;
+
+    private int size;
+
+    private int hand;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param capacity maximal number of results
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    public RelabelCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity " + capacity + " is not positive");
+        }
+
+        this.capacity = capacity;
+        this.entries = new ConcurrentHashMap<>(Math.min(capacity, 1 << 16));
+        this.clock = new Entry[capacity];
+    }
+
+    /**
+     * Relabels labels, or returns result of relabeling them before.
+     *
+     * @param program program
+     * @param labels labels, like labels of a series
+     * @return relabeled labels, or null if they are dropped, like {@link RelabelProgram#apply(LabelSet)} returns
+     */
+    public LabelSet apply(RelabelProgram program, LabelSet labels) {
+        Key key = new Key(program, labels);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            // writes only once per pass of the hand, so that hits do not contend for the cache line
+            if (!entry.referenced) {
+                entry.referenced = true;
+            }
+            hits.increment();
+            return entry.result;
+        }
+
+        misses.increment();
+        LabelSet result = program.apply(labels);
+        add(key, result);
+        return result;
+    }
+
+    /**
+     * @return number of results the cache holds
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return number of lookups which found result
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of lookups which relabeled labels
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of results evicted to make room for others
+     */
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return share of lookups which found result, 0 if there were no lookups
+     */
+    public double hitRate() {
+        long hits = hits();
+        long lookups = hits + misses();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * Removes all results, counters are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        for (int i = 0; i < size; i++) {
+            clock[i] = null;
+        }
+        size = 0;
+        hand = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "RelabelCache{size=" + size() + ", capacity=" + capacity + ", hits=" + hits() + ", misses=" + misses()
+                + ", evictions=" + evictions() + "}";
+    }
+
+    private synchronized void add(Key key, LabelSet result) {
+        if (entries.containsKey(key)) {
+            // another thread relabeled the same labels first
+            return;
+        }
+
+        int slot;
+        if (size < capacity) {
+            slot = size++;
+        } else {
+            // second chance: entries which were looked up since the hand passed them are skipped once,
+            // the hand stops after a full turn even if lookups keep marking entries meanwhile
+            for (int skipped = 0; skipped < capacity && clock[hand].referenced; skipped++) {
+                clock[hand].referenced = false;
+                hand = hand + 1 == capacity ? 0 : hand + 1;
+            }
+
+            entries.remove(clock[hand].key);
+            evictions.increment();
+            slot = hand;
+            hand = hand + 1 == capacity ? 0 : hand + 1;
+        }
+
+        Entry entry = new Entry(key, result);
+        clock[slot] = entry;
+        entries.put(key, entry);
+    }
+
+    private static final class Key {
+
+        private final RelabelProgram program;
+
+        private final LabelSet labels;
+
+        private final int hash;
+
+        private Key(RelabelProgram program, LabelSet labels) {
+            this.program = program;
+            this.labels = labels;
+            this.hash = labels.hashCode() * 31 + System.identityHashCode(program);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key that = (Key) o;
+            return program == that.program && hash == that.hash && labels.equals(that.labels);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+    private static final class Entry {
+
+        private final Key key;
+
+        /**
+         * Relabeled labels, or null if they are dropped.
+         */
+        private final LabelSet result;
+
+        /**
+         * Whether result was looked up since CLOCK hand passed it.
+         */
+        private volatile boolean referenced;
+
+        private Entry(Key key, LabelSet result) {
+            this.key = key;
+            this.result = result;
+        }
+
+    }
+
+}
@@ -0,0 +1,374 @@
+package com.github.pakisan.prometheus.config.relabel;
+
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.PrometheusRelabelConfig;
+import com.github.pakisan.prometheus.config.PrometheusRelabelConfig.Action;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Shortens lists of relabel configs, like generated ones, without changing what they do to any label set:
+ * <ul>
+ *     <li>removes configs which change nothing, like replace of a label by itself with {@code (.*)} and
+ *     {@code $1}, or keep of {@code .*}</li>
+ *     <li>removes writes of target_label which is deleted or overwritten before anything reads it</li>
+ *     <li>moves drop, keep, dropequal and keepequal ahead of configs which do not write labels they read,
+ *     so dropped targets pass fewer configs</li>
+ *     <li>merges adjacent drops of the same source_labels into a drop of alternation of their regexes,
+ *     and removes repeated drops and keeps</li>
+ * </ul>
+ * Adjacent keeps are not merged: label set passes both keeps only if value matches both regexes, which RE2 can not
+ * express as one regex.
+ * <p>
+ * Configs which are kept are the same instances, merged drops are new configs.
+ *
+ * @since  1.0.0
+ * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/#relabel_config">relabel_config</a>
+ * @author Pavel Bodiachevskii
+ */
+public final class RelabelOptimizer {
+
+    private RelabelOptimizer() {
+    }
+
+    /**
+     * @param relabelConfigs relabel configs, in order they are applied, may be null
+     * @return configs which relabel every label set like the given ones do
+     * @throws PrometheusConfigException if a config is not valid, like {@link RelabelProgram#compile(List)} rejects it
+     */
+    public static List<PrometheusRelabelConfig> optimize(List<PrometheusRelabelConfig> relabelConfigs) {
+        if (relabelConfigs == null) {
+            return Collections.emptyList();
+        }
+
+        RelabelProgram.compile(relabelConfigs);
+        List<Rule> rules = new ArrayList<>(relabelConfigs.size());
+        for (PrometheusRelabelConfig relabelConfig : relabelConfigs) {
+            rules.add(new Rule(relabelConfig));
+        }
+
+        boolean changed = true;
+        while (changed) {
+            changed = removeNoOps(rules);
+            changed |= removeDeadWrites(rules);
+            changed |= hoistFilters(rules);
+            changed |= mergeFilters(rules);
+        }
+
+        List<PrometheusRelabelConfig> optimized = new ArrayList<>(rules.size());
+        for (Rule rule : rules) {
+            optimized.add(rule.config);
+        }
+
+        return optimized;
+    }
+
+    private static boolean removeNoOps(List<Rule> rules) {
+        boolean changed = false;
+        for (int i = rules.size() - 1; i >= 0; i--) {
+            Rule rule = rules.get(i);
+            if ((rule.isSelfCopy() && !isMapped(rules, i + 1, rule.step.targetLabel())) || rule.keepsAll()) {
+                rules.remove(i);
+                changed = true;
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * Removes writes of labels which later configs delete or overwrite before any config reads them.
+     * <p>
+     * Label which is written moves after labels which were not, and labelmap walks labels in this order, so
+     * a write which is overwritten still matters to labelmap which maps the label, see {@link LabelSetBuilder}.
+     * Only deletion of the label makes the write not matter at all.
+     */
+    private static boolean removeDeadWrites(List<Rule> rules) {
+        boolean changed = false;
+        for (int i = rules.size() - 1; i >= 0; i--) {
+            String target = rules.get(i).fixedTarget();
+            if (target == null) {
+                continue;
+            }
+
+            boolean overwritten = false;
+            boolean dead = false;
+            for (int j = i + 1; j < rules.size(); j++) {
+                Rule later = rules.get(j);
+                // once the label is overwritten, only its order may still be read
+                if (overwritten ? later.maps(target) : later.reads(target)) {
+                    break;
+                }
+
+                if (later.deletes(target)) {
+                    dead = true;
+                    break;
+                }
+                overwritten |= later.overwrites(target);
+                dead = overwritten && j == rules.size() - 1;
+            }
+
+            if (dead) {
+                rules.remove(i);
+                changed = true;
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * Moves filters ahead of configs which can not change labels they read, filters keep their order.
+     */
+    private static boolean hoistFilters(List<Rule> rules) {
+        boolean changed = false;
+        for (int i = 1; i < rules.size(); i++) {
+            Rule filter = rules.get(i);
+            if (!filter.isFilter()) {
+                continue;
+            }
+
+            int position = i;
+            while (position > 0 && !rules.get(position - 1).isFilter() && !rules.get(position - 1).mayWrite(filter)) {
+                position--;
+            }
+
+            if (position < i) {
+                rules.remove(i);
+                rules.add(position, filter);
+                changed = true;
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * Merges adjacent drops of the same value, removes adjacent repeated drops and keeps.
+     */
+    private static boolean mergeFilters(List<Rule> rules) {
+        boolean changed = false;
+        for (int i = rules.size() - 1; i > 0; i--) {
+            Rule first = rules.get(i - 1);
+            Rule second = rules.get(i);
+            if (!first.hasSameValue(second)) {
+                continue;
+            }
+
+            if (first.step.regex().equals(second.step.regex())) {
+                rules.remove(i);
+                changed = true;
+            } else if (first.step.action() == Action.DROP) {
+                Rule merged = merge(first, second);
+                if (merged != null) {
+                    rules.set(i - 1, merged);
+                    rules.remove(i);
+                    changed = true;
+                }
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * @return drop of alternation of regexes of the drops, or null if both regexes have groups of the same name,
+     * which RE2 rejects in one regex
+     */
+    private static Rule merge(Rule first, Rule second) {
+        for (String name : first.step.regex().groupNames()) {
+            if (second.step.regex().group(name) >= 0) {
+                return null;
+            }
+        }
+
+        return new Rule(PrometheusRelabelConfig.builder()
+                .source_labels(first.config.getSource_labels())
+                .separator(first.step.separator())
+                .regex("(?:" + first.step.regex().regex() + ")|(?:" + second.step.regex().regex() + ")")
+                .replacement(RelabelStep.DEFAULT_REPLACEMENT)
+                .action(Action.DROP)
+                .build());
+    }
+
+    /**
+     * @return true if labelmap of the configs, from the given one, maps the label
+     */
+    private static boolean isMapped(List<Rule> rules, int from, String label) {
+        for (int i = from; i < rules.size(); i++) {
+            if (rules.get(i).maps(label)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Relabel config with its compiled step, which has defaults of fields which are not set.
+     */
+    private static final class Rule {
+
+        private final PrometheusRelabelConfig config;
+
+        private final RelabelStep step;
+
+        private Rule(PrometheusRelabelConfig config) {
+            this.config = config;
+            this.step = new RelabelStep(
+                    config.getSource_labels(), config.getSeparator(), config.getTarget_label(), config.getRegex(),
+                    config.getModulus(), config.getReplacement(), config.getAction()
+            );
+        }
+
+        /**
+         * @return true if the config only drops label sets
+         */
+        boolean isFilter() {
+            switch (step.action()) {
+                case DROP:
+                case KEEP:
+                case DROPEQUAL:
+                case KEEPEQUAL:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * @return true if the config is replace of a label by its own value
+         */
+        boolean isSelfCopy() {
+            return step.action() == Action.REPLACE && step.sourceLabels().length == 1
+                    && step.sourceLabels()[0].equals(step.targetLabel())
+                    && RelabelStep.DEFAULT_REGEX.equals(step.regex().regex())
+                    && RelabelStep.DEFAULT_REPLACEMENT.equals(step.replacement());
+        }
+
+        /**
+         * @return true if the config keeps every label set, or every label
+         */
+        boolean keepsAll() {
+            return (step.action() == Action.KEEP || step.action() == Action.LABELKEEP) && matchesAll(step.regex());
+        }
+
+        /**
+         * @return label the config writes, and nothing else, or null if it writes no label, or labels which depend
+         * on values
+         */
+        String fixedTarget() {
+            switch (step.action()) {
+                case REPLACE:
+                    return step.targetLabel().indexOf('$') < 0 ? step.targetLabel() : null;
+                case LOWERCASE:
+                case UPPERCASE:
+                case HASHMOD:
+                    return step.targetLabel();
+                default:
+                    return null;
+            }
+        }
+
+        /**
+         * @return true if the config may read value of the label
+         */
+        boolean reads(String label) {
+            if (Arrays.asList(step.sourceLabels()).contains(label)) {
+                return true;
+            }
+
+            switch (step.action()) {
+                case KEEPEQUAL:
+                case DROPEQUAL:
+                    return step.targetLabel().equals(label);
+                case LABELMAP:
+                    return maps(label);
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * @return true if the config is labelmap which maps the label
+         */
+        boolean maps(String label) {
+            return step.action() == Action.LABELMAP && step.regex().matches(label);
+        }
+
+        /**
+         * @return true if the config always deletes the label
+         */
+        boolean deletes(String label) {
+            switch (step.action()) {
+                case LABELDROP:
+                    return step.regex().matches(label);
+                case LABELKEEP:
+                    return !step.regex().matches(label);
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * @return true if the config always overwrites the label, without reading it
+         */
+        boolean overwrites(String label) {
+            switch (step.action()) {
+                case REPLACE:
+                    return label.equals(fixedTarget()) && matchesAll(step.regex());
+                case LOWERCASE:
+                case UPPERCASE:
+                case HASHMOD:
+                    return label.equals(step.targetLabel());
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * @return true if the config may change a label the filter reads
+         */
+        boolean mayWrite(Rule filter) {
+            if (step.action() == Action.LABELMAP || (step.action() == Action.REPLACE && fixedTarget() == null)) {
+                return true;
+            }
+
+            for (String label : filter.readLabels()) {
+                if (label.equals(fixedTarget()) || deletes(label)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        /**
+         * @return true if both configs are drops, or both are keeps, of the same value
+         */
+        boolean hasSameValue(Rule other) {
+            return (step.action() == Action.DROP || step.action() == Action.KEEP)
+                    && step.action() == other.step.action()
+                    && Arrays.equals(step.sourceLabels(), other.step.sourceLabels())
+                    && step.separator().equals(other.step.separator());
+        }
+
+        private List<String> readLabels() {
+            List<String> labels = new ArrayList<>(Arrays.asList(step.sourceLabels()));
+            if (step.action() == Action.KEEPEQUAL || step.action() == Action.DROPEQUAL) {
+                labels.add(step.targetLabel());
+            }
+
+            return labels;
+        }
+
+        private static boolean matchesAll(RelabelRegex regex) {
+            return RelabelStep.DEFAULT_REGEX.equals(regex.regex()) || ".*".equals(regex.regex());
+        }
+
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.github.pakisan.prometheus.config.relabel;
+
+/**
+ * Pass of {@link RelabelProgram} over a label set: a relabel config, or several of them fused into one pass.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+interface RelabelPass {
+
+    /**
+     * Applies the pass.
+     *
+     * @param labels labels to change
+     * @return false if labels are dropped
+     */
+    boolean apply(LabelSetBuilder labels);
+
+    /**
+     * Applies the pass to label sets in selection.
+     *
+     * @param rows builders of label sets
+     * @param selection indexes of label sets to apply the pass to, dropped ones are removed
+     * @param count number of label sets in selection
+     * @return number of label sets left in selection
+     */
+    int apply(LabelSetBuilder[] rows, int[] selection, int count);
+
+}
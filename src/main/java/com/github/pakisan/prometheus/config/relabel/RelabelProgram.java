@@ -0,0 +1,208 @@
+package com.github.pakisan.prometheus.config.relabel;
+
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.PrometheusMetricRelabelConfig;
+import com.github.pakisan.prometheus.config.PrometheusRelabelConfig;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Relabel configs compiled once and applied to label sets like Prometheus applies them.
+ * <p>
+ * Regexes are compiled and templates of target_label and replacement are parsed when the program is compiled,
+ * applying the program compiles nothing. Runs of labelmap, labeldrop and labelkeep are fused to walk labels once,
+ * see {@link LabelNamePass}. Program is immutable and may be applied by many threads at once.
+ * <pre>{@code
+ * RelabelProgram program = RelabelProgram.compile(scrapeConfig.getRelabel_configs());
+ * LabelSet relabeled = program.apply(LabelSet.of("__address__", "localhost:9100", "job", "node"));
+ * if (relabeled == null) {
+ *     // target is dropped
+ * }
+ * }</pre>
+ * Fields of relabel config which are null are treated as not set, so configs made with builders, which leave
+ * defaults unset, behave like configs read from YAML.
+ * <p>
+ * To find out which config is slow or drops too much, {@link #withStats()} makes a program which counts every
+ * config, and {@link #trace(LabelSet)} shows labels after every config.
+ *
+ * @since  1.0.0
+ * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/#relabel_config">relabel_config</a>
+ * @author Pavel Bodiachevskii
+ */
+public final class RelabelProgram {
+
+    private final RelabelStep[] steps;
+
+    private final RelabelPass[] passes;
+
+    /**
+     * Counters of configs, or null if the program does not count them.
+     */
+    private final RelabelStats stats;
+
+    private RelabelProgram(RelabelStep[] steps) {
+        this.steps = steps;
+        this.passes = LabelNamePass.fuse(steps);
+        this.stats = null;
+    }
+
+    private RelabelProgram(RelabelStep[] steps, RelabelStats stats) {
+        this.steps = steps;
+        // configs are not fused, so that every config is counted on its own
+        this.passes = new RelabelPass[steps.length];
+        for (int i = 0; i < steps.length; i++) {
+            passes[i] = stats.pass(steps[i], i);
+        }
+        this.stats = stats;
+    }
+
+    /**
+     * @param relabelConfigs relabel configs, in order they are applied, may be null
+     * @return compiled program
+     * @throws PrometheusConfigException if a config is not valid, like Prometheus would reject it
+     */
+    public static RelabelProgram compile(List<PrometheusRelabelConfig> relabelConfigs) {
+        if (relabelConfigs == null) {
+            return new RelabelProgram(new RelabelStep[0]);
+        }
+
+        RelabelStep[] steps = new RelabelStep[relabelConfigs.size()];
+        for (int i = 0; i < steps.length; i++) {
+            PrometheusRelabelConfig relabelConfig = relabelConfigs.get(i);
+            steps[i] = step(
+                    i, relabelConfig.getSource_labels(), relabelConfig.getSeparator(), relabelConfig.getTarget_label(),
+                    relabelConfig.getRegex(), relabelConfig.getModulus(), relabelConfig.getReplacement(),
+                    relabelConfig.getAction()
+            );
+        }
+
+        return new RelabelProgram(steps);
+    }
+
+    /**
+     * @param relabelConfigs metric relabel configs, in order they are applied, may be null
+     * @return compiled program
+     * @throws PrometheusConfigException if a config is not valid, like Prometheus would reject it
+     */
+    public static RelabelProgram compileMetricRelabelConfigs(List<PrometheusMetricRelabelConfig> relabelConfigs) {
+        if (relabelConfigs == null) {
+            return new RelabelProgram(new RelabelStep[0]);
+        }
+
+        RelabelStep[] steps = new RelabelStep[relabelConfigs.size()];
+        for (int i = 0; i < steps.length; i++) {
+            PrometheusMetricRelabelConfig relabelConfig = relabelConfigs.get(i);
+            steps[i] = step(
+                    i, relabelConfig.getSource_labels(), relabelConfig.getSeparator(), relabelConfig.getTarget_label(),
+                    relabelConfig.getRegex(), relabelConfig.getModulus(), relabelConfig.getReplacement(),
+                    relabelConfig.getAction() == null
+                            ? null
+                            : PrometheusRelabelConfig.Action.valueOf(relabelConfig.getAction().name())
+            );
+        }
+
+        return new RelabelProgram(steps);
+    }
+
+    /**
+     * Relabels labels.
+     *
+     * @param labels labels, like labels of a target
+     * @return relabeled labels, or null if they are dropped
+     */
+    public LabelSet apply(LabelSet labels) {
+        LabelSetBuilder builder = new LabelSetBuilder(labels);
+        for (RelabelPass pass : passes) {
+            if (!pass.apply(builder)) {
+                return null;
+            }
+        }
+
+        return builder.labels();
+    }
+
+    /**
+     * Relabels labels.
+     *
+     * @param labels labels, like labels of a target
+     * @return relabeled labels sorted by name, or null if they are dropped
+     */
+    public Map<String, String> apply(Map<String, String> labels) {
+        LabelSet relabeled = apply(LabelSet.of(labels));
+        return relabeled == null ? null : relabeled.toMap();
+    }
+
+    /**
+     * Relabels label sets of the batch which are in its selection, one relabel config at a time, see
+     * {@link LabelSetBatch}. Label sets which are dropped leave the selection.
+     *
+     * @param batch label sets, like series of a scrape
+     */
+    public void apply(LabelSetBatch batch) {
+        int count = batch.begin();
+        LabelSetBuilder[] rows = batch.builders();
+        int[] selection = batch.working();
+        for (int i = 0; i < passes.length && count > 0; i++) {
+            count = passes[i].apply(rows, selection, count);
+        }
+
+        batch.end(count);
+    }
+
+    /**
+     * Applies relabel configs to labels one by one, and keeps labels after every config.
+     *
+     * @param labels labels, like labels of a target
+     * @return labels after every config, up to the one which dropped them
+     */
+    public RelabelTrace trace(LabelSet labels) {
+        LabelSetBuilder builder = new LabelSetBuilder(labels);
+        RelabelTrace trace = new RelabelTrace(labels, steps.length);
+        for (RelabelStep step : steps) {
+            int[] matched = new int[1];
+            boolean kept = step.apply(builder, matched);
+            trace.add(step.action(), matched[0] > 0, kept ? builder.labels() : null);
+            if (!kept) {
+                break;
+            }
+        }
+
+        return trace;
+    }
+
+    /**
+     * Makes program of the same relabel configs which counts label sets and time of every config in
+     * {@link #stats()}. Configs are not fused and every one is timed, so the program is slower than this one,
+     * this one keeps counting nothing.
+     *
+     * @return program which counts configs, with counters of its own
+     */
+    public RelabelProgram withStats() {
+        return new RelabelProgram(steps, new RelabelStats(steps));
+    }
+
+    /**
+     * @return counters of relabel configs, or null if the program was not made by {@link #withStats()}
+     */
+    public RelabelStats stats() {
+        return stats;
+    }
+
+    /**
+     * @return number of relabel configs
+     */
+    public int size() {
+        return steps.length;
+    }
+
+    private static RelabelStep step(int index, List<String> sourceLabels, String separator, String targetLabel,
+                                    String regex, int modulus, String replacement, PrometheusRelabelConfig.Action action) {
+        try {
+            return new RelabelStep(sourceLabels, separator, targetLabel, regex, modulus, replacement, action);
+        } catch (PrometheusConfigException e) {
+            throw new PrometheusConfigException("relabel config [" + index + "]: " + e.getMessage(), e);
+        }
+    }
+
+}
@@ -0,0 +1,193 @@
+package com.github.pakisan.prometheus.config.relabel;
+
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Regular expression of relabel config, like {@code __meta_kubernetes_pod_label_(.+)}.
+ * <p>
+ * Expressions are RE2, as Prometheus parses them, and are anchored at both ends: Prometheus compiles regex of
+ * relabel config as {@code ^(?s:regex)$}. Expressions are translated to {@link Pattern} which matches the same
+ * strings, expressions which are not valid RE2 are rejected even if Java would accept them.
+ * <p>
+ * Expressions are matched by Thompson automaton, see {@link #matches(CharSequence)} and {@link #match(CharSequence)},
+ * in time linear in length of value, like RE2 matches them: an expression can not make matching backtrack
+ * for seconds on a long {@code __meta_*} value. {@link #pattern()} and {@link #matcher(CharSequence)} are
+ * {@link java.util.regex} backtracking engine, for code which needs its API.
+ * <p>
+ * Expressions of simple form, like literals, {@code foo|bar}, {@code prefix.*} or {@code (.*)}, which most relabel
+ * configs have, are matched by comparison of strings, without automaton, see {@link SimpleRegex}.
+ * <p>
+ * Compiled expressions are interned: configurations, where thousands of jobs share the same few expressions,
+ * like {@code (.*)}, compile every distinct expression once per process and share the instance.
+ *
+ * @since  1.0.0
+ * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/#relabel_config">relabel_config</a>
+ * @author Pavel Bodiachevskii
+ */
+public final class RelabelRegex {
+
+    private static final int MAX_CACHED = 4096;
+
+    private static final ConcurrentHashMap<String, RelabelRegex> CACHE = new ConcurrentHashMap<>();
+
+    private final String regex;
+
+    private final Pattern pattern;
+
+    /**
+     * Matcher of expression of simple form, or null if expression is matched by {@link #program}.
+     */
+    private final SimpleRegex simple;
+
+    private final NfaProgram program;
+
+    private final int groupCount;
+
+    private final Map<String, Integer> groupNames;
+
+    private RelabelRegex(String regex) {
+        Re2Translator translated = Re2Translator.translate("^(?s:" + regex + ")$");
+        try {
+            this.pattern = Pattern.compile(translated.pattern());
+        } catch (PatternSyntaxException e) {
+            throw new PrometheusConfigException("error parsing regexp: " + e.getDescription() + ": `" + regex + "`", e);
+        }
+
+        this.simple = SimpleRegex.analyze(regex);
+        this.program = simple == null ? NfaCompiler.compile(translated.pattern(), regex) : null;
+        this.regex = regex;
+        this.groupCount = translated.groupCount();
+        this.groupNames = translated.groupNames();
+    }
+
+    /**
+     * Compiles expression, or returns instance compiled before.
+     *
+     * @param regex RE2 expression, not anchored
+     * @return compiled expression
+     * @throws PrometheusConfigException if the expression is not valid RE2
+     */
+    public static RelabelRegex compile(String regex) {
+        RelabelRegex compiled = CACHE.get(regex);
+        if (compiled != null) {
+            return compiled;
+        }
+
+        if (CACHE.size() >= MAX_CACHED) {
+            return new RelabelRegex(regex);
+        }
+
+        // compiles every expression once, even if many threads ask for it at once
+        return CACHE.computeIfAbsent(regex, Compile.INSTANCE);
+    }
+
+    /**
+     * Checks expression without compiling it to {@link Pattern}.
+     *
+     * @param regex RE2 expression
+     * @throws PrometheusConfigException if the expression is not valid RE2
+     */
+    public static void check(String regex) {
+        Re2Translator.translate("^(?s:" + regex + ")$");
+    }
+
+    /**
+     * @return expression as written in configuration
+     */
+    public String regex() {
+        return regex;
+    }
+
+    /**
+     * @return anchored pattern, matches the same strings as Prometheus
+     */
+    public Pattern pattern() {
+        return pattern;
+    }
+
+    /**
+     * @param value value
+     * @return true if the whole value matches the expression
+     */
+    public boolean matches(CharSequence value) {
+        return simple != null ? simple.matches(value) : program.matches(value);
+    }
+
+    /**
+     * Matches the whole value and finds submatches RE2 would find.
+     *
+     * @param value value
+     * @return start and end of every group in the value, of group n at 2n and 2n + 1, of the whole match at 0 and 1,
+     * -1 for groups which did not take part in the match, or null if the value does not match
+     */
+    public int[] match(CharSequence value) {
+        return simple != null ? simple.match(value) : program.match(value);
+    }
+
+    /**
+     * @param value value
+     * @return backtracking matcher of the value
+     */
+    public Matcher matcher(CharSequence value) {
+        return pattern.matcher(value);
+    }
+
+    /**
+     * @return number of capturing groups, named and unnamed
+     */
+    public int groupCount() {
+        return groupCount;
+    }
+
+    /**
+     * @param name name of the group
+     * @return number of the group, or -1 if there is no such group
+     */
+    public int group(String name) {
+        Integer group = groupNames.get(name);
+        return group == null ? -1 : group;
+    }
+
+    /**
+     * @return names of named groups
+     */
+    Set<String> groupNames() {
+        return Collections.unmodifiableSet(groupNames.keySet());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof RelabelRegex && regex.equals(((RelabelRegex) o).regex));
+    }
+
+    @Override
+    public int hashCode() {
+        return regex.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return regex;
+    }
+
+    private static final class Compile implements Function<String, RelabelRegex> {
+
+        private static final Compile INSTANCE = new Compile();
+
+        @Override
+        public RelabelRegex apply(String regex) {
+            return new RelabelRegex(regex);
+        }
+
+    }
+
+}
@@ -0,0 +1,190 @@
+package com.github.pakisan.prometheus.config.relabel;
+
+import com.github.pakisan.prometheus.config.PrometheusRelabelConfig.Action;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of every relabel config of a program, which tell which config makes relabeling slow or drops
+ * label sets: how many label sets the config was applied to, how many of them it matched, see
+ * {@link RelabelStep#apply(LabelSetBuilder, int[])}, how many it dropped and how long it took.
+ * <pre>{@code
+ * RelabelProgram program = RelabelProgram.compile(scrapeConfig.getRelabel_configs()).withStats();
+ * program.apply(target);
+ * System.out.println(program.stats());
+ * }</pre>
+ * Only programs made by {@link RelabelProgram#withStats()} count, other programs have no stats and pay nothing
+ * for them. Counters are striped, so threads which apply the program at once do not contend for them.
+ * Time of a config includes the clock read, so it is meant to compare configs of a program rather than to be
+ * precise.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+public final class RelabelStats {
+
+    private final Action[] actions;
+
+    private final LongAdder[] applied;
+
+    private final LongAdder[] matched;
+
+    private final LongAdder[] dropped;
+
+    private final LongAdder[] nanos;
+
+    RelabelStats(RelabelStep[] steps) {
+        this.actions = new Action[steps.length];
+        this.applied = new LongAdder[steps.length];
+        this.matched = new LongAdder[steps.length];
+        this.dropped = new LongAdder[steps.length];
+        this.nanos = new LongAdder[steps.length];
+        for (int i = 0; i < steps.length; i++) {
+            actions[i] = steps[i].action();
+            applied[i] = new LongAdder();
+            matched[i] = new LongAdder();
+            dropped[i] = new LongAdder();
+            nanos[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @return number of relabel configs
+     */
+    public int size() {
+        return actions.length;
+    }
+
+    /**
+     * @param index index of relabel config
+     * @return action of the config
+     */
+    public Action action(int index) {
+        return actions[index];
+    }
+
+    /**
+     * @param index index of relabel config
+     * @return number of label sets the config was applied to, label sets dropped by earlier configs are not counted
+     */
+    public long applied(int index) {
+        return applied[index].sum();
+    }
+
+    /**
+     * @param index index of relabel config
+     * @return number of label sets the config matched
+     */
+    public long matched(int index) {
+        return matched[index].sum();
+    }
+
+    /**
+     * @param index index of relabel config
+     * @return share of label sets the config matched, 0 if it was not applied
+     */
+    public double matchRate(int index) {
+        long applied = applied(index);
+        return applied == 0 ? 0 : (double) matched(index) / applied;
+    }
+
+    /**
+     * @param index index of relabel config
+     * @return number of label sets the config dropped
+     */
+    public long dropped(int index) {
+        return dropped[index].sum();
+    }
+
+    /**
+     * @param index index of relabel config
+     * @return nanoseconds the config took, of all label sets
+     */
+    public long nanos(int index) {
+        return nanos[index].sum();
+    }
+
+    /**
+     * Resets all counters.
+     */
+    public void reset() {
+        for (int i = 0; i < actions.length; i++) {
+            applied[i].reset();
+            matched[i].reset();
+            dropped[i].reset();
+            nanos[i].reset();
+        }
+    }
+
+    /**
+     * @return counters of every relabel config, one config per line
+     */
+    @Override
+    public String toString() {
+        StringBuilder stats = new StringBuilder();
+        for (int i = 0; i < actions.length; i++) {
+            long applied = applied(i);
+            stats.append('[').append(i).append("] ").append(actions[i].name().toLowerCase(Locale.ROOT))
+                    .append(": applied=").append(applied)
+                    .append(", matched=").append(matched(i))
+                    .append(", dropped=").append(dropped(i))
+                    .append(", nanos=").append(nanos(i))
+                    .append(", nanos/applied=").append(applied == 0 ? 0 : nanos(i) / applied)
+                    .append('\n');
+        }
+
+        return stats.toString();
+    }
+
+    /**
+     * @return pass which applies the step and counts it as relabel config of the index
+     */
+    RelabelPass pass(RelabelStep step, int index) {
+        return new CountedStep(step, index);
+    }
+
+    /**
+     * Step which counts its label sets, the step tells whether it matched while it is applied and timed.
+     */
+    private final class CountedStep implements RelabelPass {
+
+        private final RelabelStep step;
+
+        private final int index;
+
+        private CountedStep(RelabelStep step, int index) {
+            this.step = step;
+            this.index = index;
+        }
+
+        @Override
+        public boolean apply(LabelSetBuilder labels) {
+            int[] matches = new int[1];
+            long start = System.nanoTime();
+            boolean kept = step.apply(labels, matches);
+            nanos[index].add(System.nanoTime() - start);
+            applied[index].increment();
+            matched[index].add(matches[0]);
+            if (!kept) {
+                dropped[index].increment();
+            }
+
+            return kept;
+        }
+
+        @Override
+        public int apply(LabelSetBuilder[] rows, int[] selection, int count) {
+            int[] matches = new int[1];
+            long start = System.nanoTime();
+            int kept = step.apply(rows, selection, count, matches);
+            nanos[index].add(System.nanoTime() - start);
+            applied[index].add(count);
+            matched[index].add(matches[0]);
+            dropped[index].add(count - kept);
+            return kept;
+        }
+
+    }
+
+}
@@ -0,0 +1,580 @@
+package com.github.pakisan.prometheus.config.relabel;
+
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.PrometheusRelabelConfig.Action;
+import com.github.pakisan.prometheus.config.validation.Labels;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Compiled relabel config: regex is compiled and templates are parsed, so applying the step compiles nothing.
+ * <p>
+ * Steps are checked like Prometheus checks relabel configs when it loads configuration and are applied like
+ * Prometheus applies them, see relabel.go of Prometheus.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+final class RelabelStep implements RelabelPass {
+
+    static final String DEFAULT_SEPARATOR = ";";
+
+    static final String DEFAULT_REGEX = "(.*)";
+
+    static final String DEFAULT_REPLACEMENT = "$1";
+
+    /**
+     * Values of hashmod are kept as strings for moduli up to this one.
+     */
+    private static final int MAX_CACHED_SHARDS = 1024;
+
+    private static final Hashers MD5 = new Hashers();
+
+    private final Action action;
+
+    private final String[] sourceLabels;
+
+    private final String separator;
+
+    private final String targetLabel;
+
+    private final RelabelRegex regex;
+
+    private final long modulus;
+
+    private final String replacement;
+
+    private final Template targetTemplate;
+
+    private final Template replacementTemplate;
+
+    /**
+     * True if replace sets target_label to replacement as they are when concatenated source_labels are empty.
+     */
+    private final boolean constantReplace;
+
+    /**
+     * Values hashmod sets target_label to, or null if modulus is too large to keep them.
+     */
+    private final String[] shards;
+
+    /**
+     * Compiles relabel config, fields which are null are treated as not set.
+     *
+     * @throws PrometheusConfigException if Prometheus would not load the config
+     */
+    RelabelStep(List<String> sourceLabels, String separator, String targetLabel, String regex, int modulus,
+                String replacement, Action action) {
+        this.action = action == null ? Action.REPLACE : action;
+        this.sourceLabels = sourceLabels == null ? new String[0] : sourceLabels.toArray(new String[0]);
+        this.separator = separator == null ? DEFAULT_SEPARATOR : separator;
+        this.targetLabel = targetLabel == null ? "" : targetLabel;
+        this.regex = RelabelRegex.compile(regex == null ? DEFAULT_REGEX : regex);
+        this.modulus = Integer.toUnsignedLong(modulus);
+        this.replacement = replacement == null ? DEFAULT_REPLACEMENT : replacement;
+
+        check(sourceLabels != null && !sourceLabels.isEmpty());
+
+        this.targetTemplate = Template.parse(this.targetLabel, this.regex);
+        this.replacementTemplate = Template.parse(this.replacement, this.regex);
+        this.constantReplace = DEFAULT_REGEX.equals(this.regex.regex())
+                && this.targetLabel.indexOf('$') < 0 && this.replacement.indexOf('$') < 0;
+        this.shards = this.action == Action.HASHMOD && this.modulus <= MAX_CACHED_SHARDS
+                ? shards((int) this.modulus)
+                : null;
+    }
+
+    /**
+     * Applies the step.
+     *
+     * @param labels labels, changed by the step
+     * @return false if labels must be dropped
+     */
+    @Override
+    public boolean apply(LabelSetBuilder labels) {
+        return apply(labels, null);
+    }
+
+    /**
+     * Applies the step and counts whether it matched labels: regex matches value of source_labels for drop, keep and
+     * replace, or matches a label name for labelmap, labeldrop and labelkeep, values are equal for dropequal and
+     * keepequal. Lowercase, uppercase and hashmod, which have no regex, match all labels. Regex is matched once,
+     * for both.
+     *
+     * @param labels labels, changed by the step
+     * @param matched first item is incremented if the step matched labels, or null to count nothing
+     * @return false if labels must be dropped
+     */
+    boolean apply(LabelSetBuilder labels, int[] matched) {
+        boolean matches = true;
+        boolean kept = true;
+        switch (action) {
+            case DROP:
+            case KEEP:
+                matches = regex.matches(value(labels));
+                kept = matches == (action == Action.KEEP);
+                break;
+            case DROPEQUAL:
+            case KEEPEQUAL:
+                matches = labels.get(targetLabel).equals(value(labels));
+                kept = matches == (action == Action.KEEPEQUAL);
+                break;
+            case REPLACE:
+                matches = replace(labels, value(labels));
+                break;
+            case LOWERCASE:
+                labels.set(targetLabel, toLowerCase(value(labels)));
+                break;
+            case UPPERCASE:
+                labels.set(targetLabel, toUpperCase(value(labels)));
+                break;
+            case HASHMOD:
+                long shard = shard(labels);
+                labels.set(targetLabel, shards != null ? shards[(int) shard] : Long.toString(shard));
+                break;
+            case LABELMAP:
+                matches = false;
+                for (int i = 0, size = labels.snapshot(); i < size; i++) {
+                    String target = mapName(labels.snapshotName(i));
+                    if (target != null) {
+                        labels.set(target, labels.snapshotValue(i));
+                        matches = true;
+                    }
+                }
+                break;
+            case LABELDROP:
+            case LABELKEEP:
+                matches = false;
+                for (int i = 0, size = labels.snapshot(); i < size; i++) {
+                    boolean nameMatches = regex.matches(labels.snapshotName(i));
+                    if (nameMatches != (action == Action.LABELKEEP)) {
+                        labels.delete(labels.snapshotName(i));
+                    }
+                    matches |= nameMatches;
+                }
+                break;
+            default:
+                throw new IllegalStateException("unknown relabel action " + action);
+        }
+
+        if (matches && matched != null) {
+            matched[0]++;
+        }
+
+        return kept;
+    }
+
+    /**
+     * Applies the step to label sets in selection, like {@link #apply(LabelSetBuilder)} applies it to one.
+     * Label sets of a scrape come grouped by metric name, so regex is not matched again if source value is the same
+     * as of the previous label set.
+     *
+     * @param rows builders of label sets
+     * @param selection indexes of label sets to apply the step to, dropped ones are removed
+     * @param count number of label sets in selection
+     * @return number of label sets left in selection
+     */
+    @Override
+    public int apply(LabelSetBuilder[] rows, int[] selection, int count) {
+        return apply(rows, selection, count, null);
+    }
+
+    /**
+     * Applies the step to label sets in selection and counts label sets it matched,
+     * like {@link #apply(LabelSetBuilder, int[])} counts them.
+     *
+     * @param rows builders of label sets
+     * @param selection indexes of label sets to apply the step to, dropped ones are removed
+     * @param count number of label sets in selection
+     * @param matched first item is incremented by number of matched label sets, or null to count nothing
+     * @return number of label sets left in selection
+     */
+    int apply(LabelSetBuilder[] rows, int[] selection, int count, int[] matched) {
+        int kept = 0;
+        int matches = 0;
+        String previous = null;
+        int[] groups = null;
+        switch (action) {
+            case DROP:
+            case KEEP:
+                boolean valueMatches = false;
+                for (int i = 0; i < count; i++) {
+                    String value = value(rows[selection[i]]);
+                    if (!value.equals(previous)) {
+                        valueMatches = regex.matches(value);
+                        previous = value;
+                    }
+
+                    if (valueMatches) {
+                        matches++;
+                    }
+                    if (valueMatches == (action == Action.KEEP)) {
+                        selection[kept++] = selection[i];
+                    }
+                }
+                break;
+            case REPLACE:
+                for (int i = 0; i < count; i++) {
+                    LabelSetBuilder labels = rows[selection[i]];
+                    String value = value(labels);
+                    if (value.isEmpty() && constantReplace) {
+                        labels.set(targetLabel, replacement);
+                        matches++;
+                        continue;
+                    }
+
+                    if (!value.equals(previous)) {
+                        groups = regex.match(value);
+                        previous = value;
+                    }
+
+                    if (replace(labels, value, groups)) {
+                        matches++;
+                    }
+                }
+                kept = count;
+                break;
+            default:
+                int[] rowMatched = matched != null ? new int[1] : null;
+                for (int i = 0; i < count; i++) {
+                    if (apply(rows[selection[i]], rowMatched)) {
+                        selection[kept++] = selection[i];
+                    }
+                }
+                matches = rowMatched != null ? rowMatched[0] : 0;
+        }
+
+        if (matched != null) {
+            matched[0] += matches;
+        }
+
+        return kept;
+    }
+
+    /**
+     * @return name labelmap maps the label name to, or null if regex does not match the name
+     */
+    String mapName(String name) {
+        int[] groups = regex.match(name);
+        return groups == null ? null : replacementTemplate.expand(groups, name);
+    }
+
+    /**
+     * @return true if labeldrop or labelkeep keeps label with the name
+     */
+    boolean keepsName(String name) {
+        return regex.matches(name) == (action == Action.LABELKEEP);
+    }
+
+    /**
+     * @return shard hashmod assigns the labels to, like Prometheus assigns them
+     */
+    long shard(LabelSetBuilder labels) {
+        Md5 md5 = MD5.get();
+        for (int i = 0; i < sourceLabels.length; i++) {
+            if (i > 0) {
+                md5.update(separator);
+            }
+            md5.update(labels.get(sourceLabels[i]));
+        }
+
+        return Long.remainderUnsigned(md5.finish(), modulus);
+    }
+
+    long modulus() {
+        return modulus;
+    }
+
+    Action action() {
+        return action;
+    }
+
+    String[] sourceLabels() {
+        return sourceLabels;
+    }
+
+    String separator() {
+        return separator;
+    }
+
+    String targetLabel() {
+        return targetLabel;
+    }
+
+    RelabelRegex regex() {
+        return regex;
+    }
+
+    String replacement() {
+        return replacement;
+    }
+
+    /**
+     * @return values of source_labels joined by separator
+     */
+    private String value(LabelSetBuilder labels) {
+        switch (sourceLabels.length) {
+            case 0:
+                return "";
+            case 1:
+                return labels.get(sourceLabels[0]);
+            default:
+                StringBuilder value = new StringBuilder(labels.get(sourceLabels[0]));
+                for (int i = 1; i < sourceLabels.length; i++) {
+                    value.append(separator).append(labels.get(sourceLabels[i]));
+                }
+                return value.toString();
+        }
+    }
+
+    /**
+     * @return true if regex matches the value
+     */
+    private boolean replace(LabelSetBuilder labels, String value) {
+        if (value.isEmpty() && constantReplace) {
+            labels.set(targetLabel, replacement);
+            return true;
+        }
+
+        return replace(labels, value, regex.match(value));
+    }
+
+    /**
+     * @param groups submatches of the value, or null if regex does not match it
+     * @return true if regex matches the value
+     */
+    private boolean replace(LabelSetBuilder labels, String value, int[] groups) {
+        if (groups == null) {
+            return false;
+        }
+
+        String target = targetTemplate.expand(groups, value);
+        if (!Labels.isValidName(target)) {
+            return true;
+        }
+
+        String replaced = replacementTemplate.expand(groups, value);
+        if (replaced.isEmpty()) {
+            // Prometheus deletes target_label as written, not as expanded
+            labels.delete(targetLabel);
+            return true;
+        }
+
+        labels.set(target, replaced);
+        return true;
+    }
+
+    /**
+     * Rejects configs like Prometheus does when it loads them, with the same messages.
+     */
+    private void check(boolean hasSourceLabels) {
+        String name = action.name().toLowerCase(Locale.ROOT);
+        if (modulus == 0 && action == Action.HASHMOD) {
+            throw new PrometheusConfigException("relabel configuration for hashmod requires non-zero modulus");
+        }
+
+        switch (action) {
+            case REPLACE:
+            case HASHMOD:
+            case LOWERCASE:
+            case UPPERCASE:
+            case KEEPEQUAL:
+            case DROPEQUAL:
+                if (targetLabel.isEmpty()) {
+                    throw new PrometheusConfigException(
+                            "relabel configuration for " + name + " action requires 'target_label' value"
+                    );
+                }
+                break;
+            default:
+        }
+
+        switch (action) {
+            case REPLACE:
+                if (targetLabel.indexOf('$') < 0 ? !Labels.isValidName(targetLabel) : !isRelabelTarget(targetLabel)) {
+                    throw new PrometheusConfigException(
+                            "\"" + targetLabel + "\" is invalid 'target_label' for " + name + " action"
+                    );
+                }
+                break;
+            case LOWERCASE:
+            case UPPERCASE:
+            case KEEPEQUAL:
+            case DROPEQUAL:
+                if (!Labels.isValidName(targetLabel)) {
+                    throw new PrometheusConfigException(
+                            "\"" + targetLabel + "\" is invalid 'target_label' for " + name + " action"
+                    );
+                }
+                if (!DEFAULT_REPLACEMENT.equals(replacement)) {
+                    throw new PrometheusConfigException("'replacement' can not be set for " + name + " action");
+                }
+                break;
+            case LABELMAP:
+                if (!isRelabelTarget(replacement)) {
+                    throw new PrometheusConfigException(
+                            "\"" + replacement + "\" is invalid 'replacement' for " + name + " action"
+                    );
+                }
+                break;
+            case HASHMOD:
+                if (!Labels.isValidName(targetLabel)) {
+                    throw new PrometheusConfigException(
+                            "\"" + targetLabel + "\" is invalid 'target_label' for " + name + " action"
+                    );
+                }
+                break;
+            default:
+        }
+
+        if ((action == Action.KEEPEQUAL || action == Action.DROPEQUAL) && (!DEFAULT_REGEX.equals(regex.regex())
+                || modulus != 0 || !DEFAULT_SEPARATOR.equals(separator) || !DEFAULT_REPLACEMENT.equals(replacement))) {
+            throw new PrometheusConfigException(
+                    name + " action requires only 'source_labels' and `target_label`, and no other fields"
+            );
+        }
+
+        if ((action == Action.LABELDROP || action == Action.LABELKEEP) && (hasSourceLabels || !targetLabel.isEmpty()
+                || modulus != 0 || !DEFAULT_SEPARATOR.equals(separator) || !DEFAULT_REPLACEMENT.equals(replacement))) {
+            throw new PrometheusConfigException(name + " action requires only 'regex', and no other fields");
+        }
+    }
+
+    /**
+     * Tells whether label name template is valid, like relabelTarget regex of Prometheus,
+     * {@code ^(?:(?:[a-zA-Z_]|\$(?:\{\w+\}|\w+))+\w*)+$}, tells it: name which may hold references to groups,
+     * like {@code $1} or {@code ${name}}, and starts with a letter, an underscore or a reference.
+     */
+    static boolean isRelabelTarget(String template) {
+        if (template.isEmpty()) {
+            return false;
+        }
+
+        int i = 0;
+        while (i < template.length()) {
+            char c = template.charAt(i);
+            if (c == '$') {
+                i = reference(template, i + 1);
+                if (i < 0) {
+                    return false;
+                }
+            } else if (isWordChar(c) && (i > 0 || c < '0' || c > '9')) {
+                i++;
+            } else {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return index after reference to group which follows $ at the index, or -1 if there is no reference
+     */
+    private static int reference(String template, int start) {
+        int i = start;
+        boolean braced = i < template.length() && template.charAt(i) == '{';
+        if (braced) {
+            i++;
+        }
+
+        int name = i;
+        while (i < template.length() && isWordChar(template.charAt(i))) {
+            i++;
+        }
+
+        if (i == name) {
+            return -1;
+        }
+
+        if (!braced) {
+            return i;
+        }
+
+        return i < template.length() && template.charAt(i) == '}' ? i + 1 : -1;
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private static String[] shards(int modulus) {
+        String[] shards = new String[modulus];
+        for (int i = 0; i < modulus; i++) {
+            shards[i] = Integer.toString(i);
+        }
+
+        return shards;
+    }
+
+    /**
+     * Lower case of every code point, like strings.ToLower of Go, which unlike {@link String#toLowerCase(Locale)}
+     * depends neither on locale nor on neighbouring characters.
+     */
+    private static String toLowerCase(String value) {
+        int i = 0;
+        while (i < value.length()) {
+            char c = value.charAt(i);
+            if (c >= 0x80 || (c >= 'A' && c <= 'Z')) {
+                break;
+            }
+
+            i++;
+        }
+
+        if (i == value.length()) {
+            return value;
+        }
+
+        StringBuilder lowerCase = new StringBuilder(value.length()).append(value, 0, i);
+        while (i < value.length()) {
+            int c = value.codePointAt(i);
+            lowerCase.appendCodePoint(Character.toLowerCase(c));
+            i += Character.charCount(c);
+        }
+
+        return lowerCase.toString();
+    }
+
+    /**
+     * Upper case of every code point, like strings.ToUpper of Go.
+     */
+    private static String toUpperCase(String value) {
+        int i = 0;
+        while (i < value.length()) {
+            char c = value.charAt(i);
+            if (c >= 0x80 || (c >= 'a' && c <= 'z')) {
+                break;
+            }
+
+            i++;
+        }
+
+        if (i == value.length()) {
+            return value;
+        }
+
+        StringBuilder upperCase = new StringBuilder(value.length()).append(value, 0, i);
+        while (i < value.length()) {
+            int c = value.codePointAt(i);
+            upperCase.appendCodePoint(Character.toUpperCase(c));
+            i += Character.charCount(c);
+        }
+
+        return upperCase.toString();
+    }
+
+    /**
+     * {@link Md5} is not thread safe, so every thread has its own.
+     */
+    private static final class Hashers extends ThreadLocal<Md5> {
+
+        @Override
+        protected Md5 initialValue() {
+            return new Md5();
+        }
+
+    }
+
+}
@@ -0,0 +1,133 @@
+package com.github.pakisan.prometheus.config.relabel;
+
+import com.github.pakisan.prometheus.config.PrometheusRelabelConfig.Action;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Labels of one label set after every relabel config of a program, see {@link RelabelProgram#trace(LabelSet)}:
+ * <pre>{@code
+ * {__address__="localhost:9100", job="node"}
+ * [0] replace, matched: {__address__="localhost:9100", instance="localhost", job="node"}
+ * [1] drop, matched: dropped
+ * }</pre>
+ * Configs after the one which dropped the label set are not applied and are not traced.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+public final class RelabelTrace {
+
+    private final LabelSet input;
+
+    private Action[] actions;
+
+    private boolean[] matched;
+
+    private LabelSet[] labels;
+
+    private int size;
+
+    RelabelTrace(LabelSet input, int capacity) {
+        this.input = input;
+        this.actions = new Action[capacity];
+        this.matched = new boolean[capacity];
+        this.labels = new LabelSet[capacity];
+    }
+
+    /**
+     * @return labels before relabeling
+     */
+    public LabelSet input() {
+        return input;
+    }
+
+    /**
+     * @return number of relabel configs which were applied
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index index of relabel config
+     * @return action of the config
+     */
+    public Action action(int index) {
+        check(index);
+        return actions[index];
+    }
+
+    /**
+     * @param index index of relabel config
+     * @return true if the config matched labels, see {@link RelabelStats#matched(int)}
+     */
+    public boolean matched(int index) {
+        check(index);
+        return matched[index];
+    }
+
+    /**
+     * @param index index of relabel config
+     * @return labels after the config, or null if the config dropped them
+     */
+    public LabelSet labels(int index) {
+        check(index);
+        return labels[index];
+    }
+
+    /**
+     * @return labels after relabeling, or null if they are dropped, like {@link RelabelProgram#apply(LabelSet)}
+     * returns
+     */
+    public LabelSet result() {
+        return size == 0 ? input : labels[size - 1];
+    }
+
+    /**
+     * @return index of relabel config which dropped labels, or -1 if they are not dropped
+     */
+    public int droppedBy() {
+        return size > 0 && labels[size - 1] == null ? size - 1 : -1;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder trace = new StringBuilder().append(input).append('\n');
+        for (int i = 0; i < size; i++) {
+            trace.append('[').append(i).append("] ").append(actions[i].name().toLowerCase(Locale.ROOT))
+                    .append(matched[i] ? ", matched: " : ", not matched: ")
+                    .append(labels[i] == null ? "dropped" : labels[i].toString())
+                    .append('\n');
+        }
+
+        return trace.toString();
+    }
+
+    /**
+     * Adds relabel config which was applied.
+     *
+     * @param labels labels after the config, or null if the config dropped them
+     */
+    void add(Action action, boolean matched, LabelSet labels) {
+        if (size == actions.length) {
+            int capacity = Math.max(8, size * 2);
+            this.actions = Arrays.copyOf(actions, capacity);
+            this.matched = Arrays.copyOf(this.matched, capacity);
+            this.labels = Arrays.copyOf(this.labels, capacity);
+        }
+
+        actions[size] = action;
+        this.matched[size] = matched;
+        this.labels[size] = labels;
+        size++;
+    }
+
+    private void check(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + " of trace of " + size);
+        }
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.github.pakisan.prometheus.config.relabel;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Number of targets hashmod assigns to every shard, for every job and for all jobs, see {@link ShardPlanner}.
+ * <p>
+ * Skew is the number of targets of the fullest shard divided by the mean number of targets per shard: 1 when
+ * targets are spread evenly, modulus when all of them land on one shard. Skew of no targets is 0.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+public final class ShardPlan {
+
+    private final int modulus;
+
+    private final List<String> jobs;
+
+    private final long[][] counts;
+
+    private final long[] total;
+
+    private final Map<String, Integer> indexes;
+
+    ShardPlan(int modulus, List<String> jobs, long[][] counts) {
+        this.modulus = modulus;
+        this.jobs = jobs;
+        this.counts = counts;
+        this.total = new long[modulus];
+        this.indexes = new HashMap<>(jobs.size() * 4 / 3 + 1);
+        for (int i = 0; i < jobs.size(); i++) {
+            indexes.put(jobs.get(i), i);
+        }
+        for (long[] jobCounts : counts) {
+            for (int shard = 0; shard < modulus; shard++) {
+                total[shard] += jobCounts[shard];
+            }
+        }
+    }
+
+    /**
+     * @return number of shards
+     */
+    public int modulus() {
+        return modulus;
+    }
+
+    /**
+     * @return planned jobs
+     */
+    public List<String> jobs() {
+        return jobs;
+    }
+
+    /**
+     * @return number of targets of every shard, of all jobs
+     */
+    public long[] counts() {
+        return total.clone();
+    }
+
+    /**
+     * @param job job
+     * @return number of targets of every shard, of the job
+     * @throws IllegalArgumentException if the job was not planned
+     */
+    public long[] counts(String job) {
+        return counts[index(job)].clone();
+    }
+
+    /**
+     * @return number of targets of all jobs
+     */
+    public long targets() {
+        return sum(total);
+    }
+
+    /**
+     * @return skew of targets of all jobs
+     */
+    public double skew() {
+        return skew(total);
+    }
+
+    /**
+     * @param job job
+     * @return skew of targets of the job
+     * @throws IllegalArgumentException if the job was not planned
+     */
+    public double skew(String job) {
+        return skew(counts[index(job)]);
+    }
+
+    @Override
+    public String toString() {
+        return "ShardPlan{modulus=" + modulus + ", jobs=" + jobs.size() + ", targets=" + targets()
+                + ", skew=" + skew() + ", counts=" + Arrays.toString(total) + "}";
+    }
+
+    private int index(String job) {
+        Integer index = indexes.get(job);
+        if (index == null) {
+            throw new IllegalArgumentException("job " + job + " was not planned");
+        }
+
+        return index;
+    }
+
+    private static double skew(long[] counts) {
+        long sum = sum(counts);
+        if (sum == 0) {
+            return 0;
+        }
+
+        long max = 0;
+        for (long count : counts) {
+            max = Math.max(max, count);
+        }
+
+        return (double) max * counts.length / sum;
+    }
+
+    private static long sum(long[] counts) {
+        long sum = 0;
+        for (long count : counts) {
+            sum += count;
+        }
+
+        return sum;
+    }
+
+}
@@ -0,0 +1,166 @@
+package com.github.pakisan.prometheus.config.relabel;
+
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.PrometheusRelabelConfig;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Tells how hashmod relabel config spreads targets across shards, like Prometheus servers of a sharded setup,
+ * where each server keeps targets of its own shard:
+ * <pre>{@code
+ * - source_labels: [__address__]
+ *   modulus: 64
+ *   target_label: __tmp_hash
+ *   action: hashmod
+ * - source_labels: [__tmp_hash]
+ *   regex: 17
+ *   action: keep
+ * }</pre>
+ * Targets are assigned to shards exactly like Prometheus assigns them, so placement can be planned offline from
+ * discovered targets. Jobs are planned in parallel on a fork-join pool, hashing allocates nothing per target.
+ * <p>
+ * Planner is immutable and may be used by many threads at once.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+public final class ShardPlanner {
+
+    /**
+     * Largest modulus of plans, every plan keeps a count of targets per shard.
+     */
+    public static final int MAX_PLANNED_MODULUS = 1 << 16;
+
+    private final RelabelStep hashmod;
+
+    private final ForkJoinPool pool;
+
+    private ShardPlanner(RelabelStep hashmod, ForkJoinPool pool) {
+        this.hashmod = hashmod;
+        this.pool = pool;
+    }
+
+    /**
+     * Creates planner which plans on the common fork-join pool.
+     *
+     * @param hashmod relabel config with hashmod action
+     * @return planner
+     * @throws PrometheusConfigException if the config is not valid hashmod, or its modulus is too large to plan
+     */
+    public static ShardPlanner of(PrometheusRelabelConfig hashmod) {
+        if (hashmod.getAction() != PrometheusRelabelConfig.Action.HASHMOD) {
+            throw new PrometheusConfigException("relabel config with hashmod action is expected, got " + hashmod.getAction());
+        }
+
+        return new ShardPlanner(step(
+                hashmod.getSource_labels(), hashmod.getSeparator(), hashmod.getTarget_label(), hashmod.getModulus()
+        ), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates planner which plans on the common fork-join pool.
+     *
+     * @param sourceLabels labels, values of which are hashed
+     * @param separator separator of values, null for the default one
+     * @param modulus number of shards
+     * @return planner
+     * @throws PrometheusConfigException if modulus is 0, or too large to plan
+     */
+    public static ShardPlanner of(List<String> sourceLabels, String separator, int modulus) {
+        return new ShardPlanner(step(sourceLabels, separator, "__tmp_hash", modulus), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool pool to plan on
+     * @return planner which plans on the pool
+     */
+    public ShardPlanner withPool(ForkJoinPool pool) {
+        return new ShardPlanner(hashmod, pool);
+    }
+
+    /**
+     * @param target labels of target, before relabeling
+     * @return shard of the target, from 0 to modulus
+     */
+    public int shard(LabelSet target) {
+        return (int) hashmod.shard(new LabelSetBuilder(target));
+    }
+
+    /**
+     * Counts targets of every shard, for every job.
+     *
+     * @param targetsByJob targets of every job, like discovered by service discovery
+     * @return plan, with jobs in order of the map
+     */
+    public ShardPlan plan(Map<String, List<LabelSet>> targetsByJob) {
+        List<String> jobs = Collections.unmodifiableList(new ArrayList<>(targetsByJob.keySet()));
+        List<List<LabelSet>> targets = new ArrayList<>(targetsByJob.values());
+        long[][] counts = new long[jobs.size()][];
+        if (!jobs.isEmpty()) {
+            pool.invoke(new PlanJobs(targets, counts, 0, jobs.size()));
+        }
+
+        return new ShardPlan((int) hashmod.modulus(), jobs, counts);
+    }
+
+    private static RelabelStep step(List<String> sourceLabels, String separator, String targetLabel, int modulus) {
+        long unsignedModulus = Integer.toUnsignedLong(modulus);
+        if (unsignedModulus > MAX_PLANNED_MODULUS) {
+            throw new PrometheusConfigException(
+                    "modulus " + unsignedModulus + " is too large to plan, at most " + MAX_PLANNED_MODULUS
+            );
+        }
+
+        return new RelabelStep(
+                sourceLabels, separator, targetLabel, null, modulus, null, PrometheusRelabelConfig.Action.HASHMOD
+        );
+    }
+
+    private final class PlanJobs extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<List<LabelSet>> targets;
+
+        private final long[][] counts;
+
+        private final int from;
+
+        private final int to;
+
+        private PlanJobs(List<List<LabelSet>> targets, long[][] counts, int from, int to) {
+            this.targets = targets;
+            this.counts = counts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                long[] shards = new long[(int) hashmod.modulus()];
+                List<LabelSet> jobTargets = targets.get(from);
+                if (jobTargets != null) {
+                    LabelSetBuilder builder = new LabelSetBuilder(LabelSet.EMPTY);
+                    for (LabelSet target : jobTargets) {
+                        builder.reset(target);
+                        shards[(int) hashmod.shard(builder)]++;
+                    }
+                }
+                counts[from] = shards;
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new PlanJobs(targets, counts, from, middle), new PlanJobs(targets, counts, middle, to));
+        }
+
+    }
+
+}
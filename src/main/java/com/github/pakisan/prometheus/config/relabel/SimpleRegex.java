@@ -0,0 +1,207 @@
+package com.github.pakisan.prometheus.config.relabel;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Relabel regex of simple form, which is matched without automaton:
+ * <ul>
+ *     <li>literal, like {@code node_cpu_seconds_total}, by equality</li>
+ *     <li>alternation of literals, like {@code foo|bar|baz}, by lookup in set</li>
+ *     <li>literal followed by {@code .*} or {@code .+}, like {@code __meta_kubernetes_.*}, by prefix and length</li>
+ * </ul>
+ * Literal, alternation, or whatever follows the literal prefix, may be the only capturing group,
+ * like {@code (.*)}, {@code (foo|bar)} or {@code __meta_kubernetes_pod_label_(.+)}: submatch of the group is
+ * known once value matches.
+ * <p>
+ * Most relabel regexes are of these forms, matching them costs a comparison of strings.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+final class SimpleRegex {
+
+    /**
+     * Nothing follows literal.
+     */
+    private static final int NONE = -1;
+
+    /**
+     * Literals, any of which matches, or null if regex is literal followed by {@link #rest}.
+     */
+    private final Set<String> literals;
+
+    private final String prefix;
+
+    /**
+     * Minimal length of text which follows prefix: 0 for {@code .*}, 1 for {@code .+}, or {@link #NONE}.
+     */
+    private final int rest;
+
+    /**
+     * Whether the capturing group wraps alternation or what follows prefix.
+     */
+    private final boolean captures;
+
+    private SimpleRegex(Set<String> literals, String prefix, int rest, boolean captures) {
+        this.literals = literals;
+        this.prefix = prefix;
+        this.rest = rest;
+        this.captures = captures;
+    }
+
+    /**
+     * @param regex valid RE2 expression, not anchored
+     * @return matcher of the expression, or null if the expression is not of simple form
+     */
+    static SimpleRegex analyze(String regex) {
+        Set<String> literals = alternation(regex, 0, regex.length());
+        if (literals != null) {
+            return literals.size() == 1
+                    ? new SimpleRegex(null, literals.iterator().next(), NONE, false)
+                    : new SimpleRegex(Collections.unmodifiableSet(literals), null, NONE, false);
+        }
+
+        if (regex.length() >= 2 && regex.startsWith("(") && !regex.startsWith("(?") && regex.endsWith(")")) {
+            literals = alternation(regex, 1, regex.length() - 1);
+            if (literals != null) {
+                return new SimpleRegex(Collections.unmodifiableSet(literals), null, NONE, true);
+            }
+        }
+
+        int end = literalEnd(regex, 0, regex.length());
+        if (end < 0) {
+            return null;
+        }
+
+        String prefix = unescape(regex, 0, end);
+        switch (regex.substring(end)) {
+            case ".*":
+                return new SimpleRegex(null, prefix, 0, false);
+            case ".+":
+                return new SimpleRegex(null, prefix, 1, false);
+            case "(.*)":
+                return new SimpleRegex(null, prefix, 0, true);
+            case "(.+)":
+                return new SimpleRegex(null, prefix, 1, true);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return number of capturing groups
+     */
+    int groupCount() {
+        return captures ? 1 : 0;
+    }
+
+    /**
+     * @param value value
+     * @return true if the whole value matches the expression
+     */
+    boolean matches(CharSequence value) {
+        String text = value.toString();
+        if (literals != null) {
+            return literals.contains(text);
+        }
+
+        if (rest == NONE) {
+            return text.equals(prefix);
+        }
+
+        return text.length() - prefix.length() >= rest && text.startsWith(prefix);
+    }
+
+    /**
+     * @param value value
+     * @return submatches, like {@link RelabelRegex#match(CharSequence)} reports them, or null if value does not match
+     */
+    int[] match(CharSequence value) {
+        if (!matches(value)) {
+            return null;
+        }
+
+        int length = value.length();
+        if (!captures) {
+            return new int[]{0, length};
+        }
+
+        int start = literals != null ? 0 : prefix.length();
+        return new int[]{0, length, start, length};
+    }
+
+    /**
+     * @return literals of alternation between the positions, or null if regex has something else there
+     */
+    private static Set<String> alternation(String regex, int start, int end) {
+        Set<String> literals = new HashSet<>();
+        int position = start;
+        while (true) {
+            int literalEnd = literalEnd(regex, position, end);
+            if (literalEnd < 0) {
+                return null;
+            }
+
+            literals.add(unescape(regex, position, literalEnd));
+            if (literalEnd == end) {
+                return literals;
+            }
+
+            if (regex.charAt(literalEnd) != '|') {
+                return null;
+            }
+            position = literalEnd + 1;
+        }
+    }
+
+    /**
+     * @return position of the first operator between the positions, or the end if there is no operator,
+     * or -1 if regex has escape which does not stand for punctuation
+     */
+    private static int literalEnd(String regex, int start, int end) {
+        int position = start;
+        while (position < end) {
+            char c = regex.charAt(position);
+            if (c == '\\') {
+                if (position + 1 == end || !isPunctuation(regex.charAt(position + 1))) {
+                    return -1;
+                }
+                position += 2;
+            } else if (".+*?()[]{}^$|".indexOf(c) >= 0) {
+                return position;
+            } else {
+                position++;
+            }
+        }
+
+        return end;
+    }
+
+    private static String unescape(String regex, int start, int end) {
+        int escape = regex.indexOf('\\', start);
+        if (escape < 0 || escape >= end) {
+            return regex.substring(start, end);
+        }
+
+        StringBuilder literal = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                c = regex.charAt(++i);
+            }
+            literal.append(c);
+        }
+
+        return literal.toString();
+    }
+
+    /**
+     * @return true if RE2 matches the character literally when it is escaped
+     */
+    private static boolean isPunctuation(char c) {
+        return c < 128 && !Character.isLetterOrDigit(c) && c != '_' && c > ' ';
+    }
+
+}
@@ -0,0 +1,166 @@
+package com.github.pakisan.prometheus.config.relabel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Template of target_label or replacement, like {@code ${1}_$name}, parsed once the way Go expands templates
+ * of regexp matches.
+ * <p>
+ * {@code $$} is a literal {@code $}. {@code $name} and {@code ${name}} take the longest name of letters, digits and
+ * underscores and refer to the group of that number, if the name is a number without leading zeros, or to the named
+ * group otherwise. So {@code $1_suffix} refers to group named {@code 1_suffix}, which expands to empty string.
+ * Malformed references, like {@code $} followed by nothing or a brace which is not closed, are kept as written.
+ *
+ * @since  1.0.0
+ * @see <a href="https://pkg.go.dev/regexp#Regexp.Expand">regexp.Expand</a>
+ * @author Pavel Bodiachevskii
+ */
+final class Template {
+
+    /**
+     * Literal parts, {@code literals[i]} precedes {@code groups[i]}, the last one follows all groups.
+     */
+    private final String[] literals;
+
+    /**
+     * Numbers of referred groups, -1 if the group is not in the regex.
+     */
+    private final int[] groups;
+
+    private Template(String[] literals, int[] groups) {
+        this.literals = literals;
+        this.groups = groups;
+    }
+
+    /**
+     * @param template template
+     * @param regex regex which matches are expanded, resolves named groups
+     * @return parsed template
+     */
+    static Template parse(String template, RelabelRegex regex) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> groups = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < template.length()) {
+            char c = template.charAt(i);
+            if (c != '$') {
+                literal.append(c);
+                i++;
+                continue;
+            }
+
+            if (i + 1 < template.length() && template.charAt(i + 1) == '$') {
+                literal.append('$');
+                i += 2;
+                continue;
+            }
+
+            int end = reference(template, i + 1);
+            if (end < 0) {
+                literal.append('$');
+                i++;
+                continue;
+            }
+
+            boolean brace = template.charAt(i + 1) == '{';
+            String name = template.substring(brace ? i + 2 : i + 1, brace ? end - 1 : end);
+            int group = number(name);
+            if (group < 0) {
+                group = regex.group(name);
+            } else if (group > regex.groupCount()) {
+                group = -1;
+            }
+
+            literals.add(literal.toString());
+            groups.add(group);
+            literal.setLength(0);
+            i = end;
+        }
+        literals.add(literal.toString());
+
+        int[] groupNumbers = new int[groups.size()];
+        for (int j = 0; j < groupNumbers.length; j++) {
+            groupNumbers[j] = groups.get(j);
+        }
+
+        return new Template(literals.toArray(new String[0]), groupNumbers);
+    }
+
+    /**
+     * @param groups groups of the match, see {@link RelabelRegex#match(CharSequence)}
+     * @param value matched value
+     * @return expanded template
+     */
+    String expand(int[] groups, String value) {
+        if (this.groups.length == 0) {
+            return literals[0];
+        }
+
+        StringBuilder expanded = new StringBuilder();
+        for (int i = 0; i < this.groups.length; i++) {
+            expanded.append(literals[i]);
+            int group = this.groups[i];
+            if (group >= 0 && groups[group * 2] >= 0) {
+                expanded.append(value, groups[group * 2], groups[group * 2 + 1]);
+            }
+        }
+
+        return expanded.append(literals[this.groups.length]).toString();
+    }
+
+    /**
+     * @param start index following {@code $}
+     * @return index following the reference, or -1 if the reference is malformed
+     */
+    private static int reference(String template, int start) {
+        boolean brace = start < template.length() && template.charAt(start) == '{';
+        int i = brace ? start + 1 : start;
+        int nameStart = i;
+        while (i < template.length()) {
+            int c = template.codePointAt(i);
+            if (!Character.isLetter(c) && !Character.isDigit(c) && c != '_') {
+                break;
+            }
+
+            i += Character.charCount(c);
+        }
+
+        if (i == nameStart) {
+            return -1;
+        }
+
+        if (brace) {
+            if (i >= template.length() || template.charAt(i) != '}') {
+                return -1;
+            }
+
+            i++;
+        }
+
+        return i;
+    }
+
+    /**
+     * @return number of the group, or -1 if the name is not a number as Go reads it
+     */
+    private static int number(String name) {
+        if (name.length() > 1 && name.charAt(0) == '0') {
+            return -1;
+        }
+
+        int number = 0;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c < '0' || c > '9' || number >= 100_000_000) {
+                return -1;
+            }
+
+            number = number * 10 + (c - '0');
+        }
+
+        return number;
+    }
+
+}
@@ -0,0 +1,96 @@
+package com.github.pakisan.prometheus.config.rule;
+
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.PrometheusDuration;
+import com.github.pakisan.prometheus.config.codec.ConfigKey;
+import com.github.pakisan.prometheus.config.codec.Configuration;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Pattern;
+import java.util.Map;
+
+/**
+ * Describes Prometheus recording or alerting rule.
+ * <p>
+ * Recording rule has record set, alerting rule has alert set.
+ *
+ * @since  1.0.0
+ * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/recording_rules/#recording-rules">Recording rules</a>
+ * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/alerting_rules/">Alerting rules</a>
+ * @author Pavel Bodiachevskii
+ */
+@Configuration
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrometheusRule {
+
+    /**
+     * The name of the time series to output to. Must be a valid metric name.
+     */
+    @Pattern(regexp = "[a-zA-Z_:][a-zA-Z0-9_:]*")
+    private String record;
+
+    /**
+     * The name of the alert. Must be a valid label value.
+     */
+    private String alert;
+
+    /**
+     * The PromQL expression to evaluate. Every evaluation cycle this is evaluated at the current time,
+     * and the result recorded as a new set of time series with the metric name as given by 'record',
+     * or fired as alerts for all resultant time series.
+     */
+    private String expr;
+
+    /**
+     * Alerts are considered firing once they have been returned for this long.
+     * Alerts which have not yet fired for long enough are considered pending.
+     * <p>
+     * Alerting rules only.
+     */
+    @ConfigKey("for")
+    @Pattern(regexp = "((([0-9]+)y)?(([0-9]+)w)?(([0-9]+)d)?(([0-9]+)h)?(([0-9]+)m)?(([0-9]+)s)?(([0-9]+)ms)?|0)")
+    private String for_;
+
+    /**
+     * How long an alert will continue firing after the condition that triggered it has cleared.
+     * <p>
+     * Alerting rules only.
+     */
+    @Pattern(regexp = "((([0-9]+)y)?(([0-9]+)w)?(([0-9]+)d)?(([0-9]+)h)?(([0-9]+)m)?(([0-9]+)s)?(([0-9]+)ms)?|0)")
+    private String keep_firing_for;
+
+    /**
+     * Labels to add or overwrite before storing the result or for each alert.
+     */
+    private Map<@Pattern(regexp = "[a-zA-Z_][a-zA-Z0-9_]*") String, String> labels;
+
+    /**
+     * Annotations to add to each alert.
+     * <p>
+     * Alerting rules only.
+     */
+    private Map<@Pattern(regexp = "[a-zA-Z_][a-zA-Z0-9_]*") String, String> annotations;
+
+    /**
+     * @return for as duration, or null if it is not set
+     * @throws PrometheusConfigException if for is not a valid duration
+     */
+    public PrometheusDuration forDuration() {
+        return PrometheusDuration.parse(for_);
+    }
+
+    /**
+     * @return keep_firing_for as duration, or null if it is not set
+     * @throws PrometheusConfigException if keep_firing_for is not a valid duration
+     */
+    public PrometheusDuration keepFiringForDuration() {
+        return PrometheusDuration.parse(keep_firing_for);
+    }
+
+}
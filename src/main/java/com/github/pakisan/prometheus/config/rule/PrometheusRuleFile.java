@@ -0,0 +1,32 @@
+package com.github.pakisan.prometheus.config.rule;
+
+import com.github.pakisan.prometheus.config.codec.Configuration;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Describes Prometheus rule file, matched by rule_files.
+ *
+ * @since  1.0.0
+ * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/recording_rules/#syntax-checking-rules">Rule files</a>
+ * @author Pavel Bodiachevskii
+ */
+@Configuration
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrometheusRuleFile {
+
+    /**
+     * Rule groups of the file.
+     *
+     * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/recording_rules/#rule_group">rule_group</a>
+     */
+    private List<PrometheusRuleGroup> groups;
+
+}
@@ -0,0 +1,59 @@
+package com.github.pakisan.prometheus.config.rule;
+
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.PrometheusDuration;
+import com.github.pakisan.prometheus.config.codec.Configuration;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Pattern;
+import java.util.List;
+
+/**
+ * Describes Prometheus rule_group.
+ * <p>
+ * Rules of a group are run sequentially at a regular interval, with the same evaluation time.
+ *
+ * @since  1.0.0
+ * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/recording_rules/#rule_group">rule_group</a>
+ * @author Pavel Bodiachevskii
+ */
+@Configuration
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrometheusRuleGroup {
+
+    /**
+     * The name of the group. Must be unique within a file.
+     */
+    private String name;
+
+    /**
+     * How often rules in the group are evaluated. Defaults to global.evaluation_interval.
+     */
+    @Pattern(regexp = "((([0-9]+)y)?(([0-9]+)w)?(([0-9]+)d)?(([0-9]+)h)?(([0-9]+)m)?(([0-9]+)s)?(([0-9]+)ms)?|0)")
+    private String interval;
+
+    /**
+     * Limit the number of alerts an alerting rule and series a recording rule can produce. 0 is no limit.
+     */
+    private int limit;
+
+    /**
+     * Recording and alerting rules of the group.
+     */
+    private List<PrometheusRule> rules;
+
+    /**
+     * @return interval as duration, or null if it is not set
+     * @throws PrometheusConfigException if interval is not a valid duration
+     */
+    public PrometheusDuration intervalDuration() {
+        return PrometheusDuration.parse(interval);
+    }
+
+}
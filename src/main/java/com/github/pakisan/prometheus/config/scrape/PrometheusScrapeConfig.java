@@ -1,5 +1,8 @@
 package com.github.pakisan.prometheus.config.scrape;
 
+import com.github.pakisan.prometheus.config.PrometheusByteSize;
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.PrometheusDuration;
 import com.github.pakisan.prometheus.config.PrometheusMetricRelabelConfig;
 import com.github.pakisan.prometheus.config.PrometheusProtocolScheme;
 import com.github.pakisan.prometheus.config.PrometheusRelabelConfig;
@@ -8,6 +11,7 @@ import com.github.pakisan.prometheus.config.PrometheusTlsConfig;
 import com.github.pakisan.prometheus.config.auth.PrometheusAuthorization;
 import com.github.pakisan.prometheus.config.auth.PrometheusBasicAuth;
 import com.github.pakisan.prometheus.config.auth.PrometheusOAuth2;
+import com.github.pakisan.prometheus.config.codec.Configuration;
 import com.github.pakisan.prometheus.config.servicediscovery.AzureSdConfig;
 import com.github.pakisan.prometheus.config.servicediscovery.ConsulSdConfig;
 import com.github.pakisan.prometheus.config.servicediscovery.DigitaloceanSdConfig;
@@ -59,6 +63,7 @@ import java.util.Map;
  * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/#scrape_config">scrape_config</a>
  * @author Pavel Bodiachevskii
  */
+@Configuration
 @Data
 @Builder
 @NoArgsConstructor
@@ -114,6 +119,7 @@ public class PrometheusScrapeConfig {
      * setting. In communication with external systems, they are always applied only
      * when a time series does not have a given label yet and are ignored otherwise.
      */
+    @Builder.Default
     private boolean honor_labels = false;
 
     /**
@@ -126,11 +132,13 @@ public class PrometheusScrapeConfig {
      * If honor_timestamps is set to "false", the timestamps of the metrics exposed
      * by the target will be ignored.
      */
+    @Builder.Default
     private boolean honor_timestamps = true;
 
     /**
      * Configures the protocol scheme used for requests.
      */
+    @Builder.Default
     private PrometheusProtocolScheme scheme = PrometheusProtocolScheme.HTTP;
 
     /**
@@ -161,11 +169,13 @@ public class PrometheusScrapeConfig {
     /**
      * Configure whether scrape requests follow HTTP 3xx redirects.
      */
+    @Builder.Default
     private boolean follow_redirects = true;
 
     /**
      * Whether to enable HTTP2.
      */
+    @Builder.Default
     private boolean enable_http2 = true;
 
     /**
@@ -188,6 +198,7 @@ public class PrometheusScrapeConfig {
     /**
      * Use proxy URL indicated by environment variables (HTTP_PROXY, https_proxy, HTTPs_PROXY, https_proxy, and no_proxy)
      */
+    @Builder.Default
     private boolean proxy_from_environment = false;
 
     /**
@@ -415,7 +426,8 @@ public class PrometheusScrapeConfig {
      * <p>
      * change or be removed in the future.
      */
-    @Pattern(regexp = "\\d+B|\\d+KB|\\d+MB|\\d+GB|\\d+TB|\\d+PB|\\d+EB")
+    @Pattern(regexp = "0|\\d+B|\\d+KB|\\d+MB|\\d+GB|\\d+TB|\\d+PB|\\d+EB")
+    @Builder.Default
     private String body_size_limit = "0";
 
     /**
@@ -425,6 +437,7 @@ public class PrometheusScrapeConfig {
      * <p>
      * the entire scrape will be treated as failed. 0 means no limit.
      */
+    @Builder.Default
     private int sample_limit = 0;
 
     /**
@@ -434,6 +447,7 @@ public class PrometheusScrapeConfig {
      * <p>
      * entire scrape will be treated as failed. 0 means no limit.
      */
+    @Builder.Default
     private int label_limit = 0;
 
     /**
@@ -443,6 +457,7 @@ public class PrometheusScrapeConfig {
      * <p>
      * scrape will be treated as failed. 0 means no limit.
      */
+    @Builder.Default
     private int label_name_length_limit = 0;
 
     /**
@@ -452,6 +467,7 @@ public class PrometheusScrapeConfig {
      * <p>
      * entire scrape will be treated as failed. 0 means no limit.
      */
+    @Builder.Default
     private int label_value_length_limit = 0;
 
     /**
@@ -465,6 +481,31 @@ public class PrometheusScrapeConfig {
      * <p>
      * change in the future.
      */
+    @Builder.Default
     private int target_limit = 0;
 
+    /**
+     * @return scrape_interval as duration, or null if it is not set
+     * @throws PrometheusConfigException if scrape_interval is not a valid duration
+     */
+    public PrometheusDuration scrapeIntervalDuration() {
+        return PrometheusDuration.parse(scrape_interval);
+    }
+
+    /**
+     * @return scrape_timeout as duration, or null if it is not set
+     * @throws PrometheusConfigException if scrape_timeout is not a valid duration
+     */
+    public PrometheusDuration scrapeTimeoutDuration() {
+        return PrometheusDuration.parse(scrape_timeout);
+    }
+
+    /**
+     * @return body_size_limit as size, or null if it is not set
+     * @throws PrometheusConfigException if body_size_limit is not a valid size
+     */
+    public PrometheusByteSize bodySizeLimitByteSize() {
+        return PrometheusByteSize.parse(body_size_limit);
+    }
+
 }
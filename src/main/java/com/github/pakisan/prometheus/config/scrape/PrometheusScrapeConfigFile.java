@@ -0,0 +1,32 @@
+package com.github.pakisan.prometheus.config.scrape;
+
+import com.github.pakisan.prometheus.config.codec.Configuration;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Describes file matched by scrape_config_files.
+ *
+ * @since  1.0.0
+ * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/#configuration-file">Configuration file</a>
+ * @author Pavel Bodiachevskii
+ */
+@Configuration
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrometheusScrapeConfigFile {
+
+    /**
+     * A list of scrape configurations, appended to the scrape configurations of the configuration file.
+     *
+     * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/#scrape_config">scrape_config</a>
+     */
+    private List<PrometheusScrapeConfig> scrape_configs;
+
+}
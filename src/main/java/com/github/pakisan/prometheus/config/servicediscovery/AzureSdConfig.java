@@ -1,9 +1,12 @@
 package com.github.pakisan.prometheus.config.servicediscovery;
 
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.PrometheusDuration;
 import com.github.pakisan.prometheus.config.PrometheusTlsConfig;
 import com.github.pakisan.prometheus.config.auth.PrometheusAuthorization;
 import com.github.pakisan.prometheus.config.auth.PrometheusBasicAuth;
 import com.github.pakisan.prometheus.config.auth.PrometheusOAuth2;
+import com.github.pakisan.prometheus.config.codec.Configuration;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -20,6 +23,7 @@ import java.util.Map;
  * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/#azure_sd_config">azure_sd_config</a>
  * @author Pavel Bodiachevskii
  */
+@Configuration
 @Data
 @Builder
 @NoArgsConstructor
@@ -137,4 +141,12 @@ public class AzureSdConfig {
      */
     private PrometheusTlsConfig tls_config;
 
+    /**
+     * @return refresh_interval as duration, or null if it is not set
+     * @throws PrometheusConfigException if refresh_interval is not a valid duration
+     */
+    public PrometheusDuration refreshIntervalDuration() {
+        return PrometheusDuration.parse(refresh_interval);
+    }
+
 }
@@ -1,10 +1,13 @@
 package com.github.pakisan.prometheus.config.servicediscovery;
 
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.PrometheusDuration;
 import com.github.pakisan.prometheus.config.PrometheusProtocolScheme;
 import com.github.pakisan.prometheus.config.PrometheusTlsConfig;
 import com.github.pakisan.prometheus.config.auth.PrometheusAuthorization;
 import com.github.pakisan.prometheus.config.auth.PrometheusBasicAuth;
 import com.github.pakisan.prometheus.config.auth.PrometheusOAuth2;
+import com.github.pakisan.prometheus.config.codec.Configuration;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -21,6 +24,7 @@ import java.util.Map;
  * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/#azure_sd_config">azure_sd_config</a>
  * @author Pavel Bodiachevskii
  */
+@Configuration
 @Data
 @Builder
 @NoArgsConstructor
@@ -44,6 +48,7 @@ public class ConsulSdConfig {
      */
     private String partition;
 
+    @Builder.Default
     private PrometheusProtocolScheme scheme = PrometheusProtocolScheme.HTTP;
 
     /**
@@ -78,6 +83,7 @@ public class ConsulSdConfig {
     /**
      * The string by which Consul tags are joined into the tag label.
      */
+    @Builder.Default
     private String tag_separator = ",";
 
     /**
@@ -85,6 +91,7 @@ public class ConsulSdConfig {
      *
      * @see <a href="https://www.consul.io/api/features/consistency.html">consistency</a>
      */
+    @Builder.Default
     private boolean allow_stale = true;
 
     /**
@@ -93,6 +100,7 @@ public class ConsulSdConfig {
      * On large setup it might be a good idea to increase this value because the catalog will change all the time.
      */
     @Pattern(regexp = "((([0-9]+)y)?(([0-9]+)w)?(([0-9]+)d)?(([0-9]+)h)?(([0-9]+)m)?(([0-9]+)s)?(([0-9]+)ms)?|0)")
+    @Builder.Default
     private String refresh_interval = "30s";
 
     /**
@@ -152,4 +160,12 @@ public class ConsulSdConfig {
      */
     private PrometheusTlsConfig tls_config;
 
+    /**
+     * @return refresh_interval as duration, or null if it is not set
+     * @throws PrometheusConfigException if refresh_interval is not a valid duration
+     */
+    public PrometheusDuration refreshIntervalDuration() {
+        return PrometheusDuration.parse(refresh_interval);
+    }
+
 }
@@ -1,9 +1,12 @@
 package com.github.pakisan.prometheus.config.servicediscovery;
 
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.PrometheusDuration;
 import com.github.pakisan.prometheus.config.PrometheusTlsConfig;
 import com.github.pakisan.prometheus.config.auth.PrometheusAuthorization;
 import com.github.pakisan.prometheus.config.auth.PrometheusBasicAuth;
 import com.github.pakisan.prometheus.config.auth.PrometheusOAuth2;
+import com.github.pakisan.prometheus.config.codec.Configuration;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -20,6 +23,7 @@ import java.util.Map;
  * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/#digitalocean_sd_config">digitalocean_sd_config</a>
  * @author Pavel Bodiachevskii
  */
+@Configuration
 @Data
 @Builder
 @NoArgsConstructor
@@ -29,12 +33,14 @@ public class DigitaloceanSdConfig {
     /**
      * The port to scrape metrics from.
      */
+    @Builder.Default
     private int port = 80;
 
     /**
      * The time after which the droplets are refreshed.
      */
     @Pattern(regexp = "((([0-9]+)y)?(([0-9]+)w)?(([0-9]+)d)?(([0-9]+)h)?(([0-9]+)m)?(([0-9]+)s)?(([0-9]+)ms)?|0)")
+    @Builder.Default
     private String refresh_interval = "60s";
 
     /**
@@ -94,4 +100,12 @@ public class DigitaloceanSdConfig {
      */
     private PrometheusTlsConfig tls_config;
 
+    /**
+     * @return refresh_interval as duration, or null if it is not set
+     * @throws PrometheusConfigException if refresh_interval is not a valid duration
+     */
+    public PrometheusDuration refreshIntervalDuration() {
+        return PrometheusDuration.parse(refresh_interval);
+    }
+
 }
@@ -1,5 +1,8 @@
 package com.github.pakisan.prometheus.config.servicediscovery;
 
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.PrometheusDuration;
+import com.github.pakisan.prometheus.config.codec.Configuration;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -15,6 +18,7 @@ import java.util.List;
  * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/#dns_sd_config">dns_sd_config</a>
  * @author Pavel Bodiachevskii
  */
+@Configuration
 @Data
 @Builder
 @NoArgsConstructor
@@ -40,8 +44,17 @@ public class DnsSdConfig {
      * The time after which the provided names are refreshed.
      */
     @Pattern(regexp = "((([0-9]+)y)?(([0-9]+)w)?(([0-9]+)d)?(([0-9]+)h)?(([0-9]+)m)?(([0-9]+)s)?(([0-9]+)ms)?|0)")
+    @Builder.Default
     private String refresh_interval = "30s";
 
+    /**
+     * @return refresh_interval as duration, or null if it is not set
+     * @throws PrometheusConfigException if refresh_interval is not a valid duration
+     */
+    public PrometheusDuration refreshIntervalDuration() {
+        return PrometheusDuration.parse(refresh_interval);
+    }
+
     public enum DnsType {
         SRV,
         A,
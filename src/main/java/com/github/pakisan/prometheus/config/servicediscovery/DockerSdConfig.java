@@ -1,9 +1,12 @@
 package com.github.pakisan.prometheus.config.servicediscovery;
 
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.PrometheusDuration;
 import com.github.pakisan.prometheus.config.PrometheusTlsConfig;
 import com.github.pakisan.prometheus.config.auth.PrometheusAuthorization;
 import com.github.pakisan.prometheus.config.auth.PrometheusBasicAuth;
 import com.github.pakisan.prometheus.config.auth.PrometheusOAuth2;
+import com.github.pakisan.prometheus.config.codec.Configuration;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -20,6 +23,7 @@ import java.util.Map;
  * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/#digitalocean_sd_config">digitalocean_sd_config</a>
  * @author Pavel Bodiachevskii
  */
+@Configuration
 @Data
 @Builder
 @NoArgsConstructor
@@ -36,11 +40,13 @@ public class DockerSdConfig {
      * <p>
      * tasks and services that don't have published ports.
      */
+    @Builder.Default
     private int port = 80;
 
     /**
      * The host to use if the container is in host networking mode.
      */
+    @Builder.Default
     private String host_networking_host = "localhost";
 
     /**
@@ -56,6 +62,7 @@ public class DockerSdConfig {
      * The time after which the droplets are refreshed.
      */
     @Pattern(regexp = "((([0-9]+)y)?(([0-9]+)w)?(([0-9]+)d)?(([0-9]+)h)?(([0-9]+)m)?(([0-9]+)s)?(([0-9]+)ms)?|0)")
+    @Builder.Default
     private String refresh_interval = "60s";
 
     /**
@@ -115,4 +122,12 @@ public class DockerSdConfig {
      */
     private PrometheusTlsConfig tls_config;
 
+    /**
+     * @return refresh_interval as duration, or null if it is not set
+     * @throws PrometheusConfigException if refresh_interval is not a valid duration
+     */
+    public PrometheusDuration refreshIntervalDuration() {
+        return PrometheusDuration.parse(refresh_interval);
+    }
+
 }
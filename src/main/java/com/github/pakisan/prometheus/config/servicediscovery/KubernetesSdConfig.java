@@ -4,6 +4,7 @@ import com.github.pakisan.prometheus.config.PrometheusTlsConfig;
 import com.github.pakisan.prometheus.config.auth.PrometheusAuthorization;
 import com.github.pakisan.prometheus.config.auth.PrometheusBasicAuth;
 import com.github.pakisan.prometheus.config.auth.PrometheusOAuth2;
+import com.github.pakisan.prometheus.config.codec.Configuration;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -20,6 +21,7 @@ import java.util.Map;
  * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/#kubernetes_sd_config">kubernetes_sd_config</a>
  * @author Pavel Bodiachevskii
  */
+@Configuration
 @Data
 @Builder
 @NoArgsConstructor
@@ -155,6 +157,7 @@ public class KubernetesSdConfig {
         INGRESS
     }
 
+    @Configuration
     @Data
     @Builder
     @NoArgsConstructor
@@ -167,6 +170,7 @@ public class KubernetesSdConfig {
 
     }
 
+    @Configuration
     @Data
     @Builder
     @NoArgsConstructor
@@ -181,6 +185,7 @@ public class KubernetesSdConfig {
 
     }
 
+    @Configuration
     @Data
     @Builder
     @NoArgsConstructor
@@ -191,6 +196,7 @@ public class KubernetesSdConfig {
          * Attaches node metadata to discovered targets. Valid for roles: pod, endpoints, endpointslice.
          * When set to true, Prometheus must have permissions to get Nodes.
          */
+        @Builder.Default
         private boolean node = false;
 
     }
@@ -1,6 +1,9 @@
 package com.github.pakisan.prometheus.config.servicediscovery;
 
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.PrometheusDuration;
 import com.github.pakisan.prometheus.config.PrometheusTlsConfig;
+import com.github.pakisan.prometheus.config.codec.Configuration;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -17,6 +20,7 @@ import java.util.Map;
  * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/#scaleway_sd_config">scaleway_sd_config</a>
  * @author Pavel Bodiachevskii
  */
+@Configuration
 @Data
 @Builder
 @NoArgsConstructor
@@ -59,16 +63,19 @@ public class ScalewaySdConfig {
     /**
      * The port to scrape metrics from.
      */
+    @Builder.Default
     private int port = 80;
 
     /**
      * API URL to use when doing the server listing requests.
      */
+    @Builder.Default
     private String api_url = "https://api.scaleway.com";
 
     /**
      * Zone is the availability zone of your targets (e.g. fr-par-1).
      */
+    @Builder.Default
     private String zone = "fr-par-1";
 
     /**
@@ -80,6 +87,7 @@ public class ScalewaySdConfig {
      * Refresh interval to re-read the targets list.
      */
     @Pattern(regexp = "((([0-9]+)y)?(([0-9]+)w)?(([0-9]+)d)?(([0-9]+)h)?(([0-9]+)m)?(([0-9]+)s)?(([0-9]+)ms)?|0)")
+    @Builder.Default
     private String refresh_interval = "60s";
 
     /**
@@ -124,7 +132,15 @@ public class ScalewaySdConfig {
      */
     private PrometheusTlsConfig tls_config;
 
-    private enum Role {
+    /**
+     * @return refresh_interval as duration, or null if it is not set
+     * @throws PrometheusConfigException if refresh_interval is not a valid duration
+     */
+    public PrometheusDuration refreshIntervalDuration() {
+        return PrometheusDuration.parse(refresh_interval);
+    }
+
+    public enum Role {
         INSTANCE,
         BAREMETAL
     }
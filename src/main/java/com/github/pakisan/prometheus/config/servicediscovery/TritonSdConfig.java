@@ -1,6 +1,9 @@
 package com.github.pakisan.prometheus.config.servicediscovery;
 
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.PrometheusDuration;
 import com.github.pakisan.prometheus.config.PrometheusTlsConfig;
+import com.github.pakisan.prometheus.config.codec.Configuration;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -16,6 +19,7 @@ import java.util.List;
  * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/#triton_sd_config">triton_sd_config</a>
  * @author Pavel Bodiachevskii
  */
+@Configuration
 @Data
 @Builder
 @NoArgsConstructor
@@ -34,6 +38,7 @@ public class TritonSdConfig {
      * <p>
      * * "cn" to discover compute nodes (servers/global zones) making up the Triton infrastructure
      */
+    @Builder.Default
     private Role role = Role.CONTAINER;
 
     /**
@@ -58,17 +63,20 @@ public class TritonSdConfig {
     /**
      * The port to use for discovery and metric scraping.
      */
+    @Builder.Default
     private int port = 9163;
 
     /**
      * The interval which should be used for refreshing targets.
      */
     @Pattern(regexp = "((([0-9]+)y)?(([0-9]+)w)?(([0-9]+)d)?(([0-9]+)h)?(([0-9]+)m)?(([0-9]+)s)?(([0-9]+)ms)?|0)")
+    @Builder.Default
     private String refresh_interval = "60s";
 
     /**
      * The Triton discovery API version.
      */
+    @Builder.Default
     private int version = 1;
 
     /**
@@ -76,6 +84,14 @@ public class TritonSdConfig {
      */
     private PrometheusTlsConfig tls_config;
 
+    /**
+     * @return refresh_interval as duration, or null if it is not set
+     * @throws PrometheusConfigException if refresh_interval is not a valid duration
+     */
+    public PrometheusDuration refreshIntervalDuration() {
+        return PrometheusDuration.parse(refresh_interval);
+    }
+
     public enum Role {
         CONTAINER,
         CN
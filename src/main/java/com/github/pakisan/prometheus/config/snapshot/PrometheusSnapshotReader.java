@@ -0,0 +1,69 @@
+package com.github.pakisan.prometheus.config.snapshot;
+
+import com.github.pakisan.prometheus.config.PrometheusConfig;
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.codec.ConfigCodec;
+import com.github.pakisan.prometheus.config.codec.ConfigCodecs;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads Prometheus configuration from binary snapshot written by {@link PrometheusSnapshotWriter}.
+ * <p>
+ * Snapshot files are memory mapped and read in place, without copying them to the heap first.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+public class PrometheusSnapshotReader {
+
+    /**
+     * Reads snapshot file.
+     *
+     * @param path snapshot file
+     * @return read configuration
+     * @throws IOException if the file can not be read
+     * @throws PrometheusConfigException if the file is not a snapshot of configuration or was written by
+     * other version of configuration classes
+     */
+    public PrometheusConfig read(Path path) throws IOException {
+        ByteBuffer snapshot;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            snapshot = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        return read(snapshot, PrometheusConfig.class);
+    }
+
+    /**
+     * Reads snapshot of any section of Prometheus configuration from the position of the buffer.
+     * Buffer position is moved to the end of the snapshot.
+     *
+     * @param snapshot snapshot
+     * @param type section class
+     * @return read section
+     * @param <T> section type
+     * @throws PrometheusConfigException if the buffer is not a snapshot of the section or was written by
+     * other version of configuration classes
+     */
+    public <T> T read(ByteBuffer snapshot, Class<T> type) {
+        ConfigCodec<T> codec = ConfigCodecs.of(type);
+        SnapshotInput in = new SnapshotInput(snapshot);
+        try {
+            String root = in.readHeader(ConfigCodecs.schema());
+            if (!type.getName().equals(root)) {
+                throw new PrometheusConfigException("snapshot holds " + root + ", not " + type.getName());
+            }
+
+            return codec.read(in);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new PrometheusConfigException("snapshot is truncated", e);
+        }
+    }
+
+}
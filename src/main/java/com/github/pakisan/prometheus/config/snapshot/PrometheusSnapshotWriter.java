@@ -0,0 +1,56 @@
+package com.github.pakisan.prometheus.config.snapshot;
+
+import com.github.pakisan.prometheus.config.PrometheusConfig;
+import com.github.pakisan.prometheus.config.codec.ConfigCodec;
+import com.github.pakisan.prometheus.config.codec.ConfigCodecs;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes Prometheus configuration as binary snapshot, to be read back by {@link PrometheusSnapshotReader}
+ * much faster than YAML is parsed.
+ * <p>
+ * Snapshot interns strings, encodes numbers as varints and enums as ordinals. It is bound to the exact version
+ * of configuration classes which wrote it, so it is meant as a cache of parsed configuration, not as
+ * an exchange format.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+public class PrometheusSnapshotWriter {
+
+    /**
+     * Writes snapshot file.
+     *
+     * @param config configuration
+     * @param path snapshot file
+     * @throws IOException if the file can not be written
+     */
+    public void write(PrometheusConfig config, Path path) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), 1 << 16)) {
+            write(config, out);
+        }
+    }
+
+    /**
+     * Writes snapshot of any section of Prometheus configuration. Stream is flushed, but not closed.
+     *
+     * @param section configuration or any of its sections
+     * @param out output
+     * @throws IOException if the stream can not be written
+     */
+    public void write(Object section, OutputStream out) throws IOException {
+        @SuppressWarnings("unchecked")
+        ConfigCodec<Object> codec = (ConfigCodec<Object>) ConfigCodecs.of(section.getClass());
+
+        SnapshotOutput snapshot = new SnapshotOutput(out);
+        snapshot.writeHeader(ConfigCodecs.schema(), codec.type().getName());
+        codec.write(snapshot, section);
+        snapshot.flush();
+    }
+
+}
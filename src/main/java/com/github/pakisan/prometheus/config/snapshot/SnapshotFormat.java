@@ -0,0 +1,61 @@
+package com.github.pakisan.prometheus.config.snapshot;
+
+/**
+ * Binary snapshot format.
+ * <p>
+ * Snapshot starts with {@link #MAGIC}, {@link #VERSION}, schema hash of configuration classes as 8 bytes big-endian
+ * and the binary name of the root class, followed by the root value. Every value starts with a tag:
+ * <ul>
+ *     <li>{@link #NULL}, {@link #TRUE}, {@link #FALSE} - no payload</li>
+ *     <li>{@link #INTEGER} - zigzag varint</li>
+ *     <li>{@link #FLOAT}, {@link #DOUBLE} - IEEE 754 bits, big-endian</li>
+ *     <li>{@link #ENUM} - ordinal as varint, valid for the schema hash only</li>
+ *     <li>{@link #STRING} - string reference</li>
+ *     <li>{@link #OBJECT} - fields as string references followed by their values, terminated by reference 0</li>
+ *     <li>{@link #MAP} - number of entries as varint, keys as string references followed by their values</li>
+ *     <li>{@link #LIST} - number of items as varint followed by the items</li>
+ * </ul>
+ * Strings are interned: string reference 1 is followed by a new string, as varint length and UTF-8 bytes,
+ * which gets the next index of the string table. Reference n, greater than 1, points at the string n - 2.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+final class SnapshotFormat {
+
+    static final byte[] MAGIC = {'P', 'C', 'S', 'N'};
+
+    static final int VERSION = 1;
+
+    static final int NULL = 0;
+
+    static final int TRUE = 1;
+
+    static final int FALSE = 2;
+
+    static final int INTEGER = 3;
+
+    static final int FLOAT = 4;
+
+    static final int DOUBLE = 5;
+
+    static final int ENUM = 6;
+
+    static final int STRING = 7;
+
+    static final int OBJECT = 8;
+
+    static final int MAP = 9;
+
+    static final int LIST = 10;
+
+    static final int END_OF_OBJECT = 0;
+
+    static final int NEW_STRING = 1;
+
+    static final int FIRST_STRING = 2;
+
+    private SnapshotFormat() {
+    }
+
+}
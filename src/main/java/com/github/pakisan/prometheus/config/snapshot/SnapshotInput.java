@@ -0,0 +1,330 @@
+package com.github.pakisan.prometheus.config.snapshot;
+
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.codec.ConfigInput;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads values in {@link SnapshotFormat} straight from a buffer, which may be memory mapped.
+ * Truncated buffer fails with {@link java.nio.BufferUnderflowException}.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+final class SnapshotInput implements ConfigInput {
+
+    private final ByteBuffer in;
+
+    private String[] strings = new String[256];
+
+    private int stringCount;
+
+    private byte[] scratch = new byte[256];
+
+    /**
+     * Entries or items left in open maps and lists.
+     */
+    private int[] remaining = new int[16];
+
+    private int depth;
+
+    SnapshotInput(ByteBuffer in) {
+        this.in = in;
+    }
+
+    /**
+     * @return root class of the snapshot
+     * @throws PrometheusConfigException if the buffer is not a snapshot or was written for other schema
+     */
+    String readHeader(long schema) {
+        for (byte b : SnapshotFormat.MAGIC) {
+            if (in.remaining() == 0 || in.get() != b) {
+                throw new PrometheusConfigException("not a configuration snapshot");
+            }
+        }
+
+        int version = in.get() & 0xFF;
+        if (version != SnapshotFormat.VERSION) {
+            throw new PrometheusConfigException("unsupported snapshot version " + version);
+        }
+
+        if (in.getLong() != schema) {
+            throw new PrometheusConfigException("snapshot was written by other version of configuration classes");
+        }
+
+        return reference();
+    }
+
+    @Override
+    public boolean readNull() {
+        if (peek() == SnapshotFormat.NULL) {
+            in.get();
+            return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    public void beginObject() {
+        expect(SnapshotFormat.OBJECT);
+    }
+
+    @Override
+    public String nextField() {
+        int reference = (int) varint();
+        if (reference == SnapshotFormat.END_OF_OBJECT) {
+            return null;
+        }
+
+        return string(reference);
+    }
+
+    @Override
+    public void beginMap() {
+        expect(SnapshotFormat.MAP);
+        push((int) varint());
+    }
+
+    @Override
+    public String nextKey() {
+        if (remaining[depth - 1]-- == 0) {
+            depth--;
+            return null;
+        }
+
+        return reference();
+    }
+
+    @Override
+    public void beginList() {
+        expect(SnapshotFormat.LIST);
+        push((int) varint());
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (remaining[depth - 1]-- == 0) {
+            depth--;
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public String readString() {
+        if (readNull()) {
+            return null;
+        }
+
+        expect(SnapshotFormat.STRING);
+        return reference();
+    }
+
+    @Override
+    public boolean readBoolean() {
+        int tag = tag();
+        if (tag == SnapshotFormat.TRUE) {
+            return true;
+        }
+
+        if (tag == SnapshotFormat.FALSE) {
+            return false;
+        }
+
+        throw unexpected(tag, "boolean");
+    }
+
+    @Override
+    public int readInt() {
+        long value = readLong();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new PrometheusConfigException("snapshot value " + value + " is not an int");
+        }
+
+        return (int) value;
+    }
+
+    @Override
+    public long readLong() {
+        expect(SnapshotFormat.INTEGER);
+        long value = varint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    @Override
+    public float readFloat() {
+        int tag = tag();
+        if (tag == SnapshotFormat.FLOAT) {
+            return Float.intBitsToFloat(in.getInt());
+        }
+
+        if (tag == SnapshotFormat.DOUBLE) {
+            return (float) Double.longBitsToDouble(in.getLong());
+        }
+
+        throw unexpected(tag, "float");
+    }
+
+    @Override
+    public double readDouble() {
+        int tag = tag();
+        if (tag == SnapshotFormat.DOUBLE) {
+            return Double.longBitsToDouble(in.getLong());
+        }
+
+        if (tag == SnapshotFormat.FLOAT) {
+            return Float.intBitsToFloat(in.getInt());
+        }
+
+        throw unexpected(tag, "double");
+    }
+
+    @Override
+    public <E extends Enum<E>> E readEnum(E[] constants) {
+        if (readNull()) {
+            return null;
+        }
+
+        expect(SnapshotFormat.ENUM);
+        long ordinal = varint();
+        if (ordinal < 0 || ordinal >= constants.length) {
+            throw new PrometheusConfigException("snapshot enum ordinal " + ordinal + " is out of range");
+        }
+
+        return constants[(int) ordinal];
+    }
+
+    @Override
+    public void skipValue() {
+        int tag = tag();
+        switch (tag) {
+            case SnapshotFormat.NULL:
+            case SnapshotFormat.TRUE:
+            case SnapshotFormat.FALSE:
+                break;
+            case SnapshotFormat.INTEGER:
+            case SnapshotFormat.ENUM:
+                varint();
+                break;
+            case SnapshotFormat.FLOAT:
+                in.getInt();
+                break;
+            case SnapshotFormat.DOUBLE:
+                in.getLong();
+                break;
+            case SnapshotFormat.STRING:
+                reference();
+                break;
+            case SnapshotFormat.OBJECT:
+                while (nextField() != null) {
+                    skipValue();
+                }
+                break;
+            case SnapshotFormat.MAP:
+                for (long entries = varint(); entries > 0; entries--) {
+                    reference();
+                    skipValue();
+                }
+                break;
+            case SnapshotFormat.LIST:
+                for (long items = varint(); items > 0; items--) {
+                    skipValue();
+                }
+                break;
+            default:
+                throw unexpected(tag, "value");
+        }
+    }
+
+    @Override
+    public PrometheusConfigException unknownField(String field, Class<?> type) {
+        return new PrometheusConfigException("snapshot field " + field + " not found in " + type.getSimpleName());
+    }
+
+    private String reference() {
+        return string((int) varint());
+    }
+
+    private String string(int reference) {
+        if (reference != SnapshotFormat.NEW_STRING) {
+            int index = reference - SnapshotFormat.FIRST_STRING;
+            if (index < 0 || index >= stringCount) {
+                throw new PrometheusConfigException("snapshot string reference " + reference + " is out of range");
+            }
+
+            return strings[index];
+        }
+
+        int length = (int) varint();
+        if (length > in.remaining()) {
+            throw new PrometheusConfigException("snapshot is truncated");
+        }
+
+        if (length > scratch.length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+
+        in.get(scratch, 0, length);
+        String value = new String(scratch, 0, length, StandardCharsets.UTF_8);
+        if (stringCount == strings.length) {
+            strings = Arrays.copyOf(strings, stringCount * 2);
+        }
+
+        strings[stringCount++] = value;
+        return value;
+    }
+
+    private long varint() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+
+        throw new PrometheusConfigException("snapshot varint is too long");
+    }
+
+    private void push(int size) {
+        if (depth == remaining.length) {
+            remaining = Arrays.copyOf(remaining, depth * 2);
+        }
+
+        remaining[depth++] = size;
+    }
+
+    private int peek() {
+        if (!in.hasRemaining()) {
+            throw new PrometheusConfigException("snapshot is truncated");
+        }
+
+        return in.get(in.position());
+    }
+
+    private int tag() {
+        int tag = peek();
+        in.get();
+        return tag;
+    }
+
+    private void expect(int tag) {
+        int actual = tag();
+        if (actual != tag) {
+            throw unexpected(actual, "tag " + tag);
+        }
+    }
+
+    private PrometheusConfigException unexpected(int tag, String expected) {
+        return new PrometheusConfigException(
+                "snapshot is corrupted: expected " + expected + " but found tag " + tag + " at " + (in.position() - 1)
+        );
+    }
+
+}
@@ -0,0 +1,185 @@
+package com.github.pakisan.prometheus.config.snapshot;
+
+import com.github.pakisan.prometheus.config.codec.ConfigOutput;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes values in {@link SnapshotFormat}. Output is buffered internally, {@link #flush()} must be called once
+ * the snapshot is complete.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+final class SnapshotOutput implements ConfigOutput {
+
+    private final OutputStream out;
+
+    private final byte[] buffer = new byte[8192];
+
+    private int position;
+
+    private final Map<String, Integer> strings = new HashMap<>();
+
+    SnapshotOutput(OutputStream out) {
+        this.out = out;
+    }
+
+    void writeHeader(long schema, String type) throws IOException {
+        for (byte b : SnapshotFormat.MAGIC) {
+            write(b);
+        }
+        write(SnapshotFormat.VERSION);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            write((int) (schema >>> shift));
+        }
+        reference(type);
+    }
+
+    @Override
+    public void beginObject() throws IOException {
+        write(SnapshotFormat.OBJECT);
+    }
+
+    @Override
+    public void field(String name) throws IOException {
+        reference(name);
+    }
+
+    @Override
+    public void endObject() throws IOException {
+        write(SnapshotFormat.END_OF_OBJECT);
+    }
+
+    @Override
+    public void beginMap(int size) throws IOException {
+        write(SnapshotFormat.MAP);
+        varint(size);
+    }
+
+    @Override
+    public void key(String key) throws IOException {
+        reference(key);
+    }
+
+    @Override
+    public void endMap() {
+    }
+
+    @Override
+    public void beginList(int size) throws IOException {
+        write(SnapshotFormat.LIST);
+        varint(size);
+    }
+
+    @Override
+    public void endList() {
+    }
+
+    @Override
+    public void writeNull() throws IOException {
+        write(SnapshotFormat.NULL);
+    }
+
+    @Override
+    public void writeString(String value) throws IOException {
+        write(SnapshotFormat.STRING);
+        reference(value);
+    }
+
+    @Override
+    public void writeBoolean(boolean value) throws IOException {
+        write(value ? SnapshotFormat.TRUE : SnapshotFormat.FALSE);
+    }
+
+    @Override
+    public void writeInt(int value) throws IOException {
+        writeLong(value);
+    }
+
+    @Override
+    public void writeLong(long value) throws IOException {
+        write(SnapshotFormat.INTEGER);
+        varint((value << 1) ^ (value >> 63));
+    }
+
+    @Override
+    public void writeFloat(float value) throws IOException {
+        write(SnapshotFormat.FLOAT);
+        int bits = Float.floatToIntBits(value);
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            write(bits >>> shift);
+        }
+    }
+
+    @Override
+    public void writeDouble(double value) throws IOException {
+        write(SnapshotFormat.DOUBLE);
+        long bits = Double.doubleToLongBits(value);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            write((int) (bits >>> shift));
+        }
+    }
+
+    @Override
+    public void writeEnum(Enum<?> value) throws IOException {
+        write(SnapshotFormat.ENUM);
+        varint(value.ordinal());
+    }
+
+    void flush() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+
+        out.flush();
+    }
+
+    private void reference(String value) throws IOException {
+        Integer index = strings.get(value);
+        if (index != null) {
+            varint(index + SnapshotFormat.FIRST_STRING);
+            return;
+        }
+
+        strings.put(value, strings.size());
+        varint(SnapshotFormat.NEW_STRING);
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        varint(bytes.length);
+        if (bytes.length > buffer.length - position) {
+            out.write(buffer, 0, position);
+            position = 0;
+            if (bytes.length > buffer.length) {
+                out.write(bytes);
+                return;
+            }
+        }
+
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void varint(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        write((int) value);
+    }
+
+    private void write(int b) throws IOException {
+        if (position == buffer.length) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+
+        buffer[position++] = (byte) b;
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.github.pakisan.prometheus.config.storage;
 
+import com.github.pakisan.prometheus.config.codec.Configuration;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -14,6 +15,7 @@ import lombok.NoArgsConstructor;
  * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/#exemplars">exemplars</a>
  * @author Pavel Bodiachevskii
  */
+@Configuration
 @Data
 @Builder
 @NoArgsConstructor
@@ -1,5 +1,11 @@
 package com.github.pakisan.prometheus.config.storage;
 
+import com.github.pakisan.prometheus.config.codec.Configuration;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
 /**
  * Describes Prometheus storage.
  *
@@ -7,6 +13,11 @@ package com.github.pakisan.prometheus.config.storage;
  * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/">CONFIGURATION</a>
  * @author Pavel Bodiachevskii
  */
+@Configuration
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class PrometheusStorageConfig {
 
     /**
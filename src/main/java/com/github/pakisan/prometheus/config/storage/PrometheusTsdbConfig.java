@@ -1,5 +1,8 @@
 package com.github.pakisan.prometheus.config.storage;
 
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.PrometheusDuration;
+import com.github.pakisan.prometheus.config.codec.Configuration;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -19,6 +22,7 @@ import javax.validation.constraints.Pattern;
  * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/#tsdb">tsdb</a>
  * @author Pavel Bodiachevskii
  */
+@Configuration
 @Data
 @Builder
 @NoArgsConstructor
@@ -47,4 +51,12 @@ public class PrometheusTsdbConfig {
     @Pattern(regexp = "((([0-9]+)y)?(([0-9]+)w)?(([0-9]+)d)?(([0-9]+)h)?(([0-9]+)m)?(([0-9]+)s)?(([0-9]+)ms)?|0)")
     private String out_of_order_time_window = "0s";
 
+    /**
+     * @return out_of_order_time_window as duration, or null if it is not set
+     * @throws PrometheusConfigException if out_of_order_time_window is not a valid duration
+     */
+    public PrometheusDuration outOfOrderTimeWindowDuration() {
+        return PrometheusDuration.parse(out_of_order_time_window);
+    }
+
 }
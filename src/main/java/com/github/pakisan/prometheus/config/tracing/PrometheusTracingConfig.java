@@ -1,6 +1,9 @@
 package com.github.pakisan.prometheus.config.tracing;
 
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.PrometheusDuration;
 import com.github.pakisan.prometheus.config.PrometheusTlsConfig;
+import com.github.pakisan.prometheus.config.codec.Configuration;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -19,6 +22,7 @@ import java.util.Map;
  * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/#tracing_config">tracing_config</a>
  * @author Pavel Bodiachevskii
  */
+@Configuration
 @Data
 @Builder
 @NoArgsConstructor
@@ -70,4 +74,12 @@ public class PrometheusTracingConfig {
      */
     private PrometheusTlsConfig tls_config;
 
+    /**
+     * @return timeout as duration, or null if it is not set
+     * @throws PrometheusConfigException if timeout is not a valid duration
+     */
+    public PrometheusDuration timeoutDuration() {
+        return PrometheusDuration.parse(timeout);
+    }
+
 }
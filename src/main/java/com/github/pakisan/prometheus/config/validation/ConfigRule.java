@@ -0,0 +1,24 @@
+package com.github.pakisan.prometheus.config.validation;
+
+import com.github.pakisan.prometheus.config.PrometheusConfig;
+
+/**
+ * Semantic rule of a section of configuration, which checks fields against each other or against the rest
+ * of the configuration, like scrape_timeout against scrape_interval inherited from global.
+ *
+ * @param <T> section of configuration
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+interface ConfigRule<T> {
+
+    /**
+     * Checks the section. Violations are reported to the context.
+     *
+     * @param config configuration the section belongs to
+     * @param value not null section
+     * @param context context positioned at the section
+     */
+    void check(PrometheusConfig config, T value, ValidationContext context);
+
+}
@@ -0,0 +1,375 @@
+package com.github.pakisan.prometheus.config.validation;
+
+import com.github.pakisan.prometheus.config.PrometheusConfig;
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.PrometheusDuration;
+import com.github.pakisan.prometheus.config.PrometheusGlobalConfig;
+import com.github.pakisan.prometheus.config.PrometheusMetricRelabelConfig;
+import com.github.pakisan.prometheus.config.PrometheusRelabelConfig;
+import com.github.pakisan.prometheus.config.alert.PrometheusAlertManagerConfig;
+import com.github.pakisan.prometheus.config.alert.PrometheusAlertingConfig;
+import com.github.pakisan.prometheus.config.relabel.RelabelRegex;
+import com.github.pakisan.prometheus.config.scrape.PrometheusScrapeConfig;
+import com.github.pakisan.prometheus.config.write.PrometheusRemoteWriteConfig;
+import com.github.pakisan.prometheus.config.write.PrometheusRemoteWriteQueueConfig;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Checks semantic rules of configuration, which constraints of single fields can not express:
+ * <ul>
+ *     <li>job names of scrape configs are set and unique</li>
+ *     <li>scrape_timeout is not greater than scrape_interval, both inherited from global like Prometheus does</li>
+ *     <li>relabel configs of replace, hashmod, lowercase, uppercase, keepequal and dropequal actions have target_label</li>
+ *     <li>relabel configs of hashmod action have non-zero modulus</li>
+ *     <li>regexes of relabel configs are valid RE2</li>
+ *     <li>min_shards of remote write queues is not greater than max_shards</li>
+ * </ul>
+ * <p>
+ * Scrape configs, remote write configs and alertmanagers are checked in parallel on a fork-join pool when there are
+ * many of them. All violations are reported, in order of the configuration, each with the path of the invalid value.
+ * Values which do not match their patterns, like invalid durations, are left to {@link ConfigValidators}.
+ *
+ * @since  1.0.0
+ * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/#configuration-file">Configuration file</a>
+ * @author Pavel Bodiachevskii
+ */
+public final class ConfigRules {
+
+    private static final PrometheusDuration DEFAULT_SCRAPE_INTERVAL = PrometheusDuration.parse("1m");
+
+    private static final PrometheusDuration DEFAULT_SCRAPE_TIMEOUT = PrometheusDuration.parse("10s");
+
+    private static final List<ConfigRule<PrometheusRemoteWriteConfig>> REMOTE_WRITE_RULES = Collections.unmodifiableList(
+            Arrays.<ConfigRule<PrometheusRemoteWriteConfig>>asList(new QueueShards(), new WriteRelabelConfigs())
+    );
+
+    private static final List<ConfigRule<PrometheusAlertManagerConfig>> ALERTMANAGER_RULES = Collections.unmodifiableList(
+            Arrays.<ConfigRule<PrometheusAlertManagerConfig>>asList(new AlertmanagerRelabelConfigs())
+    );
+
+    private ConfigRules() {
+    }
+
+    /**
+     * Checks configuration, long lists on the common fork-join pool.
+     *
+     * @param config configuration
+     * @return violations, empty if the configuration is valid
+     */
+    public static List<ConfigViolation> validate(PrometheusConfig config) {
+        return validate(config, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Checks configuration.
+     *
+     * @param config configuration
+     * @param pool pool to check long lists on, null to check on the calling thread only
+     * @return violations, empty if the configuration is valid
+     */
+    public static List<ConfigViolation> validate(PrometheusConfig config, ForkJoinPool pool) {
+        ValidationContext context = new ValidationContext(pool);
+        if (config.getGlobal() != null) {
+            context.enter("global");
+            globalScrapeTimeout(config.getGlobal(), context);
+            context.exit();
+        }
+
+        if (config.getScrape_configs() != null) {
+            context.enter("scrape_configs");
+            List<ConfigRule<PrometheusScrapeConfig>> rules = Arrays.<ConfigRule<PrometheusScrapeConfig>>asList(
+                    new JobName(duplicateJobNames(config.getScrape_configs())), new ScrapeTimeout(),
+                    new ScrapeConfigRelabelConfigs()
+            );
+            context.items(config.getScrape_configs(), new Section<>(config, rules));
+            context.exit();
+        }
+
+        if (config.getRemote_write() != null) {
+            context.enter("remote_write");
+            context.items(config.getRemote_write(), new Section<>(config, REMOTE_WRITE_RULES));
+            context.exit();
+        }
+
+        PrometheusAlertingConfig alerting = config.getAlerting();
+        if (alerting != null) {
+            context.enter("alerting");
+            relabelConfigs("alert_relabel_configs", alerting.getAlert_relabel_configs(), context);
+            if (alerting.getAlertmanagers() != null) {
+                context.enter("alertmanagers");
+                context.items(alerting.getAlertmanagers(), new Section<>(config, ALERTMANAGER_RULES));
+                context.exit();
+            }
+            context.exit();
+        }
+
+        return context.violations().isEmpty()
+                ? Collections.<ConfigViolation>emptyList()
+                : Collections.unmodifiableList(context.violations());
+    }
+
+    /**
+     * Default scrape_timeout is capped by scrape_interval, like Prometheus does, so only other timeouts are checked.
+     * Global config holds the default when scrape_timeout is not set, and can not tell it from the same value set.
+     */
+    private static void globalScrapeTimeout(PrometheusGlobalConfig global, ValidationContext context) {
+        PrometheusDuration interval = duration(global.getScrape_interval(), DEFAULT_SCRAPE_INTERVAL);
+        PrometheusDuration timeout = duration(global.getScrape_timeout(), DEFAULT_SCRAPE_TIMEOUT);
+        if (interval != null && timeout != null && !timeout.equals(DEFAULT_SCRAPE_TIMEOUT) && timeout.compareTo(interval) > 0) {
+            context.enter("scrape_timeout");
+            context.violation("global scrape timeout greater than scrape interval", global.getScrape_timeout());
+            context.exit();
+        }
+    }
+
+    /**
+     * Finds job names sequentially, before scrape configs are split between tasks, so that violations are reported
+     * with the rest of violations of their scrape configs.
+     *
+     * @return for every scrape config, true if an earlier scrape config has the same job name
+     */
+    private static boolean[] duplicateJobNames(List<PrometheusScrapeConfig> scrapeConfigs) {
+        boolean[] duplicates = new boolean[scrapeConfigs.size()];
+        Set<String> jobNames = new HashSet<>(scrapeConfigs.size() * 2);
+        int index = 0;
+        for (PrometheusScrapeConfig scrapeConfig : scrapeConfigs) {
+            String jobName = scrapeConfig != null ? scrapeConfig.getJob_name() : null;
+            if (jobName != null && !jobName.isEmpty() && !jobNames.add(jobName)) {
+                duplicates[index] = true;
+            }
+            index++;
+        }
+
+        return duplicates;
+    }
+
+    private static void relabelConfigs(String field, List<PrometheusRelabelConfig> relabelConfigs, ValidationContext context) {
+        if (relabelConfigs == null) {
+            return;
+        }
+
+        context.enter(field);
+        int index = 0;
+        for (PrometheusRelabelConfig relabelConfig : relabelConfigs) {
+            context.enterIndex(index++);
+            if (relabelConfig != null && relabelConfig.getAction() != null) {
+                relabel(
+                        relabelConfig.getAction().name(), relabelConfig.getTarget_label(), relabelConfig.getModulus(),
+                        relabelConfig.getRegex(), context
+                );
+            }
+            context.exit();
+        }
+        context.exit();
+    }
+
+    private static void metricRelabelConfigs(List<PrometheusMetricRelabelConfig> relabelConfigs, ValidationContext context) {
+        if (relabelConfigs == null) {
+            return;
+        }
+
+        context.enter("metric_relabel_configs");
+        int index = 0;
+        for (PrometheusMetricRelabelConfig relabelConfig : relabelConfigs) {
+            context.enterIndex(index++);
+            if (relabelConfig != null && relabelConfig.getAction() != null) {
+                relabel(
+                        relabelConfig.getAction().name(), relabelConfig.getTarget_label(), relabelConfig.getModulus(),
+                        relabelConfig.getRegex(), context
+                );
+            }
+            context.exit();
+        }
+        context.exit();
+    }
+
+    /**
+     * Checks relabel config like Prometheus does, with the same messages. Regex is compiled, so that relabeling
+     * finds it compiled later.
+     */
+    private static void relabel(String action, String targetLabel, int modulus, String regex, ValidationContext context) {
+        if (regex != null) {
+            try {
+                RelabelRegex.compile(regex);
+            } catch (PrometheusConfigException e) {
+                context.enter("regex");
+                context.violation(e.getMessage(), regex);
+                context.exit();
+            }
+        }
+
+        if (modulus == 0 && "HASHMOD".equals(action)) {
+            context.enter("modulus");
+            context.violation("relabel configuration for hashmod requires non-zero modulus", modulus);
+            context.exit();
+        }
+
+        boolean targetRequired;
+        switch (action) {
+            case "REPLACE":
+            case "HASHMOD":
+            case "LOWERCASE":
+            case "UPPERCASE":
+            case "KEEPEQUAL":
+            case "DROPEQUAL":
+                targetRequired = true;
+                break;
+            default:
+                targetRequired = false;
+        }
+
+        if (targetRequired && (targetLabel == null || targetLabel.isEmpty())) {
+            context.enter("target_label");
+            context.violation(
+                    "relabel configuration for " + action.toLowerCase(Locale.ROOT) + " action requires 'target_label' value",
+                    targetLabel
+            );
+            context.exit();
+        }
+    }
+
+    /**
+     * @return parsed duration, default value if the duration is not set, or null if it is not valid
+     */
+    private static PrometheusDuration duration(String duration, PrometheusDuration defaultValue) {
+        try {
+            PrometheusDuration parsed = PrometheusDuration.parse(duration);
+            return parsed != null ? parsed : defaultValue;
+        } catch (PrometheusConfigException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks items of a list of sections with rules of the section.
+     */
+    private static final class Section<T> implements ConfigValidator<T> {
+
+        private final PrometheusConfig config;
+
+        private final List<ConfigRule<T>> rules;
+
+        private Section(PrometheusConfig config, List<ConfigRule<T>> rules) {
+            this.config = config;
+            this.rules = rules;
+        }
+
+        @Override
+        public void validate(T value, ValidationContext context) {
+            for (ConfigRule<T> rule : rules) {
+                rule.check(config, value, context);
+            }
+        }
+
+    }
+
+    /**
+     * Job name must be set and must differ from job names of earlier scrape configs.
+     */
+    private static final class JobName implements ConfigRule<PrometheusScrapeConfig> {
+
+        private final boolean[] duplicates;
+
+        private JobName(boolean[] duplicates) {
+            this.duplicates = duplicates;
+        }
+
+        @Override
+        public void check(PrometheusConfig config, PrometheusScrapeConfig value, ValidationContext context) {
+            String jobName = value.getJob_name();
+            context.enter("job_name");
+            if (jobName == null || jobName.isEmpty()) {
+                context.violation("job_name is empty", jobName);
+            } else if (duplicates[context.index()]) {
+                context.violation("found multiple scrape configs with job name \"" + jobName + "\"", jobName);
+            }
+            context.exit();
+        }
+
+    }
+
+    /**
+     * Scrape timeout must not be greater than scrape interval. Both are inherited from global when not set,
+     * and inherited timeout is capped by the interval, like Prometheus does.
+     */
+    private static final class ScrapeTimeout implements ConfigRule<PrometheusScrapeConfig> {
+
+        @Override
+        public void check(PrometheusConfig config, PrometheusScrapeConfig value, ValidationContext context) {
+            if (value.getScrape_timeout() == null) {
+                return;
+            }
+
+            PrometheusGlobalConfig global = config.getGlobal();
+            PrometheusDuration globalInterval = global != null
+                    ? duration(global.getScrape_interval(), DEFAULT_SCRAPE_INTERVAL)
+                    : DEFAULT_SCRAPE_INTERVAL;
+            PrometheusDuration interval = globalInterval != null ? duration(value.getScrape_interval(), globalInterval) : null;
+            PrometheusDuration timeout = duration(value.getScrape_timeout(), null);
+            if (interval != null && timeout != null && timeout.compareTo(interval) > 0) {
+                context.enter("scrape_timeout");
+                context.violation(
+                        "scrape timeout greater than scrape interval for scrape config with job name \"" + value.getJob_name() + "\"",
+                        value.getScrape_timeout()
+                );
+                context.exit();
+            }
+        }
+
+    }
+
+    private static final class ScrapeConfigRelabelConfigs implements ConfigRule<PrometheusScrapeConfig> {
+
+        @Override
+        public void check(PrometheusConfig config, PrometheusScrapeConfig value, ValidationContext context) {
+            relabelConfigs("relabel_configs", value.getRelabel_configs(), context);
+            metricRelabelConfigs(value.getMetric_relabel_configs(), context);
+        }
+
+    }
+
+    private static final class QueueShards implements ConfigRule<PrometheusRemoteWriteConfig> {
+
+        @Override
+        public void check(PrometheusConfig config, PrometheusRemoteWriteConfig value, ValidationContext context) {
+            PrometheusRemoteWriteQueueConfig queueConfig = value.getQueue_config();
+            if (queueConfig != null && queueConfig.getMin_shards() > queueConfig.getMax_shards()) {
+                context.enter("queue_config");
+                context.enter("min_shards");
+                context.violation(
+                        "min_shards must not be greater than max_shards (" + queueConfig.getMax_shards() + ")",
+                        queueConfig.getMin_shards()
+                );
+                context.exit();
+                context.exit();
+            }
+        }
+
+    }
+
+    private static final class WriteRelabelConfigs implements ConfigRule<PrometheusRemoteWriteConfig> {
+
+        @Override
+        public void check(PrometheusConfig config, PrometheusRemoteWriteConfig value, ValidationContext context) {
+            relabelConfigs("write_relabel_configs", value.getWrite_relabel_configs(), context);
+        }
+
+    }
+
+    private static final class AlertmanagerRelabelConfigs implements ConfigRule<PrometheusAlertManagerConfig> {
+
+        @Override
+        public void check(PrometheusConfig config, PrometheusAlertManagerConfig value, ValidationContext context) {
+            relabelConfigs("relabel_configs", value.getRelabel_configs(), context);
+        }
+
+    }
+
+}
@@ -0,0 +1,23 @@
+package com.github.pakisan.prometheus.config.validation;
+
+/**
+ * Checks constraints of a configuration class.
+ * <p>
+ * Validators are generated at compile time for every configuration class, so validation does not rely on
+ * reflection nor on a Bean Validation provider.
+ *
+ * @param <T> configuration class
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+interface ConfigValidator<T> {
+
+    /**
+     * Checks the configuration and the configurations it holds. Violations are reported to the context.
+     *
+     * @param value not null configuration
+     * @param context context positioned at the configuration
+     */
+    void validate(T value, ValidationContext context);
+
+}
@@ -0,0 +1,58 @@
+package com.github.pakisan.prometheus.config.validation;
+
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Checks constraints of configurations: patterns of durations, label names and other values, including items
+ * of lists and keys of maps, and required fields.
+ * <p>
+ * Validators are generated at compile time for every configuration class, so validation needs neither reflection
+ * nor a Bean Validation provider. Unlike Bean Validation, nested configurations are always validated, so a single
+ * call checks the whole configuration. Long lists, like scrape_configs, are validated in parallel on a fork-join
+ * pool.
+ * <p>
+ * All violations are reported, in order of the configuration, each with the path of the invalid value.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+public final class ConfigValidators {
+
+    private ConfigValidators() {
+    }
+
+    /**
+     * Validates configuration, long lists on the common fork-join pool.
+     *
+     * @param config configuration or section of it, like a single scrape config
+     * @return violations, empty if the configuration is valid
+     * @throws PrometheusConfigException if the class is not a configuration class
+     */
+    public static List<ConfigViolation> validate(Object config) {
+        return validate(config, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Validates configuration.
+     *
+     * @param config configuration or section of it, like a single scrape config
+     * @param pool pool to validate long lists on, null to validate on the calling thread only
+     * @return violations, empty if the configuration is valid
+     * @throws PrometheusConfigException if the class is not a configuration class
+     */
+    public static List<ConfigViolation> validate(Object config, ForkJoinPool pool) {
+        ValidationContext context = new ValidationContext(pool);
+        if (!GeneratedConfigValidators.validate(config, context)) {
+            throw new PrometheusConfigException(config.getClass().getName() + " is not a configuration class");
+        }
+
+        return context.violations().isEmpty()
+                ? Collections.<ConfigViolation>emptyList()
+                : Collections.unmodifiableList(context.violations());
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.github.pakisan.prometheus.config.validation;
+
+/**
+ * Violated constraint of a configuration.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+public final class ConfigViolation {
+
+    private final String path;
+
+    private final String message;
+
+    private final Object value;
+
+    ConfigViolation(String path, String message, Object value) {
+        this.path = path;
+        this.message = message;
+        this.value = value;
+    }
+
+    /**
+     * @return path of the value from the validated configuration, like scrape_configs[3].scrape_interval
+     * or scrape_configs[0].static_configs[0].labels[env]
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return violated constraint, like must match "[a-zA-Z_][a-zA-Z0-9_]*"
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * @return invalid value, may be null
+     */
+    public Object getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return path + ": " + message + ", got " + (value instanceof String ? "\"" + value + "\"" : value);
+    }
+
+}
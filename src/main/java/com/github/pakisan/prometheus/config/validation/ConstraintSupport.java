@@ -0,0 +1,130 @@
+package com.github.pakisan.prometheus.config.validation;
+
+/**
+ * Matchers of patterns used all over the configuration classes. Every matcher matches exactly the strings
+ * its pattern matches, without compiling the pattern and without allocations.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+final class ConstraintSupport {
+
+    private ConstraintSupport() {
+    }
+
+    /**
+     * Matches {@code ((([0-9]+)y)?(([0-9]+)w)?(([0-9]+)d)?(([0-9]+)h)?(([0-9]+)m)?(([0-9]+)s)?(([0-9]+)ms)?|0)}:
+     * numbers followed by units y, w, d, h, m, s and ms in this order, each unit at most once. Empty string
+     * matches too.
+     */
+    static boolean isDuration(String value) {
+        int length = value.length();
+        if (length == 1 && value.charAt(0) == '0') {
+            return true;
+        }
+
+        int lastUnit = -1;
+        int i = 0;
+        while (i < length) {
+            int start = i;
+            while (i < length && isDigit(value.charAt(i))) {
+                i++;
+            }
+
+            if (i == start || i == length) {
+                return false;
+            }
+
+            int unit;
+            switch (value.charAt(i++)) {
+                case 'y':
+                    unit = 0;
+                    break;
+                case 'w':
+                    unit = 1;
+                    break;
+                case 'd':
+                    unit = 2;
+                    break;
+                case 'h':
+                    unit = 3;
+                    break;
+                case 'm':
+                    if (i < length && value.charAt(i) == 's') {
+                        i++;
+                        unit = 6;
+                    } else {
+                        unit = 4;
+                    }
+                    break;
+                case 's':
+                    unit = 5;
+                    break;
+                default:
+                    return false;
+            }
+
+            if (unit <= lastUnit) {
+                return false;
+            }
+
+            lastUnit = unit;
+        }
+
+        return true;
+    }
+
+    /**
+     * Matches {@code [a-zA-Z_][a-zA-Z0-9_]*}.
+     */
+    static boolean isLabelName(String value) {
+        return Labels.isValidName(value);
+    }
+
+    /**
+     * Matches {@code [a-zA-Z_:][a-zA-Z0-9_:]*}.
+     */
+    static boolean isMetricName(String value) {
+        int length = value.length();
+        if (length == 0) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == ':'
+                    || (i > 0 && isDigit(c));
+            if (!valid) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Matches {@code 0|\d+B|\d+KB|\d+MB|\d+GB|\d+TB|\d+PB|\d+EB}.
+     */
+    static boolean isByteSize(String value) {
+        int length = value.length();
+        if (length == 1 && value.charAt(0) == '0') {
+            return true;
+        }
+
+        int i = 0;
+        while (i < length && isDigit(value.charAt(i))) {
+            i++;
+        }
+
+        if (i == 0 || i == length || value.charAt(length - 1) != 'B') {
+            return false;
+        }
+
+        return i == length - 1 || (i == length - 2 && "KMGTPE".indexOf(value.charAt(i)) >= 0);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+}
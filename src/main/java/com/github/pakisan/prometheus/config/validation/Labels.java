@@ -0,0 +1,249 @@
+package com.github.pakisan.prometheus.config.validation;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks label names and values like Prometheus does, without regular expressions.
+ * <p>
+ * Label names match {@code [a-zA-Z_][a-zA-Z0-9_]*} and are checked with a lookup table. Label values may be any
+ * text which is valid UTF-8: strings must not hold unpaired surrogates and bytes must be well-formed UTF-8,
+ * without overlong forms, surrogates and code points above U+10FFFF. ASCII, which most labels are, is checked
+ * eight bytes at a time.
+ * <p>
+ * Bulk checks of whole label maps and lists return the first invalid name or value, so callers can report it.
+ *
+ * @since  1.0.0
+ * @see <a href="https://prometheus.io/docs/concepts/data_model/#metric-names-and-labels">Metric names and labels</a>
+ * @author Pavel Bodiachevskii
+ */
+public final class Labels {
+
+    private static final byte FIRST = 1;
+
+    private static final byte NEXT = 2;
+
+    /**
+     * Whether ASCII character may start a label name and whether it may follow the first one.
+     */
+    private static final byte[] NAME_CHARS = new byte[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            NAME_CHARS[c] = FIRST | NEXT;
+            NAME_CHARS[Character.toUpperCase(c)] = FIRST | NEXT;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            NAME_CHARS[c] = NEXT;
+        }
+        NAME_CHARS['_'] = FIRST | NEXT;
+    }
+
+    private Labels() {
+    }
+
+    /**
+     * @param name label name
+     * @return true if the name matches {@code [a-zA-Z_][a-zA-Z0-9_]*}
+     */
+    public static boolean isValidName(String name) {
+        int length = name.length();
+        if (length == 0 || !isNameChar(name.charAt(0), FIRST)) {
+            return false;
+        }
+
+        for (int i = 1; i < length; i++) {
+            if (!isNameChar(name.charAt(i), NEXT)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @param bytes bytes of label name
+     * @param offset offset of the name
+     * @param length length of the name
+     * @return true if the name matches {@code [a-zA-Z_][a-zA-Z0-9_]*}
+     */
+    public static boolean isValidName(byte[] bytes, int offset, int length) {
+        if (length == 0 || !isNameChar(bytes[offset], FIRST)) {
+            return false;
+        }
+
+        for (int i = offset + 1, end = offset + length; i < end; i++) {
+            if (!isNameChar(bytes[i], NEXT)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @param value label value
+     * @return true if the value can be encoded to UTF-8, that is it has no unpaired surrogates
+     */
+    public static boolean isValidValue(String value) {
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            if (c < Character.MIN_SURROGATE || c > Character.MAX_SURROGATE) {
+                continue;
+            }
+
+            if (!Character.isHighSurrogate(c) || ++i == length || !Character.isLowSurrogate(value.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @param bytes bytes of label value
+     * @param offset offset of the value
+     * @param length length of the value
+     * @return true if the bytes are well-formed UTF-8
+     */
+    public static boolean isValidValue(byte[] bytes, int offset, int length) {
+        int i = offset;
+        int end = offset + length;
+        while (i < end) {
+            // skips ASCII eight bytes at a time
+            while (i + 8 <= end && (bytes[i] | bytes[i + 1] | bytes[i + 2] | bytes[i + 3]
+                    | bytes[i + 4] | bytes[i + 5] | bytes[i + 6] | bytes[i + 7]) >= 0) {
+                i += 8;
+            }
+
+            if (i == end) {
+                return true;
+            }
+
+            int b = bytes[i];
+            if (b >= 0) {
+                i++;
+                continue;
+            }
+
+            int size = sequence(bytes, i, end);
+            if (size == 0) {
+                return false;
+            }
+
+            i += size;
+        }
+
+        return true;
+    }
+
+    /**
+     * @param labels labels
+     * @return first key of the map which is not a valid label name, or null if all keys are valid
+     */
+    public static String firstInvalidName(Map<String, ?> labels) {
+        for (String name : labels.keySet()) {
+            if (name != null && !isValidName(name)) {
+                return name;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @param names label names, like source_labels
+     * @return index of the first name which is null or not valid, or -1 if all names are valid
+     */
+    public static int indexOfInvalidName(List<String> names) {
+        int index = 0;
+        for (String name : names) {
+            if (name == null || !isValidName(name)) {
+                return index;
+            }
+
+            index++;
+        }
+
+        return -1;
+    }
+
+    /**
+     * @param labels labels
+     * @return first value of the map which is not valid UTF-8, or null if all values are valid
+     */
+    public static String firstInvalidValue(Map<String, String> labels) {
+        for (String value : labels.values()) {
+            if (value != null && !isValidValue(value)) {
+                return value;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @param labels labels
+     * @return true if all names and values of the map are valid
+     */
+    public static boolean isValid(Map<String, String> labels) {
+        for (Map.Entry<String, String> label : labels.entrySet()) {
+            String value = label.getValue();
+            if (label.getKey() == null || !isValidName(label.getKey()) || (value != null && !isValidValue(value))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isNameChar(int c, byte position) {
+        return c >= 0 && c < 128 && (NAME_CHARS[c] & position) != 0;
+    }
+
+    /**
+     * @return length of well-formed multi-byte sequence which starts at the index, or 0 if it is not well-formed
+     */
+    private static int sequence(byte[] bytes, int i, int end) {
+        int b = bytes[i] & 0xFF;
+        if (b < 0xC2) {
+            // continuation byte or overlong 2-byte form
+            return 0;
+        }
+
+        if (b < 0xE0) {
+            return i + 1 < end && isContinuation(bytes[i + 1]) ? 2 : 0;
+        }
+
+        if (b < 0xF0) {
+            if (i + 2 >= end) {
+                return 0;
+            }
+
+            int second = bytes[i + 1] & 0xFF;
+            boolean valid = b == 0xE0 ? second >= 0xA0 && second <= 0xBF
+                    : b == 0xED ? second >= 0x80 && second <= 0x9F
+                    : isContinuation(bytes[i + 1]);
+            return valid && isContinuation(bytes[i + 2]) ? 3 : 0;
+        }
+
+        if (b < 0xF5) {
+            if (i + 3 >= end) {
+                return 0;
+            }
+
+            int second = bytes[i + 1] & 0xFF;
+            boolean valid = b == 0xF0 ? second >= 0x90 && second <= 0xBF
+                    : b == 0xF4 ? second >= 0x80 && second <= 0x8F
+                    : isContinuation(bytes[i + 1]);
+            return valid && isContinuation(bytes[i + 2]) && isContinuation(bytes[i + 3]) ? 4 : 0;
+        }
+
+        return 0;
+    }
+
+    private static boolean isContinuation(byte b) {
+        return (b & 0xC0) == 0x80;
+    }
+
+}
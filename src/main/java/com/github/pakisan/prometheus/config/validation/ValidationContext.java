@@ -0,0 +1,246 @@
+package com.github.pakisan.prometheus.config.validation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Path of the value being validated and violations found so far.
+ * <p>
+ * Long lists of configurations, like scrape_configs, are split between fork-join tasks, each validating its items
+ * with its own context. Violations of the tasks are joined in order of items, so violations are reported in order
+ * of the configuration regardless of the pool.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+final class ValidationContext {
+
+    /**
+     * Lists shorter than this are validated by the calling thread.
+     */
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    /**
+     * Number of items validated by a single task.
+     */
+    private static final int ITEMS_PER_TASK = 64;
+
+    private static final byte FIELD = 0;
+
+    private static final byte INDEX = 1;
+
+    private static final byte KEY = 2;
+
+    /**
+     * Pool to split lists on, null to validate sequentially.
+     */
+    private final ForkJoinPool pool;
+
+    private final List<ConfigViolation> violations = new ArrayList<>();
+
+    private byte[] kinds;
+
+    private String[] names;
+
+    private int[] indexes;
+
+    private int depth;
+
+    ValidationContext(ForkJoinPool pool) {
+        this(pool, new byte[8], new String[8], new int[8], 0);
+    }
+
+    private ValidationContext(ForkJoinPool pool, byte[] kinds, String[] names, int[] indexes, int depth) {
+        this.pool = pool;
+        this.kinds = kinds;
+        this.names = names;
+        this.indexes = indexes;
+        this.depth = depth;
+    }
+
+    /**
+     * Enters field of the current configuration.
+     */
+    void enter(String field) {
+        push(FIELD, field, 0);
+    }
+
+    /**
+     * Enters item of the current list.
+     */
+    void enterIndex(int index) {
+        push(INDEX, null, index);
+    }
+
+    /**
+     * Enters value of the current map.
+     */
+    void enterKey(String key) {
+        push(KEY, key, 0);
+    }
+
+    /**
+     * Leaves field, item or value entered last.
+     */
+    void exit() {
+        names[--depth] = null;
+    }
+
+    /**
+     * Reports violation of the current value.
+     *
+     * @param message violated constraint
+     * @param value invalid value
+     */
+    void violation(String message, Object value) {
+        violations.add(new ConfigViolation(path(), message, value));
+    }
+
+    /**
+     * Validates not null items of the current list, in parallel if the list is long enough.
+     *
+     * @param items items of the list
+     * @param validator validator of the items
+     */
+    <T> void items(List<T> items, ConfigValidator<? super T> validator) {
+        if (pool == null || items.size() < PARALLEL_THRESHOLD || !(items instanceof RandomAccess)) {
+            int index = 0;
+            for (T item : items) {
+                enterIndex(index++);
+                if (item != null) {
+                    validator.validate(item, this);
+                }
+                exit();
+            }
+
+            return;
+        }
+
+        // only workers of the pool fork in place, callers on other pools wait for the pool
+        ValidateItems<T> task = new ValidateItems<>(this, items, validator, 0, items.size());
+        violations.addAll(ForkJoinTask.getPool() == pool ? task.invoke() : pool.invoke(task));
+    }
+
+    /**
+     * @return index of the item entered last
+     */
+    int index() {
+        for (int i = depth - 1; i >= 0; i--) {
+            if (kinds[i] == INDEX) {
+                return indexes[i];
+            }
+        }
+
+        throw new IllegalStateException("no item is entered");
+    }
+
+    List<ConfigViolation> violations() {
+        return violations;
+    }
+
+    private void push(byte kind, String name, int index) {
+        if (depth == kinds.length) {
+            kinds = Arrays.copyOf(kinds, depth * 2);
+            names = Arrays.copyOf(names, depth * 2);
+            indexes = Arrays.copyOf(indexes, depth * 2);
+        }
+
+        kinds[depth] = kind;
+        names[depth] = name;
+        indexes[depth] = index;
+        depth++;
+    }
+
+    /**
+     * @return path like scrape_configs[3].static_configs[0].labels[env]
+     */
+    private String path() {
+        StringBuilder path = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            switch (kinds[i]) {
+                case FIELD:
+                    if (i > 0) {
+                        path.append('.');
+                    }
+                    path.append(names[i]);
+                    break;
+                case INDEX:
+                    path.append('[').append(indexes[i]).append(']');
+                    break;
+                default:
+                    path.append('[').append(names[i]).append(']');
+            }
+        }
+
+        return path.toString();
+    }
+
+    /**
+     * @return context at the same path, without violations
+     */
+    private ValidationContext copy() {
+        return new ValidationContext(
+                pool, Arrays.copyOf(kinds, kinds.length), Arrays.copyOf(names, names.length),
+                Arrays.copyOf(indexes, indexes.length), depth
+        );
+    }
+
+    private static final class ValidateItems<T> extends RecursiveTask<List<ConfigViolation>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ValidationContext parent;
+
+        private final List<T> items;
+
+        private final ConfigValidator<? super T> validator;
+
+        private final int from;
+
+        private final int to;
+
+        private ValidateItems(ValidationContext parent, List<T> items, ConfigValidator<? super T> validator, int from, int to) {
+            this.parent = parent;
+            this.items = items;
+            this.validator = validator;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<ConfigViolation> compute() {
+            if (to - from > ITEMS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                ValidateItems<T> left = new ValidateItems<>(parent, items, validator, from, middle);
+                left.fork();
+                List<ConfigViolation> right = new ValidateItems<>(parent, items, validator, middle, to).compute();
+                List<ConfigViolation> violations = left.join();
+                if (violations.isEmpty()) {
+                    return right;
+                }
+
+                violations.addAll(right);
+                return violations;
+            }
+
+            ValidationContext context = parent.copy();
+            for (int i = from; i < to; i++) {
+                T item = items.get(i);
+                context.enterIndex(i);
+                if (item != null) {
+                    validator.validate(item, context);
+                }
+                context.exit();
+            }
+
+            return context.violations;
+        }
+
+    }
+
+}
@@ -1,10 +1,13 @@
 package com.github.pakisan.prometheus.config.write;
 
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.PrometheusDuration;
 import com.github.pakisan.prometheus.config.PrometheusRelabelConfig;
 import com.github.pakisan.prometheus.config.PrometheusTlsConfig;
 import com.github.pakisan.prometheus.config.auth.PrometheusAuthorization;
 import com.github.pakisan.prometheus.config.auth.PrometheusBasicAuth;
 import com.github.pakisan.prometheus.config.auth.PrometheusOAuth2;
+import com.github.pakisan.prometheus.config.codec.Configuration;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -21,6 +24,7 @@ import java.util.Map;
  * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/#remote_write">remote_write</a>
  * @author Pavel Bodiachevskii
  */
+@Configuration
 @Data
 @Builder
 @NoArgsConstructor
@@ -161,4 +165,12 @@ public class PrometheusRemoteWriteConfig {
      */
     private PrometheusRemoteWriteMetadataConfig metadata_config;
 
+    /**
+     * @return remote_timeout as duration, or null if it is not set
+     * @throws PrometheusConfigException if remote_timeout is not a valid duration
+     */
+    public PrometheusDuration remoteTimeoutDuration() {
+        return PrometheusDuration.parse(remote_timeout);
+    }
+
 }
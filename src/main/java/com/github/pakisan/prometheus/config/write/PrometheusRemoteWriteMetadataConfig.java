@@ -1,5 +1,8 @@
 package com.github.pakisan.prometheus.config.write;
 
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.PrometheusDuration;
+import com.github.pakisan.prometheus.config.codec.Configuration;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -16,6 +19,7 @@ import javax.validation.constraints.Pattern;
  * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/#remote_write">remote_write</a>
  * @author Pavel Bodiachevskii
  */
+@Configuration
 @Data
 @Builder
 @NoArgsConstructor
@@ -41,4 +45,12 @@ public class PrometheusRemoteWriteMetadataConfig {
     @Builder.Default
     private int max_samples_per_send = 500;
 
+    /**
+     * @return send_interval as duration, or null if it is not set
+     * @throws PrometheusConfigException if send_interval is not a valid duration
+     */
+    public PrometheusDuration sendIntervalDuration() {
+        return PrometheusDuration.parse(send_interval);
+    }
+
 }
@@ -1,5 +1,8 @@
 package com.github.pakisan.prometheus.config.write;
 
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.PrometheusDuration;
+import com.github.pakisan.prometheus.config.codec.Configuration;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -16,6 +19,7 @@ import javax.validation.constraints.Pattern;
  * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/#remote_write">remote_write</a>
  * @author Pavel Bodiachevskii
  */
+@Configuration
 @Data
 @Builder
 @NoArgsConstructor
@@ -78,6 +82,31 @@ public class PrometheusRemoteWriteQueueConfig {
      * <p>
      * This is experimental and might change in the future.
      */
+    @Builder.Default
     private boolean retry_on_http_429 = false;
 
+    /**
+     * @return batch_send_deadline as duration, or null if it is not set
+     * @throws PrometheusConfigException if batch_send_deadline is not a valid duration
+     */
+    public PrometheusDuration batchSendDeadlineDuration() {
+        return PrometheusDuration.parse(batch_send_deadline);
+    }
+
+    /**
+     * @return min_backoff as duration, or null if it is not set
+     * @throws PrometheusConfigException if min_backoff is not a valid duration
+     */
+    public PrometheusDuration minBackoffDuration() {
+        return PrometheusDuration.parse(min_backoff);
+    }
+
+    /**
+     * @return max_backoff as duration, or null if it is not set
+     * @throws PrometheusConfigException if max_backoff is not a valid duration
+     */
+    public PrometheusDuration maxBackoffDuration() {
+        return PrometheusDuration.parse(max_backoff);
+    }
+
 }
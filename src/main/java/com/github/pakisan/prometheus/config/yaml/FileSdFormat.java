@@ -0,0 +1,40 @@
+package com.github.pakisan.prometheus.config.yaml;
+
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+
+import java.nio.file.Path;
+
+/**
+ * Formats of file_sd target files.
+ *
+ * @since  1.0.0
+ * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/#file_sd_config">file_sd_config</a>
+ * @author Pavel Bodiachevskii
+ */
+public enum FileSdFormat {
+
+    JSON,
+
+    YAML;
+
+    /**
+     * Detects format by extension of the file, like Prometheus does.
+     *
+     * @param file target file
+     * @return format of the file
+     * @throws PrometheusConfigException if the file has none of .json, .yml and .yaml extensions
+     */
+    public static FileSdFormat of(Path file) {
+        String name = file.getFileName() == null ? "" : file.getFileName().toString();
+        if (name.endsWith(".json")) {
+            return JSON;
+        }
+
+        if (name.endsWith(".yml") || name.endsWith(".yaml")) {
+            return YAML;
+        }
+
+        throw new PrometheusConfigException("retrieval target file " + file + " has none of .json, .yml and .yaml extensions");
+    }
+
+}
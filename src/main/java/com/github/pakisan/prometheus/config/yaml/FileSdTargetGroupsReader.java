@@ -0,0 +1,163 @@
+package com.github.pakisan.prometheus.config.yaml;
+
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.PrometheusStaticConfig;
+import com.github.pakisan.prometheus.config.codec.ConfigCodec;
+import com.github.pakisan.prometheus.config.codec.ConfigCodecs;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads target groups of file_sd target files one by one, without reading the whole file in memory.
+ * <p>
+ * Target groups have the shape of static_config. Like Prometheus, reader ignores unknown fields of JSON
+ * target groups and rejects unknown fields of YAML ones. Empty YAML file holds no target groups, empty JSON file
+ * is not valid.
+ * <pre>{@code
+ * try (FileSdTargetGroupsReader reader = FileSdTargetGroupsReader.open(Paths.get("targets.json"))) {
+ *     PrometheusStaticConfig targetGroup;
+ *     while ((targetGroup = reader.next()) != null) {
+ *         ...
+ *     }
+ * }
+ * }</pre>
+ *
+ * @since  1.0.0
+ * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/#file_sd_config">file_sd_config</a>
+ * @author Pavel Bodiachevskii
+ */
+public class FileSdTargetGroupsReader implements Closeable {
+
+    private final ConfigCodec<PrometheusStaticConfig> codec = ConfigCodecs.of(PrometheusStaticConfig.class);
+
+    private final ReadableByteChannel channel;
+
+    private final JsonReader json;
+
+    private final YamlEventReader yaml;
+
+    private boolean started;
+
+    private boolean finished;
+
+    /**
+     * @param channel UTF-8 encoded target groups, closed by {@link #close()}
+     * @param format format of target groups
+     */
+    public FileSdTargetGroupsReader(ReadableByteChannel channel, FileSdFormat format) {
+        this.channel = channel;
+        if (format == FileSdFormat.JSON) {
+            this.json = new JsonReader(channel);
+            this.yaml = null;
+        } else {
+            this.json = null;
+            this.yaml = new YamlEventReader(Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), -1));
+        }
+    }
+
+    /**
+     * Opens target file, in format of its extension.
+     *
+     * @param file target file
+     * @return reader of the file
+     * @throws IOException if the file can not be opened
+     * @throws PrometheusConfigException if the file has unknown extension
+     */
+    public static FileSdTargetGroupsReader open(Path file) throws IOException {
+        FileSdFormat format = FileSdFormat.of(file);
+        return new FileSdTargetGroupsReader(FileChannel.open(file, StandardOpenOption.READ), format);
+    }
+
+    /**
+     * Reads the next target group.
+     *
+     * @return target group or null when there are no more target groups
+     * @throws IOException if the channel can not be read
+     * @throws PrometheusConfigException if target groups are not valid
+     */
+    public PrometheusStaticConfig next() throws IOException {
+        if (finished) {
+            return null;
+        }
+
+        try {
+            PrometheusStaticConfig targetGroup = json != null ? nextJson() : nextYaml();
+            finished = targetGroup == null;
+            return targetGroup;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private PrometheusStaticConfig nextJson() {
+        if (!started) {
+            started = true;
+            if (json.readNull()) {
+                return null;
+            }
+
+            json.beginList();
+        }
+
+        if (!json.hasNext()) {
+            if (!json.atEnd()) {
+                throw json.error("unexpected data after target groups");
+            }
+
+            return null;
+        }
+
+        if (json.readNull()) {
+            throw json.error("nil target group item found");
+        }
+
+        // like Go json.Unmarshal, unknown fields are skipped
+        PrometheusStaticConfig targetGroup = codec.newInstance();
+        json.beginObject();
+        String field;
+        while ((field = json.nextField()) != null) {
+            if ("targets".equals(field) || "labels".equals(field)) {
+                codec.readField(json, targetGroup, field);
+            } else {
+                json.skipValue();
+            }
+        }
+
+        return targetGroup;
+    }
+
+    private PrometheusStaticConfig nextYaml() {
+        if (!started) {
+            started = true;
+            if (!yaml.beginDocument() || yaml.readNull()) {
+                return null;
+            }
+
+            yaml.beginSequence();
+        }
+
+        if (yaml.endSequence()) {
+            return null;
+        }
+
+        if (yaml.isNull()) {
+            throw yaml.error("nil target group item found");
+        }
+
+        return codec.read(yaml);
+    }
+
+}
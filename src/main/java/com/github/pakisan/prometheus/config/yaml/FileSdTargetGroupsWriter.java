@@ -0,0 +1,121 @@
+package com.github.pakisan.prometheus.config.yaml;
+
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.PrometheusStaticConfig;
+import com.github.pakisan.prometheus.config.codec.ConfigCodec;
+import com.github.pakisan.prometheus.config.codec.ConfigCodecs;
+import com.github.pakisan.prometheus.config.codec.ConfigOutput;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes target groups of file_sd target files one by one, without building the whole file in memory.
+ * <p>
+ * Target groups have the shape of static_config. Labels are written in order of names.
+ * <pre>{@code
+ * try (FileSdTargetGroupsWriter writer = FileSdTargetGroupsWriter.open(Paths.get("targets.json"))) {
+ *     writer.write(targetGroup);
+ * }
+ * }</pre>
+ *
+ * @since  1.0.0
+ * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/#file_sd_config">file_sd_config</a>
+ * @author Pavel Bodiachevskii
+ */
+public class FileSdTargetGroupsWriter implements Closeable {
+
+    private final ConfigCodec<PrometheusStaticConfig> codec = ConfigCodecs.of(PrometheusStaticConfig.class);
+
+    private final WritableByteChannel channel;
+
+    private final JsonWriter json;
+
+    private final Writer writer;
+
+    private final YamlEmitter yaml;
+
+    private final ConfigOutput out;
+
+    private boolean closed;
+
+    /**
+     * @param channel channel to write UTF-8 encoded target groups to, closed by {@link #close()}
+     * @param format format of target groups
+     */
+    public FileSdTargetGroupsWriter(WritableByteChannel channel, FileSdFormat format) throws IOException {
+        this.channel = channel;
+        if (format == FileSdFormat.JSON) {
+            this.json = new JsonWriter(channel);
+            this.writer = null;
+            this.yaml = null;
+            this.out = json;
+            json.beginList(-1);
+        } else {
+            this.json = null;
+            this.writer = Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1);
+            this.yaml = new YamlEmitter(writer);
+            this.out = yaml;
+            yaml.beginSequence();
+        }
+    }
+
+    /**
+     * Creates or truncates target file, in format of its extension.
+     *
+     * @param file target file
+     * @return writer of the file
+     * @throws IOException if the file can not be opened
+     * @throws PrometheusConfigException if the file has unknown extension
+     */
+    public static FileSdTargetGroupsWriter open(Path file) throws IOException {
+        FileSdFormat format = FileSdFormat.of(file);
+        return new FileSdTargetGroupsWriter(FileChannel.open(
+                file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE
+        ), format);
+    }
+
+    /**
+     * Writes the next target group.
+     *
+     * @param targetGroup not null target group
+     * @throws IOException if the channel can not be written
+     */
+    public void write(PrometheusStaticConfig targetGroup) throws IOException {
+        codec.write(out, targetGroup);
+    }
+
+    /**
+     * Completes target groups and closes the channel.
+     *
+     * @throws IOException if the channel can not be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        try {
+            if (json != null) {
+                json.endList();
+                json.flush();
+            } else {
+                yaml.endSequence();
+                yaml.flush();
+                writer.close();
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+}
@@ -0,0 +1,252 @@
+package com.github.pakisan.prometheus.config.yaml;
+
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves file globs like Prometheus does.
+ * <p>
+ * Patterns have the syntax of Go filepath.Match: {@code *} matches any sequence of characters but the separator,
+ * {@code ?} matches any single character, {@code [a-z]} and {@code [^a-z]} match a character of a class and
+ * {@code \} escapes the next character. Relative patterns are resolved against the directory of the configuration.
+ * <p>
+ * Matches of a pattern are ordered by name, directory by directory, and directories which can not be read
+ * are skipped, as in Go filepath.Glob.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+final class Globs {
+
+    private static final boolean BACKSLASH_ESCAPES = File.separatorChar == '/';
+
+    private Globs() {
+    }
+
+    /**
+     * @param directory directory of relative patterns
+     * @param patterns patterns, may be null
+     * @return matches of all patterns, in order of patterns
+     * @throws PrometheusConfigException if a pattern is malformed
+     */
+    static List<Path> resolve(Path directory, List<String> patterns) {
+        if (patterns == null || patterns.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Path> matches = new ArrayList<>();
+        for (String pattern : patterns) {
+            matches.addAll(glob(directory, pattern));
+        }
+
+        return matches;
+    }
+
+    /**
+     * @param directory directory of relative pattern
+     * @param pattern pattern
+     * @return matching files and directories
+     * @throws PrometheusConfigException if the pattern is malformed
+     */
+    static List<Path> glob(Path directory, String pattern) {
+        if (!hasMeta(pattern)) {
+            Path path = directory.resolve(pattern);
+            return Files.exists(path, LinkOption.NOFOLLOW_LINKS) ? Collections.singletonList(path) : Collections.<Path>emptyList();
+        }
+
+        List<Path> current = new ArrayList<>();
+        String relative = pattern;
+        if (isSeparator(pattern.charAt(0)) || new File(pattern).isAbsolute()) {
+            int rootLength = rootLength(pattern);
+            current.add(directory.getFileSystem().getPath(pattern.substring(0, rootLength)));
+            relative = pattern.substring(rootLength);
+        } else {
+            current.add(directory);
+        }
+
+        for (String segment : segments(relative)) {
+            List<Path> next = new ArrayList<>();
+            if (!hasMeta(segment)) {
+                for (Path parent : current) {
+                    Path path = parent.resolve(segment);
+                    if (Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+                        next.add(path);
+                    }
+                }
+            } else {
+                Pattern matcher = compile(segment, pattern);
+                for (Path parent : current) {
+                    list(parent, matcher, next);
+                }
+            }
+
+            current = next;
+        }
+
+        return current;
+    }
+
+    private static void list(Path directory, Pattern matcher, List<Path> matches) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+
+        List<String> names = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                String name = entry.getFileName().toString();
+                if (matcher.matcher(name).matches()) {
+                    names.add(name);
+                }
+            }
+        } catch (IOException e) {
+            return;
+        }
+
+        Collections.sort(names);
+        for (String name : names) {
+            matches.add(directory.resolve(name));
+        }
+    }
+
+    private static List<String> segments(String pattern) {
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i <= pattern.length(); i++) {
+            if (i == pattern.length() || isSeparator(pattern.charAt(i))) {
+                if (i > start) {
+                    segments.add(pattern.substring(start, i));
+                }
+
+                start = i + 1;
+            }
+        }
+
+        return segments;
+    }
+
+    private static int rootLength(String pattern) {
+        int length = 0;
+        // drive of windows paths, like C:
+        if (pattern.length() > 1 && pattern.charAt(1) == ':') {
+            length = 2;
+        }
+
+        while (length < pattern.length() && isSeparator(pattern.charAt(length))) {
+            length++;
+        }
+
+        return length;
+    }
+
+    /**
+     * Translates segment of Go pattern to regular expression.
+     */
+    private static Pattern compile(String segment, String pattern) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            switch (c) {
+                case '*':
+                    regex.append(".*");
+                    break;
+                case '?':
+                    regex.append('.');
+                    break;
+                case '[':
+                    i = characterClass(segment, i + 1, regex, pattern);
+                    break;
+                case '\\':
+                    if (BACKSLASH_ESCAPES) {
+                        if (++i == segment.length()) {
+                            throw badPattern(pattern);
+                        }
+
+                        c = segment.charAt(i);
+                    }
+                    literal(c, regex);
+                    break;
+                default:
+                    literal(c, regex);
+            }
+        }
+
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    /**
+     * @return index of the closing bracket
+     */
+    private static int characterClass(String segment, int i, StringBuilder regex, String pattern) {
+        regex.append('[');
+        if (i < segment.length() && segment.charAt(i) == '^') {
+            regex.append('^');
+            i++;
+        }
+
+        boolean empty = true;
+        for (; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (c == ']' && !empty) {
+                regex.append(']');
+                return i;
+            }
+
+            if (c == '-' && !empty && i + 1 < segment.length() && segment.charAt(i + 1) != ']') {
+                regex.append('-');
+                continue;
+            }
+
+            if (c == '\\' && BACKSLASH_ESCAPES) {
+                if (++i == segment.length()) {
+                    throw badPattern(pattern);
+                }
+
+                c = segment.charAt(i);
+            }
+
+            literal(c, regex);
+            empty = false;
+        }
+
+        throw badPattern(pattern);
+    }
+
+    private static void literal(char c, StringBuilder regex) {
+        if (Character.isLetterOrDigit(c)) {
+            regex.append(c);
+        } else {
+            regex.append(String.format("\\x{%x}", (int) c));
+        }
+    }
+
+    private static boolean hasMeta(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || (c == '\\' && BACKSLASH_ESCAPES)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == '/' || c == File.separatorChar;
+    }
+
+    private static PrometheusConfigException badPattern(String pattern) {
+        return new PrometheusConfigException("malformed glob pattern '" + pattern + "'");
+    }
+
+}
@@ -0,0 +1,571 @@
+package com.github.pakisan.prometheus.config.yaml;
+
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.codec.ConfigInput;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Pull reader of JSON, straight from a channel.
+ * <p>
+ * Channel is read in chunks into a fixed buffer, so documents of any size are read without being kept in memory.
+ * Strings are decoded like Go does: invalid escapes are rejected and unpaired surrogates are replaced with U+FFFD.
+ * <p>
+ * Objects and maps are both read from JSON objects. Failing reads of the channel are thrown as
+ * {@link UncheckedIOException}.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+final class JsonReader implements ConfigInput {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ReadableByteChannel channel;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private final ByteBuffer chunk = ByteBuffer.wrap(buffer);
+
+    private int position;
+
+    private int limit;
+
+    private boolean eof;
+
+    /**
+     * Bytes read before the current buffer, and offset of the current line start, for error positions.
+     */
+    private long consumed;
+
+    private long lineStart;
+
+    private int line;
+
+    private byte[] scratch = new byte[256];
+
+    /**
+     * Open objects and arrays: whether the next entry is the first one.
+     */
+    private boolean[] first = new boolean[16];
+
+    private int depth;
+
+    private long keyOffset;
+
+    JsonReader(ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * @return true if nothing but whitespace is left
+     */
+    boolean atEnd() {
+        return peek() < 0;
+    }
+
+    /**
+     * @return position of the next byte, like "line 1, column 2"
+     */
+    String position() {
+        return position(offset());
+    }
+
+    PrometheusConfigException error(String message) {
+        return error(offset(), message);
+    }
+
+    @Override
+    public boolean readNull() {
+        if (peek() != 'n') {
+            return false;
+        }
+
+        literal("null");
+        return true;
+    }
+
+    @Override
+    public void beginObject() {
+        begin('{', "object");
+    }
+
+    @Override
+    public String nextField() {
+        if (!nextEntry('}')) {
+            return null;
+        }
+
+        keyOffset = offset();
+        if (peek() != '"') {
+            throw unexpected("string key");
+        }
+
+        String key = string();
+        if (peek() != ':') {
+            throw unexpected("':'");
+        }
+
+        position++;
+        return key;
+    }
+
+    @Override
+    public void beginMap() {
+        beginObject();
+    }
+
+    @Override
+    public String nextKey() {
+        return nextField();
+    }
+
+    @Override
+    public void beginList() {
+        begin('[', "array");
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextEntry(']');
+    }
+
+    @Override
+    public String readString() {
+        if (readNull()) {
+            return null;
+        }
+
+        if (peek() != '"') {
+            throw unexpected("string");
+        }
+
+        return string();
+    }
+
+    @Override
+    public boolean readBoolean() {
+        int c = peek();
+        if (c == 't') {
+            literal("true");
+            return true;
+        }
+
+        if (c == 'f') {
+            literal("false");
+            return false;
+        }
+
+        throw unexpected("boolean");
+    }
+
+    @Override
+    public int readInt() {
+        long offset = offset();
+        long value = readLong();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw error(offset, "number " + value + " overflows int");
+        }
+
+        return (int) value;
+    }
+
+    @Override
+    public long readLong() {
+        long offset = offset();
+        String number = number();
+        try {
+            return Long.parseLong(number);
+        } catch (NumberFormatException e) {
+            throw error(offset, "can not read " + number + " as integer");
+        }
+    }
+
+    @Override
+    public float readFloat() {
+        return (float) readDouble();
+    }
+
+    @Override
+    public double readDouble() {
+        return Double.parseDouble(number());
+    }
+
+    @Override
+    public <E extends Enum<E>> E readEnum(E[] constants) {
+        long offset = offset();
+        String value = readString();
+        if (value == null) {
+            return null;
+        }
+
+        for (E constant : constants) {
+            if (constant.name().equalsIgnoreCase(value)) {
+                return constant;
+            }
+        }
+
+        String type = constants.length > 0 ? constants[0].getDeclaringClass().getSimpleName() : "constant";
+        throw error(offset, "unknown " + type + " '" + value + "'");
+    }
+
+    @Override
+    public void skipValue() {
+        switch (peek()) {
+            case '{':
+                beginObject();
+                while (nextField() != null) {
+                    skipValue();
+                }
+                break;
+            case '[':
+                beginList();
+                while (hasNext()) {
+                    skipValue();
+                }
+                break;
+            case '"':
+                string();
+                break;
+            case 't':
+            case 'f':
+                readBoolean();
+                break;
+            case 'n':
+                readNull();
+                break;
+            default:
+                number();
+        }
+    }
+
+    @Override
+    public PrometheusConfigException unknownField(String field, Class<?> type) {
+        return error(keyOffset, "field " + field + " not found in " + type.getSimpleName());
+    }
+
+    private void begin(char open, String type) {
+        if (peek() != open) {
+            throw unexpected(type);
+        }
+
+        position++;
+        if (depth == first.length) {
+            first = Arrays.copyOf(first, depth * 2);
+        }
+
+        first[depth++] = true;
+    }
+
+    /**
+     * Consumes the separator before the next entry, or the end of the current object or array.
+     *
+     * @return false when the end was consumed
+     */
+    private boolean nextEntry(char close) {
+        int c = peek();
+        if (c == close) {
+            position++;
+            depth--;
+            return false;
+        }
+
+        if (first[depth - 1]) {
+            first[depth - 1] = false;
+            return true;
+        }
+
+        if (c != ',') {
+            throw unexpected("',' or '" + close + "'");
+        }
+
+        position++;
+        if (peek() == close) {
+            throw unexpected("value");
+        }
+
+        return true;
+    }
+
+    private void literal(String literal) {
+        for (int i = 0; i < literal.length(); i++) {
+            int c = read();
+            if (c != literal.charAt(i)) {
+                if (c >= 0) {
+                    position--;
+                }
+
+                throw unexpected("'" + literal + "'");
+            }
+        }
+    }
+
+    private String number() {
+        int c = peek();
+        if (c != '-' && (c < '0' || c > '9')) {
+            throw unexpected("number");
+        }
+
+        int length = 0;
+        while (true) {
+            c = read();
+            if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+                length = append(length, c);
+            } else {
+                if (c >= 0) {
+                    position--;
+                }
+                break;
+            }
+        }
+
+        return new String(scratch, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Reads string, positioned at the opening quote.
+     */
+    private String string() {
+        position++;
+
+        // strings without escapes which are not split by the end of the buffer are decoded in place
+        for (int i = position; i < limit; i++) {
+            int c = buffer[i];
+            if (c == '"') {
+                String value = new String(buffer, position, i - position, StandardCharsets.UTF_8);
+                position = i + 1;
+                return value;
+            }
+
+            if (c == '\\' || (c >= 0 && c < 0x20)) {
+                break;
+            }
+        }
+
+        int length = 0;
+        while (true) {
+            int c = read();
+            if (c == '"') {
+                return new String(scratch, 0, length, StandardCharsets.UTF_8);
+            }
+
+            if (c < 0) {
+                throw error("unexpected end of input in string");
+            }
+
+            if (c < 0x20) {
+                position--;
+                throw error("invalid character in string");
+            }
+
+            if (c != '\\') {
+                length = append(length, c);
+                continue;
+            }
+
+            c = read();
+            switch (c) {
+                case '"':
+                case '\\':
+                case '/':
+                    length = append(length, c);
+                    break;
+                case 'b':
+                    length = append(length, '\b');
+                    break;
+                case 'f':
+                    length = append(length, '\f');
+                    break;
+                case 'n':
+                    length = append(length, '\n');
+                    break;
+                case 'r':
+                    length = append(length, '\r');
+                    break;
+                case 't':
+                    length = append(length, '\t');
+                    break;
+                case 'u':
+                    length = appendCodePoint(length, unicodeEscape());
+                    break;
+                default:
+                    throw error("invalid escape in string");
+            }
+        }
+    }
+
+    /**
+     * Reads code point of \\u escape, with the low surrogate if the escape is a high one.
+     */
+    private int unicodeEscape() {
+        int c = hex4();
+        if (!Character.isSurrogate((char) c)) {
+            return c;
+        }
+
+        if (Character.isHighSurrogate((char) c) && peekByte() == '\\') {
+            position++;
+            if (peekByte() == 'u') {
+                position++;
+                int low = hex4();
+                if (Character.isLowSurrogate((char) low)) {
+                    return Character.toCodePoint((char) c, (char) low);
+                }
+
+                // unpaired surrogate followed by an escaped character
+                position -= 6;
+                return 0xFFFD;
+            }
+
+            position--;
+        }
+
+        return 0xFFFD;
+    }
+
+    private int hex4() {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(read(), 16);
+            if (digit < 0) {
+                throw error("invalid \\u escape in string");
+            }
+
+            value = value << 4 | digit;
+        }
+
+        return value;
+    }
+
+    private int appendCodePoint(int length, int codePoint) {
+        if (codePoint < 0x80) {
+            return append(length, codePoint);
+        }
+
+        if (codePoint < 0x800) {
+            length = append(length, 0xC0 | codePoint >> 6);
+        } else {
+            if (codePoint < 0x10000) {
+                length = append(length, 0xE0 | codePoint >> 12);
+            } else {
+                length = append(length, 0xF0 | codePoint >> 18);
+                length = append(length, 0x80 | (codePoint >> 12 & 0x3F));
+            }
+
+            length = append(length, 0x80 | (codePoint >> 6 & 0x3F));
+        }
+
+        return append(length, 0x80 | (codePoint & 0x3F));
+    }
+
+    private int append(int length, int b) {
+        if (length == scratch.length) {
+            scratch = Arrays.copyOf(scratch, length * 2);
+        }
+
+        scratch[length] = (byte) b;
+        return length + 1;
+    }
+
+    /**
+     * Skips whitespace.
+     *
+     * @return the next byte, not consumed, or -1 at the end of input
+     */
+    private int peek() {
+        while (true) {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+
+            int c = buffer[position];
+            if (c == '\n') {
+                line++;
+                lineStart = consumed + position + 1;
+            } else if (c != ' ' && c != '\t' && c != '\r') {
+                return c & 0xFF;
+            }
+
+            position++;
+        }
+    }
+
+    /**
+     * @return the next byte, not consumed and without skipping whitespace, or -1 at the end of input
+     */
+    private int peekByte() {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+
+        return buffer[position] & 0xFF;
+    }
+
+    private int read() {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+
+        return buffer[position++] & 0xFF;
+    }
+
+    /**
+     * Reads the next chunk. Consumed bytes are dropped, except for the last six which are kept for
+     * backing up after an unpaired surrogate escape.
+     */
+    private boolean fill() {
+        if (eof) {
+            return false;
+        }
+
+        int keep = Math.min(position, 6);
+        System.arraycopy(buffer, position - keep, buffer, 0, keep);
+        consumed += position - keep;
+        position = keep;
+        limit = keep;
+
+        try {
+            chunk.clear();
+            chunk.position(keep);
+            int read;
+            do {
+                read = channel.read(chunk);
+            } while (read == 0);
+
+            if (read < 0) {
+                eof = true;
+                return false;
+            }
+
+            limit = chunk.position();
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long offset() {
+        peek();
+        return consumed + position;
+    }
+
+    private PrometheusConfigException unexpected(String expected) {
+        int c = peek();
+        String found = c < 0 ? "end of input" : c >= 0x20 && c < 0x7F ? "'" + (char) c + "'" : "byte " + c;
+        return error("expected " + expected + " but found " + found);
+    }
+
+    private PrometheusConfigException error(long offset, String message) {
+        return new PrometheusConfigException(position(offset) + ": " + message);
+    }
+
+    private String position(long offset) {
+        return "line " + (line + 1) + ", column " + (offset - lineStart + 1);
+    }
+
+}
@@ -0,0 +1,267 @@
+package com.github.pakisan.prometheus.config.yaml;
+
+import com.github.pakisan.prometheus.config.codec.ConfigOutput;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Writes compact UTF-8 JSON straight to a channel.
+ * <p>
+ * Writer keeps nothing but the current nesting, so documents of any size are written without being built
+ * in memory. Output is buffered internally, {@link #flush()} must be called once the document is complete.
+ * Items of the top level array are written one per line.
+ * <p>
+ * Objects and maps are both written as JSON objects. Unpaired surrogates are written as U+FFFD, like Go does.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+final class JsonWriter implements ConfigOutput {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private final WritableByteChannel channel;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private int position;
+
+    /**
+     * Open objects and arrays: number of written entries.
+     */
+    private int[] counts = new int[16];
+
+    private int depth;
+
+    private boolean afterKey;
+
+    JsonWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public void beginObject() throws IOException {
+        begin('{');
+    }
+
+    @Override
+    public void field(String name) throws IOException {
+        key(name);
+    }
+
+    @Override
+    public void endObject() throws IOException {
+        end('}');
+    }
+
+    @Override
+    public void beginMap(int size) throws IOException {
+        begin('{');
+    }
+
+    @Override
+    public void key(String key) throws IOException {
+        beginEntry();
+        string(key);
+        write(':');
+        afterKey = true;
+    }
+
+    @Override
+    public void endMap() throws IOException {
+        end('}');
+    }
+
+    @Override
+    public void beginList(int size) throws IOException {
+        begin('[');
+    }
+
+    @Override
+    public void endList() throws IOException {
+        end(']');
+    }
+
+    @Override
+    public void writeNull() throws IOException {
+        beginValue();
+        ascii("null");
+    }
+
+    @Override
+    public void writeString(String value) throws IOException {
+        beginValue();
+        string(value);
+    }
+
+    @Override
+    public void writeBoolean(boolean value) throws IOException {
+        beginValue();
+        ascii(value ? "true" : "false");
+    }
+
+    @Override
+    public void writeInt(int value) throws IOException {
+        beginValue();
+        ascii(Integer.toString(value));
+    }
+
+    @Override
+    public void writeLong(long value) throws IOException {
+        beginValue();
+        ascii(Long.toString(value));
+    }
+
+    /**
+     * JSON has no NaN and infinities, they are written as strings, like Prometheus writes sample values.
+     */
+    @Override
+    public void writeFloat(float value) throws IOException {
+        writeDouble(value);
+    }
+
+    @Override
+    public void writeDouble(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            writeString(Double.isNaN(value) ? "NaN" : value > 0 ? "+Inf" : "-Inf");
+            return;
+        }
+
+        beginValue();
+        ascii(Double.toString(value));
+    }
+
+    @Override
+    public void writeEnum(Enum<?> value) throws IOException {
+        writeString(value.name().toLowerCase(Locale.ROOT));
+    }
+
+    void flush() throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, position);
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+
+        position = 0;
+    }
+
+    private void begin(char open) throws IOException {
+        beginValue();
+        write(open);
+        if (depth == counts.length) {
+            counts = Arrays.copyOf(counts, depth * 2);
+        }
+
+        counts[depth++] = 0;
+    }
+
+    private void end(char close) throws IOException {
+        depth--;
+        if (depth == 0 && counts[0] > 0) {
+            write('\n');
+        }
+
+        write(close);
+        if (depth == 0) {
+            write('\n');
+        }
+    }
+
+    /**
+     * Writes separator of values in arrays. Values of objects follow their keys.
+     */
+    private void beginValue() throws IOException {
+        if (afterKey) {
+            afterKey = false;
+        } else if (depth > 0) {
+            beginEntry();
+        }
+    }
+
+    private void beginEntry() throws IOException {
+        if (counts[depth - 1]++ > 0) {
+            write(',');
+        }
+
+        if (depth == 1) {
+            write('\n');
+        }
+    }
+
+    private void string(String value) throws IOException {
+        write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c < 0x80) {
+                if (c == '"' || c == '\\') {
+                    write('\\');
+                }
+
+                write(c);
+            } else if (c < 0x20) {
+                control(c);
+            } else if (c < 0x800) {
+                write(0xC0 | c >> 6);
+                write(0x80 | (c & 0x3F));
+            } else if (!Character.isSurrogate(c)) {
+                write(0xE0 | c >> 12);
+                write(0x80 | (c >> 6 & 0x3F));
+                write(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                write(0xF0 | codePoint >> 18);
+                write(0x80 | (codePoint >> 12 & 0x3F));
+                write(0x80 | (codePoint >> 6 & 0x3F));
+                write(0x80 | (codePoint & 0x3F));
+            } else {
+                // U+FFFD
+                write(0xEF);
+                write(0xBF);
+                write(0xBD);
+            }
+        }
+        write('"');
+    }
+
+    private void control(char c) throws IOException {
+        write('\\');
+        switch (c) {
+            case '\n':
+                write('n');
+                break;
+            case '\r':
+                write('r');
+                break;
+            case '\t':
+                write('t');
+                break;
+            default:
+                write('u');
+                write('0');
+                write('0');
+                write(HEX[c >> 4]);
+                write(HEX[c & 0xF]);
+        }
+    }
+
+    private void ascii(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            write(value.charAt(i));
+        }
+    }
+
+    private void write(int b) throws IOException {
+        if (position == buffer.length) {
+            flush();
+        }
+
+        buffer[position++] = (byte) b;
+    }
+
+}
@@ -0,0 +1,251 @@
+package com.github.pakisan.prometheus.config.yaml;
+
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.codec.ConfigCodec;
+import com.github.pakisan.prometheus.config.codec.ConfigCodecs;
+import com.github.pakisan.prometheus.config.scrape.PrometheusScrapeConfig;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Scrape configs which are read only when they are accessed for the first time.
+ * <p>
+ * List holds the configuration file and, for every scrape config, its location in the file and its job_name.
+ * A scrape config is read from its location once, on first access, and kept afterwards.
+ * Errors of a scrape config, like unknown fields, are thrown on first access as well.
+ * <p>
+ * List is unmodifiable and safe for use by multiple threads.
+ *
+ * @since  1.0.0
+ * @see PrometheusConfigReader#readLazily(java.nio.file.Path)
+ * @author Pavel Bodiachevskii
+ */
+public final class LazyScrapeConfigs extends AbstractList<PrometheusScrapeConfig> implements RandomAccess {
+
+    private static final ConfigCodec<PrometheusScrapeConfig> CODEC = ConfigCodecs.of(PrometheusScrapeConfig.class);
+
+    /**
+     * UTF-8 encoded configuration file.
+     */
+    private final ByteBuffer file;
+
+    /**
+     * Byte offsets of the start and the end of every scrape config, -1 for the ones read while indexing.
+     */
+    private final int[] starts;
+
+    private final int[] ends;
+
+    /**
+     * Column and line of the first line of every scrape config, to restore its indentation and to report errors
+     * at their place in the file.
+     */
+    private final int[] columns;
+
+    private final int[] lines;
+
+    private final String[] jobNames;
+
+    private final Map<String, Integer> indexes;
+
+    private final AtomicReferenceArray<PrometheusScrapeConfig> configs;
+
+    private LazyScrapeConfigs(Builder builder) {
+        int size = builder.size;
+        this.file = builder.file;
+        this.starts = Arrays.copyOf(builder.starts, size);
+        this.ends = Arrays.copyOf(builder.ends, size);
+        this.columns = Arrays.copyOf(builder.columns, size);
+        this.lines = Arrays.copyOf(builder.lines, size);
+        this.jobNames = Arrays.copyOf(builder.jobNames, size);
+        this.configs = new AtomicReferenceArray<>(builder.configs == null ? new PrometheusScrapeConfig[size] : Arrays.copyOf(builder.configs, size));
+
+        Map<String, Integer> indexes = new HashMap<>(size * 4 / 3 + 1);
+        for (int i = 0; i < size; i++) {
+            if (jobNames[i] != null) {
+                indexes.putIfAbsent(jobNames[i], i);
+            }
+        }
+
+        this.indexes = indexes;
+    }
+
+    @Override
+    public PrometheusScrapeConfig get(int index) {
+        PrometheusScrapeConfig config = configs.get(index);
+        if (config != null || starts[index] < 0) {
+            return config;
+        }
+
+        config = read(index);
+        if (configs.compareAndSet(index, null, config)) {
+            return config;
+        }
+
+        return configs.get(index);
+    }
+
+    @Override
+    public int size() {
+        return starts.length;
+    }
+
+    /**
+     * Finds scrape config by job name. Only the found scrape config is read.
+     *
+     * @param jobName job name
+     * @return the first scrape config with the job name or null
+     * @throws PrometheusConfigException if the scrape config is not valid
+     */
+    public PrometheusScrapeConfig find(String jobName) {
+        Integer index = indexes.get(jobName);
+        return index == null ? null : get(index);
+    }
+
+    /**
+     * @return job names of all scrape configs, in order of scrape configs. Job name is null if it is not set
+     */
+    public List<String> jobNames() {
+        return Collections.unmodifiableList(Arrays.asList(jobNames));
+    }
+
+    private PrometheusScrapeConfig read(int index) {
+        ByteBuffer bytes = file.duplicate();
+        bytes.limit(ends[index]).position(starts[index]);
+        CharBuffer chars = StandardCharsets.UTF_8.decode(bytes);
+
+        StringBuilder source = new StringBuilder(columns[index] + chars.length());
+        for (int i = 0; i < columns[index]; i++) {
+            source.append(' ');
+        }
+        source.append(chars);
+
+        YamlEventReader in = new YamlEventReader(new StringReader(source.toString()), lines[index]);
+        if (!in.beginDocument()) {
+            return null;
+        }
+
+        try {
+            return CODEC.read(in);
+        } catch (PrometheusConfigException e) {
+            throw new PrometheusConfigException("scrape config #" + index + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Collects scrape configs while the file is indexed.
+     */
+    static final class Builder {
+
+        private final ByteBuffer file;
+
+        private int[] starts = new int[16];
+
+        private int[] ends = new int[16];
+
+        private int[] columns = new int[16];
+
+        private int[] lines = new int[16];
+
+        private String[] jobNames = new String[16];
+
+        private PrometheusScrapeConfig[] configs;
+
+        private int size;
+
+        private int codePoint;
+
+        private int offset;
+
+        Builder(ByteBuffer file) {
+            this.file = file;
+        }
+
+        /**
+         * @param start byte offset of the scrape config
+         * @param end byte offset after the scrape config
+         * @param column column of the scrape config
+         * @param line line of the scrape config
+         * @param jobName job name or null
+         */
+        void add(int start, int end, int column, int line, String jobName) {
+            grow();
+            starts[size] = start;
+            ends[size] = end;
+            columns[size] = column;
+            lines[size] = line;
+            jobNames[size] = jobName;
+            size++;
+        }
+
+        /**
+         * Adds scrape config which was already read.
+         */
+        void add(PrometheusScrapeConfig config) {
+            grow();
+            if (configs == null) {
+                configs = new PrometheusScrapeConfig[starts.length];
+            }
+
+            starts[size] = -1;
+            ends[size] = -1;
+            configs[size] = config;
+            jobNames[size] = config == null ? null : config.getJob_name();
+            size++;
+        }
+
+        LazyScrapeConfigs build() {
+            return new LazyScrapeConfigs(this);
+        }
+
+        private void grow() {
+            if (size == starts.length) {
+                int capacity = size * 2;
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                columns = Arrays.copyOf(columns, capacity);
+                lines = Arrays.copyOf(lines, capacity);
+                jobNames = Arrays.copyOf(jobNames, capacity);
+                if (configs != null) {
+                    configs = Arrays.copyOf(configs, capacity);
+                }
+            }
+        }
+
+        /**
+         * Converts offset reported by the parser, which counts code points, to byte offset. Offsets must be converted
+         * in order, as the file is walked forward from the previous one.
+         */
+        int byteOffset(int index) {
+            while (codePoint < index) {
+                int lead = file.get(offset) & 0xFF;
+                if (lead < 0x80) {
+                    offset += 1;
+                } else if (lead < 0xE0) {
+                    offset += 2;
+                } else if (lead < 0xF0) {
+                    offset += 3;
+                } else {
+                    offset += 4;
+                }
+
+                codePoint++;
+            }
+
+            return offset;
+        }
+
+    }
+
+}
@@ -0,0 +1,178 @@
+package com.github.pakisan.prometheus.config.yaml;
+
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Configuration files parsed on a fork-join pool and kept with SHA-256 of their content, so that reading them
+ * again parses only files whose content changed.
+ * <p>
+ * Files are split in halves until a single file is left, so idle workers steal big ranges of files first and
+ * thousands of small files are spread evenly across the pool. Results keep the order of files.
+ * <p>
+ * File whose size and modification time did not change is not read at all, unless it was modified so shortly
+ * before it was read that a later change could keep the same modification time. Such file is hashed again
+ * on the next read and parsed only if its content differs.
+ *
+ * @param <T> configuration class of the files
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+final class ParsedFiles<T> {
+
+    /**
+     * Modification times of some file systems have a granularity of seconds.
+     */
+    private static final long RACY_MILLIS = 2_000;
+
+    private final Class<T> type;
+
+    private final ConcurrentHashMap<Path, Parsed<T>> parsed = new ConcurrentHashMap<>();
+
+    ParsedFiles(Class<T> type) {
+        this.type = type;
+    }
+
+    /**
+     * Reads the files, forgetting files which were read before but are not among them.
+     *
+     * @param pool pool to read files on
+     * @param files UTF-8 encoded files
+     * @return read files, in order of files. Files with unchanged content return the same instances as before
+     * @throws IOException if a file can not be read
+     * @throws PrometheusConfigException if a file is not valid, message starts with the file
+     */
+    List<T> read(ForkJoinPool pool, List<Path> files) throws IOException {
+        Object[] results = new Object[files.size()];
+        if (!files.isEmpty()) {
+            try {
+                pool.invoke(new ReadFiles(files, results, 0, files.size()));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+
+        parsed.keySet().retainAll(new HashSet<>(files));
+
+        @SuppressWarnings("unchecked")
+        List<T> read = (List<T>) Arrays.asList(results);
+        return read;
+    }
+
+    private T read(Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+
+        Parsed<T> previous = parsed.get(file);
+        if (previous != null && previous.size == size && previous.modified == modified && modified < previous.checked - RACY_MILLIS) {
+            return previous.value;
+        }
+
+        long checked = System.currentTimeMillis();
+        byte[] content = Files.readAllBytes(file);
+        byte[] hash = sha256(content);
+        T value;
+        if (previous != null && Arrays.equals(previous.hash, hash)) {
+            value = previous.value;
+        } else {
+            try {
+                value = new PrometheusConfigReader().read(
+                        new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8), type
+                );
+            } catch (PrometheusConfigException e) {
+                parsed.remove(file);
+                throw new PrometheusConfigException(file + ": " + e.getMessage(), e);
+            }
+        }
+
+        parsed.put(file, new Parsed<>(size, modified, checked, hash, value));
+        return value;
+    }
+
+    private static byte[] sha256(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is supported by every Java platform", e);
+        }
+    }
+
+    private static final class Parsed<T> {
+
+        private final long size;
+
+        private final long modified;
+
+        /**
+         * Time the file was read at.
+         */
+        private final long checked;
+
+        private final byte[] hash;
+
+        private final T value;
+
+        private Parsed(long size, long modified, long checked, byte[] hash, T value) {
+            this.size = size;
+            this.modified = modified;
+            this.checked = checked;
+            this.hash = hash;
+            this.value = value;
+        }
+
+    }
+
+    private final class ReadFiles extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Path> files;
+
+        private final Object[] results;
+
+        private final int from;
+
+        private final int to;
+
+        private ReadFiles(List<Path> files, Object[] results, int from, int to) {
+            this.files = files;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                try {
+                    results[from] = read(files.get(from));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new ReadFiles(files, results, from, middle), new ReadFiles(files, results, middle, to));
+        }
+
+    }
+
+}
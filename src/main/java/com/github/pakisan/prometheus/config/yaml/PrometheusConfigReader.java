@@ -0,0 +1,187 @@
+package com.github.pakisan.prometheus.config.yaml;
+
+import com.github.pakisan.prometheus.config.PrometheusConfig;
+import com.github.pakisan.prometheus.config.codec.ConfigCodec;
+import com.github.pakisan.prometheus.config.codec.ConfigCodecs;
+import com.github.pakisan.prometheus.config.scrape.PrometheusScrapeConfig;
+import org.yaml.snakeyaml.error.Mark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads Prometheus configuration from YAML.
+ * <p>
+ * YAML parse events are bound directly to configuration classes by generated codecs, without building an intermediate
+ * document tree, so reading a config costs about as much memory as the resulting {@link PrometheusConfig} itself.
+ * <p>
+ * Like Prometheus, reader rejects unknown fields.
+ *
+ * @since  1.0.0
+ * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/">CONFIGURATION</a>
+ * @author Pavel Bodiachevskii
+ */
+public class PrometheusConfigReader {
+
+    /**
+     * Reads Prometheus configuration file.
+     *
+     * @param path configuration file
+     * @return read configuration
+     * @throws IOException if the file can not be read
+     * @throws com.github.pakisan.prometheus.config.PrometheusConfigException if the file is not a valid configuration
+     */
+    public PrometheusConfig read(Path path) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return read(reader, PrometheusConfig.class);
+        }
+    }
+
+    /**
+     * Reads Prometheus configuration file, leaving scrape configs to be read on first access.
+     * <p>
+     * File is scanned once to read every other section and to index location and job_name of every scrape config.
+     * Block style files are indexed by their lines, without parsing scrape configs at all.
+     * Scrape configs are then read one by one, when they are accessed, from the memory mapped file.
+     * Looking up a few jobs in a huge configuration reads just these jobs:
+     * <pre>{@code
+     * PrometheusConfig config = reader.readLazily(path);
+     * PrometheusScrapeConfig node = ((LazyScrapeConfigs) config.getScrape_configs()).find("node");
+     * }</pre>
+     * Scrape configs which refer to anchors defined outside of them are read right away.
+     *
+     * @param path configuration file
+     * @return read configuration with {@link LazyScrapeConfigs} as scrape_configs
+     * @throws IOException if the file can not be read
+     * @throws com.github.pakisan.prometheus.config.PrometheusConfigException if the file is not a valid configuration
+     */
+    public PrometheusConfig readLazily(Path path) throws IOException {
+        ByteBuffer file;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        ConfigCodec<PrometheusConfig> codec = ConfigCodecs.of(PrometheusConfig.class);
+        ScrapeConfigsScanner scanner = new ScrapeConfigsScanner(file);
+        if (scanner.scan()) {
+            PrometheusConfig config = read(scanner.remainder(), PrometheusConfig.class);
+            LazyScrapeConfigs scrapeConfigs = scanner.scrapeConfigs();
+            if (scrapeConfigs != null && !scrapeConfigs.isEmpty()) {
+                config.setScrape_configs(scrapeConfigs);
+            }
+
+            return config;
+        }
+
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            YamlEventReader in = new YamlEventReader(reader);
+            PrometheusConfig config = codec.newInstance();
+            if (!in.beginDocument() || in.readNull()) {
+                return config;
+            }
+
+            in.beginObject();
+            String field;
+            while ((field = in.nextField()) != null) {
+                if ("scrape_configs".equals(field)) {
+                    config.setScrape_configs(in.readNull() ? null : indexScrapeConfigs(in, file));
+                } else {
+                    codec.readField(in, config, field);
+                }
+            }
+
+            return config;
+        }
+    }
+
+    /**
+     * Reads Prometheus configuration from UTF-8 encoded stream. Stream is not closed.
+     *
+     * @param in configuration
+     * @return read configuration
+     * @throws com.github.pakisan.prometheus.config.PrometheusConfigException if the stream is not a valid configuration
+     */
+    public PrometheusConfig read(InputStream in) {
+        return read(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)), PrometheusConfig.class);
+    }
+
+    /**
+     * Reads Prometheus configuration. Reader is not closed.
+     *
+     * @param reader configuration
+     * @return read configuration
+     * @throws com.github.pakisan.prometheus.config.PrometheusConfigException if the reader is not a valid configuration
+     */
+    public PrometheusConfig read(Reader reader) {
+        return read(reader, PrometheusConfig.class);
+    }
+
+    /**
+     * Reads any section of Prometheus configuration, for example a single scrape_config.
+     * <p>
+     * Empty document is read as a section with default values.
+     *
+     * @param reader section
+     * @param type section class
+     * @return read section
+     * @param <T> section type
+     * @throws com.github.pakisan.prometheus.config.PrometheusConfigException if the reader is not a valid section
+     */
+    public <T> T read(Reader reader, Class<T> type) {
+        YamlEventReader in = new YamlEventReader(reader);
+        ConfigCodec<T> codec = ConfigCodecs.of(type);
+        if (!in.beginDocument() || in.isNull()) {
+            return codec.newInstance();
+        }
+
+        return codec.read(in);
+    }
+
+    private static LazyScrapeConfigs indexScrapeConfigs(YamlEventReader in, ByteBuffer file) {
+        ConfigCodec<PrometheusScrapeConfig> codec = ConfigCodecs.of(PrometheusScrapeConfig.class);
+        LazyScrapeConfigs.Builder scrapeConfigs = new LazyScrapeConfigs.Builder(file);
+        in.beginList();
+        while (in.hasNext()) {
+            if (!in.isMapping()) {
+                scrapeConfigs.add(codec.read(in));
+                continue;
+            }
+
+            Mark start = in.mark();
+            int aliases = in.aliases();
+            in.beginCapture();
+            in.beginObject();
+            String jobName = null;
+            String field;
+            while ((field = in.nextField()) != null) {
+                if ("job_name".equals(field)) {
+                    jobName = in.readString();
+                } else {
+                    in.skipValue();
+                }
+            }
+
+            if (in.aliases() == aliases) {
+                in.endCapture();
+                scrapeConfigs.add(
+                        scrapeConfigs.byteOffset(start.getIndex()), scrapeConfigs.byteOffset(in.consumedEndMark().getIndex()),
+                        start.getColumn(), start.getLine(), jobName
+                );
+            } else {
+                scrapeConfigs.add(codec.read(new YamlEventReader(in.endCapture())));
+            }
+        }
+
+        return scrapeConfigs.build();
+    }
+
+}
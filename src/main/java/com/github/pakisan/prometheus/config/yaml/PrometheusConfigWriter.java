@@ -0,0 +1,67 @@
+package com.github.pakisan.prometheus.config.yaml;
+
+import com.github.pakisan.prometheus.config.PrometheusConfig;
+import com.github.pakisan.prometheus.config.codec.ConfigCodec;
+import com.github.pakisan.prometheus.config.codec.ConfigCodecs;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes Prometheus configuration as YAML.
+ * <p>
+ * Configuration is streamed to the output while it is walked, the document is never built in memory.
+ * Output is deterministic: fields are written in declaration order and map keys in natural order.
+ * Fields which are null or still hold their default value are skipped.
+ *
+ * @since  1.0.0
+ * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/">CONFIGURATION</a>
+ * @author Pavel Bodiachevskii
+ */
+public class PrometheusConfigWriter {
+
+    /**
+     * Writes Prometheus configuration file.
+     *
+     * @param config configuration
+     * @param path configuration file
+     * @throws IOException if the file can not be written
+     */
+    public void write(PrometheusConfig config, Path path) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            write(config, writer);
+        }
+    }
+
+    /**
+     * Writes any section of Prometheus configuration as UTF-8. Stream is flushed, but not closed.
+     *
+     * @param section configuration or any of its sections
+     * @param out output
+     * @throws IOException if the stream can not be written
+     */
+    public void write(Object section, OutputStream out) throws IOException {
+        write(section, new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes any section of Prometheus configuration. Writer is flushed, but not closed.
+     *
+     * @param section configuration or any of its sections
+     * @param writer output
+     * @throws IOException if the writer can not be written
+     */
+    public void write(Object section, Writer writer) throws IOException {
+        YamlEmitter out = new YamlEmitter(writer);
+        @SuppressWarnings("unchecked")
+        ConfigCodec<Object> codec = (ConfigCodec<Object>) ConfigCodecs.of(section.getClass());
+        codec.write(out, section);
+        out.flush();
+    }
+
+}
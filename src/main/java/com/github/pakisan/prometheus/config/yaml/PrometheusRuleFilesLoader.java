@@ -0,0 +1,83 @@
+package com.github.pakisan.prometheus.config.yaml;
+
+import com.github.pakisan.prometheus.config.PrometheusConfig;
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.rule.PrometheusRuleFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Loads rule files of rule_files.
+ * <p>
+ * Globs are resolved like Prometheus does: relative globs against the directory of the configuration file,
+ * matches of every glob in order of names. Matched files are read in parallel on a fork-join pool,
+ * the result keeps the order of globs and files, so it does not depend on the pool.
+ * <p>
+ * Loader keeps parsed files with hashes of their content, so loading again, after files were edited, parses only
+ * files whose content changed. Rule files which did not change are the same instances as before and must not
+ * be modified.
+ *
+ * @since  1.0.0
+ * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/recording_rules/">Defining recording rules</a>
+ * @author Pavel Bodiachevskii
+ */
+public class PrometheusRuleFilesLoader {
+
+    private final ForkJoinPool pool;
+
+    private final ParsedFiles<PrometheusRuleFile> parsedFiles = new ParsedFiles<>(PrometheusRuleFile.class);
+
+    /**
+     * Creates loader which reads files on the common fork-join pool.
+     */
+    public PrometheusRuleFilesLoader() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool pool to read files on
+     */
+    public PrometheusRuleFilesLoader(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Loads rule files of the configuration. File matched by several globs is loaded once.
+     *
+     * @param config configuration
+     * @param directory directory of the configuration file, to resolve relative globs against
+     * @return rule files by path, in order of globs and files
+     * @throws IOException if a matched file can not be read
+     * @throws PrometheusConfigException if a matched file is not valid
+     */
+    public Map<Path, PrometheusRuleFile> load(PrometheusConfig config, Path directory) throws IOException {
+        return load(new ArrayList<>(new LinkedHashSet<>(Globs.resolve(directory, config.getRule_files()))));
+    }
+
+    /**
+     * Loads rule files. Files loaded before but not among these files are forgotten.
+     *
+     * @param files rule files
+     * @return rule files by path, in order of files
+     * @throws IOException if a file can not be read
+     * @throws PrometheusConfigException if a file is not valid
+     */
+    public Map<Path, PrometheusRuleFile> load(List<Path> files) throws IOException {
+        List<PrometheusRuleFile> ruleFiles = parsedFiles.read(pool, files);
+
+        Map<Path, PrometheusRuleFile> loaded = new LinkedHashMap<>(files.size() * 4 / 3 + 1);
+        for (int i = 0; i < files.size(); i++) {
+            loaded.put(files.get(i), ruleFiles.get(i));
+        }
+
+        return loaded;
+    }
+
+}
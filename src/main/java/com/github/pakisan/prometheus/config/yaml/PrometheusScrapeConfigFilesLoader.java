@@ -0,0 +1,117 @@
+package com.github.pakisan.prometheus.config.yaml;
+
+import com.github.pakisan.prometheus.config.PrometheusConfig;
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.scrape.PrometheusScrapeConfig;
+import com.github.pakisan.prometheus.config.scrape.PrometheusScrapeConfigFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Loads scrape configs of scrape_config_files.
+ * <p>
+ * Globs are resolved like Prometheus does: relative globs against the directory of the configuration file,
+ * matches of every glob in order of names. Matched files are read in parallel on a fork-join pool and their
+ * scrape configs are appended to the scrape configs of the configuration in order of globs and files,
+ * so the result does not depend on the pool.
+ * <p>
+ * Like Prometheus, loader rejects scrape configs with the same job name.
+ * <p>
+ * Loader keeps parsed files with hashes of their content, so loading again, after files were edited, parses only
+ * files whose content changed. Scrape configs of unchanged files are the same instances as before and must not
+ * be modified.
+ *
+ * @since  1.0.0
+ * @see <a href="https://prometheus.io/docs/prometheus/latest/configuration/configuration/#configuration-file">Configuration file</a>
+ * @author Pavel Bodiachevskii
+ */
+public class PrometheusScrapeConfigFilesLoader {
+
+    private final ForkJoinPool pool;
+
+    private final ParsedFiles<PrometheusScrapeConfigFile> parsedFiles = new ParsedFiles<>(PrometheusScrapeConfigFile.class);
+
+    /**
+     * Creates loader which reads files on the common fork-join pool.
+     */
+    public PrometheusScrapeConfigFilesLoader() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool pool to read files on
+     */
+    public PrometheusScrapeConfigFilesLoader(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Loads all scrape configs of the configuration. Configuration is not changed.
+     *
+     * @param config configuration
+     * @param directory directory of the configuration file, to resolve relative globs against
+     * @return scrape configs of the configuration followed by scrape configs of scrape_config_files
+     * @throws IOException if a matched file can not be read
+     * @throws PrometheusConfigException if a matched file is not valid or job names are not unique
+     */
+    public List<PrometheusScrapeConfig> load(PrometheusConfig config, Path directory) throws IOException {
+        List<Path> files = Globs.resolve(directory, config.getScrape_config_files());
+        List<PrometheusScrapeConfigFile> scrapeConfigFiles = parsedFiles.read(pool, files);
+
+        List<PrometheusScrapeConfig> scrapeConfigs = new ArrayList<>();
+        List<Object> sources = new ArrayList<>();
+        if (config.getScrape_configs() != null) {
+            for (PrometheusScrapeConfig scrapeConfig : config.getScrape_configs()) {
+                scrapeConfigs.add(scrapeConfig);
+                sources.add("configuration");
+            }
+        }
+
+        for (int i = 0; i < files.size(); i++) {
+            List<PrometheusScrapeConfig> fileScrapeConfigs = scrapeConfigFiles.get(i).getScrape_configs();
+            if (fileScrapeConfigs == null) {
+                continue;
+            }
+
+            for (PrometheusScrapeConfig scrapeConfig : fileScrapeConfigs) {
+                scrapeConfigs.add(scrapeConfig);
+                sources.add(files.get(i));
+            }
+        }
+
+        checkJobNames(scrapeConfigs, sources);
+        return scrapeConfigs;
+    }
+
+    private static void checkJobNames(List<PrometheusScrapeConfig> scrapeConfigs, List<Object> sources) {
+        Map<String, Object> jobNames = new HashMap<>(scrapeConfigs.size() * 4 / 3 + 1);
+        StringBuilder duplicates = new StringBuilder();
+        for (int i = 0; i < scrapeConfigs.size(); i++) {
+            PrometheusScrapeConfig scrapeConfig = scrapeConfigs.get(i);
+            if (scrapeConfig == null || scrapeConfig.getJob_name() == null) {
+                continue;
+            }
+
+            Object source = jobNames.putIfAbsent(scrapeConfig.getJob_name(), sources.get(i));
+            if (source != null) {
+                if (duplicates.length() > 0) {
+                    duplicates.append("; ");
+                }
+
+                duplicates.append("found multiple scrape configs with job name \"").append(scrapeConfig.getJob_name())
+                        .append("\" in ").append(source).append(" and ").append(sources.get(i));
+            }
+        }
+
+        if (duplicates.length() > 0) {
+            throw new PrometheusConfigException(duplicates.toString());
+        }
+    }
+
+}
@@ -0,0 +1,431 @@
+package com.github.pakisan.prometheus.config.yaml;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Indexes scrape_configs of a configuration file by looking at its lines, without parsing YAML.
+ * <p>
+ * Configuration files are almost always written in block style: every top-level key starts a line at column 0
+ * and every scrape config starts with "- " at the same indentation. Scanner relies on exactly that and gives up
+ * on anything else, like flow collections spanning lines, tabs, anchors, aliases or several documents, so that
+ * such files are indexed by the parser instead.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+final class ScrapeConfigsScanner {
+
+    private static final byte[] SCRAPE_CONFIGS = "scrape_configs:".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] JOB_NAME = "job_name:".getBytes(StandardCharsets.US_ASCII);
+
+    private final ByteBuffer file;
+
+    private final int limit;
+
+    private final LazyScrapeConfigs.Builder scrapeConfigs;
+
+    /**
+     * Lines of scrape_configs value, after the key.
+     */
+    private int sectionStart = -1;
+
+    private int sectionEnd;
+
+    private int sectionLines;
+
+    private int itemIndent = -1;
+
+    /**
+     * Scrape config being scanned: byte offset, column and line of its first key, indentation of its keys.
+     */
+    private int itemStart = -1;
+
+    private int itemColumn;
+
+    private int itemLine;
+
+    private int keyIndent;
+
+    private String jobName;
+
+    ScrapeConfigsScanner(ByteBuffer file) {
+        this.file = file;
+        this.limit = file.limit();
+        this.scrapeConfigs = new LazyScrapeConfigs.Builder(file);
+    }
+
+    /**
+     * @return false if the file has to be indexed by the parser
+     */
+    boolean scan() {
+        int position = startsWith(0, new byte[] {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF}) ? 3 : 0;
+        boolean inSection = false;
+        boolean content = false;
+        for (int line = 0; position < limit; line++) {
+            int end = lineEnd(position);
+            int indent = position;
+            while (indent < end && file.get(indent) == ' ') {
+                indent++;
+            }
+
+            byte first = indent < end ? file.get(indent) : (byte) '\n';
+            if (first == '\t') {
+                return false;
+            }
+
+            boolean blank = first == '\n' || first == '\r' || first == '#';
+            if (!blank) {
+                if (hasNodeProperty(indent, end) || !isFlowClosed(indent, end)) {
+                    return false;
+                }
+
+                indent -= position;
+                if (inSection && indent == 0 && first != '-') {
+                    finishItem(position);
+                    sectionEnd = position;
+                    inSection = false;
+                }
+
+                if (inSection) {
+                    if (!scanItemLine(position, indent, end, line)) {
+                        return false;
+                    }
+                } else if (indent == 0) {
+                    if (isDocumentStart(position, end)) {
+                        if (content) {
+                            return false;
+                        }
+                    } else if (first == '-') {
+                        // item of a sequence written at the same indentation as its key
+                        if (!content) {
+                            return false;
+                        }
+                    } else if (!isKey(position, end)) {
+                        return false;
+                    }
+
+                    if (startsWith(position, SCRAPE_CONFIGS)) {
+                        if (sectionStart >= 0 || !isBlank(position + SCRAPE_CONFIGS.length, end)) {
+                            return false;
+                        }
+
+                        inSection = true;
+                        sectionStart = Math.min(end + 1, limit);
+                    }
+                }
+
+                content = true;
+            }
+
+            if (inSection && position >= sectionStart) {
+                sectionLines++;
+            }
+
+            position = end + 1;
+        }
+
+        if (inSection) {
+            finishItem(limit);
+            sectionEnd = limit;
+        }
+
+        return true;
+    }
+
+    /**
+     * @return scrape configs, or null if the file has none
+     */
+    LazyScrapeConfigs scrapeConfigs() {
+        return sectionStart < 0 ? null : scrapeConfigs.build();
+    }
+
+    /**
+     * @return the file with the value of scrape_configs replaced by blank lines, so that positions of
+     * the other sections stay the same
+     */
+    Reader remainder() {
+        if (sectionStart < 0) {
+            sectionStart = sectionEnd = limit;
+        }
+
+        byte[] remainder = new byte[sectionStart + sectionLines + limit - sectionEnd];
+        ByteBuffer bytes = file.duplicate();
+        bytes.position(0);
+        bytes.get(remainder, 0, sectionStart);
+        Arrays.fill(remainder, sectionStart, sectionStart + sectionLines, (byte) '\n');
+        bytes.position(sectionEnd);
+        bytes.get(remainder, sectionStart + sectionLines, limit - sectionEnd);
+
+        return new InputStreamReader(new ByteArrayInputStream(remainder), StandardCharsets.UTF_8);
+    }
+
+    private boolean scanItemLine(int position, int indent, int end, int line) {
+        int content = position + indent;
+        if (itemIndent < 0) {
+            itemIndent = indent;
+        }
+
+        if (indent < itemIndent) {
+            return false;
+        }
+
+        if (indent == itemIndent) {
+            if (file.get(content) != '-' || (content + 1 < end && file.get(content + 1) != ' ' && file.get(content + 1) != '\r')) {
+                return false;
+            }
+
+            finishItem(position);
+            int key = content + 1;
+            while (key < end && file.get(key) == ' ') {
+                key++;
+            }
+
+            if (isBlank(key, end)) {
+                // keys start on the next lines
+                itemStart = Math.min(end + 1, limit);
+                itemColumn = 0;
+                itemLine = line + 1;
+                keyIndent = -1;
+                return true;
+            }
+
+            itemStart = key;
+            itemColumn = key - position;
+            itemLine = line;
+            keyIndent = itemColumn;
+            return scanKey(key, end);
+        }
+
+        if (itemStart < 0) {
+            return false;
+        }
+
+        if (keyIndent < 0) {
+            keyIndent = indent;
+        }
+
+        // sequences may be written at the same indentation as their keys
+        return indent != keyIndent || file.get(content) == '-' || scanKey(content, end);
+    }
+
+    /**
+     * Reads job_name if the line holds it.
+     */
+    private boolean scanKey(int key, int end) {
+        if (!isKey(key, end)) {
+            return false;
+        }
+
+        if (jobName != null || !startsWith(key, JOB_NAME)) {
+            return true;
+        }
+
+        jobName = scalar(key + JOB_NAME.length, end);
+        return jobName != null;
+    }
+
+    private void finishItem(int end) {
+        if (itemStart >= 0) {
+            scrapeConfigs.add(itemStart, Math.max(itemStart, end), itemColumn, itemLine, jobName);
+        }
+
+        itemStart = -1;
+        jobName = null;
+    }
+
+    /**
+     * @return plain or quoted single line scalar, or null if the value is anything else
+     */
+    private String scalar(int start, int end) {
+        while (start < end && file.get(start) == ' ') {
+            start++;
+        }
+
+        if (start == end) {
+            return null;
+        }
+
+        byte quote = file.get(start);
+        if (quote == '\'' || quote == '"') {
+            StringBuilder value = new StringBuilder();
+            int i = start + 1;
+            int from = i;
+            while (i < end) {
+                byte c = file.get(i);
+                if (quote == '"' && c == '\\') {
+                    return null;
+                }
+
+                if (c == quote) {
+                    value.append(string(from, i));
+                    if (quote == '\'' && i + 1 < end && file.get(i + 1) == '\'') {
+                        value.append('\'');
+                        i += 2;
+                        from = i;
+                        continue;
+                    }
+
+                    return isBlank(i + 1, end) ? value.toString() : null;
+                }
+
+                i++;
+            }
+
+            return null;
+        }
+
+        if ("-?:,[]{}#&*!|>%@`".indexOf(quote) >= 0) {
+            return null;
+        }
+
+        int valueEnd = start;
+        for (int i = start; i < end; i++) {
+            byte c = file.get(i);
+            if (c == '#' && file.get(i - 1) == ' ') {
+                break;
+            }
+
+            if (c == ':' && (i + 1 == end || file.get(i + 1) == ' ')) {
+                return null;
+            }
+
+            if (c != ' ' && c != '\r') {
+                valueEnd = i + 1;
+            }
+        }
+
+        return string(start, valueEnd);
+    }
+
+    /**
+     * Anchors and aliases may tie scrape configs to each other or to other sections.
+     */
+    private boolean hasNodeProperty(int start, int end) {
+        for (int i = start; i < end; i++) {
+            byte c = file.get(i);
+            if (c == '&' || c == '*') {
+                int previous = i - 1;
+                while (previous >= start && file.get(previous) == ' ') {
+                    previous--;
+                }
+
+                if (previous < start || ":-[{,".indexOf(file.get(previous)) >= 0) {
+                    return true;
+                }
+            } else if (c == '#' && (i == start || file.get(i - 1) == ' ')) {
+                return false;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return false if the line opens a flow collection which is closed on one of the next lines
+     */
+    private boolean isFlowClosed(int start, int end) {
+        int depth = 0;
+        byte quote = 0;
+        for (int i = start; i < end; i++) {
+            byte c = file.get(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                } else if (c == '\\' && quote == '"') {
+                    i++;
+                }
+            } else if (c == '"' || (c == '\'' && (i == start || " [{,:".indexOf(file.get(i - 1)) >= 0))) {
+                quote = c;
+            } else if (c == '[' || c == '{') {
+                depth++;
+            } else if (c == ']' || c == '}') {
+                depth--;
+            } else if (c == '#' && (i == start || file.get(i - 1) == ' ')) {
+                break;
+            }
+        }
+
+        return depth <= 0 && quote == 0;
+    }
+
+    /**
+     * @return true if the line starts with a simple key, like scrape_interval:
+     */
+    private boolean isKey(int start, int end) {
+        if (isDocumentStart(start, end)) {
+            return true;
+        }
+
+        for (int i = start; i < end; i++) {
+            byte c = file.get(i);
+            if (c == ':') {
+                return i > start && (i + 1 == end || file.get(i + 1) == ' ' || file.get(i + 1) == '\r');
+            }
+
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_')) {
+                return false;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean isDocumentStart(int start, int end) {
+        return startsWith(start, new byte[] {'-', '-', '-'}) && isBlank(start + 3, end);
+    }
+
+    private boolean isBlank(int start, int end) {
+        for (int i = start; i < end; i++) {
+            byte c = file.get(i);
+            if (c == '#' && (i == start || file.get(i - 1) == ' ')) {
+                return true;
+            }
+
+            if (c != ' ' && c != '\r') {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean startsWith(int start, byte[] prefix) {
+        if (start + prefix.length > limit) {
+            return false;
+        }
+
+        for (int i = 0; i < prefix.length; i++) {
+            if (file.get(start + i) != prefix[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private int lineEnd(int start) {
+        for (int i = start; i < limit; i++) {
+            if (file.get(i) == '\n') {
+                return i;
+            }
+        }
+
+        return limit;
+    }
+
+    private String string(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        ByteBuffer slice = file.duplicate();
+        slice.position(start);
+        slice.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
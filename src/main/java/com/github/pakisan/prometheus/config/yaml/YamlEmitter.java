@@ -0,0 +1,388 @@
+package com.github.pakisan.prometheus.config.yaml;
+
+import com.github.pakisan.prometheus.config.codec.ConfigOutput;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Writes block style YAML straight to a {@link Writer}.
+ * <p>
+ * Emitter is driven by mapping, sequence and scalar events and keeps nothing but the current nesting, so documents
+ * of any size are written without being built in memory. Output is buffered internally, {@link #flush()} must be
+ * called once the document is complete.
+ * <p>
+ * Objects and maps are both written as YAML mappings.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+final class YamlEmitter implements ConfigOutput {
+
+    private static final int INDENT = 2;
+
+    private static final char[] SPACES = new char[64];
+
+    static {
+        Arrays.fill(SPACES, ' ');
+    }
+
+    private final Writer out;
+
+    private final char[] buffer = new char[8192];
+
+    private int position;
+
+    /*
+     * Open collections: kind, indentation of entries, written entries and whether the first entry continues
+     * current line ("- " of the parent sequence or the very beginning of the document).
+     */
+    private boolean[] mappings = new boolean[16];
+
+    private int[] indents = new int[16];
+
+    private int[] counts = new int[16];
+
+    private boolean[] inline = new boolean[16];
+
+    private int depth = -1;
+
+    YamlEmitter(Writer out) {
+        this.out = out;
+    }
+
+    void beginMapping() throws IOException {
+        beginCollection(true);
+    }
+
+    void endMapping() throws IOException {
+        endCollection("{}");
+    }
+
+    void beginSequence() throws IOException {
+        beginCollection(false);
+    }
+
+    void endSequence() throws IOException {
+        endCollection("[]");
+    }
+
+    /**
+     * Writes key of the current mapping. Must be followed by exactly one value.
+     */
+    @Override
+    public void key(String key) throws IOException {
+        beginEntry();
+        string(key);
+        write(':');
+    }
+
+    /**
+     * Writes string scalar, quoted if it would be read as something else.
+     */
+    void scalar(String value) throws IOException {
+        beginValue();
+        string(value);
+    }
+
+    /**
+     * Writes scalar which is known to be read back as is, like a number or a boolean.
+     */
+    void plain(String value) throws IOException {
+        beginValue();
+        write(value);
+    }
+
+    @Override
+    public void beginObject() throws IOException {
+        beginMapping();
+    }
+
+    @Override
+    public void field(String name) throws IOException {
+        key(name);
+    }
+
+    @Override
+    public void endObject() throws IOException {
+        endMapping();
+    }
+
+    @Override
+    public void beginMap(int size) throws IOException {
+        beginMapping();
+    }
+
+    @Override
+    public void endMap() throws IOException {
+        endMapping();
+    }
+
+    @Override
+    public void beginList(int size) throws IOException {
+        beginSequence();
+    }
+
+    @Override
+    public void endList() throws IOException {
+        endSequence();
+    }
+
+    @Override
+    public void writeNull() throws IOException {
+        plain("null");
+    }
+
+    @Override
+    public void writeString(String value) throws IOException {
+        scalar(value);
+    }
+
+    @Override
+    public void writeBoolean(boolean value) throws IOException {
+        plain(value ? "true" : "false");
+    }
+
+    @Override
+    public void writeInt(int value) throws IOException {
+        writeLong(value);
+    }
+
+    @Override
+    public void writeLong(long value) throws IOException {
+        beginValue();
+        if (value == Long.MIN_VALUE) {
+            write(Long.toString(value));
+            return;
+        }
+
+        if (value < 0) {
+            write('-');
+            value = -value;
+        }
+
+        long divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+
+        for (; divisor > 0; divisor /= 10) {
+            write((char) ('0' + value / divisor % 10));
+        }
+    }
+
+    @Override
+    public void writeFloat(float value) throws IOException {
+        if (Float.isNaN(value) || Float.isInfinite(value)) {
+            writeDouble(value);
+        } else {
+            plain(Float.toString(value));
+        }
+    }
+
+    @Override
+    public void writeDouble(double value) throws IOException {
+        if (Double.isNaN(value)) {
+            plain(".nan");
+        } else if (Double.isInfinite(value)) {
+            plain(value > 0 ? ".inf" : "-.inf");
+        } else {
+            plain(Double.toString(value));
+        }
+    }
+
+    /**
+     * Prometheus spells constants in lower case.
+     */
+    @Override
+    public void writeEnum(Enum<?> value) throws IOException {
+        beginValue();
+        String name = value.name();
+        for (int i = 0; i < name.length(); i++) {
+            write(Character.toLowerCase(name.charAt(i)));
+        }
+    }
+
+    void flush() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+
+        out.flush();
+    }
+
+    private void beginCollection(boolean mapping) throws IOException {
+        boolean inlineFirstEntry;
+        int indent;
+        if (depth < 0) {
+            inlineFirstEntry = true;
+            indent = 0;
+        } else if (mappings[depth]) {
+            inlineFirstEntry = false;
+            indent = indents[depth] + INDENT;
+        } else {
+            beginEntry();
+            write('-');
+            write(' ');
+            inlineFirstEntry = true;
+            indent = indents[depth] + INDENT;
+        }
+
+        push(mapping, indent, inlineFirstEntry);
+    }
+
+    private void endCollection(String empty) throws IOException {
+        boolean written = counts[depth] > 0;
+        depth--;
+        if (!written) {
+            if (depth >= 0 && mappings[depth]) {
+                write(' ');
+            }
+
+            write(empty);
+        }
+
+        if (depth < 0) {
+            newLine();
+        }
+    }
+
+    private void beginValue() throws IOException {
+        if (depth < 0) {
+            return;
+        }
+
+        if (mappings[depth]) {
+            write(' ');
+        } else {
+            beginEntry();
+            write('-');
+            write(' ');
+        }
+    }
+
+    private void beginEntry() throws IOException {
+        if (counts[depth]++ == 0 && inline[depth]) {
+            return;
+        }
+
+        newLine();
+        int indent = indents[depth];
+        while (indent > 0) {
+            int length = Math.min(indent, SPACES.length);
+            write(SPACES, length);
+            indent -= length;
+        }
+    }
+
+    private void push(boolean mapping, int indent, boolean inlineFirstEntry) {
+        depth++;
+        if (depth == mappings.length) {
+            mappings = Arrays.copyOf(mappings, depth * 2);
+            indents = Arrays.copyOf(indents, depth * 2);
+            counts = Arrays.copyOf(counts, depth * 2);
+            inline = Arrays.copyOf(inline, depth * 2);
+        }
+
+        mappings[depth] = mapping;
+        indents[depth] = indent;
+        counts[depth] = 0;
+        inline[depth] = inlineFirstEntry;
+    }
+
+    private void string(String value) throws IOException {
+        switch (YamlScalars.style(value)) {
+            case PLAIN:
+                write(value);
+                break;
+            case SINGLE_QUOTED:
+                write('\'');
+                for (int i = 0; i < value.length(); i++) {
+                    char c = value.charAt(i);
+                    if (c == '\'') {
+                        write('\'');
+                    }
+
+                    write(c);
+                }
+                write('\'');
+                break;
+            default:
+                write('"');
+                for (int i = 0; i < value.length(); i++) {
+                    escape(value.charAt(i));
+                }
+                write('"');
+        }
+    }
+
+    private void escape(char c) throws IOException {
+        switch (c) {
+            case '"':
+                write("\\\"");
+                break;
+            case '\\':
+                write("\\\\");
+                break;
+            case '\n':
+                write("\\n");
+                break;
+            case '\t':
+                write("\\t");
+                break;
+            case '\r':
+                write("\\r");
+                break;
+            default:
+                if (YamlScalars.isPrintable(c)) {
+                    write(c);
+                } else {
+                    write("\\u");
+                    for (int shift = 12; shift >= 0; shift -= 4) {
+                        write(Character.forDigit((c >> shift) & 0xF, 16));
+                    }
+                }
+        }
+    }
+
+    private void newLine() throws IOException {
+        write('\n');
+    }
+
+    private void write(char c) throws IOException {
+        if (position == buffer.length) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+
+        buffer[position++] = c;
+    }
+
+    private void write(String value) throws IOException {
+        int length = value.length();
+        if (length > buffer.length - position) {
+            out.write(buffer, 0, position);
+            position = 0;
+            if (length > buffer.length) {
+                out.write(value);
+                return;
+            }
+        }
+
+        value.getChars(0, length, buffer, position);
+        position += length;
+    }
+
+    private void write(char[] chars, int length) throws IOException {
+        if (length > buffer.length - position) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+
+        System.arraycopy(chars, 0, buffer, position, length);
+        position += length;
+    }
+
+}
@@ -0,0 +1,627 @@
+package com.github.pakisan.prometheus.config.yaml;
+
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.codec.ConfigInput;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.Mark;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.AliasEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.NodeEvent;
+import org.yaml.snakeyaml.events.ScalarEvent;
+
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Pull reader over YAML parse events.
+ * <p>
+ * Events are pulled from the parser one at a time, so only the current event and a single lookahead
+ * are kept in memory. Anchored nodes are the only exception: their events are recorded to be replayed
+ * for every alias that refers to them. Documents which read most of their events from aliases, like nested
+ * aliases which expand a few kilobytes to billions of events, are rejected as go-yaml rejects them.
+ * <p>
+ * Objects and maps are both read from YAML mappings. A single value is accepted where a list is expected,
+ * as a list of one item.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+final class YamlEventReader implements ConfigInput {
+
+    /**
+     * Short scalars, like label names, regexes or durations, repeat a lot across big configs.
+     */
+    private static final int DEDUPLICATED_SCALAR_LENGTH = 64;
+
+    /**
+     * Aliasing is not checked in documents of up to this number of events.
+     */
+    private static final int UNCHECKED_EVENTS = 1000;
+
+    /**
+     * Aliasing is not checked while up to this number of events is read from aliases.
+     */
+    private static final int UNCHECKED_ALIASED_EVENTS = 100;
+
+    private final Iterator<Event> events;
+
+    private final ArrayDeque<Event> replay = new ArrayDeque<>();
+
+    private final Map<String, List<Event>> anchors = new HashMap<>();
+
+    private final List<Recording> recordings = new ArrayList<>();
+
+    private final Map<String, String> scalars = new HashMap<>();
+
+    private Event lookahead;
+
+    private Event consumed;
+
+    /**
+     * Events pulled since {@link #beginCapture()}, or null.
+     */
+    private List<Event> capture;
+
+    private int aliases;
+
+    /**
+     * Events pulled so far, and how many of them were replayed for aliases.
+     */
+    private long pulled;
+
+    private long aliased;
+
+    /**
+     * Open lists: whether a single value is read as a list and whether that value is still unread.
+     */
+    private boolean[] singleValueLists = new boolean[16];
+
+    private boolean[] unreadSingleValues = new boolean[16];
+
+    private int lists;
+
+    private Mark keyMark;
+
+    /**
+     * Line of the source where the read document starts, for documents cut out of a bigger source.
+     */
+    private final int firstLine;
+
+    YamlEventReader(Reader reader) {
+        this(reader, 0);
+    }
+
+    YamlEventReader(Reader reader, int firstLine) {
+        this.firstLine = firstLine;
+
+        // Size of a document costs memory and time in proportion to it, aliases are limited by excessiveAliasing
+        LoaderOptions options = new LoaderOptions();
+        options.setCodePointLimit(Integer.MAX_VALUE);
+
+        this.events = new Yaml(options).parse(reader).iterator();
+    }
+
+    /**
+     * Reads events which were already parsed, see {@link #endCapture()}.
+     */
+    YamlEventReader(List<Event> events) {
+        this.events = events.iterator();
+        this.firstLine = 0;
+    }
+
+    /**
+     * Skips stream and document start events.
+     *
+     * @return false when the stream holds no document
+     */
+    boolean beginDocument() {
+        while (peek().is(Event.ID.StreamStart) || peek().is(Event.ID.DocumentStart)) {
+            next();
+        }
+
+        return !peek().is(Event.ID.StreamEnd) && !peek().is(Event.ID.DocumentEnd);
+    }
+
+    Event peek() {
+        if (lookahead == null) {
+            lookahead = pull();
+        }
+
+        return lookahead;
+    }
+
+    Event next() {
+        Event event = peek();
+        lookahead = null;
+        consumed = event;
+
+        return event;
+    }
+
+    /**
+     * @return end position of the last consumed event.
+     */
+    Mark consumedEndMark() {
+        return consumed.getEndMark();
+    }
+
+    /**
+     * @return number of aliases resolved so far.
+     */
+    int aliases() {
+        return aliases;
+    }
+
+    /**
+     * Starts recording events, beginning with the next one.
+     */
+    void beginCapture() {
+        capture = new ArrayList<>();
+        if (lookahead != null) {
+            capture.add(lookahead);
+        }
+    }
+
+    /**
+     * @return events consumed since {@link #beginCapture()}, with aliases resolved
+     */
+    List<Event> endCapture() {
+        List<Event> captured = capture;
+        capture = null;
+        if (lookahead != null) {
+            captured.remove(captured.size() - 1);
+        }
+
+        return captured;
+    }
+
+    /**
+     * @return true if the next value is a null scalar.
+     */
+    boolean isNull() {
+        Event event = peek();
+        if (!event.is(Event.ID.Scalar)) {
+            return false;
+        }
+
+        ScalarEvent scalar = (ScalarEvent) event;
+        if (!scalar.isPlain() || scalar.getTag() != null) {
+            return false;
+        }
+
+        String value = scalar.getValue();
+        return value.isEmpty() || "~".equals(value) || "null".equals(value) || "Null".equals(value) || "NULL".equals(value);
+    }
+
+    boolean isMapping() {
+        return peek().is(Event.ID.MappingStart);
+    }
+
+    boolean isSequence() {
+        return peek().is(Event.ID.SequenceStart);
+    }
+
+    boolean isScalar() {
+        return peek().is(Event.ID.Scalar);
+    }
+
+    void beginMapping() {
+        expect(Event.ID.MappingStart, "mapping");
+    }
+
+    /**
+     * Consumes the end of the current mapping if it is reached.
+     *
+     * @return true if the mapping has no more entries.
+     */
+    boolean endMapping() {
+        if (peek().is(Event.ID.MappingEnd)) {
+            next();
+            return true;
+        }
+
+        return false;
+    }
+
+    void beginSequence() {
+        expect(Event.ID.SequenceStart, "sequence");
+    }
+
+    /**
+     * Consumes the end of the current sequence if it is reached.
+     *
+     * @return true if the sequence has no more items.
+     */
+    boolean endSequence() {
+        if (peek().is(Event.ID.SequenceEnd)) {
+            next();
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Reads the scalar value. Null scalars are returned as null.
+     */
+    String readScalar() {
+        if (isNull()) {
+            next();
+            return null;
+        }
+
+        Event event = expect(Event.ID.Scalar, "scalar");
+        String value = ((ScalarEvent) event).getValue();
+        if (value.length() > DEDUPLICATED_SCALAR_LENGTH) {
+            return value;
+        }
+
+        String known = scalars.putIfAbsent(value, value);
+        return known != null ? known : value;
+    }
+
+    /**
+     * @return position of the next event.
+     */
+    Mark mark() {
+        return peek().getStartMark();
+    }
+
+    PrometheusConfigException error(String message) {
+        return error(mark(), message);
+    }
+
+    PrometheusConfigException error(Mark mark, String message) {
+        if (mark == null) {
+            return new PrometheusConfigException(message);
+        }
+
+        return new PrometheusConfigException(
+                "line " + (firstLine + mark.getLine() + 1) + ", column " + (mark.getColumn() + 1) + ": " + message
+        );
+    }
+
+    @Override
+    public boolean readNull() {
+        if (isNull()) {
+            next();
+            return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    public void beginObject() {
+        beginMapping();
+    }
+
+    @Override
+    public String nextField() {
+        return nextKey();
+    }
+
+    @Override
+    public void beginMap() {
+        beginMapping();
+    }
+
+    @Override
+    public String nextKey() {
+        if (endMapping()) {
+            return null;
+        }
+
+        keyMark = mark();
+        String key = readScalar();
+        if (key == null) {
+            throw error(keyMark, "null key");
+        }
+
+        return key;
+    }
+
+    @Override
+    public void beginList() {
+        if (lists == singleValueLists.length) {
+            singleValueLists = Arrays.copyOf(singleValueLists, lists * 2);
+            unreadSingleValues = Arrays.copyOf(unreadSingleValues, lists * 2);
+        }
+
+        boolean sequence = isSequence();
+        if (sequence) {
+            next();
+        }
+
+        singleValueLists[lists] = !sequence;
+        unreadSingleValues[lists] = !sequence;
+        lists++;
+    }
+
+    @Override
+    public boolean hasNext() {
+        int list = lists - 1;
+        if (singleValueLists[list]) {
+            if (unreadSingleValues[list]) {
+                unreadSingleValues[list] = false;
+                return true;
+            }
+
+            lists--;
+            return false;
+        }
+
+        if (endSequence()) {
+            lists--;
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public String readString() {
+        return readScalar();
+    }
+
+    @Override
+    public boolean readBoolean() {
+        Mark mark = mark();
+        String value = readNotNullScalar("boolean");
+        switch (value) {
+            case "true": case "True": case "TRUE":
+            case "yes": case "Yes": case "YES":
+            case "on": case "On": case "ON":
+                return true;
+            case "false": case "False": case "FALSE":
+            case "no": case "No": case "NO":
+            case "off": case "Off": case "OFF":
+                return false;
+            default:
+                throw error(mark, "can not read '" + value + "' as boolean");
+        }
+    }
+
+    @Override
+    public int readInt() {
+        Mark mark = mark();
+        String value = readNotNullScalar("int");
+        try {
+            return Integer.parseInt(value.replace("_", ""));
+        } catch (NumberFormatException e) {
+            throw error(mark, "can not read '" + value + "' as int");
+        }
+    }
+
+    @Override
+    public long readLong() {
+        Mark mark = mark();
+        String value = readNotNullScalar("long");
+        try {
+            return Long.parseLong(value.replace("_", ""));
+        } catch (NumberFormatException e) {
+            throw error(mark, "can not read '" + value + "' as long");
+        }
+    }
+
+    @Override
+    public float readFloat() {
+        return (float) readDouble();
+    }
+
+    @Override
+    public double readDouble() {
+        Mark mark = mark();
+        String value = readNotNullScalar("float");
+        switch (value) {
+            case ".inf": case ".Inf": case ".INF": case "+.inf": case "+.Inf": case "+.INF":
+                return Double.POSITIVE_INFINITY;
+            case "-.inf": case "-.Inf": case "-.INF":
+                return Double.NEGATIVE_INFINITY;
+            case ".nan": case ".NaN": case ".NAN":
+                return Double.NaN;
+            default:
+                try {
+                    return Double.parseDouble(value.replace("_", ""));
+                } catch (NumberFormatException e) {
+                    throw error(mark, "can not read '" + value + "' as float");
+                }
+        }
+    }
+
+    /**
+     * Prometheus spells constants in lower case, but accepts any case for some of them.
+     */
+    @Override
+    public <E extends Enum<E>> E readEnum(E[] constants) {
+        Mark mark = mark();
+        String value = readScalar();
+        if (value == null) {
+            return null;
+        }
+
+        for (E constant : constants) {
+            if (constant.name().equalsIgnoreCase(value)) {
+                return constant;
+            }
+        }
+
+        String type = constants.length > 0 ? constants[0].getDeclaringClass().getSimpleName() : "constant";
+        throw error(mark, "unknown " + type + " '" + value + "'");
+    }
+
+    /**
+     * Skips the next value, with all nested values.
+     */
+    @Override
+    public void skipValue() {
+        int depth = 0;
+        do {
+            Event event = next();
+            if (event.is(Event.ID.MappingStart) || event.is(Event.ID.SequenceStart)) {
+                depth++;
+            } else if (event.is(Event.ID.MappingEnd) || event.is(Event.ID.SequenceEnd)) {
+                depth--;
+            }
+        } while (depth > 0);
+    }
+
+    @Override
+    public PrometheusConfigException unknownField(String field, Class<?> type) {
+        return error(keyMark, "field " + field + " not found in " + type.getSimpleName());
+    }
+
+    private String readNotNullScalar(String type) {
+        Mark mark = mark();
+        String value = readScalar();
+        if (value == null) {
+            throw error(mark, "expected " + type + " but found null");
+        }
+
+        return value;
+    }
+
+    private Event expect(Event.ID id, String description) {
+        Event event = peek();
+        if (!event.is(id)) {
+            throw error("expected " + description + " but found " + describe(event));
+        }
+
+        return next();
+    }
+
+    private static String describe(Event event) {
+        switch (event.getEventId()) {
+            case MappingStart:
+                return "mapping";
+            case SequenceStart:
+                return "sequence";
+            case Scalar:
+                return "scalar '" + ((ScalarEvent) event).getValue() + "'";
+            default:
+                return "end of " + event.getEventId().name().replace("End", "").toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private Event pull() {
+        Event event;
+        boolean replayed = !replay.isEmpty();
+        if (replayed) {
+            event = replay.poll();
+        } else {
+            if (!events.hasNext()) {
+                throw new PrometheusConfigException("unexpected end of document");
+            }
+
+            try {
+                event = events.next();
+            } catch (YAMLException e) {
+                throw new PrometheusConfigException(e.getMessage(), e);
+            }
+
+            if (event instanceof AliasEvent) {
+                String anchor = ((AliasEvent) event).getAnchor();
+                List<Event> anchored = anchors.get(anchor);
+                if (anchored == null) {
+                    throw error(event.getStartMark(), "unknown anchor '" + anchor + "'");
+                }
+
+                replay.addAll(anchored);
+                event = replay.poll();
+                replayed = true;
+                aliases++;
+            }
+        }
+
+        pulled++;
+        if (replayed && ++aliased > UNCHECKED_ALIASED_EVENTS && pulled > UNCHECKED_EVENTS
+                && aliased > pulled * allowedAliasRatio(pulled)) {
+            throw error(event.getStartMark(), "document contains excessive aliasing");
+        }
+
+        record(event, replayed);
+        if (capture != null) {
+            capture.add(event);
+        }
+
+        return event;
+    }
+
+    /**
+     * Share of events which may be read from aliases, like go-yaml allows: nested aliases can expand
+     * a small document to billions of events.
+     *
+     * @param events events read so far
+     * @return 0.99 up to 400 000 events, decreasing to 0.1 at 4 000 000 events and more
+     */
+    private static double allowedAliasRatio(long events) {
+        if (events <= 400_000) {
+            return 0.99;
+        }
+        if (events >= 4_000_000) {
+            return 0.1;
+        }
+
+        return 0.99 - 0.89 * ((double) (events - 400_000) / 3_600_000);
+    }
+
+    private void record(Event event, boolean replayed) {
+        for (int i = recordings.size() - 1; i >= 0; i--) {
+            Recording recording = recordings.get(i);
+            if (recording.append(event)) {
+                anchors.put(recording.anchor, recording.events);
+                recordings.remove(i);
+            }
+        }
+
+        if (!replayed && event instanceof NodeEvent && ((NodeEvent) event).getAnchor() != null) {
+            Recording recording = new Recording(((NodeEvent) event).getAnchor());
+            if (recording.append(event)) {
+                anchors.put(recording.anchor, recording.events);
+            } else {
+                recordings.add(recording);
+            }
+        }
+    }
+
+    /**
+     * Events of an anchored node.
+     */
+    private static final class Recording {
+
+        private final String anchor;
+
+        private final List<Event> events = new ArrayList<>();
+
+        private int depth;
+
+        private Recording(String anchor) {
+            this.anchor = anchor;
+        }
+
+        /**
+         * @return true when the anchored node is complete.
+         */
+        private boolean append(Event event) {
+            events.add(event);
+            if (event.is(Event.ID.MappingStart) || event.is(Event.ID.SequenceStart)) {
+                depth++;
+            } else if (event.is(Event.ID.MappingEnd) || event.is(Event.ID.SequenceEnd)) {
+                depth--;
+            }
+
+            return depth == 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,135 @@
+package com.github.pakisan.prometheus.config.yaml;
+
+/**
+ * Chooses how string scalars are written.
+ * <p>
+ * Plain style is used whenever the value is read back as the same string by YAML 1.1 and 1.2 parsers,
+ * otherwise value is single quoted, or double quoted if it contains characters which must be escaped.
+ *
+ * @since  1.0.0
+ * @author Pavel Bodiachevskii
+ */
+final class YamlScalars {
+
+    enum Style {
+        PLAIN,
+        SINGLE_QUOTED,
+        DOUBLE_QUOTED
+    }
+
+    private static final String INDICATORS = "-?:,[]{}#&*!|>'\"%@`";
+
+    private YamlScalars() {
+    }
+
+    static Style style(String value) {
+        int length = value.length();
+        if (length == 0) {
+            return Style.SINGLE_QUOTED;
+        }
+
+        boolean quoted = false;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (!isPrintable(c) || c == '\n' || c == '\t' || c == '\r') {
+                return Style.DOUBLE_QUOTED;
+            }
+
+            if (c == ':' && (i + 1 == length || value.charAt(i + 1) == ' ')) {
+                quoted = true;
+            } else if (c == '#' && i > 0 && value.charAt(i - 1) == ' ') {
+                quoted = true;
+            }
+        }
+
+        char first = value.charAt(0);
+        if (quoted
+                || INDICATORS.indexOf(first) >= 0
+                || first == ' '
+                || value.charAt(length - 1) == ' '
+                || isReserved(value)
+                || isNumber(value)) {
+            return Style.SINGLE_QUOTED;
+        }
+
+        return Style.PLAIN;
+    }
+
+    /**
+     * @return true if character can be written as is.
+     */
+    static boolean isPrintable(char c) {
+        return (c >= 0x20 && c < 0x7F)
+                || c == '\n' || c == '\t' || c == '\r'
+                || (c >= 0xA0 && c != 0xFEFF && c != 0x2028 && c != 0x2029 && c != 0xFFFE && c != 0xFFFF);
+    }
+
+    /**
+     * Null and boolean spellings of YAML 1.1.
+     */
+    private static boolean isReserved(String value) {
+        switch (value) {
+            case "~":
+            case "null": case "Null": case "NULL":
+            case "y": case "Y": case "yes": case "Yes": case "YES":
+            case "n": case "N": case "no": case "No": case "NO":
+            case "true": case "True": case "TRUE":
+            case "false": case "False": case "FALSE":
+            case "on": case "On": case "ON":
+            case "off": case "Off": case "OFF":
+            case "<<": case "=":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Conservatively detects integers, floats and sexagesimal numbers, in any base.
+     */
+    private static boolean isNumber(String value) {
+        int i = 0;
+        int length = value.length();
+        char first = value.charAt(0);
+        if (first == '+' || first == '-') {
+            i++;
+        }
+
+        if (i == length) {
+            return false;
+        }
+
+        if (value.charAt(i) == '.') {
+            String special = value.substring(i + 1);
+            if (special.equalsIgnoreCase("inf") || special.equalsIgnoreCase("nan")) {
+                return true;
+            }
+        }
+
+        if (value.charAt(i) == '0' && i + 1 < length) {
+            char base = value.charAt(i + 1);
+            if (base == 'x' || base == 'X' || base == 'o' || base == 'O' || base == 'b' || base == 'B') {
+                for (int j = i + 2; j < length; j++) {
+                    if (Character.digit(value.charAt(j), 16) < 0 && value.charAt(j) != '_') {
+                        return false;
+                    }
+                }
+
+                return true;
+            }
+        }
+
+        boolean digits = false;
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits = true;
+            } else if (c != '_' && c != '.' && c != ':' && c != 'e' && c != 'E' && c != '+' && c != '-') {
+                return false;
+            }
+        }
+
+        return digits;
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.github.pakisan.prometheus.config.relabel;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Checks {@link Backtracker}, {@link PikeVm} and {@link LazyDfa} against submatches of RE2 as Go implements it,
+ * which Prometheus relabels with, and against each other.
+ * <p>
+ * Loops whose body matches empty string report submatches of RE2, not of {@link java.util.regex.Pattern}:
+ * RE2 compiles x* as (x+)? when x matches empty string, and never enters an instruction twice at the same position,
+ * so iteration which would match empty string is not taken and groups keep submatches of the previous one.
+ *
+ * @author Pavel Bodiachevskii
+ */
+class RegexEnginesTest {
+
+    private static final String[] REGEXES = {
+            "(|a)*", "(|a)+", "(a|)*", "(a*)*", "(a*)+", "(a*)+?", "(a*?)*", "(a?)*", "(a??)*", "(a*|b)*",
+            "(()|a)+", "((a)|b)*", "((a)|(b))+", "(a|ab)(b*)", "(a+)(a*)", "(a*?)(a*)", "(?:a|b)*?b", "(a{2,3})*",
+            "(a|b){2}(b)?", "a*b*", "(?i)A+(b)", "(?U)(a+)(a*)", "\\ba(.*)", "(a|b)*\\B", "(^|a)+", "(a|$)+b?",
+            "((a*)*b)*", "(a*)*(b|$)*", "[ab]{0,3}(b+)?", ".*(a)"
+    };
+
+    @Test
+    void emptyLoopSubmatches() {
+        assertSubmatches("(|a)*", "aa", 0, 2, 1, 2);
+        assertSubmatches("(|a)+", "aa", 0, 2, 1, 2);
+        assertSubmatches("(a|)*", "aa", 0, 2, 1, 2);
+        assertSubmatches("(|a)*?", "aa", 0, 2, 1, 2);
+        assertSubmatches("(a*)*", "", 0, 0, 0, 0);
+        assertSubmatches("(a*)*", "aa", 0, 2, 0, 2);
+        assertSubmatches("(a*)+", "aa", 0, 2, 0, 2);
+        assertSubmatches("(a*)+?", "aa", 0, 2, 0, 2);
+        assertSubmatches("(a*?)*", "aa", 0, 2, 0, 2);
+        assertSubmatches("(a?)*", "aa", 0, 2, 1, 2);
+        assertSubmatches("(a??)*", "aa", 0, 2, 1, 2);
+        assertSubmatches("(a*|b)*", "ab", 0, 2, 1, 2);
+        assertSubmatches("(()|a)+", "aa", 0, 2, 1, 2, -1, -1);
+        assertSubmatches("((a)|b)*", "ab", 0, 2, 1, 2, 0, 1);
+        assertSubmatches("(a*)*", "b", (int[]) null);
+    }
+
+    @Test
+    void enginesAgree() {
+        List<String> texts = texts("ab", 6);
+        texts.add("a\nb");
+        texts.add("A_b");
+        for (String regex : REGEXES) {
+            NfaProgram program = program(regex);
+            LazyDfa dfa = LazyDfa.of(program);
+            for (String text : texts) {
+                int[] backtracked = run(new Backtracker(program), program, text);
+                int[] simulated = run(new PikeVm(program), program, text);
+                String description = "regex " + regex + ", text \"" + text + "\"";
+                assertArrayEquals(backtracked, simulated, description);
+                assertArrayEquals(backtracked, RelabelRegex.compile(regex).match(text), description);
+                if (dfa != null) {
+                    int result = dfa.matches(text);
+                    if (result != LazyDfa.UNKNOWN) {
+                        assertEquals(backtracked != null, result == LazyDfa.MATCH_FOUND, description);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void automatonRunsAnchoredProgramsWithoutWordBoundaries() {
+        assertNotNull(LazyDfa.of(program("(a*)*(b|$)*")));
+        assertEquals(null, LazyDfa.of(program("\\ba(.*)")));
+        assertNotEquals(LazyDfa.UNKNOWN, LazyDfa.of(program("(|a)*")).matches("aaaa"));
+    }
+
+    private static void assertSubmatches(String regex, String text, int... expected) {
+        NfaProgram program = program(regex);
+        String description = "regex " + regex + ", text \"" + text + "\"";
+        assertArrayEquals(expected, run(new Backtracker(program), program, text), "backtracker, " + description);
+        assertArrayEquals(expected, run(new PikeVm(program), program, text), "pike vm, " + description);
+        assertArrayEquals(expected, RelabelRegex.compile(regex).match(text), description);
+    }
+
+    private static int[] run(Backtracker backtracker, NfaProgram program, String text) {
+        int[] groups = new int[(program.groupCount + 1) * 2];
+        return backtracker.run(text, groups) ? groups : null;
+    }
+
+    private static int[] run(PikeVm vm, NfaProgram program, String text) {
+        int[] groups = new int[(program.groupCount + 1) * 2];
+        return vm.run(text, groups) ? groups : null;
+    }
+
+    /**
+     * @return program of relabel regex, anchored like {@link RelabelRegex} anchors it
+     */
+    private static NfaProgram program(String regex) {
+        return NfaCompiler.compile(Re2Translator.translate("^(?s:" + regex + ")$").pattern(), regex);
+    }
+
+    /**
+     * @return all texts of the letters, up to the length
+     */
+    private static List<String> texts(String letters, int length) {
+        List<String> texts = new ArrayList<>(Arrays.asList(""));
+        for (int from = 0, to = 1; length-- > 0; from = to, to = texts.size()) {
+            for (int i = from; i < to; i++) {
+                for (char letter : letters.toCharArray()) {
+                    texts.add(texts.get(i) + letter);
+                }
+            }
+        }
+
+        return texts;
+    }
+
+}
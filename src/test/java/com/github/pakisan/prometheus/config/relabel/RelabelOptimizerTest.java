@@ -0,0 +1,251 @@
+package com.github.pakisan.prometheus.config.relabel;
+
+import com.github.pakisan.prometheus.config.PrometheusRelabelConfig;
+import com.github.pakisan.prometheus.config.PrometheusRelabelConfig.Action;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Every optimized list is checked to relabel label sets exactly like the list it was optimized from.
+ *
+ * @author Pavel Bodiachevskii
+ */
+class RelabelOptimizerTest {
+
+    private static final String[] NAMES = {"a", "b", "c", "d"};
+
+    private static final String[] VALUES = {"x", "y", "z", "xa", "X", "1", "0"};
+
+    @Test
+    void mergesAdjacentDrops() {
+        List<PrometheusRelabelConfig> configs = Arrays.asList(
+                config(Action.DROP, "a", null, "x.*", null),
+                config(Action.DROP, "a", null, "y|z", null),
+                config(Action.DROP, "a", null, "1", null)
+        );
+
+        List<PrometheusRelabelConfig> optimized = assertEquivalent(configs);
+        assertEquals(1, optimized.size());
+        assertEquals("(?:x.*)|(?:(?:y|z)|(?:1))", optimized.get(0).getRegex());
+    }
+
+    @Test
+    void doesNotMergeDropsWithGroupsOfTheSameName() {
+        List<PrometheusRelabelConfig> configs = Arrays.asList(
+                config(Action.DROP, "a", null, "(?P<g>x).*", null),
+                config(Action.DROP, "a", null, "(?P<g>y)", null)
+        );
+
+        assertEquals(2, assertEquivalent(configs).size());
+    }
+
+    @Test
+    void removesRepeatedKeepsOnly() {
+        List<PrometheusRelabelConfig> configs = Arrays.asList(
+                config(Action.KEEP, "a", null, "x.*", null),
+                config(Action.KEEP, "a", null, "x.*", null),
+                config(Action.KEEP, "a", null, ".*a", null)
+        );
+
+        assertEquals(2, assertEquivalent(configs).size());
+    }
+
+    @Test
+    void removesNoOps() {
+        PrometheusRelabelConfig drop = config(Action.DROP, "a", null, "x", null);
+        List<PrometheusRelabelConfig> configs = Arrays.asList(
+                config(Action.REPLACE, "b", "b", null, null),
+                config(Action.KEEP, "a", null, ".*", null),
+                drop,
+                config(Action.LABELKEEP, null, null, "(.*)", null)
+        );
+
+        List<PrometheusRelabelConfig> optimized = assertEquivalent(configs);
+        assertEquals(Collections.singletonList(drop), optimized);
+        assertSame(drop, optimized.get(0));
+    }
+
+    @Test
+    void keepsSelfCopyMappedByLabelmap() {
+        List<PrometheusRelabelConfig> configs = Arrays.asList(
+                config(Action.REPLACE, "a", "a", null, null),
+                config(Action.LABELMAP, null, null, "(a|b)", "c")
+        );
+
+        assertEquals(2, assertEquivalent(configs).size());
+    }
+
+    @Test
+    void removesDeadWrites() {
+        List<PrometheusRelabelConfig> configs = Arrays.asList(
+                config(Action.REPLACE, "a", "d", "(x)(.*)", "$2"),
+                config(Action.LOWERCASE, "b", "c", null, null),
+                config(Action.LABELDROP, null, null, "d", null),
+                config(Action.UPPERCASE, "a", "c", null, null)
+        );
+
+        List<PrometheusRelabelConfig> optimized = assertEquivalent(configs);
+        assertEquals(Arrays.asList(configs.get(2), configs.get(3)), optimized);
+    }
+
+    @Test
+    void keepsOverwrittenWritesMappedByLabelmap() {
+        // labelmap walks labels in order they were written, the last label mapped to c wins
+        PrometheusRelabelConfig hashmod = config(Action.HASHMOD, "a", "d", null, null);
+        hashmod.setModulus(3);
+        List<PrometheusRelabelConfig> configs = Arrays.asList(
+                config(Action.LOWERCASE, "b", "d", null, null),
+                config(Action.REPLACE, "a", "b", null, null),
+                hashmod,
+                config(Action.LABELMAP, null, null, "(b|d)", "c")
+        );
+
+        assertEquals(4, assertEquivalent(configs).size());
+    }
+
+    @Test
+    void hoistsFiltersOverConfigsWhichDoNotWriteWhatTheyRead() {
+        List<PrometheusRelabelConfig> configs = Arrays.asList(
+                config(Action.REPLACE, "a", "b", "(x)(.*)", "$2"),
+                config(Action.UPPERCASE, "a", "c", null, null),
+                config(Action.KEEPEQUAL, "a", "d", null, null),
+                config(Action.DROP, "c", null, "X.*", null)
+        );
+
+        List<PrometheusRelabelConfig> optimized = assertEquivalent(configs);
+        assertEquals(Arrays.asList(configs.get(2), configs.get(0), configs.get(1), configs.get(3)), optimized);
+    }
+
+    @Test
+    void doesNotHoistKeepequalOverWriteOfItsTarget() {
+        List<PrometheusRelabelConfig> configs = Arrays.asList(
+                config(Action.LOWERCASE, "b", "d", null, null),
+                config(Action.LABELMAP, null, null, "(c)", "a"),
+                config(Action.KEEPEQUAL, "a", "d", null, null)
+        );
+
+        assertEquals(configs, assertEquivalent(configs));
+    }
+
+    @Test
+    void randomConfigs() {
+        Random random = new Random(24);
+        for (int i = 0; i < 3000; i++) {
+            List<PrometheusRelabelConfig> configs = new ArrayList<>();
+            for (int size = 1 + random.nextInt(10); configs.size() < size; ) {
+                configs.add(randomConfig(random));
+            }
+
+            assertEquivalent(configs);
+        }
+    }
+
+    /**
+     * @return optimized configs, after they are checked to relabel label sets like the configs
+     */
+    private static List<PrometheusRelabelConfig> assertEquivalent(List<PrometheusRelabelConfig> configs) {
+        List<PrometheusRelabelConfig> optimized = RelabelOptimizer.optimize(configs);
+        RelabelProgram program = RelabelProgram.compile(configs);
+        RelabelProgram optimizedProgram = RelabelProgram.compile(optimized);
+        for (LabelSet labels : labelSets()) {
+            assertEquals(program.apply(labels), optimizedProgram.apply(labels), () -> "labels " + labels
+                    + ", configs " + describe(configs) + ", optimized " + describe(optimized));
+        }
+
+        return optimized;
+    }
+
+    /**
+     * @return label sets of every combination of labels a, b, c and d, with values chosen by a fixed seed
+     */
+    private static List<LabelSet> labelSets() {
+        Random random = new Random(7);
+        List<LabelSet> labelSets = new ArrayList<>();
+        for (int round = 0; round < 4; round++) {
+            for (int mask = 0; mask < 1 << NAMES.length; mask++) {
+                List<String> labels = new ArrayList<>();
+                for (int i = 0; i < NAMES.length; i++) {
+                    if ((mask & 1 << i) != 0) {
+                        labels.add(NAMES[i]);
+                        labels.add(VALUES[random.nextInt(VALUES.length)]);
+                    }
+                }
+                labelSets.add(LabelSet.of(labels.toArray(new String[0])));
+            }
+        }
+
+        return labelSets;
+    }
+
+    private static PrometheusRelabelConfig randomConfig(Random random) {
+        String[] valueRegexes = {"(.*)", ".*", "x.*", "y|z", "", "(x)(.*)", ".+", "(?P<g>x)", "(?:x|y)(.*)"};
+        String[] nameRegexes = {"a", "b|c", "(.)", "d", ".*", "(a|d)", "z"};
+        String name = pick(random, NAMES);
+        switch (random.nextInt(11)) {
+            case 0:
+            case 1:
+                return config(Action.REPLACE, sources(random), random.nextInt(6) == 0 ? "${1}" : name,
+                        pick(random, valueRegexes), pick(random, new String[]{"$1", "x", "", "y$2"}));
+            case 2:
+                return config(Action.REPLACE, name, name, null, null);
+            case 3:
+            case 4:
+                return config(Action.DROP, sources(random), null, pick(random, valueRegexes), null);
+            case 5:
+                return config(Action.KEEP, sources(random), null, pick(random, valueRegexes), null);
+            case 6:
+                return config(random.nextBoolean() ? Action.LABELDROP : Action.LABELKEEP, null, null,
+                        pick(random, nameRegexes), null);
+            case 7:
+                return config(Action.LABELMAP, null, null, pick(random, nameRegexes),
+                        pick(random, new String[]{"a", "$1", "d", "c"}));
+            case 8:
+                return config(random.nextBoolean() ? Action.KEEPEQUAL : Action.DROPEQUAL, sources(random), name,
+                        null, null);
+            case 9:
+                PrometheusRelabelConfig hashmod = config(Action.HASHMOD, sources(random), name, null, null);
+                hashmod.setModulus(3);
+                return hashmod;
+            default:
+                return config(random.nextBoolean() ? Action.LOWERCASE : Action.UPPERCASE, sources(random), name,
+                        null, null);
+        }
+    }
+
+    private static String sources(Random random) {
+        return random.nextBoolean() ? pick(random, NAMES) : pick(random, NAMES) + "," + pick(random, NAMES);
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static PrometheusRelabelConfig config(Action action, String sourceLabels, String targetLabel,
+                                                  String regex, String replacement) {
+        return PrometheusRelabelConfig.builder()
+                .source_labels(sourceLabels == null ? null : Arrays.asList(sourceLabels.split(",")))
+                .target_label(targetLabel)
+                .regex(regex)
+                .replacement(replacement)
+                .action(action)
+                .build();
+    }
+
+    private static String describe(List<PrometheusRelabelConfig> configs) {
+        StringBuilder description = new StringBuilder();
+        for (PrometheusRelabelConfig config : configs) {
+            description.append("\n  ").append(config);
+        }
+
+        return description.toString();
+    }
+
+}
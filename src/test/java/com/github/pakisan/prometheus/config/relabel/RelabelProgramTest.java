@@ -0,0 +1,133 @@
+package com.github.pakisan.prometheus.config.relabel;
+
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.PrometheusRelabelConfig;
+import com.github.pakisan.prometheus.config.PrometheusRelabelConfig.Action;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Pavel Bodiachevskii
+ */
+class RelabelProgramTest {
+
+    @Test
+    void targetLabelTemplateOfReplace() {
+        assertDoesNotThrow(() -> compile(config(Action.REPLACE, "${1}_$name", "$1")));
+        assertInvalid(
+                config(Action.REPLACE, "$1-x", "$1"),
+                "relabel config [0]: \"$1-x\" is invalid 'target_label' for replace action"
+        );
+        assertInvalid(
+                config(Action.REPLACE, "${}", "$1"),
+                "relabel config [0]: \"${}\" is invalid 'target_label' for replace action"
+        );
+    }
+
+    @Test
+    void targetLabelOfLowercaseAndUppercase() {
+        assertInvalid(
+                config(Action.LOWERCASE, "$1", null),
+                "relabel config [0]: \"$1\" is invalid 'target_label' for lowercase action"
+        );
+        assertInvalid(
+                config(Action.UPPERCASE, "1a", null),
+                "relabel config [0]: \"1a\" is invalid 'target_label' for uppercase action"
+        );
+    }
+
+    @Test
+    void replacementOfLowercaseAndUppercase() {
+        assertInvalid(
+                config(Action.LOWERCASE, "a", "x"),
+                "relabel config [0]: 'replacement' can not be set for lowercase action"
+        );
+        assertInvalid(
+                config(Action.UPPERCASE, "a", "x"),
+                "relabel config [0]: 'replacement' can not be set for uppercase action"
+        );
+    }
+
+    @Test
+    void replacementOfLabelmap() {
+        assertDoesNotThrow(() -> compile(config(Action.LABELMAP, null, "tag_${1}")));
+        assertInvalid(
+                config(Action.LABELMAP, null, "tag-$1"),
+                "relabel config [0]: \"tag-$1\" is invalid 'replacement' for labelmap action"
+        );
+    }
+
+    @Test
+    void targetLabelOfHashmod() {
+        PrometheusRelabelConfig hashmod = config(Action.HASHMOD, "$1", null);
+        hashmod.setModulus(8);
+
+        assertInvalid(hashmod, "relabel config [0]: \"$1\" is invalid 'target_label' for hashmod action");
+    }
+
+    @Test
+    void statsCountMatchesOnce() {
+        RelabelProgram program = RelabelProgram.compile(Arrays.asList(
+                PrometheusRelabelConfig.builder().source_labels(Collections.singletonList("a")).regex("a(.*)")
+                        .target_label("b").replacement("$1").action(Action.REPLACE).build(),
+                PrometheusRelabelConfig.builder().regex("c").replacement("d").action(Action.LABELMAP).build(),
+                PrometheusRelabelConfig.builder().source_labels(Collections.singletonList("a")).regex("x.*")
+                        .action(Action.DROP).build()
+        ));
+        LabelSet[] labels = {
+                LabelSet.of("a", "ab"), LabelSet.of("a", "ab"), LabelSet.of("a", "xy"), LabelSet.of("a", "ab", "c", "1")
+        };
+
+        RelabelProgram counted = program.withStats();
+        for (LabelSet labelSet : labels) {
+            counted.apply(labelSet);
+        }
+        RelabelProgram batched = program.withStats();
+        LabelSetBatch batch = new LabelSetBatch();
+        for (LabelSet labelSet : labels) {
+            batch.add(labelSet);
+        }
+        batched.apply(batch);
+
+        for (RelabelStats stats : Arrays.asList(counted.stats(), batched.stats())) {
+            assertEquals(3, stats.matched(0), stats.toString());
+            assertEquals(1, stats.matched(1), stats.toString());
+            assertEquals(1, stats.matched(2), stats.toString());
+            assertEquals(1, stats.dropped(2), stats.toString());
+        }
+        assertEquals(3, batch.selected());
+
+        RelabelTrace trace = program.trace(LabelSet.of("a", "xy"));
+        assertFalse(trace.matched(0));
+        assertFalse(trace.matched(1));
+        assertTrue(trace.matched(2));
+        assertEquals(2, trace.droppedBy());
+    }
+
+    private static PrometheusRelabelConfig config(Action action, String targetLabel, String replacement) {
+        return PrometheusRelabelConfig.builder()
+                .source_labels(Collections.singletonList("a"))
+                .target_label(targetLabel)
+                .replacement(replacement)
+                .action(action)
+                .build();
+    }
+
+    private static RelabelProgram compile(PrometheusRelabelConfig relabelConfig) {
+        return RelabelProgram.compile(Collections.singletonList(relabelConfig));
+    }
+
+    private static void assertInvalid(PrometheusRelabelConfig relabelConfig, String message) {
+        PrometheusConfigException e = assertThrows(PrometheusConfigException.class, () -> compile(relabelConfig));
+        assertEquals(message, e.getMessage());
+    }
+
+}
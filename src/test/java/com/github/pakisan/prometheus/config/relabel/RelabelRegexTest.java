@@ -0,0 +1,69 @@
+package com.github.pakisan.prometheus.config.relabel;
+
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Pavel Bodiachevskii
+ */
+class RelabelRegexTest {
+
+    @Test
+    void nonCapturingGroup() {
+        RelabelRegex regex = RelabelRegex.compile("(?:foo|bar)-(.*)");
+
+        assertEquals(1, regex.groupCount());
+        assertArrayEquals(new int[]{0, 7, 4, 7}, regex.match("bar-baz"));
+        assertFalse(regex.matches("baz-bar"));
+    }
+
+    @Test
+    void flagGroups() {
+        assertTrue(RelabelRegex.compile("(?i:foo)bar").matches("FOObar"));
+        assertFalse(RelabelRegex.compile("(?i:foo)bar").matches("FOOBAR"));
+        assertTrue(RelabelRegex.compile("(?i)foo").matches("FoO"));
+        assertTrue(RelabelRegex.compile("(?s)(?i-s:a.)b").matches("Axb"));
+        assertFalse(RelabelRegex.compile("(?s)(?i-s:a.)b").matches("A\nb"));
+    }
+
+    @Test
+    void negationWithoutFlags() {
+        assertInvalid("(?-:a)", "invalid or unsupported Perl syntax: `(?-:`");
+        assertInvalid("(?-)a", "invalid or unsupported Perl syntax: `(?-)`");
+        assertInvalid("(?i-:a)", "invalid or unsupported Perl syntax: `(?i-:`");
+        assertInvalid("(?)a", "invalid or unsupported Perl syntax: `(?)`");
+    }
+
+    @Test
+    void namedGroups() {
+        RelabelRegex regex = RelabelRegex.compile("(?P<host>[^:]+):(?P<port>\\d+)");
+
+        assertEquals(2, regex.group("port"));
+        assertInvalid("(?<host>.*)", "invalid or unsupported Perl syntax: `(?<`");
+    }
+
+    @Test
+    void nestedRepeatCounts() {
+        RelabelRegex.check("(a{10}){100}");
+        RelabelRegex.check("(?:a{2}){500}");
+        RelabelRegex.check("(a{500})(b{2}){2}");
+        RelabelRegex.check("(a{0}){1000}");
+        RelabelRegex.check("(a{2,}){500}");
+        assertInvalid("(a{1000}){1000}", "invalid repeat count: `{1000}`");
+        assertInvalid("((a{10}){10}){11}", "invalid repeat count: `{11}`");
+        assertInvalid("(a{1000}|b){2}", "invalid repeat count: `{2}`");
+        assertInvalid("(a(b{2,3}c)*){334}", "invalid repeat count: `{334}`");
+    }
+
+    private static void assertInvalid(String regex, String message) {
+        PrometheusConfigException e = assertThrows(PrometheusConfigException.class, () -> RelabelRegex.check(regex));
+        assertTrue(e.getMessage().contains(message), e.getMessage());
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.github.pakisan.prometheus.config.validation;
+
+import com.github.pakisan.prometheus.config.PrometheusConfig;
+import com.github.pakisan.prometheus.config.PrometheusGlobalConfig;
+import com.github.pakisan.prometheus.config.PrometheusRelabelConfig;
+import com.github.pakisan.prometheus.config.scrape.PrometheusScrapeConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Pavel Bodiachevskii
+ */
+class ConfigRulesTest {
+
+    @Test
+    void violationsAreInOrderOfConfiguration() {
+        List<PrometheusScrapeConfig> scrapeConfigs = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            PrometheusScrapeConfig scrapeConfig = new PrometheusScrapeConfig();
+            scrapeConfig.setJob_name(i == 5 ? "job1" : "job" + i);
+            scrapeConfigs.add(scrapeConfig);
+        }
+        PrometheusRelabelConfig relabelConfig = new PrometheusRelabelConfig();
+        relabelConfig.setRegex("(a");
+        relabelConfig.setAction(PrometheusRelabelConfig.Action.KEEP);
+        scrapeConfigs.get(0).setRelabel_configs(Collections.singletonList(relabelConfig));
+        PrometheusConfig config = new PrometheusConfig();
+        config.setScrape_configs(scrapeConfigs);
+
+        List<ConfigViolation> violations = ConfigRules.validate(config, null);
+
+        assertEquals(2, violations.size(), violations.toString());
+        assertEquals("scrape_configs[0].relabel_configs[0].regex", violations.get(0).getPath());
+        assertEquals("scrape_configs[5].job_name", violations.get(1).getPath());
+        assertEquals("found multiple scrape configs with job name \"job1\"", violations.get(1).getMessage());
+    }
+
+    @Test
+    void defaultScrapeTimeoutIsCappedByScrapeInterval() {
+        PrometheusGlobalConfig global = new PrometheusGlobalConfig();
+        global.setScrape_interval("5s");
+        PrometheusScrapeConfig scrapeConfig = new PrometheusScrapeConfig();
+        scrapeConfig.setJob_name("node");
+        PrometheusConfig config = new PrometheusConfig();
+        config.setGlobal(global);
+        config.setScrape_configs(Collections.singletonList(scrapeConfig));
+
+        assertEquals(Collections.emptyList(), ConfigRules.validate(config, null));
+
+        global.setScrape_timeout("30s");
+        List<ConfigViolation> violations = ConfigRules.validate(config, null);
+
+        assertEquals(1, violations.size(), violations.toString());
+        assertEquals("global.scrape_timeout", violations.get(0).getPath());
+        assertEquals("global scrape timeout greater than scrape interval", violations.get(0).getMessage());
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.github.pakisan.prometheus.config.yaml;
+
+import com.github.pakisan.prometheus.config.PrometheusConfig;
+import com.github.pakisan.prometheus.config.PrometheusConfigException;
+import com.github.pakisan.prometheus.config.scrape.PrometheusScrapeConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Pavel Bodiachevskii
+ */
+class PrometheusConfigReaderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void nestedAliasesAreRejected() throws IOException {
+        StringBuilder laughs = new StringBuilder("scrape_configs:\n  - job_name: node\n    params:\n");
+        laughs.append("      l0: &l0 [lol, lol, lol, lol, lol, lol, lol, lol, lol]\n");
+        for (int level = 1; level < 10; level++) {
+            laughs.append("      l").append(level).append(": &l").append(level).append(" [");
+            for (int i = 0; i < 9; i++) {
+                laughs.append(i == 0 ? "" : ", ").append("*l").append(level - 1);
+            }
+            laughs.append("]\n");
+        }
+        Path path = Files.write(directory.resolve("prometheus.yml"), laughs.toString().getBytes(StandardCharsets.UTF_8));
+
+        PrometheusConfigException exception = assertThrows(
+                PrometheusConfigException.class, () -> new PrometheusConfigReader().readLazily(path)
+        );
+
+        assertTrue(exception.getMessage().contains("document contains excessive aliasing"), exception.getMessage());
+    }
+
+    @Test
+    void aliasesAreResolved() {
+        StringBuilder config = new StringBuilder("scrape_configs:\n");
+        config.append("  - job_name: job0\n    params: &params {module: [http_2xx, tcp_connect]}\n");
+        for (int i = 1; i < 500; i++) {
+            config.append("  - job_name: job").append(i).append("\n    params: *params\n");
+        }
+
+        PrometheusConfig read = new PrometheusConfigReader().read(new StringReader(config.toString()));
+
+        assertEquals(500, read.getScrape_configs().size());
+        PrometheusScrapeConfig last = read.getScrape_configs().get(499);
+        assertEquals(Arrays.asList("http_2xx", "tcp_connect"), last.getParams().get("module"));
+    }
+
+}
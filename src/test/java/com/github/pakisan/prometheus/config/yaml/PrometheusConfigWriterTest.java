@@ -0,0 +1,41 @@
+package com.github.pakisan.prometheus.config.yaml;
+
+import com.github.pakisan.prometheus.config.PrometheusConfig;
+import com.github.pakisan.prometheus.config.scrape.PrometheusScrapeConfig;
+import com.github.pakisan.prometheus.config.servicediscovery.ConsulSdConfig;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Pavel Bodiachevskii
+ */
+class PrometheusConfigWriterTest {
+
+    @Test
+    void builtSectionsWriteOnlyWhatIsSet() throws IOException {
+        PrometheusScrapeConfig scrapeConfig = PrometheusScrapeConfig.builder()
+                .job_name("node")
+                .consul_sd_configs(Collections.singletonList(ConsulSdConfig.builder().services(Collections.singletonList("node")).build()))
+                .build();
+        PrometheusConfig config = new PrometheusConfig();
+        config.setScrape_configs(Collections.singletonList(scrapeConfig));
+
+        StringWriter written = new StringWriter();
+        new PrometheusConfigWriter().write(config, written);
+
+        assertEquals(new PrometheusScrapeConfig().isHonor_timestamps(), scrapeConfig.isHonor_timestamps());
+        assertEquals(new ConsulSdConfig().isEnable_http2(), scrapeConfig.getConsul_sd_configs().get(0).isEnable_http2());
+        assertEquals(
+                "scrape_configs:\n  - job_name: node\n    consul_sd_configs:\n      - services:\n          - node\n",
+                written.toString()
+        );
+        assertEquals(config, new PrometheusConfigReader().read(new StringReader(written.toString())));
+    }
+
+}